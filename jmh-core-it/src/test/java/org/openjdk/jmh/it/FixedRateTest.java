@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.FixedRateResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if fixed rate mode follows the schedule, and accounts for the missed schedule.
+ */
+@BenchmarkMode(Mode.FixedRate)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, time = 1)
+@Fork(1)
+public class FixedRateTest {
+
+    @Benchmark
+    public void test() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    @Test
+    public void invokeUnderloaded() throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .targetRate(20)
+                .build();
+
+        FixedRateResult r = (FixedRateResult) new Runner(opt).runSingle().getPrimaryResult();
+        Assert.assertEquals(20, r.getAchievedRate(), 5);
+        Assert.assertEquals(0, r.getMissedCount());
+        Assert.assertTrue("Response time is too large: " + r.getScore(), r.getScore() < 50);
+    }
+
+    @Test
+    public void invokeOverloaded() throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .targetRate(200)
+                .build();
+
+        // the benchmark is unable to keep up with the schedule, and the queueing delay
+        // should be accounted in the response time, instead of being omitted
+        FixedRateResult r = (FixedRateResult) new Runner(opt).runSingle().getPrimaryResult();
+        Assert.assertTrue("Achieved rate is too large: " + r.getAchievedRate(), r.getAchievedRate() < 150);
+        Assert.assertTrue("Should have missed the schedule", r.getMissedCount() > 0);
+        Assert.assertTrue("Response time is too small: " + r.getScore(), r.getScore() > 100);
+    }
+
+}
@@ -24,12 +24,16 @@
  */
 package org.openjdk.jmh.it;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 public class Fixtures {
 
     private static final int REPS = Integer.getInteger("jmh.it.reps", 1);
 
+    /** JDK 21+ home to fork the virtual thread tests with */
+    private static final String JDK21 = System.getProperty("jmh.it.jdk21");
+
     public static int repetitionCount() {
         return REPS;
     }
@@ -38,6 +42,24 @@ public class Fixtures {
         return ".*" + klass.getCanonicalName().replaceAll("org\\.openjdk\\.jmh\\.it", "").replaceAll("\\.",".*\\\\.") + ".*";
     }
 
+    /**
+     * Virtual threads need JDK 21+, which is usually not the VM running the tests.
+     * Set -Djmh.it.jdk21=&lt;JDK home&gt; to fork the virtual thread tests with that JDK.
+     *
+     * @return JVM binary to fork the virtual thread tests with; null, if there is none
+     */
+    public static String getVirtualThreadsJvm() {
+        if (JDK21 != null) {
+            return new File(JDK21, "bin" + File.separator + "java").getAbsolutePath();
+        }
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return new File(System.getProperty("java.home"), "bin" + File.separator + "java").getAbsolutePath();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     public static void work() {
         // courtesy for parallel-running tests
         try {
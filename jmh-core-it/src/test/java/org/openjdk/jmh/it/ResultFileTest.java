@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.BinaryResultFormat;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if result files are written out as benchmarks complete.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class ResultFileTest {
+
+    @Benchmark
+    public void test1() {
+        Fixtures.work();
+    }
+
+    @Benchmark
+    public void test2() {
+        Fixtures.work();
+    }
+
+    private Collection<RunResult> run(ResultFormatType type, String file) throws RunnerException {
+        return run(type, file, 1);
+    }
+
+    private Collection<RunResult> run(ResultFormatType type, String file, int forks) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .forks(forks)
+                .resultFormat(type)
+                .result(file)
+                .build();
+        return new Runner(opt).run();
+    }
+
+    @Test
+    public void invokeBinary() throws RunnerException, IOException {
+        String file = FileUtils.tempFile("result").getAbsolutePath();
+        Collection<RunResult> results = run(ResultFormatType.BINARY, file);
+
+        Collection<RunResult> read = BinaryResultFormat.read(file);
+        Assert.assertEquals(results.size(), read.size());
+        for (RunResult r : read) {
+            Assert.assertEquals(Mode.AverageTime, r.getParams().getMode());
+        }
+    }
+
+    @Test
+    public void invokeBinaryEmbedded() throws RunnerException, IOException {
+        String file = FileUtils.tempFile("result").getAbsolutePath();
+        Collection<RunResult> results = run(ResultFormatType.BINARY, file, 0);
+
+        Collection<RunResult> read = BinaryResultFormat.read(file);
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(results.size(), read.size());
+    }
+
+    @Test
+    public void invokeJSON() throws RunnerException, IOException {
+        String file = FileUtils.tempFile("result").getAbsolutePath();
+        run(ResultFormatType.JSON, file);
+
+        String content = Utils.join(FileUtils.readAllLines(new File(file)), "\n").trim();
+        Assert.assertTrue(content.startsWith("["));
+        Assert.assertTrue(content.endsWith("]"));
+        Assert.assertTrue(content.contains(".test1\""));
+        Assert.assertTrue(content.contains(".test2\""));
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.fork;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if forks recorded in the journal are not run again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 2, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+public class ForkedResumeTest {
+
+    @Benchmark
+    public void test() {
+        Fixtures.work();
+    }
+
+    private RunResult run(String journal) throws RunnerException {
+        return run(journal, 2);
+    }
+
+    private RunResult run(String journal, int iterations) throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .measurementIterations(iterations)
+                .resumeJournal(journal)
+                .build();
+        return new Runner(opts).runSingle();
+    }
+
+    @Test
+    public void invokeAPI() throws RunnerException, IOException {
+        File journal = FileUtils.tempFile("journal");
+        Assert.assertTrue(journal.delete());
+
+        RunResult first = run(journal.getAbsolutePath());
+        Assert.assertTrue(journal.length() > 0);
+
+        // everything is completed, results should come from the journal verbatim
+        RunResult second = run(journal.getAbsolutePath());
+        Assert.assertEquals(first.getBenchmarkResults().size(), second.getBenchmarkResults().size());
+        Assert.assertEquals(first.getPrimaryResult().getScore(), second.getPrimaryResult().getScore(), 0);
+        Assert.assertEquals(first.getPrimaryResult().getSampleCount(), second.getPrimaryResult().getSampleCount());
+    }
+
+    @Test
+    public void invokeAPI_Torn() throws RunnerException, IOException {
+        File journal = FileUtils.tempFile("journal");
+        Assert.assertTrue(journal.delete());
+
+        run(journal.getAbsolutePath());
+
+        // simulate the crash while recording the last fork
+        RandomAccessFile raf = new RandomAccessFile(journal, "rw");
+        raf.setLength(raf.length() - 1);
+        raf.close();
+
+        RunResult second = run(journal.getAbsolutePath());
+        Assert.assertEquals(2, second.getBenchmarkResults().size());
+    }
+
+    @Test
+    public void invokeAPI_Mismatch() throws RunnerException, IOException {
+        File journal = FileUtils.tempFile("journal");
+        Assert.assertTrue(journal.delete());
+
+        run(journal.getAbsolutePath(), 2);
+
+        // journaled forks were run with different measurement, should run again
+        RunResult second = run(journal.getAbsolutePath(), 3);
+        Assert.assertEquals(2, second.getBenchmarkResults().size());
+        for (BenchmarkResult br : second.getBenchmarkResults()) {
+            Assert.assertEquals(3, br.getIterationResults().size());
+        }
+    }
+
+    @Test
+    public void invokeAPI_MismatchProfilers() throws RunnerException, IOException {
+        File journal = FileUtils.tempFile("journal");
+        Assert.assertTrue(journal.delete());
+
+        run(journal.getAbsolutePath());
+
+        // journaled forks were run without the profiler, should run again
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .measurementIterations(2)
+                .addProfiler(GCProfiler.class)
+                .resumeJournal(journal.getAbsolutePath())
+                .build();
+        RunResult second = new Runner(opts).runSingle();
+        Assert.assertEquals(2, second.getBenchmarkResults().size());
+        Assert.assertNotNull("Profiler results are reported", second.getSecondaryResults().get("@gc.count.profiled"));
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.AllocationProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if allocation profiler reports the normalized allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class AllocationProfilerTest {
+
+    @Benchmark
+    public Object allocating() {
+        return new byte[1024];
+    }
+
+    @Benchmark
+    public List<?> nonAllocating() {
+        return null;
+    }
+
+    private double normAlloc(String method) throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()) + "." + method + "$")
+                .addProfiler(AllocationProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        Result r = rr.getSecondaryResults().get("@alloc.rate.norm");
+        Assert.assertNotNull("Normalized allocation is reported", r);
+        return r.getScore();
+    }
+
+    @Test
+    public void testAllocating() throws RunnerException {
+        double norm = normAlloc("allocating");
+        Assert.assertTrue("Allocates at least the array: " + norm, norm >= 1024);
+        Assert.assertTrue("Allocates not much more than array: " + norm, norm < 2048);
+    }
+
+    @Test
+    public void testNonAllocating() throws RunnerException {
+        double norm = normAlloc("nonAllocating");
+        Assert.assertTrue("Allocates nearly nothing: " + norm, norm < 1);
+    }
+
+    @Test
+    public void testVirtual() throws RunnerException {
+        String jvm = Fixtures.getVirtualThreadsJvm();
+        Assume.assumeTrue(jvm != null);
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()) + ".allocating$")
+                .addProfiler(AllocationProfiler.class)
+                .jvm(jvm)
+                .jvmArgsAppend("-Djmh.executor=VIRTUAL")
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        // virtual workers have no allocated bytes counters
+        Assert.assertNull("Normalized allocation is not reported", rr.getSecondaryResults().get("@alloc.rate.norm"));
+        Assert.assertNotNull("Allocation rate is reported", rr.getSecondaryResults().get("@alloc.rate"));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.ContentionProfiler;
+import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if contention profiler reports the blocked workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionProfilerTest {
+
+    private final Object lock = new Object();
+
+    @Benchmark
+    public void contended() throws InterruptedException {
+        synchronized (lock) {
+            TimeUnit.MICROSECONDS.sleep(100);
+        }
+    }
+
+    @Test
+    public void test() throws RunnerException {
+        Assume.assumeTrue(ProfilerFactory.checkSupport(ContentionProfiler.class, new ArrayList<String>()));
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(ContentionProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        Result count = rr.getSecondaryResults().get("@contention.blocked.count");
+        Assert.assertNotNull("Blocked count is reported", count);
+        Assert.assertTrue("Contended workers are blocked: " + count.getScore(), count.getScore() > 0);
+
+        Result norm = rr.getSecondaryResults().get("@contention.blocked.time.norm");
+        Assert.assertNotNull("Blocked time per op is reported", norm);
+        Assert.assertTrue("Contended workers wait for the lock: " + norm.getScore(), norm.getScore() > 0);
+
+        Assert.assertNotNull(rr.getSecondaryResults().get("@contention.waited.count"));
+        Assert.assertNotNull(rr.getSecondaryResults().get("@contention"));
+    }
+
+}
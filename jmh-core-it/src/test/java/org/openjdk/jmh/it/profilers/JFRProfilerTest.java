@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.JFRProfiler;
+import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ThreadSweep;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if JFR profiler summarizes the recording of measurement iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class JFRProfilerTest {
+
+    @Benchmark
+    public Object allocating() {
+        return new byte[1024];
+    }
+
+    @Test
+    public void test() throws RunnerException {
+        Assume.assumeTrue(ProfilerFactory.checkSupport(JFRProfiler.class, new ArrayList<String>()));
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(JFRProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        check(new Runner(opts).runSingle());
+    }
+
+    @Test
+    public void testAdaptive() throws RunnerException {
+        Assume.assumeTrue(ProfilerFactory.checkSupport(JFRProfiler.class, new ArrayList<String>()));
+
+        // the target error is always met, the measurement stops well before the maximum count
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(JFRProfiler.class)
+                .measurementIterations(20)
+                .targetError(1000)
+                .minMeasurementIterations(2)
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        int iterations = rr.getBenchmarkResults().iterator().next().getIterationResults().size();
+        Assert.assertTrue("Measurement stops early: " + iterations, iterations < 20);
+        check(rr);
+    }
+
+    @Test
+    public void testSweep() throws RunnerException, IOException {
+        Assume.assumeTrue(ProfilerFactory.checkSupport(JFRProfiler.class, new ArrayList<String>()));
+
+        File dir = File.createTempFile("jmh-jfr", "");
+        Assert.assertTrue(dir.delete() && dir.mkdirs());
+
+        System.setProperty("jmh.jfr.saveTo", dir.getAbsolutePath());
+        try {
+            Options opts = new OptionsBuilder()
+                    .include(Fixtures.getTestMask(this.getClass()))
+                    .addProfiler(JFRProfiler.class)
+                    .threadSweep(ThreadSweep.fromString("1..2"))
+                    .shouldFailOnError(true)
+                    .build();
+            Collection<RunResult> results = new Runner(opts).run();
+            Assert.assertEquals(2, results.size());
+
+            // every thread count saves its own recording
+            String[] saved = dir.list();
+            Assert.assertNotNull(saved);
+            Assert.assertEquals(Arrays.toString(saved), 2, saved.length);
+        } finally {
+            System.clearProperty("jmh.jfr.saveTo");
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    f.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    private static void check(RunResult rr) {
+        Result jfr = rr.getSecondaryResults().get("@jfr");
+        Assert.assertNotNull("JFR summary is reported", jfr);
+
+        String info = jfr.extendedInfo(null);
+        Assert.assertTrue(info, info.contains("Hot methods"));
+
+        Result alloc = rr.getSecondaryResults().get("@jfr.alloc.inTLAB");
+        Assert.assertNotNull("TLAB allocations are reported", alloc);
+        Assert.assertTrue("Allocates in TLABs: " + alloc.getScore(), alloc.getScore() > 0);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.LinuxProcProfiler;
+import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if /proc profiler reports the worker CPU time and context switches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class LinuxProcProfilerTest {
+
+    @Benchmark
+    public void sleeping() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(1);
+    }
+
+    @Test
+    public void test() throws RunnerException {
+        Assume.assumeTrue(ProfilerFactory.checkSupport(LinuxProcProfiler.class, new ArrayList<String>()));
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(LinuxProcProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        Result vol = rr.getSecondaryResults().get("@proc.ctxsw.voluntary");
+        Assert.assertNotNull("Voluntary context switches are reported", vol);
+        Assert.assertTrue("Sleeping worker switches voluntarily: " + vol.getScore(), vol.getScore() > 10);
+
+        Assert.assertNotNull(rr.getSecondaryResults().get("@proc.cpu.user"));
+        Assert.assertNotNull(rr.getSecondaryResults().get("@proc.faults.minor"));
+        Assert.assertNotNull(rr.getSecondaryResults().get("@proc.rss.growth"));
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.threads;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ThreadPlacementResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ThreadPlacement;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if worker threads are pinned to the requested CPUs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 0)
+@Measurement(iterations = 2, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(2)
+@State(Scope.Thread)
+public class ThreadPlacementTest {
+
+    @Benchmark
+    public void test() throws IOException {
+        for (String line : FileUtils.readAllLines(new File("/proc/thread-self/status"))) {
+            if (line.startsWith("Cpus_allowed_list:")) {
+                String cpus = line.substring(line.indexOf(':') + 1).trim();
+                if (!cpus.equals("0")) {
+                    throw new IllegalStateException("Worker is not pinned to CPU 0: " + cpus);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void invokeAPI() throws RunnerException {
+        Assume.assumeTrue(new File("/proc/thread-self/status").exists());
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .threadPlacement(ThreadPlacement.cpus("0"))
+                .shouldFailOnError(true)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        Result r = rr.getSecondaryResults().get("@placement");
+        Assert.assertTrue("Placement is recorded", r instanceof ThreadPlacementResult);
+
+        ThreadPlacementResult pr = (ThreadPlacementResult) r;
+        Assert.assertEquals("0", pr.getPolicy());
+        Assert.assertEquals(2, pr.getThreads().size());
+        Assert.assertTrue(pr.getThreads().get(1), pr.getThreads().get(1).startsWith("CPU 0 "));
+    }
+
+}
@@ -80,7 +80,21 @@ public enum Mode {
     SingleShotTime("ss", "Single shot invocation time"),
 
     /**
-     * Meta-mode: all the benchmark modes.
+     * <p>Fixed rate: measures the response time at the fixed offered load.</p>
+     *
+     * <p>Runs by calling {@link Benchmark} methods on a fixed schedule, as set by
+     * {@link org.openjdk.jmh.runner.options.Options#getTargetRate()}. The time for each call is measured
+     * from its intended start time, not from the actual one: when the benchmark falls behind the schedule,
+     * the queueing delay is accounted for in the subsequent calls, instead of being silently omitted.
+     * Every call is recorded, and achieved rate and the number of missed schedule slots are reported
+     * along with the response time percentiles. This mode is time-based, and it will run until
+     * the iteration time expires.</p>
+     */
+    FixedRate("rate", "Fixed rate response time, time/op"),
+
+    /**
+     * Meta-mode: all the benchmark modes, except {@link #FixedRate},
+     * which only runs when requested explicitly.
      * This is mostly useful for internal JMH testing.
      */
     All("all", "All benchmark modes"),
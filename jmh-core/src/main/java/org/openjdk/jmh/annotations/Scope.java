@@ -56,6 +56,24 @@ public enum Scope {
      */
     Group,
 
+    /**
+     * <p>NUMA node state scope.</p>
+     *
+     * <p>With node scope, all instances of the same type will be shared across all
+     * worker threads placed on the same NUMA node. Each node will be supplied with its
+     * own state object, which is instantiated and initialized by one of the threads
+     * on that node, so that the memory is allocated node-local on the first touch.</p>
+     *
+     * <p>Threads are only placed on nodes when the thread placement policy is given
+     * (see {@code -tp}); otherwise, all threads are considered to be on the same node,
+     * and this scope behaves like {@link #Benchmark}.</p>
+     *
+     * <p>{@link Setup} and {@link TearDown} methods on this state object would be performed
+     * by one of the node threads, and only once per {@link Level}.
+     * No other threads would ever touch the state object.</p>
+     */
+    Node,
+
     /**
      * <p>Thread state scope.</p>
      *
@@ -30,6 +30,7 @@ import org.openjdk.jmh.annotations.CompilerControl;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Group;
 import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Inflight;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
@@ -45,9 +46,11 @@ import org.openjdk.jmh.results.AverageTimeResult;
 import org.openjdk.jmh.results.RawResults;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.results.FixedRateResult;
 import org.openjdk.jmh.results.SampleTimeResult;
 import org.openjdk.jmh.results.SingleShotResult;
 import org.openjdk.jmh.results.ThroughputResult;
+import org.openjdk.jmh.runner.AsyncOperations;
 import org.openjdk.jmh.runner.BenchmarkList;
 import org.openjdk.jmh.runner.BenchmarkListEntry;
 import org.openjdk.jmh.runner.Defaults;
@@ -71,6 +74,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Benchmark generator.
@@ -83,6 +87,32 @@ public class BenchmarkGenerator {
 
     private static final String JMH_STUB_SUFFIX = "_jmhStub";
 
+    /**
+     * Fixed rate stubs spin-wait for the last part of the schedule interval, since parking is too coarse.
+     */
+    private static final long FIXED_RATE_SPIN_NS = 50000;
+
+    /**
+     * Return types completing the asynchronous operations with callbacks.
+     */
+    private static final Set<String> COMPLETION_STAGES = new HashSet<String>(Arrays.asList(
+            "java.util.concurrent.CompletionStage",
+            "java.util.concurrent.CompletableFuture"
+    ));
+
+    /**
+     * Return types completing the asynchronous operations without callbacks.
+     */
+    private static final Set<String> FUTURES = new HashSet<String>(Arrays.asList(
+            "java.util.concurrent.Future",
+            "java.util.concurrent.RunnableFuture",
+            "java.util.concurrent.FutureTask",
+            "java.util.concurrent.ScheduledFuture",
+            "java.util.concurrent.RunnableScheduledFuture",
+            "java.util.concurrent.ForkJoinTask",
+            "java.util.concurrent.RecursiveTask"
+    ));
+
     private final Set<BenchmarkInfo> benchmarkInfos;
     private final CompilerControlPlugin compilerControl;
     private final Set<String> processedBenchmarks;
@@ -378,6 +408,12 @@ public class BenchmarkGenerator {
                 throw new GenerationException("The " + OperationsPerInvocation.class.getSimpleName() +
                         " needs to be greater than 0.", m);
             }
+
+            Inflight inflight = BenchmarkGeneratorUtils.getAnnSuper(m, clazz, Inflight.class);
+            if (inflight != null && inflight.value() < 1) {
+                throw new GenerationException("The " + Inflight.class.getSimpleName() +
+                        " needs to be greater than 0.", m);
+            }
         }
 
         // validate @Group-s
@@ -569,10 +605,10 @@ public class BenchmarkGenerator {
         Class<?>[] imports = new Class<?>[]{
                 List.class, AtomicInteger.class,
                 Collection.class, ArrayList.class,
-                TimeUnit.class, Generated.class, CompilerControl.class,
-                InfraControl.class, ThreadParams.class,
+                TimeUnit.class, LockSupport.class, Generated.class, CompilerControl.class,
+                InfraControl.class, ThreadParams.class, AsyncOperations.class,
                 Result.class, ThroughputResult.class, AverageTimeResult.class,
-                SampleTimeResult.class, SingleShotResult.class, SampleBuffer.class,
+                SampleTimeResult.class, SingleShotResult.class, FixedRateResult.class, SampleBuffer.class,
                 Mode.class, Fork.class, Measurement.class, Threads.class, Warmup.class,
                 BenchmarkMode.class, RawResults.class, ResultRole.class,
                 Field.class, BenchmarkParams.class, IterationParams.class
@@ -602,6 +638,9 @@ public class BenchmarkGenerator {
             case SingleShotTime:
                 generateSingleShotTime(classInfo, writer, benchmarkKind, methodGroup, states);
                 break;
+            case FixedRate:
+                generateFixedRate(classInfo, writer, benchmarkKind, methodGroup, states);
+                break;
             default:
                 throw new AssertionError("Shouldn't be here");
         }
@@ -627,6 +666,7 @@ public class BenchmarkGenerator {
 
             // synchronize iterations prolog: catchup loop
             writer.println(ident(3) + "while (control.warmupShouldWait) {");
+            writer.println(ident(4) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 4, method, states, false);
             writer.println(ident(4) + emitCall(method, states) + ';');
@@ -642,8 +682,13 @@ public class BenchmarkGenerator {
 
             // measurement loop call
             writer.println(ident(3) + "RawResults res = new RawResults(control.benchmarkParams.getOpsPerInvocation());");
+            if (isAsync(method)) {
+                writer.println(ident(3) + "AsyncOperations async = new AsyncOperations(" + getInflight(classInfo, method) + ");");
+            }
+            writer.println(ident(3) + "control.markMeasurementStart();");
             writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX +
-                    "(control, res" + prefix(states.getArgList(method)) + ");");
+                    "(control, res" + (isAsync(method) ? ", async" : "") + prefix(states.getArgList(method)) + ");");
+            writer.println(ident(3) + "control.markMeasurementEnd();");
 
             // pretend we did the batched run; there is no reason to have an additional loop,
             // when JMH stub already is optimized.
@@ -660,6 +705,7 @@ public class BenchmarkGenerator {
             // synchronize iterations epilog: catchup loop
             writer.println(ident(3) + "try {");
             writer.println(ident(4) + "while (control.warmdownShouldWait) {");
+            writer.println(ident(5) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 5, method, states, false);
             writer.println(ident(5) + emitCall(method, states) + ';');
@@ -674,11 +720,15 @@ public class BenchmarkGenerator {
             // iteration prolog
             iterationEpilog(writer, 3, method, states);
 
+            writer.println(ident(3) + "control.addMeasuredOps(res.getOperations());");
             writer.println(ident(3) + "Collection<Result> results = new ArrayList<Result>();");
             writer.println(ident(3) + "results.add(new ThroughputResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.getOperations(), res.getTime(), control.benchmarkParams.getTimeUnit()));");
             if (!isSingleMethod) {
                 writer.println(ident(3) + "results.add(new ThroughputResult(ResultRole.SECONDARY, \"" + method.getName() + "\", res.getOperations(), res.getTime(), control.benchmarkParams.getTimeUnit()));");
             }
+            if (isAsync(method)) {
+                writer.println(ident(3) + "results.add(new SampleTimeResult(ResultRole.SECONDARY, \"" + asyncLatencyLabel(method, isSingleMethod) + "\", async.latencies(), control.benchmarkParams.getTimeUnit()));");
+            }
             for (String ops : states.getAuxResultNames(method)) {
                 writer.println(ident(3) + "results.add(new ThroughputResult(ResultRole.SECONDARY, \"" + ops + "\", " + states.getAuxResultAccessor(method, ops) + ", res.getTime(), control.benchmarkParams.getTimeUnit()));");
             }
@@ -696,21 +746,36 @@ public class BenchmarkGenerator {
 
             compilerControl.defaultForceInline(method);
 
-            writer.println(ident(1) + "public" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName + "(InfraControl control, RawResults result" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
-            writer.println(ident(2) + "long operations = 0;");
+            writer.println(ident(1) + "public" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName +
+                    "(InfraControl control, RawResults result" + (isAsync(method) ? ", final AsyncOperations async" : "") + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+            if (!isAsync(method)) {
+                writer.println(ident(2) + "long operations = 0;");
+            }
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "result.startTime = System.nanoTime();");
             writer.println(ident(2) + "do {");
 
             invocationProlog(writer, 3, method, states, true);
-            writer.println(ident(3) + emitCall(method, states) + ';');
+            if (isAsync(method)) {
+                emitAsyncCall(writer, 3, method, states);
+            } else {
+                writer.println(ident(3) + emitCall(method, states) + ';');
+            }
             invocationEpilog(writer, 3, method, states, true);
 
-            writer.println(ident(3) + "operations++;");
+            if (!isAsync(method)) {
+                writer.println(ident(3) + "operations++;");
+            }
             writer.println(ident(2) + "} while(!control.isDone);");
             writer.println(ident(2) + "result.stopTime = System.nanoTime();");
             writer.println(ident(2) + "result.realTime = realTime;");
-            writer.println(ident(2) + "result.operations = operations;");
+            if (isAsync(method)) {
+                // only the operations completed in time are counted, the rest are drained
+                writer.println(ident(2) + "result.operations = async.completed();");
+                writer.println(ident(2) + "async.awaitAll();");
+            } else {
+                writer.println(ident(2) + "result.operations = operations;");
+            }
             writer.println(ident(1) + "}");
             writer.println();
         }
@@ -736,6 +801,7 @@ public class BenchmarkGenerator {
 
             // synchronize iterations prolog: catchup loop
             writer.println(ident(3) + "while (control.warmupShouldWait) {");
+            writer.println(ident(4) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 4, method, states, false);
             writer.println(ident(4) + emitCall(method, states) + ';');
@@ -751,7 +817,13 @@ public class BenchmarkGenerator {
 
             // measurement loop call
             writer.println(ident(3) + "RawResults res = new RawResults(control.benchmarkParams.getOpsPerInvocation());");
-            writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(control, res" + prefix(states.getArgList(method)) + ");");
+            if (isAsync(method)) {
+                writer.println(ident(3) + "AsyncOperations async = new AsyncOperations(" + getInflight(classInfo, method) + ");");
+            }
+            writer.println(ident(3) + "control.markMeasurementStart();");
+            writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX +
+                    "(control, res" + (isAsync(method) ? ", async" : "") + prefix(states.getArgList(method)) + ");");
+            writer.println(ident(3) + "control.markMeasurementEnd();");
 
             // pretend we did the batched run; there is no reason to have an additional loop,
             // when JMH stub is already optimized.
@@ -768,6 +840,7 @@ public class BenchmarkGenerator {
             // synchronize iterations epilog: catchup loop
             writer.println(ident(3) + "try {");
             writer.println(ident(4) + "while (control.warmdownShouldWait) {");
+            writer.println(ident(5) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 5, method, states, false);
             writer.println(ident(5) + emitCall(method, states) + ';');
@@ -781,11 +854,15 @@ public class BenchmarkGenerator {
 
             iterationEpilog(writer, 3, method, states);
 
+            writer.println(ident(3) + "control.addMeasuredOps(res.getOperations());");
             writer.println(ident(3) + "Collection<Result> results = new ArrayList<Result>();");
             writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.getOperations(), res.getTime(), control.benchmarkParams.getTimeUnit()));");
             if (!isSingleMethod) {
                 writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.SECONDARY, \"" + method.getName() + "\", res.getOperations(), res.getTime(), control.benchmarkParams.getTimeUnit()));");
             }
+            if (isAsync(method)) {
+                writer.println(ident(3) + "results.add(new SampleTimeResult(ResultRole.SECONDARY, \"" + asyncLatencyLabel(method, isSingleMethod) + "\", async.latencies(), control.benchmarkParams.getTimeUnit()));");
+            }
             for (String ops : states.getAuxResultNames(method)) {
                 writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.SECONDARY, \"" + ops + "\", " + states.getAuxResultAccessor(method, ops) + ", res.getTime(), control.benchmarkParams.getTimeUnit()));");
             }
@@ -803,21 +880,35 @@ public class BenchmarkGenerator {
             compilerControl.defaultForceInline(method);
 
             writer.println(ident(1) + "public" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName +
-                    "(InfraControl control, RawResults result" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
-            writer.println(ident(2) + "long operations = 0;");
+                    "(InfraControl control, RawResults result" + (isAsync(method) ? ", final AsyncOperations async" : "") + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+            if (!isAsync(method)) {
+                writer.println(ident(2) + "long operations = 0;");
+            }
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "result.startTime = System.nanoTime();");
             writer.println(ident(2) + "do {");
 
             invocationProlog(writer, 3, method, states, true);
-            writer.println(ident(3) + emitCall(method, states) + ';');
+            if (isAsync(method)) {
+                emitAsyncCall(writer, 3, method, states);
+            } else {
+                writer.println(ident(3) + emitCall(method, states) + ';');
+            }
             invocationEpilog(writer, 3, method, states, true);
 
-            writer.println(ident(3) + "operations++;");
+            if (!isAsync(method)) {
+                writer.println(ident(3) + "operations++;");
+            }
             writer.println(ident(2) + "} while(!control.isDone);");
             writer.println(ident(2) + "result.stopTime = System.nanoTime();");
             writer.println(ident(2) + "result.realTime = realTime;");
-            writer.println(ident(2) + "result.operations = operations;");
+            if (isAsync(method)) {
+                // only the operations completed in time are counted, the rest are drained
+                writer.println(ident(2) + "result.operations = async.completed();");
+                writer.println(ident(2) + "async.awaitAll();");
+            } else {
+                writer.println(ident(2) + "result.operations = operations;");
+            }
             writer.println(ident(1) + "}");
             writer.println();
         }
@@ -855,6 +946,7 @@ public class BenchmarkGenerator {
 
             // synchronize iterations prolog: catchup loop
             writer.println(ident(3) + "while (control.warmupShouldWait) {");
+            writer.println(ident(4) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 4, method, states, false);
             writer.println(ident(4) + emitCall(method, states) + ';');
@@ -872,7 +964,9 @@ public class BenchmarkGenerator {
             writer.println(ident(3) + "int targetSamples = (int) (control.getDuration(TimeUnit.MILLISECONDS) * 20); // at max, 20 timestamps per millisecond");
             writer.println(ident(3) + "int batchSize = control.iterationParams.getBatchSize();");
             writer.println(ident(3) + "SampleBuffer buffer = new SampleBuffer();");
+            writer.println(ident(3) + "control.markMeasurementStart();");
             writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(control, buffer, targetSamples, control.benchmarkParams.getOpsPerInvocation(), batchSize" + prefix(states.getArgList(method)) + ");");
+            writer.println(ident(3) + "control.markMeasurementEnd();");
 
             // control objects get a special treatment
             for (StateObject so : states.getControls()) {
@@ -885,6 +979,7 @@ public class BenchmarkGenerator {
             // synchronize iterations epilog: catchup loop
             writer.println(ident(3) + "try {");
             writer.println(ident(4) + "while (control.warmdownShouldWait) {");
+            writer.println(ident(5) + "if (control.yieldInCatchup) Thread.yield();");
 
             invocationProlog(writer, 5, method, states, false);
             writer.println(ident(5) + emitCall(method, states) + ';');
@@ -898,6 +993,7 @@ public class BenchmarkGenerator {
 
             iterationEpilog(writer, 3, method, states);
 
+            writer.println(ident(3) + "control.addMeasuredOps(buffer.count() * batchSize * control.benchmarkParams.getOpsPerInvocation());");
             writer.println(ident(3) + "Collection<Result> results = new ArrayList<Result>();");
             writer.println(ident(3) + "results.add(new SampleTimeResult(ResultRole.PRIMARY, \"" + method.getName() + "\", buffer, control.benchmarkParams.getTimeUnit()));");
             if (!isSingleMethod) {
@@ -922,6 +1018,7 @@ public class BenchmarkGenerator {
             writer.println(ident(2) + "int rndMask = startRndMask;");
             writer.println(ident(2) + "long time = 0;");
             writer.println(ident(2) + "int currentStride = 0;");
+            writer.println(ident(2) + "long sampleWeight = 1;");
             writer.println(ident(2) + "do {");
 
             invocationProlog(writer, 3, method, states, true);
@@ -938,11 +1035,13 @@ public class BenchmarkGenerator {
             writer.println(ident(3) + "}");
 
             writer.println(ident(3) + "if (sample) {");
-            writer.println(ident(4) + "buffer.add((System.nanoTime() - time) / opsPerInv);");
+            writer.println(ident(4) + "buffer.add((System.nanoTime() - time) / opsPerInv, sampleWeight);");
+            // Once we have enough samples, the sampling rate halves, and each subsequent
+            // sample stands for twice as many invocations. No recorded samples are lost.
             writer.println(ident(4) + "if (currentStride++ > targetSamples) {");
-            writer.println(ident(5) + "buffer.half();");
             writer.println(ident(5) + "currentStride = 0;");
             writer.println(ident(5) + "rndMask = (rndMask << 1) + 1;");
+            writer.println(ident(5) + "sampleWeight <<= 1;");
             writer.println(ident(4) + "}");
             writer.println(ident(3) + "}");
 
@@ -956,6 +1055,143 @@ public class BenchmarkGenerator {
         }
     }
 
+    private void generateFixedRate(ClassInfo classInfo, PrintWriter writer, Mode benchmarkKind, MethodGroup methodGroup, StateObjectHandler states) {
+        writer.println(ident(1) + "public Collection<? extends Result> " + methodGroup.getName() + "_" + benchmarkKind +
+                "(InfraControl control, ThreadParams threadParams) throws Throwable {");
+
+        methodProlog(writer, methodGroup);
+
+        boolean isSingleMethod = (methodGroup.methods().size() == 1);
+        int subGroup = -1;
+        for (MethodInfo method : methodGroup.methods()) {
+            subGroup++;
+
+            writer.println(ident(2) + "if (threadParams.getSubgroupIndex() == " + subGroup + ") {");
+
+            iterationProlog(writer, 3, method, states);
+
+            // synchronize iterations prolog: announce ready
+            writer.println(ident(3) + "control.announceWarmupReady();");
+
+            // synchronize iterations prolog: catchup loop
+            writer.println(ident(3) + "while (control.warmupShouldWait) {");
+            writer.println(ident(4) + "if (control.yieldInCatchup) Thread.yield();");
+
+            invocationProlog(writer, 4, method, states, false);
+            writer.println(ident(4) + emitCall(method, states) + ';');
+            invocationEpilog(writer, 4, method, states, false);
+
+            writer.println(ident(3) + "}");
+            writer.println();
+
+            // control objects get a special treatment
+            for (StateObject so : states.getControls()) {
+                writer.println(ident(3) + so.localIdentifier + ".startMeasurement = true;");
+            }
+
+            // measurement loop call: each thread takes its share of the target rate,
+            // and the thread schedules are staggered to avoid the synchronized bursts
+            writer.println(ident(3) + "int threads = control.benchmarkParams.getThreads();");
+            writer.println(ident(3) + "long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(threads) / control.benchmarkParams.getTargetRate()));");
+            writer.println(ident(3) + "long offset = interval * threadParams.getThreadIndex() / threads;");
+            writer.println(ident(3) + "int batchSize = control.iterationParams.getBatchSize();");
+            writer.println(ident(3) + "RawResults res = new RawResults(control.benchmarkParams.getOpsPerInvocation());");
+            writer.println(ident(3) + "SampleBuffer buffer = new SampleBuffer();");
+            writer.println(ident(3) + "control.markMeasurementStart();");
+            writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(control, res, buffer, interval, offset, control.benchmarkParams.getOpsPerInvocation(), batchSize" + prefix(states.getArgList(method)) + ");");
+            writer.println(ident(3) + "control.markMeasurementEnd();");
+
+            // control objects get a special treatment
+            for (StateObject so : states.getControls()) {
+                writer.println(ident(3) + so.localIdentifier + ".stopMeasurement = true;");
+            }
+
+            // synchronize iterations epilog: announce ready
+            writer.println(ident(3) + "control.announceWarmdownReady();");
+
+            // synchronize iterations epilog: catchup loop
+            writer.println(ident(3) + "try {");
+            writer.println(ident(4) + "while (control.warmdownShouldWait) {");
+            writer.println(ident(5) + "if (control.yieldInCatchup) Thread.yield();");
+
+            invocationProlog(writer, 5, method, states, false);
+            writer.println(ident(5) + emitCall(method, states) + ';');
+            invocationEpilog(writer, 5, method, states, false);
+
+            writer.println(ident(4) + "}");
+            writer.println(ident(4) + "control.preTearDown();");
+            writer.println(ident(3) + "} catch (InterruptedException ie) {");
+            writer.println(ident(4) + "control.preTearDownForce();");
+            writer.println(ident(3) + "}");
+
+            iterationEpilog(writer, 3, method, states);
+
+            writer.println(ident(3) + "control.addMeasuredOps(res.getOperations());");
+            writer.println(ident(3) + "Collection<Result> results = new ArrayList<Result>();");
+            writer.println(ident(3) + "results.add(new FixedRateResult(ResultRole.PRIMARY, \"" + method.getName() + "\", buffer, res.operations, res.missed, res.getTime(), control.benchmarkParams.getTimeUnit()));");
+            if (!isSingleMethod) {
+                writer.println(ident(3) + "results.add(new FixedRateResult(ResultRole.SECONDARY, \"" + method.getName() + "\", buffer, res.operations, res.missed, res.getTime(), control.benchmarkParams.getTimeUnit()));");
+            }
+            writer.println(ident(3) + "return results;");
+            writer.println(ident(2) + "} else");
+        }
+        writer.println(ident(3) + "throw new IllegalStateException(\"Harness failed to distribute threads among groups properly\");");
+        writer.println(ident(1) + "}");
+
+        writer.println();
+
+        // measurement loop bodies
+        for (MethodInfo method : methodGroup.methods()) {
+            String methodName = method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX;
+            compilerControl.defaultForceInline(method);
+
+            writer.println(ident(1) + "public" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName + "(InfraControl control, RawResults result, SampleBuffer buffer, long interval, long offset, long opsPerInv, int batchSize" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+            writer.println(ident(2) + "long operations = 0;");
+            writer.println(ident(2) + "long missed = 0;");
+            writer.println(ident(2) + "long realTime = 0;");
+            writer.println(ident(2) + "result.startTime = System.nanoTime();");
+            writer.println(ident(2) + "long intendedTime = result.startTime + offset;");
+            writer.println(ident(2) + "do {");
+
+            invocationProlog(writer, 3, method, states, true);
+
+            // Wait for the intended start: park while the deadline is far away, then spin.
+            // If we are already late, do not wait, and do not move the schedule either:
+            // the accumulated delay should be visible in the subsequent response times.
+            writer.println(ident(3) + "long startTime;");
+            writer.println(ident(3) + "while ((startTime = System.nanoTime()) < intendedTime) {");
+            writer.println(ident(4) + "if (control.isDone) break;");
+            writer.println(ident(4) + "long wait = intendedTime - startTime;");
+            writer.println(ident(4) + "if (wait > " + FIXED_RATE_SPIN_NS + "L) LockSupport.parkNanos(wait - " + FIXED_RATE_SPIN_NS + "L);");
+            writer.println(ident(3) + "}");
+
+            // The wait could be cut short by the end of iteration, before the intended start.
+            // There is no meaningful response time for such the call, drop it.
+            writer.println(ident(3) + "if (startTime >= intendedTime) {");
+            writer.println(ident(4) + "for (int b = 0; b < batchSize; b++) {");
+            writer.println(ident(5) + "if (control.volatileSpoiler) return;");
+            writer.println(ident(5) + "" + emitCall(method, states) + ';');
+            writer.println(ident(4) + "}");
+
+            writer.println(ident(4) + "buffer.add((System.nanoTime() - intendedTime) / opsPerInv);");
+            writer.println(ident(4) + "if (startTime - intendedTime >= interval) {");
+            writer.println(ident(5) + "missed++;");
+            writer.println(ident(4) + "}");
+            writer.println(ident(4) + "intendedTime += interval;");
+            writer.println(ident(4) + "operations++;");
+            writer.println(ident(3) + "}");
+
+            invocationEpilog(writer, 3, method, states, true);
+
+            writer.println(ident(2) + "} while(!control.isDone);");
+            writer.println(ident(2) + "result.stopTime = System.nanoTime();");
+            writer.println(ident(2) + "result.operations = operations;");
+            writer.println(ident(2) + "result.missed = missed;");
+            writer.println(ident(1) + "}");
+            writer.println();
+        }
+    }
+
     private void generateSingleShotTime(ClassInfo classInfo, PrintWriter writer, Mode benchmarkKind, MethodGroup methodGroup, StateObjectHandler states) {
         writer.println(ident(1) + "public Collection<? extends Result> " + methodGroup.getName() + "_" + benchmarkKind + "(InfraControl control, ThreadParams threadParams) throws Throwable {");
 
@@ -977,7 +1213,9 @@ public class BenchmarkGenerator {
             // measurement loop call
             writer.println(ident(3) + "RawResults res = new RawResults(control.benchmarkParams.getOpsPerInvocation());");
             writer.println(ident(3) + "int batchSize = control.iterationParams.getBatchSize();");
+            writer.println(ident(3) + "control.markMeasurementStart();");
             writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(control, batchSize, res" + prefix(states.getArgList(method)) + ");");
+            writer.println(ident(3) + "control.markMeasurementEnd();");
 
             invocationEpilog(writer, 3, method, states, false);
 
@@ -985,6 +1223,7 @@ public class BenchmarkGenerator {
 
             iterationEpilog(writer, 3, method, states);
 
+            writer.println(ident(3) + "control.addMeasuredOps((long) batchSize * control.benchmarkParams.getOpsPerInvocation());");
             writer.println(ident(3) + "Collection<Result> results = new ArrayList<Result>();");
             writer.println(ident(3) + "results.add(new SingleShotResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.getTime(), control.benchmarkParams.getTimeUnit()));");
             if (!isSingleMethod) {
@@ -1069,11 +1308,59 @@ public class BenchmarkGenerator {
     private String emitCall(MethodInfo method, StateObjectHandler states) {
         if ("void".equalsIgnoreCase(method.getReturnType())) {
             return states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getGMBArgList(method) + ")";
+        } else if (isAsync(method)) {
+            // wait for the asynchronous operation to complete
+            return states.getImplicit("blackhole").localIdentifier + ".consume(AsyncOperations.join(" + states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getGMBArgList(method) + ")))";
         } else {
             return states.getImplicit("blackhole").localIdentifier + ".consume(" + states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getGMBArgList(method) + "))";
         }
     }
 
+    /**
+     * Issues the asynchronous operation, without waiting for it to complete.
+     */
+    private void emitAsyncCall(PrintWriter writer, int prefix, MethodInfo method, StateObjectHandler states) {
+        String call = states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getGMBArgList(method) + ")";
+        if (isCompletionStage(method)) {
+            writer.println(ident(prefix) + "async.acquire();");
+            writer.println(ident(prefix) + "final long asyncStart = System.nanoTime();");
+            writer.println(ident(prefix) + call + ".whenComplete(new java.util.function.BiConsumer<Object, Throwable>() {");
+            writer.println(ident(prefix + 1) + "public void accept(Object r, Throwable t) {");
+            writer.println(ident(prefix + 2) + "async.complete(asyncStart, t);");
+            writer.println(ident(prefix + 1) + "}");
+            writer.println(ident(prefix) + "});");
+        } else {
+            writer.println(ident(prefix) + "long asyncStart = System.nanoTime();");
+            writer.println(ident(prefix) + "async.submit(" + call + ", asyncStart);");
+        }
+    }
+
+    private static String erasure(String type) {
+        int idx = type.indexOf('<');
+        return (idx == -1) ? type.trim() : type.substring(0, idx).trim();
+    }
+
+    private static boolean isCompletionStage(MethodInfo method) {
+        return COMPLETION_STAGES.contains(erasure(method.getReturnType()));
+    }
+
+    /**
+     * @param method benchmark method
+     * @return true, if benchmark method returns the asynchronous operation
+     */
+    public static boolean isAsync(MethodInfo method) {
+        return isCompletionStage(method) || FUTURES.contains(erasure(method.getReturnType()));
+    }
+
+    private static int getInflight(ClassInfo classInfo, MethodInfo method) {
+        Inflight ann = BenchmarkGeneratorUtils.getAnnSuper(method, classInfo, Inflight.class);
+        return (ann != null) ? ann.value() : 1;
+    }
+
+    private static String asyncLatencyLabel(MethodInfo method, boolean isSingleMethod) {
+        return isSingleMethod ? "@async.latency" : "@async.latency." + method.getName();
+    }
+
     static String[] INDENTS = new String[0];
 
     static String ident(int tabs) {
@@ -71,7 +71,8 @@ class Identifiers {
     public String identifier(Scope scope) {
         switch (scope) {
             case Benchmark:
-            case Group: {
+            case Group:
+            case Node: {
                 return "G";
             }
             case Thread: {
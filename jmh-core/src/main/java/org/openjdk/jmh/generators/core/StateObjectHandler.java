@@ -462,7 +462,7 @@ class StateObjectHandler {
 
         // Handle Benchmark/Group object helpers
         for (StateObject so : statesForward) {
-            if (so.scope != Scope.Benchmark && so.scope != Scope.Group) continue;
+            if (so.scope != Scope.Benchmark && so.scope != Scope.Group && so.scope != Scope.Node) continue;
 
             if (type == HelperType.SETUP) {
                 result.add("while(!" + so.type + ".setup" + helperLevel + "MutexUpdater.compareAndSet(" + so.localIdentifier + ", 0, 1)) {");
@@ -485,7 +485,7 @@ class StateObjectHandler {
         }
 
         for (StateObject so : statesReverse) {
-            if (so.scope != Scope.Benchmark && so.scope != Scope.Group) continue;
+            if (so.scope != Scope.Benchmark && so.scope != Scope.Group && so.scope != Scope.Node) continue;
 
             if (type == HelperType.TEARDOWN) {
                 result.add("while(!" + so.type + ".tear" + helperLevel + "MutexUpdater.compareAndSet(" + so.localIdentifier + ", 0, 1)) {");
@@ -651,6 +651,44 @@ class StateObjectHandler {
             result.add("    }");
             result.add("}");
         }
+
+        for (StateObject so : sos) {
+            if (so.scope != Scope.Node) continue;
+
+            // the first thread on the node instantiates and initializes the state,
+            // so that the state memory is local to that node
+            result.add("");
+            result.add("static java.util.Map<Integer, " + so.type + "> " + so.fieldIdentifier + "_map = java.util.Collections.synchronizedMap(new java.util.HashMap<Integer, " + so.type + ">());");
+            result.add("");
+            result.add(so.type + " _jmh_tryInit_" + so.fieldIdentifier + "(InfraControl control, ThreadParams threadParams" + soDependency_TypeArgs(so) + ") throws Throwable {");
+            result.add("    synchronized(this.getClass()) {");
+            result.add("        " + so.type + " local = " + so.fieldIdentifier + "_map.get(control.getNodeIndex(threadParams));");
+            result.add("        if (local == null) {");
+            result.add("            " + so.type + " val = new " + so.type + "();");
+            result.add("            " + so.fieldIdentifier + "_map.put(control.getNodeIndex(threadParams), val);");
+            result.add("            local = val;");
+            result.add("        }");
+            result.add("        if (!local.ready" + Level.Trial + ") {");
+            if (!so.getParamsLabels().isEmpty()) {
+                result.add("            Field f;");
+            }
+            for (String paramName : so.getParamsLabels()) {
+                result.add("            f = " + so.getParam(paramName).getDeclaringClass().getQualifiedName() + ".class.getDeclaredField(\"" + paramName + "\");");
+                result.add("            f.setAccessible(true);");
+                result.add("            f.set(local, " + so.getParamAccessor(paramName) + ");");
+            }
+            for (HelperMethodInvocation hmi : so.getHelpers()) {
+                if (hmi.helperLevel != Level.Trial) continue;
+                if (hmi.type != HelperType.SETUP) continue;
+                Collection<StateObject> args = stateHelperArgs.get(hmi.method.getQualifiedName());
+                result.add("            local." + hmi.method.getName() + "(" + getArgList(args) + ");");
+            }
+            result.add("            " + "local.ready" + Level.Trial + " = true;");
+            result.add("        }");
+            result.add("        return local;");
+            result.add("    }");
+            result.add("}");
+        }
         return result;
     }
 
@@ -684,6 +722,13 @@ class StateObjectHandler {
             result.add("    " + so.fieldIdentifier + "_map.remove(threadParams.getGroupIndex());");
             result.add("}");
         }
+
+        for (StateObject so : sos) {
+            if (so.scope != Scope.Node) continue;
+            result.add("synchronized(this.getClass()) {");
+            result.add("    " + so.fieldIdentifier + "_map.remove(control.getNodeIndex(threadParams));");
+            result.add("}");
+        }
         return result;
     }
 
@@ -696,6 +741,7 @@ class StateObjectHandler {
                     result.add(so.type + " " + so.localIdentifier + " = _jmh_tryInit_" + so.fieldIdentifier + "(control, threadParams" + soDependency_Args(so) + ");");
                     break;
                 case Group:
+                case Node:
                     result.add(so.type + " " + so.localIdentifier + " = _jmh_tryInit_" + so.fieldIdentifier + "(control, threadParams" + soDependency_Args(so) + ");");
                     break;
                 default:
@@ -786,6 +832,7 @@ class StateObjectHandler {
                 switch (so.scope) {
                     case Benchmark:
                     case Group:
+                    case Node:
                         for (Level level : Level.values()) {
                             pw.println("    public volatile boolean ready" + level + ";");
                         }
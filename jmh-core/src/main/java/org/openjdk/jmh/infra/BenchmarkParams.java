@@ -27,6 +27,7 @@ package org.openjdk.jmh.infra;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Defaults;
 import org.openjdk.jmh.runner.WorkloadParams;
 import org.openjdk.jmh.runner.options.TimeValue;
 import org.openjdk.jmh.util.Utils;
@@ -77,12 +78,27 @@ public class BenchmarkParams extends BenchmarkParamsL4 {
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
                              TimeValue timeout) {
+        this(benchmark, generatedTarget, synchIterations,
+                threads, threadGroups, forks, warmupForks,
+                warmup, measurement,
+                mode, params,
+                timeUnit, opsPerInvocation,
+                jvm, jvmArgs, timeout, Defaults.TARGET_RATE);
+    }
+
+    public BenchmarkParams(String benchmark, String generatedTarget, boolean synchIterations,
+                             int threads, int[] threadGroups, int forks, int warmupForks,
+                             IterationParams warmup, IterationParams measurement,
+                             Mode mode, WorkloadParams params,
+                             TimeUnit timeUnit, int opsPerInvocation,
+                             String jvm, Collection<String> jvmArgs,
+                             TimeValue timeout, double targetRate) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, forks, warmupForks,
                 warmup, measurement,
                 mode, params,
                 timeUnit, opsPerInvocation,
-                jvm, jvmArgs, timeout);
+                jvm, jvmArgs, timeout, targetRate);
     }
 }
 
@@ -96,14 +112,14 @@ abstract class BenchmarkParamsL4 extends BenchmarkParamsL3 {
                              Mode mode, WorkloadParams params,
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
-                             TimeValue timeout) {
+                             TimeValue timeout, double targetRate) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, forks, warmupForks,
                 warmup, measurement,
                 mode, params,
                 timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
-                timeout);
+                timeout, targetRate);
     }
 
     public BenchmarkParamsL4(BenchmarkParams other) {
@@ -137,14 +153,14 @@ abstract class BenchmarkParamsL3 extends BenchmarkParamsL2 {
                              Mode mode, WorkloadParams params,
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
-                             TimeValue timeout) {
+                             TimeValue timeout, double targetRate) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, forks, warmupForks,
                 warmup, measurement,
                 mode, params,
                 timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
-                timeout);
+                timeout, targetRate);
     }
 
     public BenchmarkParamsL3(BenchmarkParams other) {
@@ -194,6 +210,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
     protected final String jvm;
     protected final Collection<String> jvmArgs;
     protected final TimeValue timeout;
+    protected final double targetRate;
 
     public BenchmarkParamsL2(String benchmark, String generatedTarget, boolean synchIterations,
                              int threads, int[] threadGroups, int forks, int warmupForks,
@@ -201,7 +218,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
                              Mode mode, WorkloadParams params,
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
-                             TimeValue timeout) {
+                             TimeValue timeout, double targetRate) {
         this.benchmark = benchmark;
         this.generatedTarget = generatedTarget;
         this.synchIterations = synchIterations;
@@ -218,6 +235,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         this.jvm = jvm;
         this.jvmArgs = jvmArgs;
         this.timeout = timeout;
+        this.targetRate = targetRate;
     }
 
     public BenchmarkParamsL2(BenchmarkParams other) {
@@ -237,6 +255,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         this.jvm = other.jvm;
         this.jvmArgs = other.jvmArgs;
         this.timeout = other.timeout;
+        this.targetRate = other.targetRate;
     }
 
     /**
@@ -324,6 +343,13 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         return opsPerInvocation;
     }
 
+    /**
+     * @return target rate for fixed rate mode, in invocations per second over all threads
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
     /**
      * @return all workload parameters
      */
@@ -371,6 +397,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         if (!benchmark.equals(that.benchmark)) return false;
         if (mode != that.mode) return false;
         if (!params.equals(that.params)) return false;
+        if (threads != that.threads) return false;
 
         return true;
     }
@@ -380,6 +407,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         int result = benchmark.hashCode();
         result = 31 * result + mode.hashCode();
         result = 31 * result + params.hashCode();
+        result = 31 * result + threads;
         return result;
     }
 
@@ -395,14 +423,20 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
             return v1;
         }
 
-        if (params == null || o.params == null) {
-            return 0;
+        if (params != null && o.params != null) {
+            int v2 = params.compareTo(o.params);
+            if (v2 != 0) {
+                return v2;
+            }
         }
 
-        return params.compareTo(o.params);
+        return (threads < o.threads) ? -1 : ((threads == o.threads) ? 0 : 1);
     }
 
-    public String id() {
+    /**
+     * @return identifier of the benchmark, mode and parameters, which is the same for all thread counts
+     */
+    public String sweepId() {
         StringBuilder sb = new StringBuilder();
         sb.append(benchmark).append("-");
         sb.append(mode);
@@ -413,4 +447,11 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         return sb.toString();
     }
 
+    /**
+     * @return identifier of this run, which is distinct for every thread count
+     */
+    public String id() {
+        return sweepId() + "-threads-" + threads;
+    }
+
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import java.util.Arrays;
+
+/**
+ * Sorted primitive index from the addresses to int values.
+ *
+ * <p>The index is populated with {@link #put(long, int)}, and then sealed
+ * with {@link #seal()}. When the same address is put several times, the
+ * last value wins, like with {@link java.util.Map#put(Object, Object)}.
+ * Lookups are binary searches over the sorted addresses.</p>
+ */
+class AddressIndex {
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private boolean sorted;
+    private boolean sealed;
+    private int duplicates;
+
+    public AddressIndex() {
+        keys = new long[16];
+        values = new int[16];
+        sorted = true;
+    }
+
+    public void put(long key, int value) {
+        if (sealed) {
+            throw new IllegalStateException("Index is already sealed");
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        if (size > 0 && key <= keys[size - 1]) {
+            sorted = false;
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Sorts the index, and drops the duplicate addresses.
+     */
+    public void seal() {
+        if (sealed) {
+            return;
+        }
+
+        if (!sorted) {
+            // stable, so that the last value for the duplicate key stays last
+            mergeSort(keys, values, new long[size], new int[size], 0, size);
+        }
+
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            if (r + 1 < size && keys[r + 1] == keys[r]) {
+                duplicates++;
+                continue;
+            }
+            keys[w] = keys[r];
+            values[w] = values[r];
+            w++;
+        }
+        size = w;
+
+        keys = Arrays.copyOf(keys, size);
+        values = Arrays.copyOf(values, size);
+        sealed = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of addresses dropped as duplicates while sealing
+     */
+    public int duplicates() {
+        return duplicates;
+    }
+
+    public long key(int idx) {
+        return keys[idx];
+    }
+
+    public int value(int idx) {
+        return values[idx];
+    }
+
+    /**
+     * @param key address to look up
+     * @return position of the first address equal or greater than the key; {@link #size()} if none
+     */
+    public int ceilingIdx(long key) {
+        checkSealed();
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param key address to look up
+     * @return position of the last address strictly less than the key; -1 if none
+     */
+    public int lowerIdx(long key) {
+        return ceilingIdx(key) - 1;
+    }
+
+    private void checkSealed() {
+        if (!sealed) {
+            throw new IllegalStateException("Index is not sealed yet");
+        }
+    }
+
+    private static void mergeSort(long[] keys, int[] values, long[] tmpKeys, int[] tmpValues, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(keys, values, tmpKeys, tmpValues, from, mid);
+        mergeSort(keys, values, tmpKeys, tmpValues, mid, to);
+
+        if (keys[mid - 1] <= keys[mid]) {
+            // already ordered, common for the code emitted method by method
+            return;
+        }
+
+        System.arraycopy(keys, from, tmpKeys, from, to - from);
+        System.arraycopy(values, from, tmpValues, from, to - from);
+
+        int l = from;
+        int r = mid;
+        for (int w = from; w < to; w++) {
+            if (r >= to || (l < mid && tmpKeys[l] <= tmpKeys[r])) {
+                keys[w] = tmpKeys[l];
+                values[w] = tmpValues[l];
+                l++;
+            } else {
+                keys[w] = tmpKeys[r];
+                values[w] = tmpValues[r];
+                r++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocations done by the benchmark worker threads,
+ * using the per-thread allocated bytes counters in HotSpot.
+ *
+ * <p>Worker threads are identified by name. If no JMH worker threads
+ * are found, e.g. with the custom executors, all threads besides the
+ * current one are accounted.</p>
+ *
+ * <p>The normalized allocation only accounts the bytes the workers allocated
+ * while measuring, so that the invocations done during the warmup and warmdown
+ * catch-ups, which are not counted as operations, do not inflate it. It is not
+ * reported when the allocations can not be attributed to the workers, e.g. with
+ * virtual thread workers, which have no allocated bytes counters.</p>
+ */
+public class AllocationProfiler implements InternalResultProfiler {
+
+    private Map<Long, Long> beforeBytes;
+    private long beforeTime;
+
+    @Override
+    public String getDescription() {
+        return "Allocation profiling via per-thread allocated bytes counters";
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        try {
+            Class.forName("com.sun.management.ThreadMXBean");
+        } catch (ClassNotFoundException e) {
+            msgs.add("Class not found: " + e.getMessage() + ", are you running HotSpot VM?");
+            return false;
+        }
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            msgs.add("Thread MXBean does not provide the allocated bytes counters");
+            return false;
+        }
+
+        if (!((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            msgs.add("Per-thread allocated bytes counters are not supported by this VM");
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String label() {
+        return "alloc";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        com.sun.management.ThreadMXBean bean = getBean();
+        if (!bean.isThreadAllocatedMemoryEnabled()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        beforeBytes = allocatedBytes(bean);
+        beforeTime = System.nanoTime();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        throw new UnsupportedOperationException("Should be called with the iteration result");
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        long afterTime = System.nanoTime();
+        com.sun.management.ThreadMXBean bean = getBean();
+        Map<Long, Long> afterBytes = allocatedBytes(bean);
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> e : afterBytes.entrySet()) {
+            // threads started during the iteration had allocated nothing before
+            Long before = beforeBytes.get(e.getKey());
+            allocated += e.getValue() - ((before != null) ? before : 0L);
+        }
+
+        double seconds = 1.0D * (afterTime - beforeTime) / TimeUnit.SECONDS.toNanos(1);
+        long ops = result.getMeasuredOps();
+
+        List<Result> results = new ArrayList<Result>();
+        results.add(new ProfilerResult("@alloc.bytes", allocated, "B", AggregationPolicy.SUM));
+        results.add(new ProfilerResult("@alloc.rate", allocated / seconds / 1024 / 1024, "MB/sec", AggregationPolicy.AVG));
+        long measured = result.getMeasuredAllocatedBytes();
+        if (ops > 0 && (measured >= 0 || ProfilerUtils.workerThreadIds(bean).length > 0)) {
+            // workers report their own allocations over the measured operations;
+            // fall back to the whole iteration over the known workers if they did not
+            long normAllocated = (measured >= 0) ? measured : allocated;
+            results.add(new ProfilerResult("@alloc.rate.norm", 1.0D * normAllocated / ops, "B/op", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    private static com.sun.management.ThreadMXBean getBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Reads the allocated bytes for worker threads.
+     * @param bean thread bean to query
+     * @return thread id to allocated bytes mapping
+     */
+    private static Map<Long, Long> allocatedBytes(com.sun.management.ThreadMXBean bean) {
+        long[] workers = ProfilerUtils.workerThreadIds(bean);
+
+        if (workers.length == 0) {
+            long[] ids = bean.getAllThreadIds();
+            long self = Thread.currentThread().getId();
+
+            workers = new long[ids.length];
+            int count = 0;
+            for (long id : ids) {
+                if (id != self) {
+                    workers[count++] = id;
+                }
+            }
+            workers = Arrays.copyOf(workers, count);
+        }
+
+        long[] bytes = bean.getThreadAllocatedBytes(workers);
+
+        Map<Long, Long> map = new HashMap<Long, Long>();
+        for (int i = 0; i < workers.length; i++) {
+            // -1 means the thread is not alive anymore
+            if (bytes[i] >= 0) {
+                map.put(workers[i], bytes[i]);
+            }
+        }
+        return map;
+    }
+
+}
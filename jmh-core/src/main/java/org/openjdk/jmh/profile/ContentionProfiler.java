@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.Multiset;
+import org.openjdk.jmh.util.Multisets;
+
+import java.io.Serializable;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how much time the benchmark workers spend blocked on monitors
+ * and waiting, using the thread contention monitoring in ThreadMXBean.
+ *
+ * <p>Blocked and waited counts and times are reported per worker thread and
+ * per operation. The workers are also sampled periodically, and the monitors
+ * they are blocked on are reported by class, split by the thread group and
+ * subgroup.</p>
+ */
+public class ContentionProfiler implements InternalResultProfiler {
+
+    /** Sampling period */
+    private static final int SAMPLE_PERIOD_MSEC = Integer.getInteger("jmh.contention.period", 10);
+
+    /** Number of top monitors to show */
+    private static final int SHOW_TOP = Integer.getInteger("jmh.contention.top", 10);
+
+    private Map<Long, ThreadInfo> before;
+    private SamplingTask samplingTask;
+
+    @Override
+    public String getDescription() {
+        return "Monitor contention and waiting of the worker threads";
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        if (ManagementFactory.getThreadMXBean().isThreadContentionMonitoringSupported()) {
+            return true;
+        }
+        msgs.add("Thread contention monitoring is not supported by this VM");
+        return false;
+    }
+
+    @Override
+    public String label() {
+        return "contention";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadContentionMonitoringEnabled()) {
+            bean.setThreadContentionMonitoringEnabled(true);
+        }
+
+        before = workerInfos(bean);
+        samplingTask = new SamplingTask();
+        samplingTask.start();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        throw new UnsupportedOperationException("Should be called with the iteration result");
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        samplingTask.stop();
+
+        ContentionData data = samplingTask.data;
+        Map<Long, ThreadInfo> after = workerInfos(ManagementFactory.getThreadMXBean());
+
+        long blockedCount = 0;
+        long blockedTime = 0;
+        long waitedCount = 0;
+        long waitedTime = 0;
+        for (Map.Entry<Long, ThreadInfo> e : after.entrySet()) {
+            ThreadInfo cur = e.getValue();
+            ThreadInfo prev = before.get(e.getKey());
+
+            // threads started during the iteration had no counts before
+            long bc = cur.getBlockedCount() - ((prev != null) ? prev.getBlockedCount() : 0);
+            long bt = cur.getBlockedTime() - ((prev != null) ? prev.getBlockedTime() : 0);
+            long wc = cur.getWaitedCount() - ((prev != null) ? prev.getWaitedCount() : 0);
+            long wt = cur.getWaitedTime() - ((prev != null) ? prev.getWaitedTime() : 0);
+
+            String group = groupLabel(e.getKey());
+            data.blockedCounts.add(group, bc);
+            data.blockedTimes.add(group, bt);
+            data.waitedCounts.add(group, wc);
+            data.waitedTimes.add(group, wt);
+
+            blockedCount += bc;
+            blockedTime += bt;
+            waitedCount += wc;
+            waitedTime += wt;
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        results.add(new ContentionResult(data));
+
+        int threads = after.size();
+        if (threads > 0) {
+            results.add(new ProfilerResult("@contention.blocked.count", 1.0D * blockedCount / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.blocked.time", 1.0D * blockedTime / threads, "ms/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.waited.count", 1.0D * waitedCount / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.waited.time", 1.0D * waitedTime / threads, "ms/thread", AggregationPolicy.AVG));
+        }
+
+        long ops = result.getMeasuredOps();
+        if (ops > 0) {
+            results.add(new ProfilerResult("@contention.blocked.count.norm", 1.0D * blockedCount / ops, "#/op", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.blocked.time.norm", 1.0D * TimeUnit.MILLISECONDS.toNanos(blockedTime) / ops, "ns/op", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.waited.count.norm", 1.0D * waitedCount / ops, "#/op", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@contention.waited.time.norm", 1.0D * TimeUnit.MILLISECONDS.toNanos(waitedTime) / ops, "ns/op", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    private static Map<Long, ThreadInfo> workerInfos(ThreadMXBean bean) {
+        Map<Long, ThreadInfo> infos = new HashMap<Long, ThreadInfo>();
+        for (ThreadInfo info : bean.getThreadInfo(ProfilerUtils.workerThreadIds(bean))) {
+            if (info != null) {
+                infos.put(info.getThreadId(), info);
+            }
+        }
+        return infos;
+    }
+
+    private static String groupLabel(long threadId) {
+        ThreadParams params = WorkerThreadParams.get(threadId);
+        if (params == null) {
+            return "<unknown>";
+        }
+        return "group " + params.getGroupIndex() + ", subgroup " + params.getSubgroupIndex();
+    }
+
+    /**
+     * Samples the monitors the workers are blocked on.
+     */
+    private static class SamplingTask implements Runnable {
+
+        private final Thread thread;
+        private final ThreadMXBean bean;
+        private final ContentionData data;
+
+        SamplingTask() {
+            bean = ManagementFactory.getThreadMXBean();
+            data = new ContentionData();
+            thread = new Thread(this);
+            thread.setName("Contention Sampling Thread");
+        }
+
+        @Override
+        public void run() {
+            long[] workers = null;
+            int samples = 0;
+            while (!Thread.interrupted()) {
+                // until workers are started, keep looking for them
+                if (workers == null || workers.length == 0 || (samples % 100) == 0) {
+                    workers = ProfilerUtils.workerThreadIds(bean);
+                }
+
+                for (ThreadInfo info : bean.getThreadInfo(workers)) {
+                    if (info == null) {
+                        // thread had died, re-discover
+                        workers = null;
+                        continue;
+                    }
+
+                    data.samples++;
+                    if (info.getThreadState() == Thread.State.BLOCKED) {
+                        LockInfo lock = info.getLockInfo();
+                        String monitor = (lock != null) ? lock.getClassName() : "<unknown>";
+                        data.monitors.add(monitor + " (" + groupLabel(info.getThreadId()) + ")");
+                    }
+                }
+                samples++;
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(SAMPLE_PERIOD_MSEC);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        public void start() {
+            thread.start();
+        }
+
+        public void stop() {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static class ContentionData implements Serializable {
+        private static final long serialVersionUID = 1473285264398617455L;
+
+        final Multiset<String> blockedCounts = new HashMultiset<String>();
+        final Multiset<String> blockedTimes = new HashMultiset<String>();
+        final Multiset<String> waitedCounts = new HashMultiset<String>();
+        final Multiset<String> waitedTimes = new HashMultiset<String>();
+        final Multiset<String> monitors = new HashMultiset<String>();
+        long samples;
+
+        void merge(ContentionData other) {
+            addAll(blockedCounts, other.blockedCounts);
+            addAll(blockedTimes, other.blockedTimes);
+            addAll(waitedCounts, other.waitedCounts);
+            addAll(waitedTimes, other.waitedTimes);
+            addAll(monitors, other.monitors);
+            samples += other.samples;
+        }
+
+        private static void addAll(Multiset<String> dst, Multiset<String> src) {
+            for (String key : src.keys()) {
+                dst.add(key, src.count(key));
+            }
+        }
+    }
+
+    public static class ContentionResult extends Result<ContentionResult> {
+        private static final long serialVersionUID = -2977104530813458431L;
+
+        private final ContentionData data;
+
+        public ContentionResult(ContentionData data) {
+            super(ResultRole.SECONDARY, "@contention", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.data = data;
+        }
+
+        @Override
+        protected Aggregator<ContentionResult> getThreadAggregator() {
+            return new ContentionResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<ContentionResult> getIterationAggregator() {
+            return new ContentionResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "<delayed till summary>";
+        }
+
+        @Override
+        public String extendedInfo(String label) {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Contention profiler:\n\n");
+
+            builder.append(StackProfiler.dottedLine("Blocked and waited, by thread group"));
+            builder.append(String.format("%12s %12s %12s %12s  %s%n", "blocked, #", "blocked, ms", "waited, #", "waited, ms", "threads"));
+            for (String group : new TreeSet<String>(data.blockedCounts.keys())) {
+                builder.append(String.format("%12d %12d %12d %12d  %s%n",
+                        data.blockedCounts.count(group), data.blockedTimes.count(group),
+                        data.waitedCounts.count(group), data.waitedTimes.count(group),
+                        group));
+            }
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine("Contended monitors, " + data.monitors.size() + " blocked of " + data.samples + " samples"));
+            if (data.monitors.isEmpty()) {
+                builder.append("<none>\n");
+            }
+            for (String monitor : Multisets.countHighest(data.monitors, SHOW_TOP)) {
+                builder.append(String.format("%5.1f%% %s%n", data.monitors.count(monitor) * 100.0 / data.monitors.size(), monitor));
+            }
+            builder.append("\n");
+
+            return builder.toString();
+        }
+    }
+
+    public static class ContentionResultAggregator implements Aggregator<ContentionResult> {
+        @Override
+        public Result aggregate(Collection<ContentionResult> results) {
+            ContentionData sum = new ContentionData();
+            for (ContentionResult r : results) {
+                sum.merge(r.data);
+            }
+            return new ContentionResult(sum);
+        }
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.util.ListStatistics;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the individual GC pauses via the GC notifications, and attributes
+ * them to the iterations they had happened in.
+ *
+ * <p>Note the durations reported by concurrent collectors for their
+ * major cycles include the concurrent phases as well.</p>
+ */
+public class GCPauseProfiler implements InternalProfiler {
+
+    /** Notification type for GC events, see com.sun.management.GarbageCollectionNotificationInfo */
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    /** How long to wait for the late notifications after the iteration, msec */
+    private static final int NOTIFICATION_WAIT_MSEC = Integer.getInteger("jmh.gcpause.wait", 1000);
+
+    private final List<GCPause> pauses = new ArrayList<GCPause>();
+    private final List<GCPause> warmupPauses = new ArrayList<GCPause>();
+
+    private NotificationListener listener;
+    private long beforeCount;
+    private long beforeUptime;
+    private int warmupIteration;
+    private int measurementIteration;
+
+    @Override
+    public String getDescription() {
+        return "GC pause timeline via GC notifications";
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        try {
+            Class.forName("com.sun.management.GarbageCollectionNotificationInfo");
+        } catch (ClassNotFoundException e) {
+            msgs.add("Class not found: " + e.getMessage() + ", GC notifications require HotSpot VM, JDK 7u4+");
+            return false;
+        }
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(bean instanceof NotificationEmitter)) {
+                msgs.add("GC MXBean does not emit notifications: " + bean.getName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String label() {
+        return "gcpause";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        final String iteration;
+        if (iterationParams.getType() == IterationType.WARMUP) {
+            iteration = "Warmup Iteration " + (++warmupIteration);
+        } else {
+            iteration = "Iteration " + (++measurementIteration);
+        }
+
+        synchronized (pauses) {
+            pauses.clear();
+        }
+
+        listener = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification n, Object handback) {
+                if (GC_NOTIFICATION.equals(n.getType())) {
+                    GCPause pause = GCPause.of(iteration, (CompositeData) n.getUserData());
+                    synchronized (pauses) {
+                        pauses.add(pause);
+                        pauses.notifyAll();
+                    }
+                }
+            }
+        };
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+        }
+
+        beforeCount = collectionCount();
+        beforeUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        long afterUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long expected = collectionCount() - beforeCount;
+
+        List<GCPause> iterationPauses = new ArrayList<GCPause>();
+        synchronized (pauses) {
+            // notifications are delivered asynchronously, wait for the stragglers
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NOTIFICATION_WAIT_MSEC);
+            long remaining;
+            while (pauses.size() < expected && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(pauses, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            for (GCPause p : pauses) {
+                if (p.startTime >= beforeUptime && p.startTime <= afterUptime) {
+                    iterationPauses.add(p);
+                }
+            }
+        }
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            try {
+                ((NotificationEmitter) bean).removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // ignore
+            }
+        }
+        listener = null;
+
+        if (iterationParams.getType() == IterationType.WARMUP) {
+            warmupPauses.addAll(iterationPauses);
+        }
+
+        ListStatistics durations = new ListStatistics();
+        long total = 0;
+        for (GCPause p : iterationPauses) {
+            durations.addValue(p.duration);
+            total += p.duration;
+        }
+
+        long wallTime = Math.max(1, afterUptime - beforeUptime);
+
+        List<Result> results = new ArrayList<Result>();
+        results.add(new ProfilerResult("@gcpause.count", iterationPauses.size(), "counts", AggregationPolicy.SUM));
+        results.add(new ProfilerResult("@gcpause.time", total, "ms", AggregationPolicy.SUM));
+        results.add(new ProfilerResult("@gcpause.share", 100.0 * total / wallTime, "%", AggregationPolicy.AVG));
+        if (!iterationPauses.isEmpty()) {
+            results.add(new ProfilerResult("@gcpause.p50", durations.getPercentile(50), "ms", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@gcpause.p90", durations.getPercentile(90), "ms", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@gcpause.max", durations.getMax(), "ms", AggregationPolicy.MAX));
+        }
+
+        if (iterationParams.getType() == IterationType.MEASUREMENT) {
+            // carry the warmup pauses over to the timeline in the summary
+            List<GCPause> timeline = new ArrayList<GCPause>(warmupPauses);
+            timeline.addAll(iterationPauses);
+            warmupPauses.clear();
+            results.add(new GCPauseResult(timeline));
+        }
+
+        return results;
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    static class GCPause implements Serializable {
+        private static final long serialVersionUID = 3291683618224937427L;
+
+        private final String iteration;
+        private final String name;
+        private final String action;
+        private final String cause;
+        private final long startTime;
+        private final long duration;
+        private final long usedBefore;
+        private final long usedAfter;
+
+        GCPause(String iteration, String name, String action, String cause, long startTime, long duration, long usedBefore, long usedAfter) {
+            this.iteration = iteration;
+            this.name = name;
+            this.action = action;
+            this.cause = cause;
+            this.startTime = startTime;
+            this.duration = duration;
+            this.usedBefore = usedBefore;
+            this.usedAfter = usedAfter;
+        }
+
+        static GCPause of(String iteration, CompositeData cd) {
+            CompositeData info = (CompositeData) cd.get("gcInfo");
+            return new GCPause(
+                    iteration,
+                    (String) cd.get("gcName"),
+                    (String) cd.get("gcAction"),
+                    (String) cd.get("gcCause"),
+                    (Long) info.get("startTime"),
+                    (Long) info.get("duration"),
+                    usedMemory((TabularData) info.get("memoryUsageBeforeGc")),
+                    usedMemory((TabularData) info.get("memoryUsageAfterGc"))
+            );
+        }
+
+        private static long usedMemory(TabularData pools) {
+            long used = 0;
+            for (Object row : pools.values()) {
+                CompositeData usage = (CompositeData) ((CompositeData) row).get("value");
+                used += (Long) usage.get("used");
+            }
+            return used;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10d ms %6d ms  %7d K -> %7d K  %s, %s (%s)",
+                    startTime, duration, usedBefore / 1024, usedAfter / 1024, name, action, cause);
+        }
+    }
+
+    public static class GCPauseResult extends Result<GCPauseResult> {
+        private static final long serialVersionUID = -1437468587323423212L;
+
+        private final List<GCPause> pauses;
+
+        public GCPauseResult(List<GCPause> pauses) {
+            super(ResultRole.SECONDARY, "@gcpause.timeline", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.pauses = pauses;
+        }
+
+        @Override
+        protected Aggregator<GCPauseResult> getThreadAggregator() {
+            return new GCPauseResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<GCPauseResult> getIterationAggregator() {
+            return new GCPauseResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "<delayed till summary>";
+        }
+
+        @Override
+        public String extendedInfo(String label) {
+            StringWriter sw = new StringWriter();
+            PrintWriter pw = new PrintWriter(sw);
+            pw.println("GC pauses timeline:");
+            pw.println();
+            pw.println(String.format("%10s    %6s     %9s    %9s  %s", "uptime", "pause", "before", "after", "collector"));
+
+            String lastIteration = null;
+            for (GCPause p : pauses) {
+                if (!p.iteration.equals(lastIteration)) {
+                    pw.print(StackProfiler.dottedLine(p.iteration));
+                    lastIteration = p.iteration;
+                }
+                pw.println(p);
+            }
+            if (pauses.isEmpty()) {
+                pw.println("<no pauses>");
+            }
+            pw.close();
+            return sw.toString();
+        }
+    }
+
+    public static class GCPauseResultAggregator implements Aggregator<GCPauseResult> {
+        @Override
+        public Result aggregate(Collection<GCPauseResult> results) {
+            List<GCPause> sum = new ArrayList<GCPause>();
+            for (GCPauseResult r : results) {
+                sum.addAll(r.pauses);
+            }
+            return new GCPauseResult(sum);
+        }
+    }
+
+}
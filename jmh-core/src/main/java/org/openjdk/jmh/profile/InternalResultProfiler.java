@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,22 +22,31 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.profile;
 
-import java.io.Serializable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+
+import java.util.Collection;
 
 /**
- * Encapsulates the OutputFormat call
- *   - method name
- *   - arguments (assumed to be serializable)
+ * Internal profiler which needs the iteration result, e.g. to normalize by the operation count.
+ *
+ * <p>The harness calls {@link #afterIteration(BenchmarkParams, IterationParams, IterationResult)}
+ * for these profilers instead of {@link #afterIteration(BenchmarkParams, IterationParams)}.</p>
  */
-class OutputFormatFrame implements Serializable {
-    private static final long serialVersionUID = -7151852354574635295L;
-    public final String method;
-    public final Object[] args;
+public interface InternalResultProfiler extends InternalProfiler {
+
+    /**
+     * Run this code after a benchmark iteration finished
+     *
+     * @param benchmarkParams benchmark parameters used for current launch
+     * @param iterationParams iteration parameters used for current launch
+     * @param result iteration result
+     * @return profiler result
+     */
+    Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result);
 
-    public OutputFormatFrame(String method, Object[] args) {
-        this.method = method;
-        this.args = args;
-    }
 }
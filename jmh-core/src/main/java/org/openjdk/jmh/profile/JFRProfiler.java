@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.Multiset;
+import org.openjdk.jmh.util.Multisets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the measurement phase with JDK Flight Recorder, and summarizes
+ * the recording after the fork exits.
+ *
+ * <p>The forked VM starts the recording before the first measurement
+ * iteration, and dumps it after the last one. The host VM then reads the
+ * recording with {@code jdk.jfr.consumer}, and reports hot methods,
+ * allocation sites, contended monitors and safepoints. JFR API is accessed
+ * reflectively, since it is not available in all JDKs.</p>
+ */
+public class JFRProfiler implements ExternalProfiler, InternalResultProfiler {
+
+    /** JFR configuration to record with */
+    private static final String SETTINGS = System.getProperty("jmh.jfr.settings", "profile");
+
+    /** Number of top methods, sites and monitors to show */
+    private static final int TOP = Integer.getInteger("jmh.jfr.top", 10);
+
+    /** Passes the recording file from the host VM to the forked VM */
+    private static final String FILE_PROPERTY = "jmh.jfr.file";
+
+    /** Host VM: recording file for the current trial */
+    private File recordingFile;
+
+    /** Host VM: directory to save the recordings to, null to discard them */
+    private final String saveTo = System.getProperty("jmh.jfr.saveTo");
+
+    /** Forked VM: recording file to dump to, null if not recording */
+    private final String forkedFile = System.getProperty(FILE_PROPERTY);
+
+    private Object recording;
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        try {
+            recordingFile = FileUtils.tempFile("jfr");
+            // let JFR create the file
+            recordingFile.delete();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Collections.singletonList("-D" + FILE_PROPERTY + "=" + recordingFile.getAbsolutePath());
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams params) {
+        // do nothing
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkParams params, File stdOut, File stdErr) {
+        if (!recordingFile.exists() || recordingFile.length() == 0) {
+            return Collections.singleton(new JFRResult(new JFRSummary(),
+                    "No JFR recording was dumped by the forked VM, does it support JFR?\n"));
+        }
+
+        try {
+            JFRSummary summary = JFRSummary.read(recordingFile);
+
+            String note = "";
+            if (saveTo != null) {
+                String target = saveTo + "/" + ProfilerUtils.fileName(params.id()) + ".jfr";
+                try {
+                    FileUtils.copy(recordingFile.getAbsolutePath(), target);
+                    note = "JFR recording saved to " + target + "\n";
+                } catch (IOException e) {
+                    note = "Unable to save JFR recording to " + target + "\n";
+                }
+            }
+
+            List<Result> results = new ArrayList<Result>();
+            results.add(new JFRResult(summary, note));
+            results.add(new ProfilerResult("@jfr.alloc.inTLAB", 1.0D * summary.tlabBytes / 1024 / 1024, "MB", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@jfr.alloc.outsideTLAB", 1.0D * summary.outsideBytes / 1024 / 1024, "MB", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@jfr.lock.count", summary.lockCount, "counts", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@jfr.lock.time", 1.0D * summary.lockTimeNs / 1000 / 1000, "ms", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@jfr.safepoint.count", summary.safepointCount, "counts", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@jfr.safepoint.time", 1.0D * summary.safepointTimeNs / 1000 / 1000, "ms", AggregationPolicy.AVG));
+            return results;
+        } finally {
+            recordingFile.delete();
+        }
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (forkedFile == null || iterationParams.getType() != IterationType.MEASUREMENT || recording != null) {
+            return;
+        }
+
+        try {
+            Class<?> configClass = Class.forName("jdk.jfr.Configuration");
+            Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+
+            Object config = configClass.getMethod("getConfiguration", String.class).invoke(null, SETTINGS);
+            recording = recordingClass.getConstructor(configClass).newInstance(config);
+            recordingClass.getMethod("start").invoke(recording);
+        } catch (Exception e) {
+            // the host would report the missing recording
+            recording = null;
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        throw new UnsupportedOperationException("Should be called with the iteration result");
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        if (recording == null || iterationParams.getType() != IterationType.MEASUREMENT) {
+            return Collections.emptyList();
+        }
+
+        // adaptive iteration counts can stop the measurement early
+        if (result.isLastIteration()) {
+            try {
+                Class<?> recordingClass = recording.getClass();
+                Object path = File.class.getMethod("toPath").invoke(new File(forkedFile));
+
+                recordingClass.getMethod("stop").invoke(recording);
+                recordingClass.getMethod("dump", Class.forName("java.nio.file.Path")).invoke(recording, path);
+                recordingClass.getMethod("close").invoke(recording);
+            } catch (Exception e) {
+                // the host would report the missing recording
+            }
+            recording = null;
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        try {
+            Class.forName("jdk.jfr.Recording");
+            Class.forName("jdk.jfr.consumer.RecordingFile");
+            return true;
+        } catch (ClassNotFoundException e) {
+            msgs.add("Class not found: " + e.getMessage() + ", is JDK Flight Recorder available in this VM?");
+            return false;
+        }
+    }
+
+    @Override
+    public String label() {
+        return "jfr";
+    }
+
+    @Override
+    public String getDescription() {
+        return "JDK Flight Recorder profiling of measurement iterations";
+    }
+
+    /**
+     * Summary of the JFR recording.
+     */
+    static class JFRSummary implements Serializable {
+        private static final long serialVersionUID = -5295733512404236284L;
+
+        final Multiset<String> hotMethods = new HashMultiset<String>();
+        final Multiset<String> tlabSites = new HashMultiset<String>();
+        final Multiset<String> outsideSites = new HashMultiset<String>();
+        final Multiset<String> lockCounts = new HashMultiset<String>();
+        final Multiset<String> lockTimes = new HashMultiset<String>();
+        long samples;
+        long tlabBytes;
+        long outsideBytes;
+        long lockCount;
+        long lockTimeNs;
+        long safepointCount;
+        long safepointTimeNs;
+        long maxSafepointNs;
+
+        void merge(JFRSummary other) {
+            addAll(hotMethods, other.hotMethods);
+            addAll(tlabSites, other.tlabSites);
+            addAll(outsideSites, other.outsideSites);
+            addAll(lockCounts, other.lockCounts);
+            addAll(lockTimes, other.lockTimes);
+            samples += other.samples;
+            tlabBytes += other.tlabBytes;
+            outsideBytes += other.outsideBytes;
+            lockCount += other.lockCount;
+            lockTimeNs += other.lockTimeNs;
+            safepointCount += other.safepointCount;
+            safepointTimeNs += other.safepointTimeNs;
+            maxSafepointNs = Math.max(maxSafepointNs, other.maxSafepointNs);
+        }
+
+        private static void addAll(Multiset<String> dst, Multiset<String> src) {
+            for (String key : src.keys()) {
+                dst.add(key, src.count(key));
+            }
+        }
+
+        static JFRSummary read(File file) {
+            JFRSummary summary = new JFRSummary();
+            try {
+                Class<?> fileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+                Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+                Class<?> typeClass = Class.forName("jdk.jfr.EventType");
+                Class<?> stackClass = Class.forName("jdk.jfr.consumer.RecordedStackTrace");
+                Class<?> frameClass = Class.forName("jdk.jfr.consumer.RecordedFrame");
+                Class<?> methodClass = Class.forName("jdk.jfr.consumer.RecordedMethod");
+                Class<?> classClass = Class.forName("jdk.jfr.consumer.RecordedClass");
+                Class<?> durationClass = Class.forName("java.time.Duration");
+
+                Method hasMoreEvents = fileClass.getMethod("hasMoreEvents");
+                Method readEvent = fileClass.getMethod("readEvent");
+                Method close = fileClass.getMethod("close");
+                Method getEventType = eventClass.getMethod("getEventType");
+                Method getStackTrace = eventClass.getMethod("getStackTrace");
+                Method getDuration = eventClass.getMethod("getDuration");
+                Method getLong = eventClass.getMethod("getLong", String.class);
+                Method getClass = eventClass.getMethod("getClass", String.class);
+                Method typeName = typeClass.getMethod("getName");
+                Method getFrames = stackClass.getMethod("getFrames");
+                Method getMethod = frameClass.getMethod("getMethod");
+                Method methodType = methodClass.getMethod("getType");
+                Method methodName = methodClass.getMethod("getName");
+                Method className = classClass.getMethod("getName");
+                Method toNanos = durationClass.getMethod("toNanos");
+
+                Object path = File.class.getMethod("toPath").invoke(file);
+                Object recording = fileClass.getConstructor(Class.forName("java.nio.file.Path")).newInstance(path);
+                try {
+                    while ((Boolean) hasMoreEvents.invoke(recording)) {
+                        Object event = readEvent.invoke(recording);
+                        String type = (String) typeName.invoke(getEventType.invoke(event));
+
+                        if (type.equals("jdk.ExecutionSample")) {
+                            summary.samples++;
+                            summary.hotMethods.add(topFrame(event, getStackTrace, getFrames, getMethod, methodType, methodName, className));
+                        } else if (type.equals("jdk.ObjectAllocationInNewTLAB")) {
+                            long bytes = (Long) getLong.invoke(event, "tlabSize");
+                            summary.tlabBytes += bytes;
+                            summary.tlabSites.add(topFrame(event, getStackTrace, getFrames, getMethod, methodType, methodName, className), bytes);
+                        } else if (type.equals("jdk.ObjectAllocationOutsideTLAB")) {
+                            long bytes = (Long) getLong.invoke(event, "allocationSize");
+                            summary.outsideBytes += bytes;
+                            summary.outsideSites.add(topFrame(event, getStackTrace, getFrames, getMethod, methodType, methodName, className), bytes);
+                        } else if (type.equals("jdk.JavaMonitorEnter")) {
+                            long ns = (Long) toNanos.invoke(getDuration.invoke(event));
+                            Object monitorClass = getClass.invoke(event, "monitorClass");
+                            String monitor = (monitorClass != null) ? (String) className.invoke(monitorClass) : "<unknown>";
+                            summary.lockCount++;
+                            summary.lockTimeNs += ns;
+                            summary.lockCounts.add(monitor);
+                            summary.lockTimes.add(monitor, ns);
+                        } else if (type.equals("jdk.SafepointBegin")) {
+                            long ns = (Long) toNanos.invoke(getDuration.invoke(event));
+                            summary.safepointCount++;
+                            summary.safepointTimeNs += ns;
+                            summary.maxSafepointNs = Math.max(summary.maxSafepointNs, ns);
+                        }
+                    }
+                } finally {
+                    close.invoke(recording);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            } catch (InstantiationException e) {
+                throw new IllegalStateException(e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            return summary;
+        }
+
+        private static String topFrame(Object event, Method getStackTrace, Method getFrames, Method getMethod,
+                                       Method methodType, Method methodName, Method className)
+                throws InvocationTargetException, IllegalAccessException {
+            Object stack = getStackTrace.invoke(event);
+            if (stack == null) {
+                return "<no stack>";
+            }
+            List<?> frames = (List<?>) getFrames.invoke(stack);
+            if (frames.isEmpty()) {
+                return "<no stack>";
+            }
+            Object method = getMethod.invoke(frames.get(0));
+            return className.invoke(methodType.invoke(method)) + "." + methodName.invoke(method);
+        }
+    }
+
+    public static class JFRResult extends Result<JFRResult> {
+        private static final long serialVersionUID = 3624419846352768103L;
+
+        private final JFRSummary summary;
+        private final String notes;
+
+        public JFRResult(JFRSummary summary, String notes) {
+            super(ResultRole.SECONDARY, "@jfr", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.summary = summary;
+            this.notes = notes;
+        }
+
+        @Override
+        protected Aggregator<JFRResult> getThreadAggregator() {
+            return new JFRResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<JFRResult> getIterationAggregator() {
+            return new JFRResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "<delayed till summary>";
+        }
+
+        @Override
+        public String extendedInfo(String label) {
+            StringBuilder builder = new StringBuilder();
+            builder.append("JFR profiler:\n\n");
+
+            builder.append(StackProfiler.dottedLine("Hot methods, " + summary.samples + " execution samples"));
+            appendTop(builder, summary.hotMethods, summary.samples, "%5.1f%% %s%n", 1);
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine(String.format("Allocation sites in new TLABs, %.3f MB", 1.0D * summary.tlabBytes / 1024 / 1024)));
+            appendTop(builder, summary.tlabSites, summary.tlabBytes, "%5.1f%% %12.3f MB  %s%n", 1024 * 1024);
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine(String.format("Allocation sites outside TLABs, %.3f MB", 1.0D * summary.outsideBytes / 1024 / 1024)));
+            appendTop(builder, summary.outsideSites, summary.outsideBytes, "%5.1f%% %12.3f MB  %s%n", 1024 * 1024);
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine(String.format("Contended monitors, %d events, %.3f ms", summary.lockCount, 1.0D * summary.lockTimeNs / 1000 / 1000)));
+            appendTop(builder, summary.lockTimes, summary.lockTimeNs, "%5.1f%% %12.3f ms  %s%n", 1000 * 1000);
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine("Safepoints"));
+            builder.append(String.format("%d safepoints, %.3f ms total, %.3f ms max%n",
+                    summary.safepointCount,
+                    1.0D * summary.safepointTimeNs / 1000 / 1000,
+                    1.0D * summary.maxSafepointNs / 1000 / 1000));
+            builder.append("\n");
+
+            builder.append(notes);
+            return builder.toString();
+        }
+
+        private static void appendTop(StringBuilder builder, Multiset<String> set, long total, String format, double scale) {
+            if (total == 0) {
+                builder.append("<none>\n");
+                return;
+            }
+
+            long displayed = 0;
+            for (String key : Multisets.countHighest(set, TOP)) {
+                long count = set.count(key);
+                displayed += count;
+                if (scale == 1) {
+                    builder.append(String.format(format, count * 100.0 / total, key));
+                } else {
+                    builder.append(String.format(format, count * 100.0 / total, count / scale, key));
+                }
+            }
+            if (displayed < total) {
+                long other = total - displayed;
+                if (scale == 1) {
+                    builder.append(String.format(format, other * 100.0 / total, "<other>"));
+                } else {
+                    builder.append(String.format(format, other * 100.0 / total, other / scale, "<other>"));
+                }
+            }
+        }
+    }
+
+    public static class JFRResultAggregator implements Aggregator<JFRResult> {
+        @Override
+        public Result aggregate(Collection<JFRResult> results) {
+            JFRSummary sum = new JFRSummary();
+            StringBuilder notes = new StringBuilder();
+            for (JFRResult r : results) {
+                sum.merge(r.summary);
+                notes.append(r.notes);
+            }
+            return new JFRResult(sum, notes.toString());
+        }
+    }
+
+}
@@ -31,10 +31,8 @@ import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.ResultRole;
 import org.openjdk.jmh.util.Deduplicator;
 import org.openjdk.jmh.util.FileUtils;
-import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.HashMultiset;
 import org.openjdk.jmh.util.InputStreamDrainer;
-import org.openjdk.jmh.util.Multimap;
 import org.openjdk.jmh.util.Multiset;
 import org.openjdk.jmh.util.Multisets;
 import org.openjdk.jmh.util.TreeMultiset;
@@ -42,13 +40,15 @@ import org.openjdk.jmh.util.Utils;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -60,10 +60,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -156,6 +160,14 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
      */
     private static final String ASSEMBLY_SYNTAX = System.getProperty("jmh.perfasm.assemblySyntax");
 
+    /**
+     * Number of threads to parse perf output with.
+     */
+    private static final int PARSE_THREADS = Integer.getInteger("jmh.perfasm.parseThreads", Runtime.getRuntime().availableProcessors());
+
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+
     private String hsLog;
     private String perfBinData;
     private String perfParsedData;
@@ -492,14 +504,11 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
          */
 
         {
-            Set<Long> addrHistory = new HashSet<Long>();
-            for (Long addr : assembly.addressMap.keySet()) {
-                if (!addrHistory.add(addr)) {
-                    pw.println("WARNING: Duplicate instruction addresses detected. This is probably due to compiler reusing\n " +
-                            "the code arena for the new generated code. We can not differentiate between methods sharing\n" +
-                            "the same addresses, and therefore the profile might be wrong. Increasing generated code\n" +
-                            "storage might help.");
-                }
+            if (assembly.addressIndex.duplicates() > 0) {
+                pw.println("WARNING: Duplicate instruction addresses detected. This is probably due to compiler reusing\n " +
+                        "the code arena for the new generated code. We can not differentiate between methods sharing\n" +
+                        "the same addresses, and therefore the profile might be wrong. Increasing generated code\n" +
+                        "storage might help.");
             }
         }
 
@@ -629,14 +638,27 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
         return regions;
     }
 
-    Collection<Collection<String>> splitAssembly(File stdOut) {
+    /**
+     * Reads the PrintAssembly log in one pass. The log interleaves the output
+     * from several writer threads, which depends on the order of the lines,
+     * so it is parsed sequentially, but line by line, with the lines grouped
+     * by writer as they are read.
+     */
+    Assembly readAssembly(File stdOut) {
+        Map<Long, WriterLines> writers = new LinkedHashMap<Long, WriterLines>();
+        List<String> methods = new ArrayList<String>();
+        AddressIndex methodIndex = new AddressIndex();
+
+        Pattern pWriterThread = Pattern.compile("(.*)<writer thread='(.*)'>(.*)");
+
+        WriterLines writer = new WriterLines();
+        writers.put(-1L, writer);
+
+        BufferedReader br = null;
         try {
-            Multimap<Long, String> writerToLines = new HashMultimap<Long, String>();
-            Long writerId = -1L;
+            br = new BufferedReader(new FileReader(stdOut));
 
-            Pattern pWriterThread = Pattern.compile("(.*)<writer thread='(.*)'>(.*)");
             String line;
-            BufferedReader br = new BufferedReader(new FileReader(stdOut));
             while ((line = br.readLine()) != null) {
                 // Parse the writer threads IDs:
                 //    <writer thread='140703710570240'/>
@@ -644,34 +666,19 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
                     Matcher m = pWriterThread.matcher(line);
                     if (m.matches()) {
                         try {
-                            writerId = Long.valueOf(m.group(2));
+                            Long writerId = Long.valueOf(m.group(2));
+                            writer = writers.get(writerId);
+                            if (writer == null) {
+                                writer = new WriterLines();
+                                writers.put(writerId, writer);
+                            }
                         } catch (NumberFormatException e) {
                             // something is wrong, try to recover
                         }
                     }
                     continue;
                 }
-                writerToLines.put(writerId, line);
-            }
-
-            Collection<Collection<String>> r = new ArrayList<Collection<String>>();
-            for (long id : writerToLines.keys()) {
-                r.add(writerToLines.get(id));
-            }
-            return r;
-        } catch (IOException e) {
-            return Collections.emptyList();
-        }
-    }
-
-    Assembly readAssembly(File stdOut) {
-        List<ASMLine> lines = new ArrayList<ASMLine>();
-        SortedMap<Long, Integer> addressMap = new TreeMap<Long, Integer>();
-        SortedMap<Long, String> methodMap = new TreeMap<Long, String>();
 
-        for (Collection<String> cs : splitAssembly(stdOut)) {
-            String method = null;
-            for (String line : cs) {
                 String trim = line.trim();
 
                 if (trim.isEmpty()) continue;
@@ -680,6 +687,7 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
                 ASMLine asmLine = new ASMLine(line);
 
                 if (line.contains("# {method}")) {
+                    String method;
                     if (elements.length == 6) {
                         // old JDKs may print the line with 6 fields: # {method} <name> <signature> in <class>
                         method = (elements[5].replace("/", ".") + "::" + elements[2]).replace("'", "");
@@ -694,17 +702,17 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
                     method = method.replace("&apos;", "");
                     method = method.replace("&lt;", "<");
                     method = method.replace("&gt;", ">");
+                    writer.method = method;
                 } else if (elements.length >= 1 && elements[0].startsWith("0x")) {
                     // Seems to be line with address.
                     try {
-                        Long addr = Long.valueOf(elements[0].replace("0x", "").replace(":", ""), 16);
-                        int idx = lines.size();
-                        addressMap.put(addr, idx);
+                        long addr = Long.parseLong(elements[0].replace("0x", "").replace(":", ""), 16);
 
                         // Record the starting address for the method, if any.
-                        if (method != null) {
-                            methodMap.put(addr, method);
-                            method = null;
+                        if (writer.method != null) {
+                            methodIndex.put(addr, methods.size());
+                            methods.add(writer.method);
+                            writer.method = null;
                         }
 
                         asmLine = new ASMLine(addr, line);
@@ -712,18 +720,78 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
                         // Nope, not the address line.
                     }
                 }
+                writer.lines.add(asmLine);
+            }
+        } catch (IOException e) {
+            // process whatever we had read
+        } finally {
+            if (br != null) {
+                try {
+                    br.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        // lay out the lines writer by writer, and index the addresses
+        List<ASMLine> lines = new ArrayList<ASMLine>();
+        AddressIndex addressIndex = new AddressIndex();
+        for (WriterLines wl : writers.values()) {
+            for (ASMLine asmLine : wl.lines) {
+                if (asmLine.addr != null) {
+                    addressIndex.put(asmLine.addr, lines.size());
+                }
                 lines.add(asmLine);
             }
         }
-        return new Assembly(lines, addressMap, methodMap);
+        addressIndex.seal();
+        methodIndex.seal();
+
+        return new Assembly(lines, addressIndex, methods.toArray(new String[methods.size()]), methodIndex);
     }
 
+    static class WriterLines {
+        final List<ASMLine> lines = new ArrayList<ASMLine>();
+        String method;
+    }
+
+    /**
+     * Reads the perf script output. The output is memory-mapped, split into
+     * line-aligned chunks, and the chunks are parsed in parallel; partial
+     * results are then merged in the file order.
+     */
     PerfEvents readEvents(double skipSec) {
+        RandomAccessFile raf = null;
+        ExecutorService pool = null;
         try {
-            Deduplicator<String> dedup = new Deduplicator<String>();
-
-            FileInputStream fis = new FileInputStream(perfParsedData);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(fis));
+            raf = new RandomAccessFile(perfParsedData, "r");
+            FileChannel channel = raf.getChannel();
+
+            long size = channel.size();
+            double startTime = readStartTime();
+
+            int threads = Math.max(1, PARSE_THREADS);
+            long chunkSize = Math.max(size / threads / 4 + 1, MIN_CHUNK_SIZE);
+            chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "perfasm-parser");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+            List<Future<EventsChunk>> chunks = new ArrayList<Future<EventsChunk>>();
+            long start = 0;
+            while (start < size) {
+                long end = alignToLine(channel, Math.min(size, start + chunkSize), size);
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                chunks.add(pool.submit(new EventsChunkParser(buf, startTime, skipSec)));
+                start = end;
+            }
 
             Map<Long, String> methods = new HashMap<Long, String>();
             Map<Long, String> libs = new HashMap<Long, String>();
@@ -732,68 +800,185 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
                 events.put(evName, new TreeMultiset<Long>());
             }
 
-            Double startTime = null;
+            Deduplicator<String> dedup = new Deduplicator<String>();
+            for (Future<EventsChunk> f : chunks) {
+                EventsChunk chunk = f.get();
+                for (Map.Entry<String, Multiset<Long>> e : chunk.events.entrySet()) {
+                    Multiset<Long> evs = events.get(e.getKey());
+                    for (Long addr : e.getValue().keys()) {
+                        evs.add(addr, e.getValue().count(addr));
+                    }
+                }
+                for (Map.Entry<Long, String> e : chunk.methods.entrySet()) {
+                    methods.put(e.getKey(), dedup.dedup(e.getValue()));
+                }
+                for (Map.Entry<Long, String> e : chunk.libs.entrySet()) {
+                    libs.put(e.getKey(), dedup.dedup(e.getValue()));
+                }
+            }
 
-            // Demangled symbol names can contain spaces, so we need to parse the lines
-            // in a complicated manner. Using regexps will not solve this without sacrificing
-            // lots of performance, so we need to get tricky, and merge the symbol names back
-            // after splitting.
-            //
-            // We are forcing perf to print: time event ip sym dso
-            //
+            methods.put(0L, "<kernel>");
+
+            return new PerfEvents(events, methods, libs);
+        } catch (IOException e) {
+            return new PerfEvents();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
 
+    /**
+     * @return the timestamp of the first sample, to count the skipped time from
+     */
+    private double readStartTime() throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(perfParsedData));
+        try {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (line.startsWith("#")) continue;
 
                 String[] elems = line.trim().split("[ ]+");
-
                 if (elems.length < 4) continue;
 
-                String strTime = elems[0].replace(":", "");
-                String evName = elems[1].replace(":", "");
-                String strAddr = elems[2];
-                String symbol = Utils.join(Arrays.copyOfRange(elems, 3, elems.length - 1), " ");
-                String lib = elems[elems.length - 1];
-                lib = lib.substring(lib.lastIndexOf("/") + 1, lib.length()).replace("(", "").replace(")", "");
-
                 try {
-                    Double time = Double.valueOf(strTime);
-                    if (startTime == null) {
-                        startTime = time;
-                    } else {
-                        if (time - startTime < skipSec) {
-                            continue;
-                        }
-                    }
+                    return Double.valueOf(elems[0].replace(":", ""));
                 } catch (NumberFormatException e) {
                     // misformatted line, no timestamp
-                    continue;
                 }
+            }
+            return 0;
+        } finally {
+            reader.close();
+        }
+    }
 
-                Multiset<Long> evs = events.get(evName);
-                if (evs == null) {
-                    // we are not prepared to handle this event, skip
-                    continue;
+    /**
+     * @return position right after the first line break at or after {@code pos}; {@code size} if none
+     */
+    private static long alignToLine(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buf.clear();
+            int read = channel.read(buf, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int c = 0; c < read; c++) {
+                if (buf.get(c) == '\n') {
+                    return pos + c + 1;
                 }
+            }
+            pos += read;
+        }
+        return size;
+    }
 
-                try {
-                    Long addr = Long.valueOf(strAddr, 16);
-                    evs.add(addr);
-                    methods.put(addr, dedup.dedup(symbol));
-                    libs.put(addr, dedup.dedup(lib));
-                } catch (NumberFormatException e) {
-                    // kernel addresses like "ffffffff810c1b00" overflow signed long,
-                    // record them as dummy address
-                    evs.add(0L);
+    static class EventsChunk {
+        final Map<String, Multiset<Long>> events = new HashMap<String, Multiset<Long>>();
+        final Map<Long, String> methods = new HashMap<Long, String>();
+        final Map<Long, String> libs = new HashMap<Long, String>();
+    }
+
+    static class EventsChunkParser implements Callable<EventsChunk> {
+        private final ByteBuffer buf;
+        private final double startTime;
+        private final double skipSec;
+
+        EventsChunkParser(ByteBuffer buf, double startTime, double skipSec) {
+            this.buf = buf;
+            this.startTime = startTime;
+            this.skipSec = skipSec;
+        }
+
+        @Override
+        public EventsChunk call() {
+            EventsChunk chunk = new EventsChunk();
+            for (String evName : EVENTS) {
+                chunk.events.put(evName, new HashMultiset<Long>());
+            }
+
+            Deduplicator<String> dedup = new Deduplicator<String>();
+
+            byte[] lineBuf = new byte[256];
+            int len = 0;
+            while (buf.hasRemaining()) {
+                byte b = buf.get();
+                if (b != '\n') {
+                    if (len == lineBuf.length) {
+                        lineBuf = Arrays.copyOf(lineBuf, len * 2);
+                    }
+                    lineBuf[len++] = b;
+                    if (buf.hasRemaining()) {
+                        continue;
+                    }
                 }
+                parseLine(new String(lineBuf, 0, len), chunk, dedup);
+                len = 0;
             }
+            return chunk;
+        }
 
-            methods.put(0L, "<kernel>");
+        private void parseLine(String line, EventsChunk chunk, Deduplicator<String> dedup) {
+            if (line.startsWith("#")) return;
 
-            return new PerfEvents(events, methods, libs);
-        } catch (IOException e) {
-            return new PerfEvents();
+            // Demangled symbol names can contain spaces, so we need to parse the lines
+            // in a complicated manner. Using regexps will not solve this without sacrificing
+            // lots of performance, so we need to get tricky, and merge the symbol names back
+            // after splitting.
+            //
+            // We are forcing perf to print: time event ip sym dso
+            //
+
+            String[] elems = line.trim().split("[ ]+");
+
+            if (elems.length < 4) return;
+
+            String strTime = elems[0].replace(":", "");
+            String evName = elems[1].replace(":", "");
+            String strAddr = elems[2];
+            String symbol = Utils.join(Arrays.copyOfRange(elems, 3, elems.length - 1), " ");
+            String lib = elems[elems.length - 1];
+            lib = lib.substring(lib.lastIndexOf("/") + 1, lib.length()).replace("(", "").replace(")", "");
+
+            try {
+                double time = Double.valueOf(strTime);
+                if (time - startTime < skipSec) {
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // misformatted line, no timestamp
+                return;
+            }
+
+            Multiset<Long> evs = chunk.events.get(evName);
+            if (evs == null) {
+                // we are not prepared to handle this event, skip
+                return;
+            }
+
+            try {
+                Long addr = Long.valueOf(strAddr, 16);
+                evs.add(addr);
+                chunk.methods.put(addr, dedup.dedup(symbol));
+                chunk.libs.put(addr, dedup.dedup(lib));
+            } catch (NumberFormatException e) {
+                // kernel addresses like "ffffffff810c1b00" overflow signed long,
+                // record them as dummy address
+                evs.add(0L);
+            }
         }
     }
 
@@ -882,49 +1067,41 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
 
     static class Assembly {
         final List<ASMLine> lines;
-        final SortedMap<Long, Integer> addressMap;
-        final SortedMap<Long, String> methodMap;
+        final AddressIndex addressIndex;
+        final String[] methods;
+        final AddressIndex methodIndex;
 
-        public Assembly(List<ASMLine> lines, SortedMap<Long, Integer> addressMap, SortedMap<Long, String> methodMap) {
+        public Assembly(List<ASMLine> lines, AddressIndex addressIndex, String[] methods, AddressIndex methodIndex) {
             this.lines = lines;
-            this.addressMap = addressMap;
-            this.methodMap = methodMap;
+            this.addressIndex = addressIndex;
+            this.methods = methods;
+            this.methodIndex = methodIndex;
         }
 
         public Assembly() {
-            this(new ArrayList<ASMLine>(), new TreeMap<Long, Integer>(), new TreeMap<Long, String>());
+            this(new ArrayList<ASMLine>(), new AddressIndex(), new String[0], new AddressIndex());
+            addressIndex.seal();
+            methodIndex.seal();
         }
 
         public int size() {
             // We only care about the address lines.
-            return addressMap.size();
+            return addressIndex.size();
         }
 
         public List<ASMLine> getLines(long begin, long end, int window) {
-            SortedMap<Long, Integer> tailMap = addressMap.tailMap(begin);
-
-            Long beginAddr;
-            Integer beginIdx;
-            if (!tailMap.isEmpty()) {
-                beginAddr = tailMap.firstKey();
-                beginIdx = addressMap.get(beginAddr);
-            } else {
+            int first = addressIndex.ceilingIdx(begin);
+            if (first >= addressIndex.size()) {
                 return Collections.emptyList();
             }
 
-            SortedMap<Long, Integer> headMap = addressMap.headMap(end);
-
-            Long endAddr;
-            Integer endIdx;
-            if (!headMap.isEmpty()) {
-                endAddr = headMap.lastKey();
-                endIdx = addressMap.get(endAddr);
-            } else {
+            int last = addressIndex.lowerIdx(end);
+            if (last < 0) {
                 return Collections.emptyList();
             }
 
-            beginIdx = Math.max(0, beginIdx - window);
-            endIdx = Math.min(lines.size(), endIdx + 2 + window);
+            int beginIdx = Math.max(0, addressIndex.value(first) - window);
+            int endIdx = Math.min(lines.size(), addressIndex.value(last) + 2 + window);
 
             // Compensate for minute discrepancies
             if (beginIdx < endIdx) {
@@ -935,11 +1112,11 @@ public class LinuxPerfAsmProfiler extends LinuxPerfUtil implements ExternalProfi
         }
 
         public String getMethod(long addr) {
-            SortedMap<Long, String> head = methodMap.headMap(addr);
-            if (head.isEmpty()) {
+            int idx = methodIndex.lowerIdx(addr);
+            if (idx < 0) {
                 return "<unresolved>";
             } else {
-                return methodMap.get(head.lastKey());
+                return methods[methodIndex.value(idx)];
             }
         }
     }
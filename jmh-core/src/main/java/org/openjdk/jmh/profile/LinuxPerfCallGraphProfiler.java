@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.InputStreamDrainer;
+import org.openjdk.jmh.util.Multiset;
+import org.openjdk.jmh.util.Multisets;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the call stacks with "perf record -g", and resolves the frames
+ * of JIT-compiled Java code through the perf map the VM dumps at exit.
+ *
+ * <p>The forked VM is asked to preserve the frame pointers, so that perf
+ * can walk through the Java frames, and to dump /tmp/perf-&lt;pid&gt;.map,
+ * which "perf script" picks up to symbolize the JIT-compiled code. If the VM
+ * does not support these, Java frames are reported as unresolved.</p>
+ */
+public class LinuxPerfCallGraphProfiler extends LinuxPerfUtil implements ExternalProfiler {
+
+    /** Sampling frequency */
+    private static final long SAMPLE_FREQUENCY = Long.getLong("jmh.perfcg.frequency", 1000);
+
+    /** Event to sample */
+    private static final String EVENT = System.getProperty("jmh.perfcg.event", "cycles");
+
+    /** Delay collection for given time; -1 to detect automatically */
+    private static final int DELAY_MSEC = Integer.getInteger("jmh.perfcg.delayMs", -1);
+
+    /** Number of top methods to show */
+    private static final int SHOW_TOP = Integer.getInteger("jmh.perfcg.top", 20);
+
+    /** Directory to write the collapsed stacks to, null to skip */
+    private static final String COLLAPSED_DIR = System.getProperty("jmh.perfcg.collapsedDir");
+
+    private final String perfBinData;
+    private final String perfParsedData;
+    private final List<String> notes;
+
+    public LinuxPerfCallGraphProfiler() throws IOException {
+        perfBinData = FileUtils.tempFile("perfbin").getAbsolutePath();
+        perfParsedData = FileUtils.tempFile("perfparsed").getAbsolutePath();
+        notes = new ArrayList<String>();
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        List<String> cmd = new ArrayList<String>();
+        cmd.addAll(Arrays.asList("perf", "record", "-g", "-F" + SAMPLE_FREQUENCY, "-e" + EVENT, "-o" + perfBinData));
+        if (IS_DELAYED) {
+            cmd.add("-D");
+            cmd.add(String.valueOf(delayMsec(params)));
+        } else {
+            notes.add("WARNING: Your system uses old \"perf\", which can not delay data collection.\n" +
+                    "Therefore, perf performance data includes benchmark warmup.");
+        }
+        return cmd;
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        List<String> opts = new ArrayList<String>();
+
+        if (isVmOptionSupported(params, "-XX:+PreserveFramePointer")) {
+            opts.add("-XX:+PreserveFramePointer");
+        } else {
+            notes.add("WARNING: VM does not support -XX:+PreserveFramePointer, the stacks through Java frames are broken.");
+        }
+
+        if (isVmOptionSupported(params, "-XX:+UnlockDiagnosticVMOptions", "-XX:+DumpPerfMapAtExit")) {
+            opts.add("-XX:+UnlockDiagnosticVMOptions");
+            opts.add("-XX:+DumpPerfMapAtExit");
+        } else {
+            notes.add("WARNING: VM does not support -XX:+DumpPerfMapAtExit, JIT-compiled Java frames are unresolved.");
+        }
+
+        return opts;
+    }
+
+    private static boolean isVmOptionSupported(BenchmarkParams params, String... opts) {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(params.getJvm());
+        cmd.addAll(Arrays.asList(opts));
+        cmd.add("-version");
+        return Utils.tryWith(cmd.toArray(new String[cmd.size()])).isEmpty();
+    }
+
+    private static long delayMsec(BenchmarkParams params) {
+        if (DELAY_MSEC == -1) { // not set
+            return TimeUnit.NANOSECONDS.toMillis(params.getWarmup().getCount() *
+                    params.getWarmup().getTime().convertTo(TimeUnit.NANOSECONDS))
+                    + TimeUnit.SECONDS.toMillis(1); // loosely account for the JVM lag
+        } else {
+            return DELAY_MSEC;
+        }
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams params) {
+        // do nothing
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkParams params, File stdOut, File stdErr) {
+        try {
+            Process p = Runtime.getRuntime().exec(new String[]{"perf", "script", "-F", "pid,time,event,ip,sym,dso", "-i", perfBinData});
+
+            // drain streams, else we might lock up
+            FileOutputStream fos = new FileOutputStream(perfParsedData);
+
+            InputStreamDrainer errDrainer = new InputStreamDrainer(p.getErrorStream(), fos);
+            InputStreamDrainer outDrainer = new InputStreamDrainer(p.getInputStream(), fos);
+
+            errDrainer.start();
+            outDrainer.start();
+
+            p.waitFor();
+
+            errDrainer.join();
+            outDrainer.join();
+
+            FileUtils.safelyClose(fos);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        Set<String> pids = new HashSet<String>();
+        StackProfiler.StackTrees trees = readStacks(new File(perfParsedData), pids);
+
+        // perf maps are not needed after the symbols are resolved
+        for (String pid : pids) {
+            new File("/tmp/perf-" + pid + ".map").delete();
+        }
+        new File(perfBinData).delete();
+        new File(perfParsedData).delete();
+
+        StringBuilder sb = new StringBuilder();
+        for (String note : notes) {
+            sb.append(note).append("\n");
+        }
+        return Collections.singleton(new CallGraphResult(params.id(), trees, sb.toString()));
+    }
+
+    /**
+     * Reads the "perf script" output: each sample is the header line,
+     * followed by the indented frame lines, top frame first, and an empty line.
+     */
+    static StackProfiler.StackTrees readStacks(File file, Set<String> pids) {
+        StackProfiler.StackTrees trees = new StackProfiler.StackTrees();
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+
+            int[] stack = new int[128];
+            int depth = 0;
+            boolean inSample = false;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    if (inSample && depth > 0) {
+                        trees.add(Thread.State.RUNNABLE, stack, depth);
+                    }
+                    inSample = false;
+                    depth = 0;
+                    continue;
+                }
+
+                if (!Character.isWhitespace(line.charAt(0)) || !inSample) {
+                    // header line: "pid time: event:"
+                    String[] elems = line.trim().split("[ ]+");
+                    if (elems.length > 0) {
+                        pids.add(elems[0]);
+                    }
+                    inSample = true;
+                    depth = 0;
+                    continue;
+                }
+
+                // frame line: "addr sym (dso)"
+                String frame = parseFrame(line.trim());
+                if (frame != null) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = trees.intern(frame);
+                }
+            }
+
+            if (inSample && depth > 0) {
+                trees.add(Thread.State.RUNNABLE, stack, depth);
+            }
+        } catch (IOException e) {
+            // process whatever we had read
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        return trees;
+    }
+
+    /**
+     * Converts the frame line into the frame name, marking the Java frames
+     * with "_[j]", and the kernel frames with "_[k]", as flame graph tools do.
+     */
+    static String parseFrame(String line) {
+        int symStart = line.indexOf(' ');
+        int dsoStart = line.lastIndexOf(" (");
+        if (symStart < 0 || dsoStart < symStart) {
+            return null;
+        }
+
+        String sym = line.substring(symStart + 1, dsoStart).trim();
+        String dso = line.substring(dsoStart + 2, line.length() - (line.endsWith(")") ? 1 : 0));
+
+        if (dso.contains("kernel")) {
+            return sym + "_[k]";
+        }
+        if (dso.startsWith("/tmp/perf-") && dso.endsWith(".map")) {
+            return sym + "_[j]";
+        }
+        if (sym.equals("[unknown]")) {
+            return "[unknown] (" + dso.substring(dso.lastIndexOf('/') + 1) + ")";
+        }
+        return sym;
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        if (IS_SUPPORTED) {
+            return true;
+        } else {
+            msgs.addAll(FAIL_MSGS);
+            return false;
+        }
+    }
+
+    @Override
+    public String label() {
+        return "perfcg";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Linux perf call graph profiling, with JIT-compiled Java frames resolved";
+    }
+
+    public static class CallGraphResult extends Result<CallGraphResult> {
+        private static final long serialVersionUID = -2396412916830826387L;
+
+        private final String benchmark;
+        private final StackProfiler.StackTrees trees;
+        private final String notes;
+
+        public CallGraphResult(String benchmark, StackProfiler.StackTrees trees, String notes) {
+            super(ResultRole.SECONDARY, "@perfcg", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.benchmark = benchmark;
+            this.trees = trees;
+            this.notes = notes;
+        }
+
+        @Override
+        protected Aggregator<CallGraphResult> getThreadAggregator() {
+            return new CallGraphResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<CallGraphResult> getIterationAggregator() {
+            return new CallGraphResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "<delayed till summary>";
+        }
+
+        @Override
+        public String extendedInfo(String label) {
+            Multiset<String> exclusive = new HashMultiset<String>();
+            Multiset<String> inclusive = new HashMultiset<String>();
+            trees.frameCounts(Thread.State.RUNNABLE, exclusive, inclusive);
+
+            long total = trees.size(Thread.State.RUNNABLE);
+
+            StringBuilder builder = new StringBuilder();
+            builder.append("Perf call graph profiler:\n\n");
+            builder.append(notes);
+
+            if (total == 0) {
+                builder.append("\nERROR: No perf samples, make sure \"perf record -g echo 1\" is indeed working;\n " +
+                        "or the collection delay is not running past the benchmark time.\n");
+                return builder.toString();
+            }
+
+            builder.append(StackProfiler.dottedLine("Top methods, exclusive, " + total + " samples"));
+            appendTop(builder, exclusive, total);
+            builder.append("\n");
+
+            builder.append(StackProfiler.dottedLine("Top methods, inclusive, " + total + " samples"));
+            appendTop(builder, inclusive, total);
+            builder.append("\n");
+
+            if (COLLAPSED_DIR != null) {
+                File file = new File(COLLAPSED_DIR, ProfilerUtils.fileName(benchmark) + ".collapsed");
+                PrintWriter pw = null;
+                try {
+                    pw = new PrintWriter(file);
+                    trees.printCollapsed(Thread.State.RUNNABLE, pw);
+                    builder.append(String.format("Collapsed stacks saved to %s%n", file.getAbsolutePath()));
+                } catch (FileNotFoundException e) {
+                    builder.append(String.format("Unable to write collapsed stacks to %s: %s%n", file.getAbsolutePath(), e.getMessage()));
+                } finally {
+                    if (pw != null) {
+                        pw.close();
+                    }
+                }
+            }
+
+            return builder.toString();
+        }
+
+        private static void appendTop(StringBuilder builder, Multiset<String> counts, long total) {
+            for (String frame : Multisets.countHighest(counts, SHOW_TOP)) {
+                builder.append(String.format("%5.1f%% %s%n", counts.count(frame) * 100.0 / total, frame));
+            }
+        }
+    }
+
+    public static class CallGraphResultAggregator implements Aggregator<CallGraphResult> {
+        @Override
+        public Result aggregate(Collection<CallGraphResult> results) {
+            String benchmark = null;
+            StackProfiler.StackTrees sum = new StackProfiler.StackTrees();
+            StringBuilder notes = new StringBuilder();
+            for (CallGraphResult r : results) {
+                benchmark = r.benchmark;
+                sum.merge(r.trees);
+                if (notes.indexOf(r.notes) == -1) {
+                    notes.append(r.notes);
+                }
+            }
+            return new CallGraphResult(benchmark, sum, notes.toString());
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the hardware counters with "perf stat", and normalizes them
+ * per benchmark operation.
+ *
+ * <p>Counters are enabled only during measurement iterations, and each
+ * iteration delta is divided by the operations done in that iteration.
+ * This requires perf with control FIFOs support.</p>
+ */
+public class LinuxPerfNormProfiler extends LinuxPerfProfiler {
+
+    /** Events to count, as accepted by "perf stat -e" */
+    private static final String EVENTS = System.getProperty("jmh.perfnorm.events",
+            "cycles,instructions," +
+            "branches,branch-misses," +
+            "L1-dcache-loads,L1-dcache-load-misses," +
+            "LLC-loads,LLC-load-misses," +
+            "dTLB-loads,dTLB-load-misses");
+
+    @Override
+    protected List<String> eventOptions() {
+        return Arrays.asList("-e", EVENTS);
+    }
+
+    @Override
+    protected Collection<? extends Result> iterationResults(Map<String, Double> counters, IterationResult result) {
+        long ops = result.getMeasuredOps();
+        if (ops <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        for (Map.Entry<String, Double> e : counters.entrySet()) {
+            results.add(new ProfilerResult("@" + e.getKey(), e.getValue() / ops, "#/op", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkParams params, File stdOut, File stdErr) {
+        if (isControlled()) {
+            return super.afterTrial(params, stdOut, stdErr);
+        }
+        // unable to attribute counters to iterations, nothing to normalize
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        if (!super.checkSupport(msgs)) {
+            return false;
+        }
+        if (!IS_CONTROLLED) {
+            msgs.add("Your system uses old \"perf\", which can not control data collection with FIFOs.");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String label() {
+        return "perfnorm";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Linux perf statistics, normalized by operation count";
+    }
+
+}
@@ -25,35 +25,94 @@
 package org.openjdk.jmh.profile;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
 import org.openjdk.jmh.results.AggregationPolicy;
 import org.openjdk.jmh.results.Aggregator;
+import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.StringWriter;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler {
+/**
+ * Collects the hardware counters with "perf stat".
+ *
+ * <p>When perf supports the control FIFOs, the counters start disabled,
+ * and the forked VM enables them only for the duration of measurement
+ * iterations. The counter deltas are then attributed to each iteration.
+ * Otherwise, the collection is delayed for the estimated warmup time.</p>
+ */
+public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler, InternalResultProfiler {
 
     /** Delay collection for given time; -1 to detect automatically */
     private static final int DELAY_MSEC = Integer.getInteger("jmh.perf.delayMs", -1);
 
+    /** Enable counters only during measurement iterations, if perf supports control FIFOs */
+    private static final boolean USE_CONTROL = Boolean.valueOf(System.getProperty("jmh.perf.control", "true"));
+
+    /** Time to wait for perf to report the counters for the finished iteration */
+    private static final int CONTROL_WAIT_MSEC = Integer.getInteger("jmh.perf.controlWaitMs", 1000);
+
+    /** Print interval; long enough for counters to be printed only on enable/disable commands */
+    private static final long CONTROL_INTERVAL_MSEC = TimeUnit.DAYS.toMillis(1);
+
+    private static final String CONTROL_FIFO = "ctl";
+    private static final String ACK_FIFO = "ack";
+    private static final String STATS_FILE = "stats";
+
+    /** Host VM: control directory for the current trial, null if not controlled */
+    private File controlDir;
+
+    /** Forked VM: control directory, null if not controlled */
+    private final String forkedControlDir = System.getProperty(controlDirProperty());
+
+    private OutputStream ctlOut;
+    private InputStream ackIn;
+    private RandomAccessFile statsIn;
+    private final StringBuilder partialLine = new StringBuilder();
+
     @Override
     public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        if (IS_CONTROLLED && USE_CONTROL) {
+            controlDir = createControlDir();
+            if (controlDir != null) {
+                List<String> cmd = new ArrayList<String>();
+                cmd.addAll(Arrays.asList("perf", "stat", "-x", ",",
+                        "-o", new File(controlDir, STATS_FILE).getAbsolutePath()));
+                cmd.addAll(eventOptions());
+                cmd.addAll(Arrays.asList("-D", "-1",
+                        "-I", String.valueOf(CONTROL_INTERVAL_MSEC),
+                        "--control", "fifo:" + new File(controlDir, CONTROL_FIFO).getAbsolutePath() +
+                                "," + new File(controlDir, ACK_FIFO).getAbsolutePath()));
+                return cmd;
+            }
+        }
+
         long delay;
         if (DELAY_MSEC == -1) { // not set
             delay = TimeUnit.NANOSECONDS.toMillis(params.getWarmup().getCount() *
@@ -63,29 +122,88 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
             delay = DELAY_MSEC;
         }
 
+        List<String> cmd = new ArrayList<String>();
+        cmd.addAll(Arrays.asList("perf", "stat", "--log-fd", "2"));
+        cmd.addAll(eventOptions());
         if (IS_DELAYED) {
-            return Arrays.asList("perf", "stat", "--log-fd", "2", "-d", "-d", "-d", "-D", String.valueOf(delay));
-        } else {
-            return Arrays.asList("perf", "stat", "--log-fd", "2", "-d", "-d", "-d");
+            cmd.addAll(Arrays.asList("-D", String.valueOf(delay)));
         }
+        return cmd;
     }
 
     @Override
     public Collection<String> addJVMOptions(BenchmarkParams params) {
+        if (controlDir != null) {
+            return Collections.singletonList("-D" + controlDirProperty() + "=" + controlDir.getAbsolutePath());
+        }
         return Collections.emptyList();
     }
 
     @Override
     public void beforeTrial(BenchmarkParams params) {
-        // do nothing
+        // the command line is shared by all forks, and the previous fork had cleaned up the control files
+        if (controlDir != null && !controlDir.exists() && !createControlFiles(controlDir)) {
+            throw new IllegalStateException("Unable to recreate perf control FIFOs in " + controlDir);
+        }
     }
 
     @Override
     public Collection<? extends Result> afterTrial(BenchmarkParams params, File stdOut, File stdErr) {
+        if (controlDir != null) {
+            // measurement iterations had already reported their counters
+            for (String name : new String[]{CONTROL_FIFO, ACK_FIFO, STATS_FILE}) {
+                new File(controlDir, name).delete();
+            }
+            controlDir.delete();
+            return Collections.emptyList();
+        }
+
         PerfResult result = process(stdOut, stdErr);
         return Collections.singleton(result);
     }
 
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (forkedControlDir == null || iterationParams.getType() != IterationType.MEASUREMENT) {
+            return;
+        }
+
+        try {
+            if (ctlOut == null) {
+                File dir = new File(forkedControlDir);
+                ctlOut = new FileOutputStream(new File(dir, CONTROL_FIFO));
+                ackIn = new FileInputStream(new File(dir, ACK_FIFO));
+                statsIn = new RandomAccessFile(new File(dir, STATS_FILE), "r");
+            }
+            command("enable");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        throw new UnsupportedOperationException("Should be called with the iteration result");
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        if (forkedControlDir == null || iterationParams.getType() != IterationType.MEASUREMENT) {
+            return Collections.emptyList();
+        }
+
+        try {
+            command("disable");
+            Map<String, Double> counters = readCounters();
+            if (counters == null) {
+                return Collections.emptyList();
+            }
+            return iterationResults(counters, result);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public boolean allowPrintOut() {
         return true;
@@ -93,7 +211,8 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
 
     @Override
     public boolean allowPrintErr() {
-        return false;
+        // controlled perf writes the counters into the file
+        return controlDir != null;
     }
 
     @Override
@@ -116,6 +235,182 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
         return "Linux perf Statistics";
     }
 
+    /**
+     * @return perf options selecting the events to count
+     */
+    protected List<String> eventOptions() {
+        return Arrays.asList("-d", "-d", "-d");
+    }
+
+    /**
+     * Converts the counter deltas for the measurement iteration into results.
+     *
+     * @param counters event name to counter delta mapping
+     * @param result iteration result
+     * @return profiler results
+     */
+    protected Collection<? extends Result> iterationResults(Map<String, Double> counters, IterationResult result) {
+        return Collections.singleton(new PerfResult(counters));
+    }
+
+    /**
+     * @return true if counters are controlled by the forked VM in the current trial
+     */
+    protected boolean isControlled() {
+        return controlDir != null;
+    }
+
+    private String controlDirProperty() {
+        // distinct per profiler, so that several perf-based profilers can run at once
+        return "jmh." + label() + ".controlDir";
+    }
+
+    private static File createControlDir() {
+        try {
+            File dir = FileUtils.tempFile("perf");
+            if (!dir.delete() || !createControlFiles(dir)) {
+                return null;
+            }
+            return dir;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean createControlFiles(File dir) {
+        if (!dir.mkdir()) {
+            return false;
+        }
+        for (String fifo : new String[]{CONTROL_FIFO, ACK_FIFO}) {
+            if (!Utils.tryWith("mkfifo", new File(dir, fifo).getAbsolutePath()).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends the command to perf, and waits for perf to acknowledge it.
+     */
+    private void command(String cmd) throws IOException {
+        ctlOut.write((cmd + "\n").getBytes());
+        ctlOut.flush();
+
+        int b;
+        while ((b = ackIn.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("perf had closed the control channel");
+            }
+        }
+    }
+
+    /**
+     * Reads the counters reported since the last measurement iteration.
+     * perf prints the counters on "enable" before processing "disable",
+     * so the block printed on "enable" is complete by now, and the block
+     * printed on "disable" is complete once it has as many lines.
+     *
+     * @return counter deltas, null if perf had not reported them in time
+     */
+    private Map<String, Double> readCounters() throws IOException {
+        CounterBlocks blocks = new CounterBlocks();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONTROL_WAIT_MSEC);
+        while (true) {
+            for (String line : readStatsLines()) {
+                blocks.add(line);
+            }
+
+            if (blocks.isComplete()) {
+                break;
+            }
+
+            if (System.nanoTime() > deadline) {
+                return null;
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        return blocks.sum();
+    }
+
+    /**
+     * Counter blocks printed by "perf stat -I -x,", one block per interval.
+     */
+    static class CounterBlocks {
+        private final List<List<String[]>> blocks = new ArrayList<List<String[]>>();
+        private String lastStamp;
+
+        void add(String line) {
+            if (line.trim().isEmpty() || line.startsWith("#")) return;
+
+            // interval CSV: timestamp, count, unit, event, ...
+            String[] fields = line.split(",");
+            if (fields.length < 4) return;
+
+            String stamp = fields[0].trim();
+            if (!stamp.equals(lastStamp)) {
+                blocks.add(new ArrayList<String[]>());
+                lastStamp = stamp;
+            }
+            blocks.get(blocks.size() - 1).add(fields);
+        }
+
+        /**
+         * @return true, if the blocks for both "enable" and "disable" are printed in full
+         */
+        boolean isComplete() {
+            return blocks.size() >= 2 && blocks.get(blocks.size() - 1).size() >= blocks.get(0).size();
+        }
+
+        /**
+         * @return event name to counter mapping, summed over all blocks
+         */
+        Map<String, Double> sum() {
+            // counters are disabled outside the iteration, and report zeros there
+            Map<String, Double> counters = new LinkedHashMap<String, Double>();
+            for (List<String[]> block : blocks) {
+                for (String[] fields : block) {
+                    String event = fields[3].trim();
+                    double count;
+                    try {
+                        count = Double.parseDouble(fields[1].trim());
+                    } catch (NumberFormatException e) {
+                        // <not counted>, <not supported>
+                        count = 0;
+                    }
+                    Double prev = counters.get(event);
+                    counters.put(event, (prev == null) ? count : prev + count);
+                }
+            }
+            return counters;
+        }
+    }
+
+    private List<String> readStatsLines() throws IOException {
+        List<String> lines = new ArrayList<String>();
+
+        long avail = statsIn.length() - statsIn.getFilePointer();
+        if (avail > 0) {
+            byte[] buf = new byte[(int) avail];
+            statsIn.readFully(buf);
+            partialLine.append(new String(buf));
+
+            int idx;
+            while ((idx = partialLine.indexOf("\n")) >= 0) {
+                lines.add(partialLine.substring(0, idx));
+                partialLine.delete(0, idx + 1);
+            }
+        }
+        return lines;
+    }
+
     private PerfResult process(File stdOut, File stdErr) {
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw);
@@ -180,16 +475,38 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
         private static final long serialVersionUID = -1262685915873231436L;
 
         private final String output;
+        private final Map<String, Double> counters;
         private final long cycles;
         private final long instructions;
 
         public PerfResult(String output, long cycles, long instructions) {
+            this(output, Collections.<String, Double>emptyMap(), cycles, instructions);
+        }
+
+        public PerfResult(Map<String, Double> counters) {
+            this("", counters, counter(counters, "cycles", "cpu-cycles"), counter(counters, "instructions"));
+        }
+
+        private PerfResult(String output, Map<String, Double> counters, long cycles, long instructions) {
             super(ResultRole.SECONDARY, "@cpi", of(1.0 * cycles / instructions), "CPI", AggregationPolicy.AVG);
             this.output = output;
+            this.counters = counters;
             this.cycles = cycles;
             this.instructions = instructions;
         }
 
+        private static long counter(Map<String, Double> counters, String... names) {
+            for (Map.Entry<String, Double> e : counters.entrySet()) {
+                for (String name : names) {
+                    // the event may carry the modifiers, e.g. "cycles:u"
+                    if (e.getKey().equals(name) || e.getKey().startsWith(name + ":")) {
+                        return e.getValue().longValue();
+                    }
+                }
+            }
+            return 0;
+        }
+
         @Override
         protected Aggregator<PerfResult> getThreadAggregator() {
             return new PerfResultAggregator();
@@ -207,7 +524,18 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
 
         @Override
         public String extendedInfo(String label) {
-            return "Perf stats:\n--------------------------------------------------\n" + output;
+            StringBuilder sb = new StringBuilder();
+            sb.append("Perf stats:\n--------------------------------------------------\n");
+            if (!counters.isEmpty()) {
+                sb.append("Counters accumulated over measurement iterations:\n\n");
+                for (Map.Entry<String, Double> e : counters.entrySet()) {
+                    double v = e.getValue();
+                    String fmt = (v == Math.rint(v)) ? "%,20.0f  %s%n" : "%,20.3f  %s%n";
+                    sb.append(String.format(fmt, v, e.getKey()));
+                }
+            }
+            sb.append(output);
+            return sb.toString();
         }
     }
 
@@ -218,12 +546,17 @@ public class LinuxPerfProfiler extends LinuxPerfUtil implements ExternalProfiler
             long cycles = 0;
             long instructions = 0;
             String output = "";
+            Map<String, Double> counters = new LinkedHashMap<String, Double>();
             for (PerfResult r : results) {
                 cycles += r.cycles;
                 instructions += r.instructions;
                 output += r.output;
+                for (Map.Entry<String, Double> e : r.counters.entrySet()) {
+                    Double prev = counters.get(e.getKey());
+                    counters.put(e.getKey(), (prev == null) ? e.getValue() : prev + e.getValue());
+                }
             }
-            return new PerfResult(output, cycles, instructions);
+            return new PerfResult(output, counters, cycles, instructions);
         }
     }
 
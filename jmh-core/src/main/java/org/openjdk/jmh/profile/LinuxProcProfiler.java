@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the OS-level counters from /proc around each iteration.
+ *
+ * <p>Per-thread counters are read from /proc/self/task/&lt;tid&gt;/, and
+ * averaged over the benchmark worker threads. Workers are identified by their
+ * native names; if no workers are found, e.g. with the custom executors,
+ * the counters are averaged over all threads.</p>
+ */
+public class LinuxProcProfiler implements InternalProfiler {
+
+    private static final File PROC_SELF = new File("/proc/self");
+
+    /** USER_HZ, the clock ticks per second for the CPU times in /proc/&lt;pid&gt;/stat */
+    private static final int CLOCK_TICKS = Integer.getInteger("jmh.proc.clockTicks", 100);
+
+    private Map<String, TaskStat> before;
+    private long beforeRss;
+
+    @Override
+    public String getDescription() {
+        return "OS-level counters from /proc: context switches, page faults, CPU and run-queue times, RSS";
+    }
+
+    @Override
+    public boolean checkSupport(List<String> msgs) {
+        if (new File(PROC_SELF, "stat").canRead() && new File(PROC_SELF, "task").isDirectory()) {
+            return true;
+        }
+        msgs.add("Unable to read /proc/self, is this Linux?");
+        return false;
+    }
+
+    @Override
+    public String label() {
+        return "proc";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        before = readTasks();
+        beforeRss = readRss();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        Map<String, TaskStat> after = readTasks();
+        long afterRss = readRss();
+
+        String workerName = ProfilerUtils.workerNativeName(benchmarkParams.getBenchmark());
+        boolean hasWorkers = false;
+        for (TaskStat s : after.values()) {
+            hasWorkers |= s.name.equals(workerName);
+        }
+
+        TaskStat sum = new TaskStat("");
+        int threads = 0;
+        for (Map.Entry<String, TaskStat> e : after.entrySet()) {
+            TaskStat cur = e.getValue();
+            if (hasWorkers && !cur.name.equals(workerName)) continue;
+
+            // threads started during the iteration had no counts before
+            TaskStat prev = before.get(e.getKey());
+            if (prev == null) {
+                prev = new TaskStat(cur.name);
+            }
+
+            sum.minorFaults += cur.minorFaults - prev.minorFaults;
+            sum.majorFaults += cur.majorFaults - prev.majorFaults;
+            sum.userTicks += cur.userTicks - prev.userTicks;
+            sum.sysTicks += cur.sysTicks - prev.sysTicks;
+            sum.voluntarySwitches += cur.voluntarySwitches - prev.voluntarySwitches;
+            sum.involuntarySwitches += cur.involuntarySwitches - prev.involuntarySwitches;
+            sum.runqWaitNs += cur.runqWaitNs - prev.runqWaitNs;
+            threads++;
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        if (threads > 0) {
+            double tickMs = 1000.0 / CLOCK_TICKS;
+            results.add(new ProfilerResult("@proc.ctxsw.voluntary", 1.0 * sum.voluntarySwitches / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.ctxsw.involuntary", 1.0 * sum.involuntarySwitches / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.faults.minor", 1.0 * sum.minorFaults / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.faults.major", 1.0 * sum.majorFaults / threads, "#/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.cpu.user", sum.userTicks * tickMs / threads, "ms/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.cpu.sys", sum.sysTicks * tickMs / threads, "ms/thread", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@proc.runq.wait", 1.0 * sum.runqWaitNs / 1000 / 1000 / threads, "ms/thread", AggregationPolicy.AVG));
+        }
+        if (beforeRss >= 0 && afterRss >= 0) {
+            results.add(new ProfilerResult("@proc.rss.growth", 1.0 * (afterRss - beforeRss) / 1024, "MB", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    /**
+     * @return task id to counters mapping, for all live threads
+     */
+    private static Map<String, TaskStat> readTasks() {
+        Map<String, TaskStat> tasks = new HashMap<String, TaskStat>();
+        File[] dirs = new File(PROC_SELF, "task").listFiles();
+        if (dirs == null) {
+            return tasks;
+        }
+
+        for (File dir : dirs) {
+            try {
+                TaskStat s = new TaskStat(readName(dir));
+                readStat(dir, s);
+                readStatus(dir, s);
+                readSchedstat(dir, s);
+                tasks.put(dir.getName(), s);
+            } catch (IOException e) {
+                // thread had exited while we were reading
+            } catch (NumberFormatException e) {
+                // unexpected format, skip the thread
+            }
+        }
+        return tasks;
+    }
+
+    private static String readName(File dir) throws IOException {
+        Collection<String> lines = FileUtils.readAllLines(new File(dir, "comm"));
+        return lines.isEmpty() ? "" : lines.iterator().next().trim();
+    }
+
+    /**
+     * Parses /proc/&lt;pid&gt;/task/&lt;tid&gt;/stat. Thread name can contain
+     * spaces and parentheses, so the fields are counted from the last ')'.
+     */
+    private static void readStat(File dir, TaskStat s) throws IOException {
+        Collection<String> lines = FileUtils.readAllLines(new File(dir, "stat"));
+        if (lines.isEmpty()) return;
+
+        String line = lines.iterator().next();
+        String[] fields = line.substring(line.lastIndexOf(')') + 1).trim().split(" ");
+
+        // fields[0] is the field 3 in proc(5): state
+        s.minorFaults = Long.parseLong(fields[7]);
+        s.majorFaults = Long.parseLong(fields[9]);
+        s.userTicks = Long.parseLong(fields[11]);
+        s.sysTicks = Long.parseLong(fields[12]);
+    }
+
+    private static void readStatus(File dir, TaskStat s) throws IOException {
+        for (String line : FileUtils.readAllLines(new File(dir, "status"))) {
+            if (line.startsWith("voluntary_ctxt_switches:")) {
+                s.voluntarySwitches = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            } else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+                s.involuntarySwitches = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+    }
+
+    private static void readSchedstat(File dir, TaskStat s) throws IOException {
+        File file = new File(dir, "schedstat");
+        if (!file.exists()) {
+            // kernel without CONFIG_SCHEDSTATS
+            return;
+        }
+        Collection<String> lines = FileUtils.readAllLines(file);
+        if (lines.isEmpty()) return;
+
+        // run time (ns), run-queue wait time (ns), timeslices
+        String[] fields = lines.iterator().next().trim().split(" ");
+        s.runqWaitNs = Long.parseLong(fields[1]);
+    }
+
+    /**
+     * @return resident set size in KB; -1 if not available
+     */
+    private static long readRss() {
+        try {
+            for (String line : FileUtils.readAllLines(new File(PROC_SELF, "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    // VmRSS:     12345 kB
+                    return Long.parseLong(line.substring(line.indexOf(':') + 1).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException e) {
+            // fall through
+        }
+        return -1;
+    }
+
+    static class TaskStat {
+        final String name;
+        long minorFaults;
+        long majorFaults;
+        long userTicks;
+        long sysTicks;
+        long voluntarySwitches;
+        long involuntarySwitches;
+        long runqWaitNs;
+
+        TaskStat(String name) {
+            this.name = name;
+        }
+    }
+
+}
@@ -37,17 +37,24 @@ public class ProfilerFactory {
         List<Class<? extends Profiler>> profs = new ArrayList<Class<? extends Profiler>>();
 
         // All built-in profilers:
+        profs.add(AllocationProfiler.class);
         profs.add(ClassloaderProfiler.class);
         profs.add(CompilerProfiler.class);
+        profs.add(ContentionProfiler.class);
         profs.add(GCProfiler.class);
+        profs.add(GCPauseProfiler.class);
         profs.add(HotspotClassloadingProfiler.class);
         profs.add(HotspotCompilationProfiler.class);
         profs.add(HotspotMemoryProfiler.class);
         profs.add(HotspotRuntimeProfiler.class);
         profs.add(HotspotThreadProfiler.class);
+        profs.add(JFRProfiler.class);
         profs.add(StackProfiler.class);
         profs.add(LinuxPerfProfiler.class);
+        profs.add(LinuxPerfNormProfiler.class);
         profs.add(LinuxPerfAsmProfiler.class);
+        profs.add(LinuxPerfCallGraphProfiler.class);
+        profs.add(LinuxProcProfiler.class);
 
         // Try to discover more profilers through the SPI
         profs.addAll(getDiscoveredProfilers());
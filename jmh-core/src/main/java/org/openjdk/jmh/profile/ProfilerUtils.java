@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+class ProfilerUtils {
+
+    /** Worker thread name marker, see WorkerThreadFactory */
+    private static final String WORKER_MARKER = "-jmh-worker-";
+
+    /**
+     * Finds the benchmark worker threads by their names.
+     * @param bean thread bean to query
+     * @return worker thread ids; empty if there are no workers with the known names
+     */
+    public static long[] workerThreadIds(ThreadMXBean bean) {
+        long[] ids = bean.getAllThreadIds();
+        ThreadInfo[] infos = bean.getThreadInfo(ids);
+
+        long[] workers = new long[ids.length];
+        int count = 0;
+        for (ThreadInfo info : infos) {
+            if (info != null && info.getThreadName().contains(WORKER_MARKER)) {
+                workers[count++] = info.getThreadId();
+            }
+        }
+        return Arrays.copyOf(workers, count);
+    }
+
+    /**
+     * Linux truncates the native thread names to 15 characters, so that
+     * the marker is usually cut off. All workers of the benchmark still share
+     * the same truncated name, derived from the benchmark name.
+     * @param benchmark benchmark name, used as the worker name prefix
+     * @return native name of the worker threads, as seen in /proc/&lt;pid&gt;/task/&lt;tid&gt;/comm
+     */
+    public static String workerNativeName(String benchmark) {
+        String name = benchmark + WORKER_MARKER;
+        return name.substring(0, Math.min(name.length(), 15));
+    }
+
+    /**
+     * Benchmark ids carry the raw parameter values, which may contain path separators
+     * and other characters not allowed in file names. Replaces all of them with underscores.
+     * @param id benchmark id, see {@link org.openjdk.jmh.infra.BenchmarkParams#id()}
+     * @return file name safe to use in any directory
+     */
+    public static String fileName(String id) {
+        StringBuilder sb = new StringBuilder(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '.' || c == '-' || c == '_') {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+
+}
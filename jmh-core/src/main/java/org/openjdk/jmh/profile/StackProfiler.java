@@ -34,21 +34,31 @@ import org.openjdk.jmh.util.HashMultiset;
 import org.openjdk.jmh.util.Multiset;
 import org.openjdk.jmh.util.Multisets;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Very basic and naive stack profiler.
+ * Basic sampling stack profiler.
+ *
+ * <p>Samples the benchmark worker threads only, and accumulates the samples
+ * in the call trees, one per thread state. The summary shows the hottest
+ * top frames, and the call trees can be dumped in the collapsed stack format,
+ * which is understood by flame graph tools.</p>
  */
 public class StackProfiler implements InternalProfiler {
 
@@ -64,7 +74,16 @@ public class StackProfiler implements InternalProfiler {
     /** Record detailed line info */
     private static final boolean SAMPLE_LINE =    Boolean.getBoolean("jmh.stack.detailLine");
 
-    /** Threads to ignore (known system and harness threads) */
+    /** Max number of frames to sample, counting from the top of the stack */
+    private static final int SAMPLE_MAX_DEPTH =   Integer.getInteger("jmh.stack.maxDepth", 128);
+
+    /** Directory to write collapsed stacks to, not written if not set */
+    private static final String COLLAPSED_DIR =   System.getProperty("jmh.stack.collapsedDir");
+
+    /** Number of samples before re-discovering the worker threads, or giving up on finding them */
+    private static final int THREADS_REFRESH = 100;
+
+    /** Threads to ignore (known system and harness threads), if there are no known workers */
     private static final String[] IGNORED_THREADS = {
             "Finalizer",
             "Signal Dispatcher",
@@ -85,7 +104,7 @@ public class StackProfiler implements InternalProfiler {
     @Override
     public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
         samplingTask.stop();
-        return Arrays.asList(new StackResult(samplingTask.stacks));
+        return Arrays.asList(new StackResult(benchmarkParams.id(), samplingTask.getTrees()));
     }
 
     @Override
@@ -100,19 +119,28 @@ public class StackProfiler implements InternalProfiler {
 
     @Override
     public String getDescription() {
-        return "Simple and naive Java stack profiler";
+        return "Simple Java stack profiler";
     }
 
     public static class SamplingTask implements Runnable {
 
         private final Thread thread;
-        private final Map<Thread.State, Multiset<StackRecord>> stacks;
+        private final ThreadMXBean bean;
+        private final StackTrees trees;
+
+        /** Frames known to the trees; avoids formatting the frame names on every sample */
+        private final Map<StackTraceElement, Integer> knownFrames;
+
+        private int[] frameIds;
+        private long[] threadIds;
+        private boolean workersFound;
+        private int samples;
 
         public SamplingTask() {
-            stacks = new EnumMap<Thread.State, Multiset<StackRecord>>(Thread.State.class);
-            for (Thread.State s : Thread.State.values()) {
-                stacks.put(s, new HashMultiset<StackRecord>());
-            }
+            bean = ManagementFactory.getThreadMXBean();
+            trees = new StackTrees();
+            knownFrames = new HashMap<StackTraceElement, Integer>();
+            frameIds = new int[SAMPLE_MAX_DEPTH];
             thread = new Thread(this);
             thread.setName("Sampling Thread");
         }
@@ -121,29 +149,26 @@ public class StackProfiler implements InternalProfiler {
         public void run() {
 
             while (!Thread.interrupted()) {
-                ThreadInfo[] infos = ManagementFactory.getThreadMXBean().dumpAllThreads(false, false);
+                // until workers are started, keep looking for them
+                if (threadIds == null || !workersFound || (samples % THREADS_REFRESH) == 0) {
+                    threadIds = sampledThreads();
+                }
 
-                info:
+                ThreadInfo[] infos = bean.getThreadInfo(threadIds, SAMPLE_MAX_DEPTH);
                 for (ThreadInfo info : infos) {
-
-                    // filter out ignored threads
-                    for (String ignore : IGNORED_THREADS) {
-                        if (info.getThreadName().equalsIgnoreCase(ignore)) {
-                            continue info;
-                        }
+                    if (info == null) {
+                        // thread had died, re-discover
+                        threadIds = null;
+                        continue;
                     }
 
                     StackTraceElement[] stack = info.getStackTrace();
-                    String[] stackLines = new String[Math.min(stack.length, SAMPLE_STACK_LINES)];
-                    for (int i = 0; i < Math.min(stack.length, SAMPLE_STACK_LINES); i++) {
-                        stackLines[i] =
-                                stack[i].getClassName() +
-                                        '.' + stack[i].getMethodName()
-                                        + (SAMPLE_LINE ? ":" + stack[i].getLineNumber() : "");
+                    for (int i = 0; i < stack.length; i++) {
+                        frameIds[i] = frameId(stack[i]);
                     }
-                    Thread.State state = info.getThreadState();
-                    stacks.get(state).add(new StackRecord(stackLines));
+                    trees.add(info.getThreadState(), frameIds, stack.length);
                 }
+                samples++;
 
                 try {
                     TimeUnit.MILLISECONDS.sleep(SAMPLE_PERIOD_MSEC);
@@ -153,6 +178,48 @@ public class StackProfiler implements InternalProfiler {
             }
         }
 
+        private int frameId(StackTraceElement frame) {
+            Integer id = knownFrames.get(frame);
+            if (id == null) {
+                String name = frame.getClassName() + '.' + frame.getMethodName()
+                        + (SAMPLE_LINE ? ":" + frame.getLineNumber() : "");
+                id = trees.intern(name);
+                knownFrames.put(frame, id);
+            }
+            return id;
+        }
+
+        private long[] sampledThreads() {
+            long[] workers = ProfilerUtils.workerThreadIds(bean);
+            workersFound = (workers.length > 0);
+            if (workersFound || samples < THREADS_REFRESH) {
+                return workers;
+            }
+
+            // no known workers for a while, sample everything but the known harness threads
+            List<Long> ids = new ArrayList<Long>();
+            info:
+            for (ThreadInfo info : bean.getThreadInfo(bean.getAllThreadIds())) {
+                if (info == null) continue;
+                for (String ignore : IGNORED_THREADS) {
+                    if (info.getThreadName().equalsIgnoreCase(ignore)) {
+                        continue info;
+                    }
+                }
+                ids.add(info.getThreadId());
+            }
+
+            long[] res = new long[ids.size()];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = ids.get(i);
+            }
+            return res;
+        }
+
+        public StackTrees getTrees() {
+            return trees;
+        }
+
         public void start() {
             thread.start();
         }
@@ -168,6 +235,233 @@ public class StackProfiler implements InternalProfiler {
 
     }
 
+    /**
+     * Call trees, one per thread state. Frame names are interned,
+     * and tree nodes refer to frames by their ids.
+     */
+    static class StackTrees implements Serializable {
+        private static final long serialVersionUID = -4378294815473936270L;
+
+        private final List<String> frames;
+        private final Map<String, Integer> frameIds;
+        private final Map<Thread.State, StackNode> roots;
+
+        StackTrees() {
+            frames = new ArrayList<String>();
+            frameIds = new HashMap<String, Integer>();
+            roots = new EnumMap<Thread.State, StackNode>(Thread.State.class);
+        }
+
+        int intern(String frame) {
+            Integer id = frameIds.get(frame);
+            if (id == null) {
+                id = frames.size();
+                frames.add(frame);
+                frameIds.put(frame, id);
+            }
+            return id;
+        }
+
+        /**
+         * Adds the sample.
+         * @param state thread state
+         * @param stack frame ids, top frame first
+         * @param depth number of frames in the stack
+         */
+        void add(Thread.State state, int[] stack, int depth) {
+            add(state, stack, depth, 1);
+        }
+
+        private void add(Thread.State state, int[] stack, int depth, long count) {
+            StackNode node = roots.get(state);
+            if (node == null) {
+                node = new StackNode(-1);
+                roots.put(state, node);
+            }
+
+            node.total += count;
+            for (int i = depth - 1; i >= 0; i--) {
+                node = node.child(stack[i]);
+                node.total += count;
+            }
+            node.self += count;
+        }
+
+        /**
+         * Merges other trees into this one.
+         * @param other trees to merge
+         */
+        void merge(StackTrees other) {
+            int[] remap = new int[other.frames.size()];
+            for (int i = 0; i < remap.length; i++) {
+                remap[i] = intern(other.frames.get(i));
+            }
+
+            int[] path = new int[16];
+            for (Map.Entry<Thread.State, StackNode> e : other.roots.entrySet()) {
+                path = merge(e.getKey(), e.getValue(), remap, path, 0);
+            }
+        }
+
+        private int[] merge(Thread.State state, StackNode node, int[] remap, int[] path, int depth) {
+            if (node.self > 0) {
+                // path is root first, add() wants top first
+                int[] stack = new int[depth];
+                for (int i = 0; i < depth; i++) {
+                    stack[i] = path[depth - 1 - i];
+                }
+                add(state, stack, depth, node.self);
+            }
+
+            for (int c = 0; c < node.size; c++) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                }
+                path[depth] = remap[node.children[c].frame];
+                path = merge(state, node.children[c], remap, path, depth + 1);
+            }
+            return path;
+        }
+
+        Collection<Thread.State> states() {
+            return roots.keySet();
+        }
+
+        long size(Thread.State state) {
+            StackNode root = roots.get(state);
+            return (root == null) ? 0 : root.total;
+        }
+
+        /**
+         * Computes the sample counts for the top frames of the stacks.
+         * @param state thread state
+         * @param lines number of top frames to account
+         * @return multiset of stack records
+         */
+        Multiset<StackRecord> topStacks(Thread.State state, int lines) {
+            Multiset<StackRecord> res = new HashMultiset<StackRecord>();
+            StackNode root = roots.get(state);
+            if (root != null) {
+                topStacks(root, new ArrayList<String>(), lines, res);
+            }
+            return res;
+        }
+
+        private void topStacks(StackNode node, List<String> path, int lines, Multiset<StackRecord> res) {
+            if (node.self > 0) {
+                int count = Math.min(path.size(), lines);
+                String[] stackLines = new String[count];
+                for (int i = 0; i < count; i++) {
+                    stackLines[i] = path.get(path.size() - 1 - i);
+                }
+                res.add(new StackRecord(stackLines), node.self);
+            }
+
+            for (int c = 0; c < node.size; c++) {
+                path.add(frames.get(node.children[c].frame));
+                topStacks(node.children[c], path, lines, res);
+                path.remove(path.size() - 1);
+            }
+        }
+
+        /**
+         * Computes the per-frame sample counts. Exclusive counts are the samples
+         * where the frame is on top of the stack; inclusive counts are the samples
+         * where the frame is anywhere in the stack, counting recursive frames once.
+         * @param state thread state
+         * @param exclusive multiset to add exclusive counts to
+         * @param inclusive multiset to add inclusive counts to
+         */
+        void frameCounts(Thread.State state, Multiset<String> exclusive, Multiset<String> inclusive) {
+            StackNode root = roots.get(state);
+            if (root != null) {
+                frameCounts(root, new int[frames.size()], exclusive, inclusive);
+            }
+        }
+
+        private void frameCounts(StackNode node, int[] onPath, Multiset<String> exclusive, Multiset<String> inclusive) {
+            for (int c = 0; c < node.size; c++) {
+                StackNode child = node.children[c];
+                String frame = frames.get(child.frame);
+                if (child.self > 0) {
+                    exclusive.add(frame, child.self);
+                }
+                if (onPath[child.frame]++ == 0) {
+                    inclusive.add(frame, child.total);
+                }
+                frameCounts(child, onPath, exclusive, inclusive);
+                onPath[child.frame]--;
+            }
+        }
+
+        /**
+         * Prints the tree in collapsed stack format: one line per distinct stack,
+         * frames from root to top separated by semicolons, followed by sample count.
+         * @param state thread state
+         * @param pw writer to print to
+         */
+        void printCollapsed(Thread.State state, PrintWriter pw) {
+            StackNode root = roots.get(state);
+            if (root != null) {
+                printCollapsed(root, new StringBuilder(), pw);
+            }
+        }
+
+        private void printCollapsed(StackNode node, StringBuilder path, PrintWriter pw) {
+            if (node.self > 0 && path.length() > 0) {
+                pw.print(path);
+                pw.print(' ');
+                pw.println(node.self);
+            }
+
+            int len = path.length();
+            for (int c = 0; c < node.size; c++) {
+                if (len > 0) {
+                    path.append(';');
+                }
+                path.append(frames.get(node.children[c].frame));
+                printCollapsed(node.children[c], path, pw);
+                path.setLength(len);
+            }
+        }
+    }
+
+    /**
+     * Call tree node. Children are kept in the array, and looked up linearly:
+     * most nodes have very few children.
+     */
+    static class StackNode implements Serializable {
+        private static final long serialVersionUID = 4520563935431538587L;
+
+        private static final StackNode[] EMPTY = new StackNode[0];
+
+        private final int frame;
+        private long self;
+        private long total;
+        private StackNode[] children;
+        private int size;
+
+        StackNode(int frame) {
+            this.frame = frame;
+            this.children = EMPTY;
+        }
+
+        StackNode child(int frame) {
+            for (int c = 0; c < size; c++) {
+                if (children[c].frame == frame) {
+                    return children[c];
+                }
+            }
+
+            if (size == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, size * 2));
+            }
+            StackNode node = new StackNode(frame);
+            children[size++] = node;
+            return node;
+        }
+    }
+
     private static class StackRecord implements Serializable {
         private static final long serialVersionUID = -1829626661894754733L;
 
@@ -197,11 +491,13 @@ public class StackProfiler implements InternalProfiler {
     public static class StackResult extends Result<StackResult> {
         private static final long serialVersionUID = 2609170863630346073L;
 
-        private final Map<Thread.State, Multiset<StackRecord>> stacks;
+        private final String benchmark;
+        private final StackTrees trees;
 
-        public StackResult(Map<Thread.State, Multiset<StackRecord>> stacks) {
+        public StackResult(String benchmark, StackTrees trees) {
             super(ResultRole.SECONDARY, "@stack", of(Double.NaN), "---", AggregationPolicy.AVG);
-            this.stacks = stacks;
+            this.benchmark = benchmark;
+            this.trees = trees;
         }
 
         @Override
@@ -221,7 +517,37 @@ public class StackProfiler implements InternalProfiler {
 
         @Override
         public String extendedInfo(String label) {
-            return getStack(stacks);
+            Map<Thread.State, Multiset<StackRecord>> stacks = new EnumMap<Thread.State, Multiset<StackRecord>>(Thread.State.class);
+            for (Thread.State state : trees.states()) {
+                stacks.put(state, trees.topStacks(state, SAMPLE_STACK_LINES));
+            }
+
+            String res = getStack(stacks);
+            if (COLLAPSED_DIR != null) {
+                res += writeCollapsed(COLLAPSED_DIR);
+            }
+            return res;
+        }
+
+        private String writeCollapsed(String dir) {
+            StringBuilder builder = new StringBuilder();
+            builder.append(dottedLine("Collapsed stacks"));
+            for (Thread.State state : trees.states()) {
+                File file = new File(dir, ProfilerUtils.fileName(benchmark) + "-" + state + ".collapsed");
+                PrintWriter pw = null;
+                try {
+                    pw = new PrintWriter(file);
+                    trees.printCollapsed(state, pw);
+                    builder.append(String.format("%s: %s%n", state, file.getAbsolutePath()));
+                } catch (FileNotFoundException e) {
+                    builder.append(String.format("%s: unable to write %s: %s%n", state, file.getAbsolutePath(), e.getMessage()));
+                } finally {
+                    if (pw != null) {
+                        pw.close();
+                    }
+                }
+            }
+            return builder.toString();
         }
 
         public String getStack(final Map<Thread.State, Multiset<StackRecord>> stacks) {
@@ -319,19 +645,13 @@ public class StackProfiler implements InternalProfiler {
     public static class StackResultAggregator implements Aggregator<StackResult> {
         @Override
         public Result aggregate(Collection<StackResult> results) {
-            Map<Thread.State, Multiset<StackRecord>> sum = new EnumMap<Thread.State, Multiset<StackRecord>>(Thread.State.class);
+            String benchmark = null;
+            StackTrees sum = new StackTrees();
             for (StackResult r : results) {
-                for (Map.Entry<Thread.State, Multiset<StackRecord>> entry : r.stacks.entrySet()) {
-                    if (!sum.containsKey(entry.getKey())) {
-                        sum.put(entry.getKey(), new HashMultiset<StackRecord>());
-                    }
-                    Multiset<StackRecord> sumSet = sum.get(entry.getKey());
-                    for (StackRecord rec : entry.getValue().keys()) {
-                        sumSet.add(rec, entry.getValue().count(rec));
-                    }
-                }
+                benchmark = r.benchmark;
+                sum.merge(r.trees);
             }
-            return new StackResult(sum);
+            return new StackResult(benchmark, sum);
         }
     }
 
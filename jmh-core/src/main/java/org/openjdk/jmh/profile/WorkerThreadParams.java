@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread parameters of the benchmark workers, by worker thread id.
+ *
+ * <p>Workers register their parameters when they start the iteration, so that
+ * profilers can attribute per-thread data to thread groups and subgroups.
+ * The registration is cleared after the profilers are done with the iteration,
+ * so that the short-lived workers, e.g. virtual threads, do not pile up.</p>
+ */
+public final class WorkerThreadParams {
+
+    private static final ConcurrentMap<Long, ThreadParams> PARAMS = new ConcurrentHashMap<Long, ThreadParams>();
+
+    private WorkerThreadParams() {
+        // prevent instantiation
+    }
+
+    /**
+     * Registers the parameters for the current thread.
+     * @param params thread parameters
+     */
+    public static void register(ThreadParams params) {
+        PARAMS.put(Thread.currentThread().getId(), params);
+    }
+
+    /**
+     * Clears the registration for the worker thread.
+     * @param threadId thread id
+     */
+    public static void unregister(long threadId) {
+        PARAMS.remove(threadId);
+    }
+
+    /**
+     * @param threadId thread id
+     * @return thread parameters for the worker thread; null if thread is not a known worker
+     */
+    public static ThreadParams get(long threadId) {
+        return PARAMS.get(threadId);
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.SampleBuffer;
+import org.openjdk.jmh.util.Statistics;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result class that records the response time at the fixed offered load.
+ * Every response time is counted from the intended start of the call.
+ */
+public class FixedRateResult extends Result {
+    private static final long serialVersionUID = 2846271342468163470L;
+
+    private final SampleBuffer buffer;
+    private final TimeUnit outputTimeUnit;
+    private final long operations;
+    private final long missed;
+    private final long durationNs;
+
+    public FixedRateResult(ResultRole role, String label, SampleBuffer buffer, long operations, long missed, long durationNs, TimeUnit outputTimeUnit) {
+        this(role, label,
+                buffer, operations, missed, durationNs,
+                TimeValue.tuToString(outputTimeUnit) + "/op",
+                outputTimeUnit);
+    }
+
+    FixedRateResult(ResultRole role, String label, SampleBuffer buffer, long operations, long missed, long durationNs, String unit, TimeUnit outputTimeUnit) {
+        super(role, label,
+                of(buffer, outputTimeUnit),
+                unit,
+                AggregationPolicy.AVG);
+        this.buffer = buffer;
+        this.outputTimeUnit = outputTimeUnit;
+        this.operations = operations;
+        this.missed = missed;
+        this.durationNs = durationNs;
+    }
+
+    SampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    TimeUnit getOutputTimeUnit() {
+        return outputTimeUnit;
+    }
+
+    long getDurationNs() {
+        return durationNs;
+    }
+
+    private static Statistics of(SampleBuffer buffer, TimeUnit outputTimeUnit) {
+        double tuMultiplier = 1.0D * outputTimeUnit.convert(1, TimeUnit.DAYS) / TimeUnit.NANOSECONDS.convert(1, TimeUnit.DAYS);
+        return buffer.getStatistics(tuMultiplier);
+    }
+
+    /**
+     * @return achieved rate, in invocations per second
+     */
+    public double getAchievedRate() {
+        return (durationNs > 0) ? 1.0D * operations * TimeUnit.SECONDS.toNanos(1) / durationNs : Double.NaN;
+    }
+
+    /**
+     * @return number of invocations that started at least one schedule interval late
+     */
+    public long getMissedCount() {
+        return missed;
+    }
+
+    /**
+     * @return number of completed invocations
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    @Override
+    public String toString() {
+        Statistics stats = getStatistics();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("n = ").append(stats.getN()).append(", ");
+        sb.append(String.format("mean = %.0f %s",
+                stats.getMean(),
+                getScoreUnit()));
+        sb.append(String.format(", p{0.50, 0.90, 0.99, 0.999, 1.00} = %.0f, %.0f, %.0f, %.0f, %.0f %s",
+                stats.getPercentile(50),
+                stats.getPercentile(90),
+                stats.getPercentile(99),
+                stats.getPercentile(99.9),
+                stats.getPercentile(100),
+                getScoreUnit()));
+        sb.append(String.format(", rate = %.3f ops/s, missed = %d", getAchievedRate(), missed));
+        return sb.toString();
+    }
+
+    @Override
+    public String extendedInfo(String label) {
+        return simpleExtendedInfo(label) + percentileExtendedInfo(label) +
+                String.format("  Achieved rate = %.3f ops/s, missed schedule = %d of %d invocations%n",
+                        getAchievedRate(), missed, operations);
+    }
+
+    @Override
+    protected Aggregator getThreadAggregator() {
+        return new JoiningAggregator(false);
+    }
+
+    @Override
+    protected Aggregator getIterationAggregator() {
+        return new JoiningAggregator(true);
+    }
+
+    /**
+     * Always add up all the samples into final result.
+     * Threads run concurrently, and iterations run one after another;
+     * this decides how the durations are combined for the achieved rate.
+     */
+    static class JoiningAggregator implements Aggregator<FixedRateResult> {
+        private final boolean sequential;
+
+        JoiningAggregator(boolean sequential) {
+            this.sequential = sequential;
+        }
+
+        @Override
+        public Result aggregate(Collection<FixedRateResult> results) {
+            SampleBuffer buffer = new SampleBuffer();
+            long operations = 0;
+            long missed = 0;
+            long durationNs = 0;
+            TimeUnit tu = null;
+            for (FixedRateResult r : results) {
+                buffer.addAll(r.buffer);
+                operations += r.operations;
+                missed += r.missed;
+                durationNs = sequential ? (durationNs + r.durationNs) : Math.max(durationNs, r.durationNs);
+                tu = r.outputTimeUnit;
+            }
+            return new FixedRateResult(
+                    AggregatorUtils.aggregateRoles(results),
+                    AggregatorUtils.aggregateLabels(results),
+                    buffer,
+                    operations,
+                    missed,
+                    durationNs,
+                    AggregatorUtils.aggregateUnits(results),
+                    tu
+            );
+        }
+    }
+
+}
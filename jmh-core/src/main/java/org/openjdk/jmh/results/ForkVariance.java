@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.util.ListStatistics;
+
+import java.util.Collection;
+
+/**
+ * Decomposes the variance of the score into the variance within the forks,
+ * and the variance between the forks (run-to-run variance). Every fork is the separate
+ * {@link BenchmarkResult}, and every iteration is the sample within the fork.
+ */
+public class ForkVariance {
+
+    private final int forks;
+    private final double mean;
+    private final double within;
+    private final double between;
+    private final ListStatistics forkMeans;
+
+    /**
+     * Decompose the variance of the primary score.
+     * @param results fork results
+     */
+    public ForkVariance(Collection<BenchmarkResult> results) {
+        this(results, null);
+    }
+
+    /**
+     * Decompose the variance of the secondary score.
+     * @param results fork results
+     * @param label secondary result label; null, to decompose the primary score
+     */
+    public ForkVariance(Collection<BenchmarkResult> results, String label) {
+        forkMeans = new ListStatistics();
+
+        double pooledSum = 0;
+        long pooledDf = 0;
+        long samples = 0;
+
+        for (BenchmarkResult br : results) {
+            ListStatistics fork = new ListStatistics();
+            for (IterationResult ir : br.getIterationResults()) {
+                Result r = (label == null) ? ir.getPrimaryResult() : ir.getSecondaryResults().get(label);
+                if (r != null) {
+                    fork.addValue(r.getScore());
+                }
+            }
+            if (fork.getN() == 0) {
+                continue;
+            }
+
+            forkMeans.addValue(fork.getMean());
+            if (fork.getN() > 1) {
+                pooledSum += fork.getVariance() * (fork.getN() - 1);
+                pooledDf += fork.getN() - 1;
+            }
+            samples += fork.getN();
+        }
+
+        forks = (int) forkMeans.getN();
+        mean = (forks > 0) ? forkMeans.getMean() : Double.NaN;
+        within = (pooledDf > 0) ? pooledSum / pooledDf : 0;
+
+        if (forks > 1) {
+            // the variance of fork means carries the share of within-fork variance,
+            // which diminishes with more samples in the fork
+            double perFork = 1.0D * samples / forks;
+            between = Math.max(0, forkMeans.getVariance() - within / perFork);
+        } else {
+            between = Double.NaN;
+        }
+    }
+
+    /**
+     * @return number of forks
+     */
+    public int getForkCount() {
+        return forks;
+    }
+
+    /**
+     * @return mean score over the fork means
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return variance of the score within the forks
+     */
+    public double getWithinForkVariance() {
+        return within;
+    }
+
+    /**
+     * @return variance of the score between the forks; NaN, if there is less than two forks
+     */
+    public double getBetweenForkVariance() {
+        return between;
+    }
+
+    /**
+     * @return the share of between-fork variance in the total variance
+     */
+    public double getBetweenForkShare() {
+        double total = within + between;
+        return (total > 0) ? between / total : 0;
+    }
+
+    /**
+     * Relative error of the mean score, treating the forks as the independent samples.
+     * This accounts for the run-to-run variance, which is invisible from within the fork.
+     *
+     * @param confidence confidence level
+     * @return half-width of the confidence interval, divided by the mean; NaN, if there are not enough forks
+     */
+    public double getRelativeErrorAt(double confidence) {
+        return forkMeans.getMeanErrorAt(confidence) / Math.abs(mean);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("between forks = %.3g, within fork = %.3g (%.1f%% run-to-run), over %d forks",
+                between, within, getBetweenForkShare() * 100, forks);
+    }
+
+}
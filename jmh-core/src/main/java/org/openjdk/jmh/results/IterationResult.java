@@ -47,6 +47,10 @@ public class IterationResult implements Serializable {
     private final List<Result> primaryResults;
     private final Multimap<String, Result> secondaryResults;
     private String scoreUnit;
+    private boolean outputPerturbed;
+    private boolean lastIteration;
+    private long measuredOps;
+    private long measuredAllocatedBytes = -1;
 
     public IterationResult(BenchmarkParams benchmarkParams, IterationParams params) {
         this.benchmarkParams = benchmarkParams;
@@ -121,4 +125,57 @@ public class IterationResult implements Serializable {
         return scoreUnit;
     }
 
+    public void setMeasuredOps(long measuredOps) {
+        this.measuredOps = measuredOps;
+    }
+
+    /**
+     * @return total number of operations measured in this iteration, across all threads
+     */
+    public long getMeasuredOps() {
+        return measuredOps;
+    }
+
+    public void setMeasuredAllocatedBytes(long measuredAllocatedBytes) {
+        this.measuredAllocatedBytes = measuredAllocatedBytes;
+    }
+
+    /**
+     * @return total number of bytes allocated by the worker threads while measuring
+     *         the operations in this iteration; -1, if allocations were not tracked
+     */
+    public long getMeasuredAllocatedBytes() {
+        return measuredAllocatedBytes;
+    }
+
+    /**
+     * Marks this iteration as the last one in the trial. With adaptive iteration
+     * counts, this can come before the configured number of iterations.
+     */
+    public void markLastIteration() {
+        lastIteration = true;
+    }
+
+    /**
+     * @return true, if this iteration was the last one in the trial
+     */
+    public boolean isLastIteration() {
+        return lastIteration;
+    }
+
+    /**
+     * Marks this iteration as perturbed: the benchmark output had to be
+     * forwarded to the host VM while the iteration was running.
+     */
+    public void markOutputPerturbed() {
+        outputPerturbed = true;
+    }
+
+    /**
+     * @return true, if the benchmark output had perturbed this iteration
+     */
+    public boolean isOutputPerturbed() {
+        return outputPerturbed;
+    }
+
 }
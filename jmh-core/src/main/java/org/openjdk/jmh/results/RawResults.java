@@ -31,6 +31,7 @@ public class RawResults {
     public long realTime;
     public long startTime;
     public long stopTime;
+    public long missed;
 
     public long getOperations() {
         return opsPerInv * operations;
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.SampleBuffer;
+import org.openjdk.jmh.util.Statistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes the iteration and benchmark results with primitives, for the binary link
+ * between the host and forked VMs. The scores and the sample histograms of the JMH
+ * results are written field by field. Other results, e.g. the ones from profilers,
+ * are written as serialized blobs.
+ *
+ * <p>The benchmark parameters are not written, the caller is expected to pass them
+ * along separately.</p>
+ */
+public final class ResultCodec {
+
+    private static final byte SERIALIZED = 0;
+    private static final byte THROUGHPUT = 1;
+    private static final byte AVERAGE_TIME = 2;
+    private static final byte SINGLE_SHOT = 3;
+    private static final byte SAMPLE_TIME = 4;
+    private static final byte FIXED_RATE = 5;
+
+    private ResultCodec() {
+        // prevent instantiation
+    }
+
+    public static void writeIterationResult(DataOutput out, IterationResult ir) throws IOException {
+        writeIterationParams(out, ir.getParams());
+        out.writeBoolean(ir.isOutputPerturbed());
+        out.writeBoolean(ir.isLastIteration());
+        out.writeLong(ir.getMeasuredOps());
+        out.writeLong(ir.getMeasuredAllocatedBytes());
+
+        // primary and secondary results are disjoint, the role tells them apart when reading back
+        List<Result> results = new ArrayList<Result>();
+        results.addAll(ir.getRawPrimaryResults());
+        results.addAll(ir.getRawSecondaryResults().values());
+
+        out.writeInt(results.size());
+        for (Result r : results) {
+            writeResult(out, r);
+        }
+    }
+
+    public static IterationResult readIterationResult(DataInput in, BenchmarkParams benchmarkParams) throws IOException {
+        IterationResult ir = new IterationResult(benchmarkParams, readIterationParams(in));
+        if (in.readBoolean()) {
+            ir.markOutputPerturbed();
+        }
+        if (in.readBoolean()) {
+            ir.markLastIteration();
+        }
+        ir.setMeasuredOps(in.readLong());
+        ir.setMeasuredAllocatedBytes(in.readLong());
+
+        int count = in.readInt();
+        for (int c = 0; c < count; c++) {
+            ir.addResult(readResult(in));
+        }
+        return ir;
+    }
+
+    public static void writeBenchmarkResult(DataOutput out, BenchmarkResult br) throws IOException {
+        Collection<IterationResult> irs = br.getIterationResults();
+        out.writeInt(irs.size());
+        for (IterationResult ir : irs) {
+            writeIterationResult(out, ir);
+        }
+
+        Collection<Result> rs = br.getBenchmarkResults().values();
+        out.writeInt(rs.size());
+        for (Result r : rs) {
+            writeResult(out, r);
+        }
+    }
+
+    public static BenchmarkResult readBenchmarkResult(DataInput in, BenchmarkParams benchmarkParams) throws IOException {
+        int iterations = in.readInt();
+        List<IterationResult> irs = new ArrayList<IterationResult>(iterations);
+        for (int c = 0; c < iterations; c++) {
+            irs.add(readIterationResult(in, benchmarkParams));
+        }
+
+        BenchmarkResult br = new BenchmarkResult(irs);
+        int count = in.readInt();
+        for (int c = 0; c < count; c++) {
+            br.addBenchmarkResult(readResult(in));
+        }
+        return br;
+    }
+
+    private static void writeIterationParams(DataOutput out, IterationParams ip) throws IOException {
+        out.writeByte(ip.getType().ordinal());
+        out.writeInt(ip.getCount());
+        out.writeLong(ip.getTime().getTime());
+        out.writeByte(ip.getTime().getTimeUnit().ordinal());
+        out.writeInt(ip.getBatchSize());
+    }
+
+    private static IterationParams readIterationParams(DataInput in) throws IOException {
+        IterationType type = IterationType.values()[in.readByte()];
+        int count = in.readInt();
+        TimeValue time = new TimeValue(in.readLong(), TimeUnit.values()[in.readByte()]);
+        int batchSize = in.readInt();
+        return new IterationParams(type, count, time, batchSize);
+    }
+
+    static void writeResult(DataOutput out, Result r) throws IOException {
+        Class<?> klass = r.getClass();
+        Statistics s = r.getStatistics();
+
+        // raw results from the benchmark threads carry a single score
+        if (klass == ThroughputResult.class && s.getN() == 1) {
+            out.writeByte(THROUGHPUT);
+            writeHeader(out, r);
+            out.writeByte(r.policy.ordinal());
+            out.writeDouble(s.getSum());
+        } else if (klass == AverageTimeResult.class && s.getN() == 1) {
+            out.writeByte(AVERAGE_TIME);
+            writeHeader(out, r);
+            out.writeDouble(s.getSum());
+        } else if (klass == SingleShotResult.class && s.getN() == 1) {
+            out.writeByte(SINGLE_SHOT);
+            writeHeader(out, r);
+            out.writeDouble(s.getSum());
+        } else if (klass == SampleTimeResult.class) {
+            SampleTimeResult str = (SampleTimeResult) r;
+            out.writeByte(SAMPLE_TIME);
+            writeHeader(out, r);
+            out.writeByte(str.getOutputTimeUnit().ordinal());
+            str.getBuffer().writeTo(out);
+        } else if (klass == FixedRateResult.class) {
+            FixedRateResult frr = (FixedRateResult) r;
+            out.writeByte(FIXED_RATE);
+            writeHeader(out, r);
+            out.writeByte(frr.getOutputTimeUnit().ordinal());
+            out.writeLong(frr.getOperations());
+            out.writeLong(frr.getMissedCount());
+            out.writeLong(frr.getDurationNs());
+            frr.getBuffer().writeTo(out);
+        } else {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(r);
+            oos.close();
+
+            byte[] data = bos.toByteArray();
+            out.writeByte(SERIALIZED);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+    }
+
+    static Result readResult(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == SERIALIZED) {
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+            try {
+                return (Result) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Can not read the result: " + e.getMessage());
+            } finally {
+                ois.close();
+            }
+        }
+
+        ResultRole role = ResultRole.values()[in.readByte()];
+        String label = readString(in);
+        String unit = readString(in);
+
+        switch (kind) {
+            case THROUGHPUT: {
+                AggregationPolicy policy = AggregationPolicy.values()[in.readByte()];
+                return new ThroughputResult(role, label, Result.of(in.readDouble()), unit, policy);
+            }
+            case AVERAGE_TIME:
+                return new AverageTimeResult(role, label, Result.of(in.readDouble()), unit);
+            case SINGLE_SHOT:
+                return new SingleShotResult(role, label, Result.of(in.readDouble()), unit);
+            case SAMPLE_TIME: {
+                TimeUnit tu = TimeUnit.values()[in.readByte()];
+                return new SampleTimeResult(role, label, SampleBuffer.readFrom(in), unit, tu);
+            }
+            case FIXED_RATE: {
+                TimeUnit tu = TimeUnit.values()[in.readByte()];
+                long operations = in.readLong();
+                long missed = in.readLong();
+                long durationNs = in.readLong();
+                return new FixedRateResult(role, label, SampleBuffer.readFrom(in), operations, missed, durationNs, unit, tu);
+            }
+            default:
+                throw new IOException("Unknown result kind: " + kind);
+        }
+    }
+
+    private static void writeHeader(DataOutput out, Result r) throws IOException {
+        out.writeByte(r.getRole().ordinal());
+        writeString(out, r.getLabel());
+        writeString(out, r.getScoreUnit());
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+}
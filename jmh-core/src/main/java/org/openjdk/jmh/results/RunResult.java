@@ -105,6 +105,27 @@ public class RunResult implements Serializable {
         return params;
     }
 
+    /**
+     * Return the decomposition of the primary score variance into within-fork
+     * and between-fork variance.
+     *
+     * @return fork variance
+     */
+    public ForkVariance getForkVariance() {
+        return new ForkVariance(benchmarkResults);
+    }
+
+    /**
+     * Return the decomposition of the secondary score variance into within-fork
+     * and between-fork variance.
+     *
+     * @param label secondary result label
+     * @return fork variance
+     */
+    public ForkVariance getForkVariance(String label) {
+        return new ForkVariance(benchmarkResults, label);
+    }
+
     public static final Comparator<RunResult> DEFAULT_SORT_COMPARATOR = new Comparator<RunResult>() {
         @Override
         public int compare(RunResult o1, RunResult o2) {
@@ -56,6 +56,14 @@ public class SampleTimeResult extends Result {
         this.outputTimeUnit = outputTimeUnit;
     }
 
+    SampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    TimeUnit getOutputTimeUnit() {
+        return outputTimeUnit;
+    }
+
     private static Statistics of(SampleBuffer buffer, TimeUnit outputTimeUnit) {
         double tuMultiplier = 1.0D * outputTimeUnit.convert(1, TimeUnit.DAYS) / TimeUnit.NANOSECONDS.convert(1, TimeUnit.DAYS);
         return buffer.getStatistics(tuMultiplier);
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.annotations.Mode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fits the throughput over the thread counts to the Amdahl's law and to the
+ * Universal Scalability Law (USL), which models the throughput with N threads as:
+ * <pre>
+ *   X(N) = lambda * N / (1 + sigma * (N - 1) + kappa * N * (N - 1))
+ * </pre>
+ * ...where {@code sigma} is the contention (serialized) fraction, and {@code kappa}
+ * is the coherency (crosstalk) penalty. Amdahl's law is the special case with
+ * {@code kappa = 0}. Every {@link RunResult} is the separate thread count of the
+ * same benchmark; time-based modes are converted to the throughput first.
+ */
+public class Scalability {
+
+    private final int[] threads;
+    private final double[] throughput;
+    private final String unit;
+
+    private final Fit amdahl;
+    private final Fit usl;
+
+    public Scalability(Collection<RunResult> results) {
+        List<RunResult> sorted = new ArrayList<RunResult>(results);
+        Collections.sort(sorted, new Comparator<RunResult>() {
+            @Override
+            public int compare(RunResult o1, RunResult o2) {
+                int t1 = o1.getParams().getThreads();
+                int t2 = o2.getParams().getThreads();
+                return (t1 < t2) ? -1 : ((t1 == t2) ? 0 : 1);
+            }
+        });
+
+        threads = new int[sorted.size()];
+        throughput = new double[sorted.size()];
+        String u = "ops/time";
+        for (int c = 0; c < sorted.size(); c++) {
+            RunResult r = sorted.get(c);
+            Result primary = r.getPrimaryResult();
+            threads[c] = r.getParams().getThreads();
+            if (r.getParams().getMode() == Mode.Throughput) {
+                throughput[c] = primary.getScore();
+                u = primary.getScoreUnit();
+            } else {
+                // time per operation in each thread
+                throughput[c] = threads[c] / primary.getScore();
+                u = "ops/" + primary.getScoreUnit().replace("/op", "");
+            }
+        }
+        unit = u;
+
+        amdahl = fit(threads, throughput, false);
+        usl = fit(threads, throughput, true);
+    }
+
+    Scalability(int[] threads, double[] throughput) {
+        this.threads = threads;
+        this.throughput = throughput;
+        this.unit = "ops/time";
+        this.amdahl = fit(threads, throughput, false);
+        this.usl = fit(threads, throughput, true);
+    }
+
+    /**
+     * @param mode benchmark mode
+     * @return true, if the scores in this mode can be converted to the throughput
+     */
+    public static boolean isApplicable(Mode mode) {
+        return mode == Mode.Throughput || mode == Mode.AverageTime || mode == Mode.SampleTime;
+    }
+
+    /**
+     * @return number of thread counts
+     */
+    public int getCount() {
+        return threads.length;
+    }
+
+    /**
+     * @param idx index of the thread count, ascending
+     * @return thread count
+     */
+    public int getThreads(int idx) {
+        return threads[idx];
+    }
+
+    /**
+     * @param idx index of the thread count, ascending
+     * @return measured throughput
+     */
+    public double getThroughput(int idx) {
+        return throughput[idx];
+    }
+
+    /**
+     * @return throughput unit
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return single-threaded throughput; measured, if available, and fitted otherwise
+     */
+    public double getBaseline() {
+        if (threads.length > 0 && threads[0] == 1) {
+            return throughput[0];
+        }
+        return usl.lambda;
+    }
+
+    /**
+     * @param idx index of the thread count, ascending
+     * @return throughput relative to the single-threaded throughput
+     */
+    public double getSpeedup(int idx) {
+        return throughput[idx] / getBaseline();
+    }
+
+    /**
+     * @param idx index of the thread count, ascending
+     * @return speedup per thread, 1 for the linear scaling
+     */
+    public double getEfficiency(int idx) {
+        return getSpeedup(idx) / threads[idx];
+    }
+
+    /**
+     * @return Amdahl's serial fraction
+     */
+    public double getSerialFraction() {
+        return amdahl.sigma;
+    }
+
+    /**
+     * @return Amdahl's speedup limit; infinity, if there is no serial fraction
+     */
+    public double getAmdahlSpeedupLimit() {
+        return (amdahl.sigma > 0) ? 1 / amdahl.sigma : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return coefficient of determination for Amdahl's fit
+     */
+    public double getAmdahlR2() {
+        return amdahl.r2;
+    }
+
+    /**
+     * @param n thread count
+     * @return throughput predicted by Amdahl's law
+     */
+    public double predictAmdahl(double n) {
+        return amdahl.predict(n);
+    }
+
+    /**
+     * @return USL contention coefficient (sigma)
+     */
+    public double getContention() {
+        return usl.sigma;
+    }
+
+    /**
+     * @return USL coherency coefficient (kappa)
+     */
+    public double getCoherency() {
+        return usl.kappa;
+    }
+
+    /**
+     * @return coefficient of determination for USL fit
+     */
+    public double getUslR2() {
+        return usl.r2;
+    }
+
+    /**
+     * @param n thread count
+     * @return throughput predicted by USL
+     */
+    public double predictUsl(double n) {
+        return usl.predict(n);
+    }
+
+    /**
+     * @return thread count with the peak USL throughput; infinity, if throughput never degrades
+     */
+    public double getPeakThreads() {
+        if (usl.kappa > 0 && usl.sigma < 1) {
+            return Math.sqrt((1 - usl.sigma) / usl.kappa);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return integer thread count with the peak USL throughput; -1, if throughput never degrades
+     */
+    public int getPeakThreadCount() {
+        double peak = getPeakThreads();
+        if (Double.isInfinite(peak)) {
+            return -1;
+        }
+        int lo = Math.max(1, (int) Math.floor(peak));
+        int hi = lo + 1;
+        return (predictUsl(lo) >= predictUsl(hi)) ? lo : hi;
+    }
+
+    private static Fit fit(int[] threads, double[] throughput, boolean coherency) {
+        // Throughput is linear in lambda, so for the given sigma and kappa the best lambda
+        // has the closed form. This leaves the search over sigma and kappa alone:
+        // coarse log-spaced grid first, then multiplicative refinement around the best point.
+        Fit best = new Fit(threads, throughput, 0, 0);
+
+        for (int i = 0; i <= 40; i++) {
+            double sigma = (i == 0) ? 0 : Math.pow(10, -4 + 4.0 * (i - 1) / 39);
+            for (int j = 0; j <= (coherency ? 48 : 0); j++) {
+                double kappa = (j == 0) ? 0 : Math.pow(10, -6 + 6.0 * (j - 1) / 47);
+                Fit f = new Fit(threads, throughput, sigma, kappa);
+                if (f.sse < best.sse) {
+                    best = f;
+                }
+            }
+        }
+
+        // sigma and kappa are correlated, so the search moves along the diagonals too;
+        // zero factor allows to drop the coefficient altogether
+        double h = 0.5;
+        for (int iter = 0; iter < 10000 && h > 1e-12; iter++) {
+            boolean improved = false;
+            for (double ds : new double[] {1, 1 + h, 1 / (1 + h), 0}) {
+                for (double dk : (coherency ? new double[] {1, 1 + h, 1 / (1 + h), 0} : new double[] {1})) {
+                    Fit f = new Fit(threads, throughput, Math.min(1, best.sigma * ds), best.kappa * dk);
+                    if (f.sse < best.sse) {
+                        best = f;
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                h /= 2;
+            }
+        }
+
+        return best;
+    }
+
+    private static class Fit {
+        final double sigma;
+        final double kappa;
+        final double lambda;
+        final double sse;
+        final double r2;
+
+        Fit(int[] threads, double[] throughput, double sigma, double kappa) {
+            this.sigma = sigma;
+            this.kappa = kappa;
+
+            double xf = 0;
+            double ff = 0;
+            double mean = 0;
+            for (int c = 0; c < threads.length; c++) {
+                double f = shape(threads[c]);
+                xf += throughput[c] * f;
+                ff += f * f;
+                mean += throughput[c];
+            }
+            mean /= threads.length;
+            lambda = (ff > 0) ? xf / ff : 0;
+
+            double err = 0;
+            double tot = 0;
+            for (int c = 0; c < threads.length; c++) {
+                double e = throughput[c] - lambda * shape(threads[c]);
+                err += e * e;
+                tot += (throughput[c] - mean) * (throughput[c] - mean);
+            }
+            sse = err;
+            r2 = (tot > 0) ? 1 - err / tot : 1;
+        }
+
+        double shape(double n) {
+            return n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+        }
+
+        double predict(double n) {
+            return lambda * shape(n);
+        }
+    }
+
+}
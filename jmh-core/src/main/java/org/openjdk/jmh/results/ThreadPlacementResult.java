@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records the worker thread placement actually applied to the run.
+ */
+public class ThreadPlacementResult extends Result<ThreadPlacementResult> {
+    private static final long serialVersionUID = 4383936262413958254L;
+
+    private final String policy;
+    private final List<String> threads;
+
+    public ThreadPlacementResult(String policy, List<String> threads) {
+        super(ResultRole.SECONDARY, "@placement", of(Double.NaN), "---", AggregationPolicy.AVG);
+        this.policy = policy;
+        this.threads = new ArrayList<String>(threads);
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return placement description for each thread index
+     */
+    public List<String> getThreads() {
+        return threads;
+    }
+
+    @Override
+    protected Aggregator<ThreadPlacementResult> getThreadAggregator() {
+        return new ThreadPlacementResultAggregator();
+    }
+
+    @Override
+    protected Aggregator<ThreadPlacementResult> getIterationAggregator() {
+        return new ThreadPlacementResultAggregator();
+    }
+
+    @Override
+    public String toString() {
+        return policy;
+    }
+
+    @Override
+    public String extendedInfo(String label) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Thread placement: ").append(policy).append("\n");
+        for (int t = 0; t < threads.size(); t++) {
+            sb.append(String.format("  thread %3d: %s%n", t, threads.get(t)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Placement is the same for all iterations and forks of the run,
+     * unless forks are running in the different CPU slices.
+     */
+    static class ThreadPlacementResultAggregator implements Aggregator<ThreadPlacementResult> {
+        @Override
+        public Result aggregate(Collection<ThreadPlacementResult> results) {
+            String policy = null;
+            List<String> threads = null;
+            for (ThreadPlacementResult r : results) {
+                if (threads == null) {
+                    policy = r.policy;
+                    threads = new ArrayList<String>(r.threads);
+                } else if (!threads.equals(r.threads)) {
+                    policy = r.policy + ", varies between forks";
+                }
+            }
+            return new ThreadPlacementResult(policy, threads);
+        }
+    }
+
+}
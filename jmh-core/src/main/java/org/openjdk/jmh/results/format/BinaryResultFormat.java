@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results.format;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * Binary result format. The file is the header, followed by the sequence of
+ * length-prefixed and checksummed records, one per {@link RunResult}. Each record
+ * is the Java-serialized {@link RunResult}, written with its own object stream:
+ * the records are not compact, and can only be read back by the same JMH version.
+ *
+ * <p>The records are only appended to the file, and the record torn by abrupt termination
+ * is detected and ignored by {@link #read(String)}.</p>
+ */
+public class BinaryResultFormat implements StreamingResultFormat {
+
+    private static final int MAGIC = 0x4A4D4852; // "JMHR"
+    private static final int VERSION = 1;
+
+    private final ResultFile file;
+
+    BinaryResultFormat(ResultFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public void startRun(Collection<BenchmarkParams> planned) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.close();
+            file.append(bos.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void writeResult(RunResult result) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(payload);
+            oos.writeObject(result);
+            oos.close();
+
+            byte[] data = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            dos.writeInt(data.length);
+            dos.writeLong(crc.getValue());
+            dos.write(data);
+            dos.close();
+
+            file.append(bos.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void endRun() {
+        file.close();
+    }
+
+    /**
+     * Read the results back from the binary result file.
+     * The incomplete record at the end of file, if any, is ignored.
+     *
+     * @param file file to read
+     * @return results, in the order they were written
+     * @throws IOException if file can not be read, or it is not the binary result file
+     */
+    public static Collection<RunResult> read(String file) throws IOException {
+        Collection<RunResult> results = new ArrayList<RunResult>();
+
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            int magic;
+            int version;
+            try {
+                magic = dis.readInt();
+                version = dis.readInt();
+            } catch (EOFException e) {
+                throw new IOException("Not a binary result file: " + file);
+            }
+            if (magic != MAGIC) {
+                throw new IOException("Not a binary result file: " + file);
+            }
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary result file version: " + version);
+            }
+
+            while (true) {
+                byte[] data;
+                long checksum;
+                try {
+                    int length = dis.readInt();
+                    checksum = dis.readLong();
+                    if (length < 0) {
+                        break;
+                    }
+                    data = new byte[length];
+                    dis.readFully(data);
+                } catch (EOFException e) {
+                    // no more records, or the last record was torn
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+                try {
+                    results.add((RunResult) ois.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Can not read the result: " + e.getMessage());
+                } finally {
+                    FileUtils.safelyClose(ois);
+                }
+            }
+        } finally {
+            FileUtils.safelyClose(dis);
+        }
+
+        return results;
+    }
+
+}
@@ -26,6 +26,7 @@ package org.openjdk.jmh.results.format;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.ForkVariance;
 import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
@@ -35,14 +36,25 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
-class JSONResultFormat implements ResultFormat {
+class JSONResultFormat implements ResultFormat, StreamingResultFormat {
 
     private final PrintWriter out;
+    private final ResultFile file;
+
+    private String trailer;
+    private boolean wroteResults;
 
     public JSONResultFormat(PrintWriter out) {
         this.out = out;
+        this.file = null;
+    }
+
+    public JSONResultFormat(ResultFile file) {
+        this.out = null;
+        this.file = file;
     }
 
     @Override
@@ -54,89 +66,133 @@ class JSONResultFormat implements ResultFormat {
 
         pw.println("[");
         for (RunResult runResult : results) {
-            BenchmarkParams params = runResult.getParams();
-
             if (first) {
                 first = false;
             } else {
                 pw.println(",");
             }
+            emitRunResult(pw, runResult);
+        }
+        pw.println("]");
 
-            pw.println("{");
-            pw.println("\"benchmark\" : \"" + params.getBenchmark() + "\",");
-            pw.println("\"mode\" : \"" + params.getMode().shortLabel() + "\",");
-            pw.println("\"threads\" : " + params.getThreads() + ",");
-            pw.println("\"forks\" : " + params.getForks() + ",");
-            pw.println("\"warmupIterations\" : " + params.getWarmup().getCount() + ",");
-            pw.println("\"warmupTime\" : \"" + params.getWarmup().getTime() + "\",");
-            pw.println("\"measurementIterations\" : " + params.getMeasurement().getCount() + ",");
-            pw.println("\"measurementTime\" : \"" + params.getMeasurement().getTime() + "\",");
-
-            if (!params.getParamsKeys().isEmpty()) {
-                pw.println("\"params\" : {");
-                pw.println(emitParams(params));
-                pw.println("},");
-            }
+        out.println(tidy(sw.toString()));
+    }
 
-            Result primaryResult = runResult.getPrimaryResult();
-            pw.println("\"primaryMetric\" : {");
-            pw.println("\"score\" : " + emit(primaryResult.getScore()) + ",");
-            pw.println("\"scoreError\" : " + emit(primaryResult.getScoreError()) + ",");
-            pw.println("\"scoreConfidence\" : " + emit(primaryResult.getScoreConfidence()) + ",");
-            pw.println(emitPercentiles(primaryResult.getStatistics()));
-            pw.println("\"scoreUnit\" : \"" + primaryResult.getScoreUnit() + "\",");
-            pw.println("\"rawData\" :");
-
-            {
-                Collection<String> l1 = new ArrayList<String>();
-                for (BenchmarkResult benchmarkResult : runResult.getBenchmarkResults()) {
-                    Collection<String> scores = new ArrayList<String>();
-                    for (IterationResult r : benchmarkResult.getIterationResults()) {
-                        scores.add(emit(r.getPrimaryResult().getScore()));
-                    }
-                    l1.add(printMultiple(scores, "[", "]"));
+    @Override
+    public void startRun(Collection<BenchmarkParams> planned) {
+        // The file always holds the complete document: start with the empty one,
+        // and then splice the results before the closing bracket.
+        StringWriter sw = new StringWriter();
+        new JSONResultFormat(new PrintWriter(sw)).writeOut(Collections.<RunResult>emptyList());
+
+        String empty = sw.toString();
+        trailer = empty.substring(empty.indexOf('\n') + 1);
+        wroteResults = false;
+
+        file.append(empty.getBytes());
+    }
+
+    @Override
+    public void writeResult(RunResult result) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("[");
+        emitRunResult(pw, result);
+        pw.println("]");
+
+        // tidy the record as the part of the array, to get the same indentation as in full document;
+        // then strip the brackets back
+        String s = tidy(sw.toString());
+        String record = s.substring(s.indexOf('\n') + 1, s.lastIndexOf("]"));
+
+        if (wroteResults) {
+            // the separator as tidy() puts it between the array elements
+            record = "    ,\n" + record;
+        }
+        file.replaceTail(trailer.length(), (record + trailer).getBytes());
+        wroteResults = true;
+    }
+
+    @Override
+    public void endRun() {
+        file.close();
+    }
+
+    private void emitRunResult(PrintWriter pw, RunResult runResult) {
+        BenchmarkParams params = runResult.getParams();
+
+        pw.println("{");
+        pw.println("\"benchmark\" : \"" + params.getBenchmark() + "\",");
+        pw.println("\"mode\" : \"" + params.getMode().shortLabel() + "\",");
+        pw.println("\"threads\" : " + params.getThreads() + ",");
+        pw.println("\"forks\" : " + params.getForks() + ",");
+        pw.println("\"warmupIterations\" : " + params.getWarmup().getCount() + ",");
+        pw.println("\"warmupTime\" : \"" + params.getWarmup().getTime() + "\",");
+        pw.println("\"measurementIterations\" : " + params.getMeasurement().getCount() + ",");
+        pw.println("\"measurementTime\" : \"" + params.getMeasurement().getTime() + "\",");
+
+        if (!params.getParamsKeys().isEmpty()) {
+            pw.println("\"params\" : {");
+            pw.println(emitParams(params));
+            pw.println("},");
+        }
+
+        Result primaryResult = runResult.getPrimaryResult();
+        pw.println("\"primaryMetric\" : {");
+        pw.println("\"score\" : " + emit(primaryResult.getScore()) + ",");
+        pw.println("\"scoreError\" : " + emit(primaryResult.getScoreError()) + ",");
+        pw.println("\"scoreConfidence\" : " + emit(primaryResult.getScoreConfidence()) + ",");
+        pw.println(emitPercentiles(primaryResult.getStatistics()));
+        pw.println(emitForkVariance(runResult.getForkVariance()));
+        pw.println("\"scoreUnit\" : \"" + primaryResult.getScoreUnit() + "\",");
+        pw.println("\"rawData\" :");
+
+        {
+            Collection<String> l1 = new ArrayList<String>();
+            for (BenchmarkResult benchmarkResult : runResult.getBenchmarkResults()) {
+                Collection<String> scores = new ArrayList<String>();
+                for (IterationResult r : benchmarkResult.getIterationResults()) {
+                    scores.add(emit(r.getPrimaryResult().getScore()));
                 }
-                pw.println(printMultiple(l1, "[", "]"));
-                pw.println("},");
+                l1.add(printMultiple(scores, "[", "]"));
             }
+            pw.println(printMultiple(l1, "[", "]"));
+            pw.println("},");
+        }
 
-            Collection<String> secondaries = new ArrayList<String>();
-            for (Map.Entry<String, Result> e : runResult.getSecondaryResults().entrySet()) {
-                String secondaryName = e.getKey();
-                Result result = e.getValue();
-
-                StringBuilder sb = new StringBuilder();
-                sb.append("\"").append(secondaryName).append("\" : {");
-                sb.append("\"score\" : ").append(emit(result.getScore())).append(",");
-                sb.append("\"scoreError\" : ").append(emit(result.getScoreError())).append(",");
-                sb.append("\"scoreConfidence\" : ").append(emit(result.getScoreConfidence())).append(",");
-                sb.append(emitPercentiles(result.getStatistics()));
-                sb.append("\"scoreUnit\" : \"").append(result.getScoreUnit()).append("\",");
-                sb.append("\"rawData\" : ");
-
-                Collection<String> l2 = new ArrayList<String>();
-                for (BenchmarkResult benchmarkResult : runResult.getBenchmarkResults()) {
-                    Collection<String> scores = new ArrayList<String>();
-                    for (IterationResult r : benchmarkResult.getIterationResults()) {
-                        scores.add(emit(r.getSecondaryResults().get(secondaryName).getScore()));
-                    }
-                    l2.add(printMultiple(scores, "[", "]"));
+        Collection<String> secondaries = new ArrayList<String>();
+        for (Map.Entry<String, Result> e : runResult.getSecondaryResults().entrySet()) {
+            String secondaryName = e.getKey();
+            Result result = e.getValue();
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("\"").append(secondaryName).append("\" : {");
+            sb.append("\"score\" : ").append(emit(result.getScore())).append(",");
+            sb.append("\"scoreError\" : ").append(emit(result.getScoreError())).append(",");
+            sb.append("\"scoreConfidence\" : ").append(emit(result.getScoreConfidence())).append(",");
+            sb.append(emitPercentiles(result.getStatistics()));
+            sb.append(emitForkVariance(runResult.getForkVariance(secondaryName)));
+            sb.append("\"scoreUnit\" : \"").append(result.getScoreUnit()).append("\",");
+            sb.append("\"rawData\" : ");
+
+            Collection<String> l2 = new ArrayList<String>();
+            for (BenchmarkResult benchmarkResult : runResult.getBenchmarkResults()) {
+                Collection<String> scores = new ArrayList<String>();
+                for (IterationResult r : benchmarkResult.getIterationResults()) {
+                    scores.add(emit(r.getSecondaryResults().get(secondaryName).getScore()));
                 }
-
-                sb.append(printMultiple(l2, "[", "]"));
-                sb.append("}");
-                secondaries.add(sb.toString());
+                l2.add(printMultiple(scores, "[", "]"));
             }
-            pw.println("\"secondaryMetrics\" : {");
-            pw.println(printMultiple(secondaries, "", ""));
-            pw.println("}");
-
-            pw.println("}");
 
+            sb.append(printMultiple(l2, "[", "]"));
+            sb.append("}");
+            secondaries.add(sb.toString());
         }
-        pw.println("]");
+        pw.println("\"secondaryMetrics\" : {");
+        pw.println(printMultiple(secondaries, "", ""));
+        pw.println("}");
 
-        out.println(tidy(sw.toString()));
+        pw.println("}");
     }
 
     private String emitParams(BenchmarkParams params) {
@@ -173,6 +229,15 @@ class JSONResultFormat implements ResultFormat {
         return sb.toString();
     }
 
+    private String emitForkVariance(ForkVariance fv) {
+        return "\"forkVariance\" : {" +
+                "\"forks\" : " + fv.getForkCount() + "," +
+                "\"betweenForks\" : " + emit(fv.getBetweenForkVariance()) + "," +
+                "\"withinFork\" : " + emit(fv.getWithinForkVariance()) + "," +
+                "\"betweenForksShare\" : " + emit(fv.getBetweenForkShare()) +
+                "},";
+    }
+
     private String emit(double[] ds) {
         StringBuilder sb = new StringBuilder();
 
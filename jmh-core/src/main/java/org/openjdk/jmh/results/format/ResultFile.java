@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results.format;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The file which is updated in place by the streaming result formats.
+ * Every update is synced to disk before returning.
+ */
+class ResultFile {
+
+    private final RandomAccessFile raf;
+
+    public ResultFile(String file) {
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Append the data to the end of the file.
+     * @param data data to append
+     */
+    public void append(byte[] data) {
+        replaceTail(0, data);
+    }
+
+    /**
+     * Replace the last bytes of the file with the data.
+     * @param tailLength number of trailing bytes to replace
+     * @param data data to write instead
+     */
+    public void replaceTail(int tailLength, byte[] data) {
+        try {
+            long pos = raf.length() - tailLength;
+            raf.seek(pos);
+            raf.write(data);
+            raf.setLength(pos + data.length);
+            raf.getFD().sync();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
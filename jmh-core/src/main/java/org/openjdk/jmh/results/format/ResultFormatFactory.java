@@ -24,10 +24,12 @@
  */
 package org.openjdk.jmh.results.format;
 
+import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.RunResult;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 
 public class ResultFormatFactory {
@@ -44,6 +46,21 @@ public class ResultFormatFactory {
         return new ResultFormat() {
             @Override
             public void writeOut(Collection<RunResult> results) {
+                if (type == ResultFormatType.BINARY) {
+                    Collection<BenchmarkParams> params = new ArrayList<BenchmarkParams>();
+                    for (RunResult r : results) {
+                        params.add(r.getParams());
+                    }
+
+                    StreamingResultFormat rf = getStreamingInstance(type, file);
+                    rf.startRun(params);
+                    for (RunResult r : results) {
+                        rf.writeResult(r);
+                    }
+                    rf.endRun();
+                    return;
+                }
+
                 try {
                     PrintWriter pw = new PrintWriter(file);
                     ResultFormat rf = getInstance(type, pw);
@@ -86,9 +103,51 @@ public class ResultFormatFactory {
                 return new JSONResultFormat(writer);
             case LATEX:
                 return new LaTeXResultFormat(writer);
+            case BINARY:
+                throw new IllegalStateException("Binary result format can only be written to file");
             default:
                 throw new IllegalStateException("Unsupported result format: " + type);
         }
     }
 
+    /**
+     * Checks if the result format of given type can be streamed.
+     * @param type result format type
+     * @return true, if {@link #getStreamingInstance(ResultFormatType, String)} supports the type
+     */
+    public static boolean isStreamingSupported(ResultFormatType type) {
+        switch (type) {
+            case CSV:
+            case SCSV:
+            case JSON:
+            case BINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the instance of StreamingResultFormat of given type which writes the results to file
+     * as they arrive. The file is truncated when the instance is created.
+     *
+     * @param type result format type
+     * @param file target file
+     * @return streaming result format
+     */
+    public static StreamingResultFormat getStreamingInstance(ResultFormatType type, String file) {
+        switch (type) {
+            case CSV:
+                return new XSVResultFormat(new ResultFile(file), ",");
+            case SCSV:
+                return new XSVResultFormat(new ResultFile(file), ";");
+            case JSON:
+                return new JSONResultFormat(new ResultFile(file));
+            case BINARY:
+                return new BinaryResultFormat(new ResultFile(file));
+            default:
+                throw new IllegalStateException("Result format does not support streaming: " + type);
+        }
+    }
+
 }
@@ -31,5 +31,6 @@ public enum ResultFormatType {
     SCSV,
     JSON,
     LATEX,
+    BINARY,
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,24 +22,37 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.results.format;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
-import org.openjdk.jmh.results.BenchmarkResult;
-import org.openjdk.jmh.util.Multimap;
+import org.openjdk.jmh.results.RunResult;
 
-import java.io.Serializable;
+import java.util.Collection;
 
-class ResultsFrame implements Serializable {
-    private static final long serialVersionUID = -5627086531281515824L;
+/**
+ * Result format which writes the results incrementally, as the benchmarks complete.
+ *
+ * <p>The target is kept well-formed after every {@link #writeResult(RunResult)}:
+ * if the run is terminated abruptly, the results for the benchmarks completed so far
+ * are still readable.</p>
+ */
+public interface StreamingResultFormat {
+
+    /**
+     * Start the run.
+     * @param planned benchmarks planned to run; some formats need this to prepare the header
+     */
+    void startRun(Collection<BenchmarkParams> planned);
 
-    private final Multimap<BenchmarkParams, BenchmarkResult> res;
+    /**
+     * Write the result for the completed benchmark.
+     * @param result benchmark result
+     */
+    void writeResult(RunResult result);
 
-    public ResultsFrame(Multimap<BenchmarkParams, BenchmarkResult> res) {
-        this.res = res;
-    }
+    /**
+     * Finish the run, and release the target.
+     */
+    void endRun();
 
-    public Multimap<BenchmarkParams, BenchmarkResult> getRes() {
-        return res;
-    }
 }
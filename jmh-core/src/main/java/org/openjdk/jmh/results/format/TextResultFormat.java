@@ -25,9 +25,13 @@
 package org.openjdk.jmh.results.format;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.ForkVariance;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.Scalability;
 import org.openjdk.jmh.util.ClassUtils;
+import org.openjdk.jmh.util.Multimap;
+import org.openjdk.jmh.util.TreeMultimap;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
@@ -80,7 +84,19 @@ class TextResultFormat implements ResultFormat {
             }
         }
 
+        // show thread counts, if any benchmark was run with several
+        Multimap<String, RunResult> sweeps = new TreeMultimap<String, RunResult>();
+        for (RunResult runResult : runResults) {
+            sweeps.put(runResult.getParams().sweepId(), runResult);
+        }
+
+        boolean showThreads = false;
+        for (String id : sweeps.keys()) {
+            showThreads |= sweeps.get(id).size() > 1;
+        }
+
         // determine column lengths for other columns
+        int threadsLen  = "Threads".length();
         int modeLen     = "Mode".length();
         int samplesLen  = "Samples".length();
         int scoreLen    = "Score".length();
@@ -103,6 +119,7 @@ class TextResultFormat implements ResultFormat {
                 unitLen     = Math.max(unitLen,     subRes.getScoreUnit().length());
             }
         }
+        threadsLen  += COLUMN_PAD;
         modeLen     += COLUMN_PAD;
         samplesLen  += COLUMN_PAD;
         scoreLen    += COLUMN_PAD;
@@ -114,6 +131,9 @@ class TextResultFormat implements ResultFormat {
             out.print(String.format("%" + paramLengths.get(k) + "s", "(" + k + ")"));
         }
 
+        if (showThreads) {
+            out.print(String.format("%" + threadsLen + "s", "Threads"));
+        }
         out.print(String.format("%" + modeLen + "s",     "Mode"));
         out.print(String.format("%" + samplesLen + "s",  "Samples"));
         out.print(String.format("%" + scoreLen + "s",    "Score"));
@@ -133,6 +153,9 @@ class TextResultFormat implements ResultFormat {
                 }
 
                 Result pRes = res.getPrimaryResult();
+                if (showThreads) {
+                    out.print(String.format("%" + threadsLen + "d", res.getParams().getThreads()));
+                }
                 out.print(String.format("%" + modeLen + "s",        res.getParams().getMode().shortLabel()));
                 out.print(String.format("%" + samplesLen + "d",     pRes.getSampleCount()));
                 out.print(String.format("%" + scoreLen + ".3f",     pRes.getScore()));
@@ -154,6 +177,9 @@ class TextResultFormat implements ResultFormat {
                     out.print(String.format("%" + paramLengths.get(k) + "s", (v == null) ? "N/A" : v));
                 }
 
+                if (showThreads) {
+                    out.print(String.format("%" + threadsLen + "d", res.getParams().getThreads()));
+                }
                 out.print(String.format("%" + modeLen + "s",        res.getParams().getMode().shortLabel()));
                 out.print(String.format("%" + samplesLen + "d",     subRes.getSampleCount()));
                 out.print(String.format("%" + scoreLen + ".3f",     subRes.getScore()));
@@ -164,5 +190,66 @@ class TextResultFormat implements ResultFormat {
             }
         }
 
+        boolean forkHeader = false;
+        for (RunResult res : runResults) {
+            ForkVariance fv = res.getForkVariance();
+            if (fv.getForkCount() > 1) {
+                if (!forkHeader) {
+                    out.println();
+                    out.println("Fork variance, primary score:");
+                    forkHeader = true;
+                }
+                writeForkVariance(benchPrefixes.get(res.getParams().getBenchmark()), res.getParams(), fv);
+            }
+        }
+
+        for (String id : sweeps.keys()) {
+            Collection<RunResult> rs = sweeps.get(id);
+            RunResult first = rs.iterator().next();
+            if (rs.size() >= 3 && Scalability.isApplicable(first.getParams().getMode())) {
+                writeScalability(benchPrefixes.get(first.getParams().getBenchmark()), first.getParams(), new Scalability(rs));
+            }
+        }
+    }
+
+    private void writeForkVariance(String name, BenchmarkParams params, ForkVariance fv) {
+        out.print("  " + name + ", " + params.getMode().shortLabel());
+        for (String k : params.getParamsKeys()) {
+            out.print(", " + k + " = " + params.getParam(k));
+        }
+        if (params.getThreads() > 1) {
+            out.print(", " + params.getThreads() + " threads");
+        }
+        out.println(": " + fv);
+    }
+
+    private void writeScalability(String name, BenchmarkParams params, Scalability s) {
+        out.println();
+        out.print("Scalability: " + name + ", " + params.getMode().shortLabel());
+        for (String k : params.getParamsKeys()) {
+            out.print(", " + k + " = " + params.getParam(k));
+        }
+        out.println(" (" + s.getUnit() + ")");
+
+        out.println(String.format("%9s %14s %9s %11s %14s %14s", "Threads", "Throughput", "Speedup", "Efficiency", "USL fit", "Amdahl fit"));
+        for (int c = 0; c < s.getCount(); c++) {
+            out.println(String.format("%9d %14.3f %8.2fx %10.1f%% %14.3f %14.3f",
+                    s.getThreads(c), s.getThroughput(c), s.getSpeedup(c), s.getEfficiency(c) * 100,
+                    s.predictUsl(s.getThreads(c)), s.predictAmdahl(s.getThreads(c))));
+        }
+
+        double limit = s.getAmdahlSpeedupLimit();
+        out.println(String.format("  Amdahl: serial fraction = %.4f, speedup limit = %s, R^2 = %.4f",
+                s.getSerialFraction(), Double.isInfinite(limit) ? "unbounded" : String.format("%.2fx", limit), s.getAmdahlR2()));
+        out.println(String.format("  USL: contention (sigma) = %.4f, coherency (kappa) = %.6f, R^2 = %.4f",
+                s.getContention(), s.getCoherency(), s.getUslR2()));
+
+        int peak = s.getPeakThreadCount();
+        if (peak > 0) {
+            out.println(String.format("  USL: peak throughput %.3f %s at %d threads",
+                    s.predictUsl(peak), s.getUnit(), peak));
+        } else {
+            out.println("  USL: no retrograde scaling, throughput keeps growing with threads");
+        }
     }
 }
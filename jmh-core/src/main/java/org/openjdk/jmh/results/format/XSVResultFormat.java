@@ -25,21 +25,33 @@
 package org.openjdk.jmh.results.format;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.ForkVariance;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Collection;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-class XSVResultFormat implements ResultFormat {
+class XSVResultFormat implements ResultFormat, StreamingResultFormat {
 
-    private final PrintWriter pw;
+    private final PrintWriter out;
+    private final ResultFile file;
     private final String delimiter;
 
-    public XSVResultFormat(PrintWriter pw, String delimiter) {
-        this.pw = pw;
+    private SortedSet<String> params;
+
+    public XSVResultFormat(PrintWriter out, String delimiter) {
+        this.out = out;
+        this.file = null;
+        this.delimiter = delimiter;
+    }
+
+    public XSVResultFormat(ResultFile file, String delimiter) {
+        this.out = null;
+        this.file = file;
         this.delimiter = delimiter;
     }
 
@@ -50,22 +62,51 @@ class XSVResultFormat implements ResultFormat {
             params.addAll(res.getParams().getParamsKeys());
         }
 
-        printHeader(params);
+        printHeader(out, params);
 
         for (RunResult rr : results) {
-            BenchmarkParams benchParams = rr.getParams();
-            Result res = rr.getPrimaryResult();
+            printResult(out, params, rr);
+        }
+    }
 
-            printLine(benchParams.getBenchmark(), benchParams, params, res);
+    @Override
+    public void startRun(Collection<BenchmarkParams> planned) {
+        // The header needs all the parameter names up front.
+        params = new TreeSet<String>();
+        for (BenchmarkParams bp : planned) {
+            params.addAll(bp.getParamsKeys());
+        }
 
-            for (String label : rr.getSecondaryResults().keySet()) {
-                Result subRes = rr.getSecondaryResults().get(label);
-                printLine(benchParams.getBenchmark() + ":" + subRes.getLabel(), benchParams, params, subRes);
-            }
+        StringWriter sw = new StringWriter();
+        printHeader(new PrintWriter(sw), params);
+        file.append(sw.toString().getBytes());
+    }
+
+    @Override
+    public void writeResult(RunResult result) {
+        StringWriter sw = new StringWriter();
+        printResult(new PrintWriter(sw), params, result);
+        file.append(sw.toString().getBytes());
+    }
+
+    @Override
+    public void endRun() {
+        file.close();
+    }
+
+    private void printResult(PrintWriter pw, SortedSet<String> params, RunResult rr) {
+        BenchmarkParams benchParams = rr.getParams();
+        Result res = rr.getPrimaryResult();
+
+        printLine(pw, benchParams.getBenchmark(), benchParams, params, res, rr.getForkVariance());
+
+        for (String label : rr.getSecondaryResults().keySet()) {
+            Result subRes = rr.getSecondaryResults().get(label);
+            printLine(pw, benchParams.getBenchmark() + ":" + subRes.getLabel(), benchParams, params, subRes, rr.getForkVariance(label));
         }
     }
 
-    private void printHeader(SortedSet<String> params) {
+    private void printHeader(PrintWriter pw, SortedSet<String> params) {
         pw.write("\"Benchmark\"");
         pw.write(delimiter);
         pw.write("\"Mode\"");
@@ -83,10 +124,16 @@ class XSVResultFormat implements ResultFormat {
             pw.write(delimiter);
             pw.write("\"Param: " + k + "\"");
         }
+        pw.write(delimiter);
+        pw.write("\"Forks\"");
+        pw.write(delimiter);
+        pw.write("\"Between-fork Variance\"");
+        pw.write(delimiter);
+        pw.write("\"Within-fork Variance\"");
         pw.write("\r\n");
     }
 
-    private void printLine(String label, BenchmarkParams benchmarkParams, SortedSet<String> params, Result result) {
+    private void printLine(PrintWriter pw, String label, BenchmarkParams benchmarkParams, SortedSet<String> params, Result result, ForkVariance fv) {
         pw.write("\"");
         pw.write(label);
         pw.write("\"");
@@ -117,6 +164,13 @@ class XSVResultFormat implements ResultFormat {
             pw.write("\"");
         }
 
+        pw.write(delimiter);
+        pw.write(String.valueOf(fv.getForkCount()));
+        pw.write(delimiter);
+        pw.write(String.valueOf(fv.getBetweenForkVariance()));
+        pw.write(delimiter);
+        pw.write(String.valueOf(fv.getWithinForkVariance()));
+
         pw.write("\r\n");
     }
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.ListStatistics;
+
+import java.util.List;
+
+/**
+ * Stop conditions for adaptive iteration counts.
+ */
+class AdaptiveIterations {
+
+    private AdaptiveIterations() {}
+
+    /**
+     * Checks if the scores had reached the steady state. The least-squares line is fit
+     * over the last scores in the window, and the drift of that line over the window
+     * should be within the target error.
+     *
+     * @param scores iteration scores, in order
+     * @param window number of last scores to check
+     * @param targetError target relative error
+     * @return true, if scores are in the steady state
+     */
+    static boolean isSteady(List<Double> scores, int window, double targetError) {
+        if (window < 2 || scores.size() < window) {
+            return false;
+        }
+
+        List<Double> last = scores.subList(scores.size() - window, scores.size());
+
+        double meanX = (window - 1) / 2.0;
+        double meanY = 0;
+        for (double y : last) {
+            meanY += y;
+        }
+        meanY /= window;
+
+        double sxy = 0;
+        double sxx = 0;
+        for (int x = 0; x < window; x++) {
+            double dx = x - meanX;
+            sxy += dx * (last.get(x) - meanY);
+            sxx += dx * dx;
+        }
+
+        double drift = Math.abs(sxy / sxx) * (window - 1);
+        return drift <= Math.abs(meanY) * targetError;
+    }
+
+    /**
+     * Computes the relative error of the mean score: the half-width of the confidence interval,
+     * divided by the mean.
+     *
+     * @param scores iteration scores
+     * @param confidence confidence level
+     * @return relative error; NaN, if there are not enough scores
+     */
+    static double relativeError(List<Double> scores, double confidence) {
+        ListStatistics stats = new ListStatistics();
+        for (double s : scores) {
+            stats.addValue(s);
+        }
+        return stats.getMeanErrorAt(confidence) / Math.abs(stats.getMean());
+    }
+
+}
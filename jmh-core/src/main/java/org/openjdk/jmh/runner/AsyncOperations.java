@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.SampleBuffer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the asynchronous operations issued by a single worker.
+ *
+ * <p>Generated code issues operations until the in-flight limit is reached,
+ * and counts them as they complete. {@link java.util.concurrent.CompletionStage}
+ * operations report completion with {@link #complete(long, Throwable)}, from
+ * whatever thread completes them. Plain {@link Future} operations have no
+ * completion callbacks, and the worker waits on the oldest one when the limit
+ * is reached; their completion latency is measured up to the time the worker
+ * observes the completion.</p>
+ */
+public class AsyncOperations {
+
+    private final int inflight;
+    private final Semaphore permits;
+    private final AtomicLong completed;
+    private final SampleBuffer latencies;
+
+    private final Future<?>[] futures;
+    private final long[] futureStarts;
+    private int futureHead;
+    private int futureCount;
+
+    private volatile Throwable failure;
+
+    public AsyncOperations(int inflight) {
+        this.inflight = Integer.getInteger("jmh.async.inflight", inflight);
+        if (this.inflight < 1) {
+            throw new IllegalArgumentException("Inflight operations should be greater than 0: " + this.inflight);
+        }
+        this.permits = new Semaphore(this.inflight);
+        this.completed = new AtomicLong();
+        this.latencies = new SampleBuffer();
+        this.futures = new Future<?>[this.inflight];
+        this.futureStarts = new long[this.inflight];
+    }
+
+    /**
+     * Waits until another operation can be issued.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    /**
+     * Records the completion of the operation.
+     * @param startTime {@link System#nanoTime()} the operation was issued at
+     * @param error exceptional completion, null if operation was successful
+     */
+    public void complete(long startTime, Throwable error) {
+        record(startTime, error);
+        permits.release();
+    }
+
+    private void record(long startTime, Throwable error) {
+        long time = System.nanoTime() - startTime;
+        if (error != null && failure == null) {
+            failure = error;
+        }
+        synchronized (latencies) {
+            latencies.add(time);
+        }
+        completed.incrementAndGet();
+    }
+
+    /**
+     * Issues the operation returning the plain Future, waiting for the
+     * oldest pending operation if in-flight limit is reached.
+     * @param future operation future
+     * @param startTime {@link System#nanoTime()} the operation was issued at
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void submit(Future<?> future, long startTime) throws InterruptedException {
+        if (futureCount == inflight) {
+            awaitOldest();
+        }
+        int idx = (futureHead + futureCount) % inflight;
+        futures[idx] = future;
+        futureStarts[idx] = startTime;
+        futureCount++;
+    }
+
+    private void awaitOldest() throws InterruptedException {
+        Future<?> f = futures[futureHead];
+        Throwable error = null;
+        try {
+            f.get();
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        }
+        long start = futureStarts[futureHead];
+        futures[futureHead] = null;
+        futureHead = (futureHead + 1) % inflight;
+        futureCount--;
+
+        record(start, error);
+    }
+
+    /**
+     * @return number of operations completed so far
+     */
+    public long completed() {
+        return completed.get();
+    }
+
+    /**
+     * Waits for all pending operations to complete, and rethrows the first
+     * exceptional completion, if any.
+     * @throws Throwable the first operation failure
+     */
+    public void awaitAll() throws Throwable {
+        while (futureCount > 0) {
+            awaitOldest();
+        }
+        permits.acquire(inflight);
+        permits.release(inflight);
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return completion latencies, in nanoseconds; only valid after {@link #awaitAll()}
+     */
+    public SampleBuffer latencies() {
+        return latencies;
+    }
+
+    /**
+     * Waits for the operation to complete.
+     * @param operation {@link Future} or {@link java.util.concurrent.CompletionStage}
+     * @return operation result
+     * @throws Throwable operation failure
+     */
+    public static Object join(Object operation) throws Throwable {
+        Future<?> future;
+        if (operation instanceof Future) {
+            future = (Future<?>) operation;
+        } else {
+            // requires some of the reflection magic to untie from JDK 8 compile-time dependencies
+            try {
+                future = (Future<?>) Class.forName("java.util.concurrent.CompletionStage")
+                        .getMethod("toCompletableFuture").invoke(operation);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -27,18 +27,25 @@ package org.openjdk.jmh.runner;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
 import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.profile.AllocationProfiler;
 import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.InternalResultProfiler;
 import org.openjdk.jmh.profile.Profiler;
 import org.openjdk.jmh.profile.ProfilerFactory;
 import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.ThreadPlacementResult;
 import org.openjdk.jmh.runner.format.OutputFormat;
 import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ThreadPlacement;
 import org.openjdk.jmh.util.Utils;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -59,6 +66,30 @@ abstract class BaseBenchmarkHandler implements BenchmarkHandler {
 
     protected final OutputFormat out;
 
+    /**
+     * Workers should yield while waiting for other workers
+     */
+    protected final boolean yieldInCatchup;
+
+    /**
+     * Workers should track their allocations during the measurement
+     */
+    protected final boolean trackAllocations;
+
+    /**
+     * CPU for every worker thread index; null, if threads are not pinned
+     */
+    private final int[] threadCpus;
+
+    /**
+     * NUMA node for every worker thread index; null, if threads are not pinned
+     */
+    protected final int[] threadNodes;
+
+    private final ThreadPlacementResult placementResult;
+
+    private final ThreadLocal<Integer> pinnedCpu = new ThreadLocal<Integer>();
+
     private final List<InternalProfiler> registeredProfilers;
 
     public BaseBenchmarkHandler(OutputFormat out, final Class<?> clazz, Options options, BenchmarkParams executionParams) {
@@ -76,11 +107,102 @@ abstract class BaseBenchmarkHandler implements BenchmarkHandler {
             }
         };
         this.out = out;
+        this.yieldInCatchup = EXECUTOR_TYPE.isCooperative();
+        this.trackAllocations = trackAllocations(hasProfiler(registeredProfilers, AllocationProfiler.class));
         try {
             this.executor = EXECUTOR_TYPE.createExecutor(executionParams.getThreads(), executionParams.getBenchmark());
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
+
+        if (options.getThreadPlacement().hasValue()) {
+            this.threadCpus = placeThreads(options.getThreadPlacement().get(), executionParams.getThreads());
+        } else {
+            this.threadCpus = null;
+        }
+
+        if (threadCpus != null) {
+            CPUTopology topology = CPUTopology.current();
+            List<String> threads = new ArrayList<String>();
+            int[] nodes = new int[threadCpus.length];
+            for (int t = 0; t < threadCpus.length; t++) {
+                threads.add(topology.describe(threadCpus[t]));
+                nodes[t] = topology.nodeOf(threadCpus[t]);
+            }
+            this.placementResult = new ThreadPlacementResult(options.getThreadPlacement().get().toString(), threads);
+            this.threadNodes = nodes;
+        } else {
+            this.placementResult = null;
+            this.threadNodes = null;
+        }
+    }
+
+    private boolean trackAllocations(boolean requested) {
+        if (requested && EXECUTOR_TYPE == ExecutorType.VIRTUAL) {
+            // HotSpot does not count the allocations per virtual thread
+            out.println("# WARNING: Allocations are not attributed to the workers with " + EXECUTOR_TYPE + " executor, " +
+                    "@alloc.rate.norm is not reported, @alloc.bytes and @alloc.rate account all platform threads");
+            return false;
+        }
+        return requested;
+    }
+
+    private int[] placeThreads(ThreadPlacement placement, int threads) {
+        if (EXECUTOR_TYPE.isCooperative()) {
+            out.println("# WARNING: Thread placement " + placement + " is ignored, " +
+                    "worker threads are not pinned with " + EXECUTOR_TYPE + " executor");
+            return null;
+        }
+        if (!CPUTopology.isPinningSupported()) {
+            out.println("# WARNING: Thread placement " + placement + " is ignored, " +
+                    "can not pin the worker threads (is this Linux, and is taskset available?)");
+            return null;
+        }
+
+        CPUTopology topology = CPUTopology.current();
+        int[] cpus = topology.place(placement, threads);
+
+        Set<Integer> distinct = new HashSet<Integer>();
+        for (int cpu : cpus) {
+            distinct.add(cpu);
+        }
+        if (distinct.size() < threads) {
+            out.println("# WARNING: Thread placement " + placement + " puts " + threads + " threads on " +
+                    distinct.size() + " CPUs, some threads share the CPU");
+        }
+        return cpus;
+    }
+
+    /**
+     * Pins the current worker thread to its CPU, if thread placement is requested.
+     * Executor threads are reused across the iterations, and may get the different
+     * thread index every time, so we re-pin only when the CPU changes.
+     *
+     * @param threadParams worker thread params
+     */
+    protected void pinCurrentThread(ThreadParams threadParams) {
+        if (threadCpus == null) {
+            return;
+        }
+        int cpu = threadCpus[threadParams.getThreadIndex()];
+        Integer current = pinnedCpu.get();
+        if (current == null || current != cpu) {
+            Collection<String> errors = CPUTopology.pinCurrentThread(cpu);
+            if (!errors.isEmpty()) {
+                throw new IllegalStateException("Unable to pin worker thread " + threadParams.getThreadIndex() +
+                        " to CPU " + cpu + ": " + errors);
+            }
+            pinnedCpu.set(cpu);
+        }
+    }
+
+    private static boolean hasProfiler(List<InternalProfiler> profilers, Class<? extends InternalProfiler> klass) {
+        for (InternalProfiler prof : profilers) {
+            if (klass.isInstance(prof)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static List<InternalProfiler> createProfilers(Options options) {
@@ -186,6 +308,24 @@ abstract class BaseBenchmarkHandler implements BenchmarkHandler {
 
         },
 
+        /**
+         * Use new virtual thread per task (JDK 21+);
+         * -Djmh.executor.countMounts=true wraps the default scheduler to count the mounts,
+         * see {@link VirtualThreadExecutor} for the caveats
+         */
+        VIRTUAL {
+            @Override
+            ExecutorService createExecutor(int maxThreads, String prefix) throws Exception {
+                return new VirtualThreadExecutor(prefix);
+            }
+
+            @Override
+            boolean isCooperative() {
+                // virtual threads are not preempted
+                return true;
+            }
+        },
+
         CUSTOM {
             @Override
             ExecutorService createExecutor(int maxThreads, String prefix) throws Exception {
@@ -202,13 +342,29 @@ abstract class BaseBenchmarkHandler implements BenchmarkHandler {
         boolean shutdownForbidden() {
             return false;
         }
+
+        boolean isCooperative() {
+            return false;
+        }
     }
 
     protected void stopProfilers(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult iterationResults) {
+        if (executor instanceof VirtualThreadExecutor) {
+            iterationResults.addResults(((VirtualThreadExecutor) executor).afterIteration());
+        }
+
+        if (placementResult != null) {
+            iterationResults.addResult(placementResult);
+        }
+
         // stop profilers
         for (InternalProfiler prof : registeredProfilers) {
             try {
-                iterationResults.addResults(prof.afterIteration(benchmarkParams, iterationParams));
+                if (prof instanceof InternalResultProfiler) {
+                    iterationResults.addResults(((InternalResultProfiler) prof).afterIteration(benchmarkParams, iterationParams, iterationResults));
+                } else {
+                    iterationResults.addResults(prof.afterIteration(benchmarkParams, iterationParams));
+                }
             } catch (Throwable ex) {
                 throw new BenchmarkException(ex);
             }
@@ -216,6 +372,10 @@ abstract class BaseBenchmarkHandler implements BenchmarkHandler {
     }
 
     protected void startProfilers(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (executor instanceof VirtualThreadExecutor) {
+            ((VirtualThreadExecutor) executor).beforeIteration();
+        }
+
         // start profilers
         for (InternalProfiler prof : registeredProfilers) {
             try {
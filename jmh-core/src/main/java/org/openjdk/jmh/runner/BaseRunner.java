@@ -51,6 +51,7 @@ import java.util.concurrent.TimeUnit;
 abstract class BaseRunner {
 
     private long projectedTotalTime;
+    private long projectedWallTime;
     private long projectedRunningTime;
     private long actualRunningTime;
     private long benchmarkStart;
@@ -110,6 +111,7 @@ abstract class BaseRunner {
                     case MEASUREMENT: {
                         r = runBenchmark(params);
                         results.put(params, r);
+                        benchmarkCompleted(params, r);
                         break;
                     }
                     default:
@@ -136,21 +138,82 @@ abstract class BaseRunner {
         return results;
     }
 
-    protected void etaAfterBenchmark(BenchmarkParams params) {
+    /**
+     * Called when the measurement action completes, before the next action starts.
+     * @param params benchmark parameters
+     * @param result benchmark result
+     */
+    protected void benchmarkCompleted(BenchmarkParams params, BenchmarkResult result) {
+        // do nothing
+    }
+
+    /**
+     * Checks if the benchmark output was forwarded while the iteration was running,
+     * and resets the state. Only forked runs buffer the output, others are never perturbed.
+     *
+     * @return true, if the output had perturbed the measurement since the last check
+     */
+    protected boolean checkOutputPerturbed() {
+        return false;
+    }
+
+    protected synchronized void etaAfterBenchmark(BenchmarkParams params) {
         long current = System.nanoTime();
         projectedRunningTime += estimateTimeSingleFork(params);
         actualRunningTime += (current - benchmarkStart);
         benchmarkStart = current;
     }
 
+    /**
+     * Account for the fork which was planned, but did not run.
+     * @param params benchmark
+     */
+    protected synchronized void etaSkipBenchmark(BenchmarkParams params) {
+        long estimate = estimateTimeSingleFork(params);
+        projectedTotalTime -= estimate;
+        projectedWallTime = Math.max(0, projectedWallTime - estimate);
+    }
+
+    /**
+     * Account for the fork which was not planned, but is going to run.
+     * @param params benchmark
+     */
+    protected synchronized void etaExtraBenchmark(BenchmarkParams params) {
+        long estimate = estimateTimeSingleFork(params);
+        projectedTotalTime += estimate;
+        projectedWallTime += estimate;
+    }
+
     protected void etaBeforeBenchmarks(Collection<ActionPlan> plans) {
-        projectedTotalTime = 0;
+        etaBeforeBenchmarks(plans, 1);
+    }
+
+    /**
+     * Estimate the run time, given the forked plans are executed concurrently.
+     *
+     * @param plans action plans to execute
+     * @param parallelism how many forked action plans run at once
+     */
+    protected synchronized void etaBeforeBenchmarks(Collection<ActionPlan> plans, int parallelism) {
+        long embeddedTime = 0;
+        long forkedTime = 0;
+        int forkedPlans = 0;
         for (ActionPlan plan : plans) {
+            long planTime = 0;
             for (Action act : plan.getActions()) {
                 BenchmarkParams params = act.getParams();
-                projectedTotalTime += (Math.max(1, params.getForks()) + params.getWarmupForks()) * estimateTimeSingleFork(params);
+                planTime += (Math.max(1, params.getForks()) + params.getWarmupForks()) * estimateTimeSingleFork(params);
+            }
+            if (plan.getType() == ActionType.FORKED) {
+                forkedTime += planTime;
+                forkedPlans++;
+            } else {
+                embeddedTime += planTime;
             }
         }
+
+        projectedTotalTime = embeddedTime + forkedTime;
+        projectedWallTime = embeddedTime + forkedTime / Math.max(1, Math.min(parallelism, forkedPlans));
     }
 
     private long estimateTimeSingleFork(BenchmarkParams params) {
@@ -171,6 +234,10 @@ abstract class BaseRunner {
     }
 
     protected void etaBeforeBenchmark() {
+        etaBeforeBenchmark(out);
+    }
+
+    protected synchronized void etaBeforeBenchmark(OutputFormat out) {
         if (benchmarkStart == 0) {
             benchmarkStart = System.nanoTime();
         }
@@ -180,13 +247,13 @@ abstract class BaseRunner {
         if (partsDone != 0) {
             totalETA = (long) (actualRunningTime * (1.0D / partsDone - 1));
         } else {
-            totalETA = projectedTotalTime;
+            totalETA = projectedWallTime;
         }
 
         out.println(String.format("# Run progress: %.2f%% complete, ETA %s", partsDone * 100, formatDuration(totalETA)));
     }
 
-    protected void etaAfterBenchmarks() {
+    protected synchronized void etaAfterBenchmarks() {
         out.println(String.format("# Run complete. Total time: %s", formatDuration(actualRunningTime)));
         out.println("");
     }
@@ -231,8 +298,13 @@ abstract class BaseRunner {
     protected BenchmarkResult runBenchmark(BenchmarkParams benchParams, BenchmarkHandler handler) {
         List<IterationResult> allResults = new ArrayList<IterationResult>();
 
+        // with adaptive iteration counts, the iteration counts are the upper bounds
+        boolean adaptive = options.getTargetError().hasValue();
+        double targetError = options.getTargetError().orElse(0D);
+
         // warmup
         IterationParams wp = benchParams.getWarmup();
+        List<Double> warmupScores = new ArrayList<Double>();
         for (int i = 1; i <= wp.getCount(); i++) {
             // will run system gc if we should
             if (runSystemGC()) {
@@ -240,13 +312,28 @@ abstract class BaseRunner {
             }
 
             out.iteration(benchParams, wp, i);
+            checkOutputPerturbed();
             boolean isLastIteration = (benchParams.getMeasurement().getCount() == 0);
             IterationResult iterData = handler.runIteration(benchParams, wp, isLastIteration);
+            if (checkOutputPerturbed()) {
+                iterData.markOutputPerturbed();
+            }
             out.iterationResult(benchParams, wp, i, iterData);
+            warmupScores.add(iterData.getPrimaryResult().getScore());
+
+            // last warmup iteration should tear down the trial, if there is no measurement
+            if (adaptive && !isLastIteration && i < wp.getCount() &&
+                    AdaptiveIterations.isSteady(warmupScores, Defaults.STEADY_STATE_WINDOW, targetError)) {
+                out.println("# Warmup reached steady state after " + i + " iterations");
+                break;
+            }
         }
 
         // measurement
         IterationParams mp = benchParams.getMeasurement();
+        int minCount = options.getMinMeasurementIterations().orElse(Defaults.MIN_MEASUREMENT_ITERATIONS);
+        List<Double> scores = new ArrayList<Double>();
+        boolean converged = false;
         for (int i = 1; i <= mp.getCount(); i++) {
             // will run system gc if we should
             if (runSystemGC()) {
@@ -255,11 +342,31 @@ abstract class BaseRunner {
 
             // run benchmark iteration
             out.iteration(benchParams, mp, i);
+            checkOutputPerturbed();
 
-            boolean isLastIteration = (i == mp.getCount());
+            // the decision to stop is made one iteration in advance, because
+            // the last iteration should also tear down the trial
+            boolean isLastIteration = (i == mp.getCount()) || converged;
             IterationResult iterData = handler.runIteration(benchParams, mp, isLastIteration);
+            if (checkOutputPerturbed()) {
+                iterData.markOutputPerturbed();
+            }
             out.iterationResult(benchParams, mp, i, iterData);
             allResults.add(iterData);
+            scores.add(iterData.getPrimaryResult().getScore());
+
+            if (isLastIteration) {
+                if (converged) {
+                    out.println(String.format("# Measurement converged after %d iterations, error = %.2f%%",
+                            i, AdaptiveIterations.relativeError(scores, Defaults.ADAPTIVE_CONFIDENCE) * 100));
+                }
+                break;
+            }
+
+            if (adaptive && i + 1 >= minCount &&
+                    AdaptiveIterations.relativeError(scores, Defaults.ADAPTIVE_CONFIDENCE) <= targetError) {
+                converged = true;
+            }
         }
 
         if (!allResults.isEmpty()) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The disjoint subset of machine CPUs the forked VM is bound to.
+ * Concurrently running forks get their own slices, so that they
+ * do not compete for the same CPUs.
+ */
+class CPUSlice {
+
+    private static final String PROC_STATUS = "/proc/self/status";
+
+    private final int[] cpus;
+
+    CPUSlice(int[] cpus) {
+        this.cpus = cpus;
+    }
+
+    public int size() {
+        return cpus.length;
+    }
+
+    /**
+     * Prefix to bind the process to this slice.
+     * @return command prefix
+     */
+    public List<String> bindCommand() {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add("taskset");
+        cmd.add("-c");
+        cmd.add(toString());
+        return cmd;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        while (start < cpus.length) {
+            int end = start;
+            while (end + 1 < cpus.length && cpus[end + 1] == cpus[end] + 1) {
+                end++;
+            }
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(cpus[start]);
+            if (end > start) {
+                sb.append("-").append(cpus[end]);
+            }
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks if we can bind the processes to CPU slices.
+     * @return true, if binding is supported
+     */
+    public static boolean isBindingSupported() {
+        return !Utils.isWindows() && Utils.tryWith("taskset", "-c", "0", "true").isEmpty();
+    }
+
+    /**
+     * Splits the CPUs available to this VM into disjoint slices.
+     * Each slice gets the contiguous range of CPUs, which is usually
+     * friendlier to the cache/socket topology. When there are less CPUs
+     * than requested slices, the number of slices is truncated.
+     *
+     * @param count requested number of slices
+     * @return slices
+     */
+    public static List<CPUSlice> split(int count) {
+        return split(availableCPUs(), count);
+    }
+
+    static List<CPUSlice> split(int[] cpus, int count) {
+        int slices = Math.max(1, Math.min(count, cpus.length));
+        List<CPUSlice> result = new ArrayList<CPUSlice>();
+        int pos = 0;
+        for (int s = 0; s < slices; s++) {
+            // spread the remainder over the first slices
+            int len = cpus.length / slices + ((s < cpus.length % slices) ? 1 : 0);
+            int[] slice = new int[len];
+            System.arraycopy(cpus, pos, slice, 0, len);
+            result.add(new CPUSlice(slice));
+            pos += len;
+        }
+        return result;
+    }
+
+    /**
+     * Figures out the CPUs this VM is allowed to run on. This respects the
+     * affinity masks/cpusets the host VM is already running under.
+     *
+     * @return sorted CPU ids
+     */
+    static int[] availableCPUs() {
+        try {
+            if (new File(PROC_STATUS).exists()) {
+                for (String line : FileUtils.readAllLines(new File(PROC_STATUS))) {
+                    if (line.startsWith("Cpus_allowed_list:")) {
+                        return parseList(line.substring(line.indexOf(':') + 1));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // fall-through
+        } catch (NumberFormatException e) {
+            // fall-through
+        }
+
+        int[] cpus = new int[Runtime.getRuntime().availableProcessors()];
+        for (int c = 0; c < cpus.length; c++) {
+            cpus[c] = c;
+        }
+        return cpus;
+    }
+
+    /**
+     * Parses the Linux CPU list format, e.g. "0-3,8,10-11".
+     * @param list CPU list
+     * @return CPU ids
+     */
+    static int[] parseList(String list) {
+        Collection<Integer> ids = new ArrayList<Integer>();
+        for (String range : list.trim().split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) continue;
+            int dash = range.indexOf('-');
+            if (dash == -1) {
+                ids.add(Integer.valueOf(range));
+            } else {
+                int from = Integer.valueOf(range.substring(0, dash).trim());
+                int to = Integer.valueOf(range.substring(dash + 1).trim());
+                for (int c = from; c <= to; c++) {
+                    ids.add(c);
+                }
+            }
+        }
+
+        int[] result = new int[ids.size()];
+        int idx = 0;
+        for (int id : ids) {
+            result[idx++] = id;
+        }
+        return result;
+    }
+
+}
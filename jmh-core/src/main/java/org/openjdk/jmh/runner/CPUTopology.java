@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.runner.options.ThreadPlacement;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Socket, core and NUMA node layout of the CPUs this VM is allowed to run on,
+ * as reported by Linux sysfs. Missing topology information degrades to the
+ * single socket and node, with every CPU being its own core.
+ */
+class CPUTopology {
+
+    private static final String SYS_CPU = "/sys/devices/system/cpu";
+    private static final String THREAD_SELF = "/proc/thread-self";
+
+    private final int[] cpus;
+    private final int[] sockets;
+    private final int[] cores;
+    private final int[] nodes;
+
+    CPUTopology(int[] cpus, int[] sockets, int[] cores, int[] nodes) {
+        this.cpus = cpus;
+        this.sockets = sockets;
+        this.cores = cores;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Reads the topology of the CPUs available to this VM.
+     * @return topology
+     */
+    public static CPUTopology current() {
+        return read(new File(SYS_CPU), CPUSlice.availableCPUs());
+    }
+
+    static CPUTopology read(File sysCpu, int[] cpus) {
+        int[] sockets = new int[cpus.length];
+        int[] cores = new int[cpus.length];
+        int[] nodes = new int[cpus.length];
+        for (int c = 0; c < cpus.length; c++) {
+            File dir = new File(sysCpu, "cpu" + cpus[c]);
+            sockets[c] = readInt(new File(dir, "topology/physical_package_id"), 0);
+            cores[c] = readInt(new File(dir, "topology/core_id"), cpus[c]);
+            nodes[c] = 0;
+            String[] entries = dir.list();
+            if (entries != null) {
+                for (String e : entries) {
+                    if (e.matches("node[0-9]+")) {
+                        nodes[c] = Integer.parseInt(e.substring("node".length()));
+                    }
+                }
+            }
+        }
+        return new CPUTopology(cpus, sockets, cores, nodes);
+    }
+
+    private static int readInt(File file, int defaultValue) {
+        try {
+            if (file.exists()) {
+                Collection<String> lines = FileUtils.readAllLines(file);
+                if (!lines.isEmpty()) {
+                    return Integer.parseInt(lines.iterator().next().trim());
+                }
+            }
+        } catch (IOException e) {
+            // fall-through
+        } catch (NumberFormatException e) {
+            // fall-through
+        }
+        return defaultValue;
+    }
+
+    public int size() {
+        return cpus.length;
+    }
+
+    private int indexOf(int cpu) {
+        for (int c = 0; c < cpus.length; c++) {
+            if (cpus[c] == cpu) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    public int socketOf(int cpu) {
+        int idx = indexOf(cpu);
+        return (idx >= 0) ? sockets[idx] : 0;
+    }
+
+    public int coreOf(int cpu) {
+        int idx = indexOf(cpu);
+        return (idx >= 0) ? cores[idx] : cpu;
+    }
+
+    public int nodeOf(int cpu) {
+        int idx = indexOf(cpu);
+        return (idx >= 0) ? nodes[idx] : 0;
+    }
+
+    public int socketCount() {
+        SortedSet<Integer> s = new TreeSet<Integer>();
+        for (int socket : sockets) {
+            s.add(socket);
+        }
+        return s.size();
+    }
+
+    /**
+     * Picks the CPU for every worker thread. When there are more threads than
+     * the policy has CPUs for, the placement wraps around.
+     *
+     * @param placement placement policy
+     * @param threads number of threads
+     * @return CPU for each thread index
+     */
+    public int[] place(ThreadPlacement placement, int threads) {
+        List<Integer> order = order(placement);
+        if (order.isEmpty()) {
+            throw new IllegalArgumentException("No CPUs available for thread placement " + placement);
+        }
+
+        int[] result = new int[threads];
+        for (int t = 0; t < threads; t++) {
+            result[t] = order.get(t % order.size());
+        }
+        return result;
+    }
+
+    private List<Integer> order(ThreadPlacement placement) {
+        if (placement.getPolicy() == ThreadPlacement.Policy.LIST) {
+            List<Integer> result = new ArrayList<Integer>();
+            for (int cpu : CPUSlice.parseList(placement.getCpuList())) {
+                result.add(cpu);
+            }
+            return result;
+        }
+
+        // rank the hardware threads within the core, and the cores within the socket
+        final int[] smtRank = new int[cpus.length];
+        final int[] coreRank = new int[cpus.length];
+        for (int c = 0; c < cpus.length; c++) {
+            SortedSet<Integer> socketCores = new TreeSet<Integer>();
+            for (int o = 0; o < cpus.length; o++) {
+                if (sockets[o] == sockets[c]) {
+                    socketCores.add(cores[o]);
+                    if (cores[o] == cores[c] && cpus[o] < cpus[c]) {
+                        smtRank[c]++;
+                    }
+                }
+            }
+            coreRank[c] = socketCores.headSet(cores[c]).size();
+        }
+
+        List<Integer> idx = new ArrayList<Integer>();
+        for (int c = 0; c < cpus.length; c++) {
+            switch (placement.getPolicy()) {
+                case CORE:
+                    if (smtRank[c] == 0) idx.add(c);
+                    break;
+                case SOCKET:
+                    if (smtRank[c] == 0 && coreRank[c] == 0) idx.add(c);
+                    break;
+                default:
+                    idx.add(c);
+            }
+        }
+
+        final boolean scatter = (placement.getPolicy() == ThreadPlacement.Policy.SCATTER);
+        Collections.sort(idx, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int[] k1 = key(o1);
+                int[] k2 = key(o2);
+                for (int c = 0; c < k1.length; c++) {
+                    if (k1[c] != k2[c]) {
+                        return (k1[c] < k2[c]) ? -1 : 1;
+                    }
+                }
+                return 0;
+            }
+
+            private int[] key(int c) {
+                if (scatter) {
+                    return new int[] {smtRank[c], coreRank[c], sockets[c], cpus[c]};
+                } else {
+                    return new int[] {sockets[c], coreRank[c], smtRank[c], cpus[c]};
+                }
+            }
+        });
+
+        List<Integer> result = new ArrayList<Integer>();
+        for (int c : idx) {
+            result.add(cpus[c]);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if we can pin the threads to CPUs.
+     * @return true, if pinning is supported
+     */
+    public static boolean isPinningSupported() {
+        return new File(THREAD_SELF).exists() && CPUSlice.isBindingSupported();
+    }
+
+    /**
+     * Pins the current thread to a given CPU.
+     * @param cpu CPU id
+     * @return failure messages; empty if pinning had succeeded
+     */
+    public static Collection<String> pinCurrentThread(int cpu) {
+        String tid;
+        try {
+            // resolves to /proc/<pid>/task/<tid>
+            tid = new File(THREAD_SELF).getCanonicalFile().getName();
+        } catch (IOException e) {
+            return Collections.singleton(e.getMessage());
+        }
+        return Utils.tryWith("taskset", "-p", "-c", String.valueOf(cpu), tid);
+    }
+
+    /**
+     * Describes the CPU in the topology.
+     * @param cpu CPU id
+     * @return description
+     */
+    public String describe(int cpu) {
+        return "CPU " + cpu + " (socket " + socketOf(cpu) + ", core " + coreOf(cpu) + ", node " + nodeOf(cpu) + ")";
+    }
+
+}
@@ -92,6 +92,36 @@ public class Defaults {
      */
     public static final int WARMUP_FORKS = 0;
 
+    /**
+     * Target rate for {@link org.openjdk.jmh.annotations.Mode#FixedRate} mode, in invocations per second.
+     */
+    public static final double TARGET_RATE = 1000;
+
+    /**
+     * Minimal number of measurement iterations with adaptive iteration counts.
+     */
+    public static final int MIN_MEASUREMENT_ITERATIONS = 5;
+
+    /**
+     * Number of the last warmup iterations checked for steady state with adaptive iteration counts.
+     */
+    public static final int STEADY_STATE_WINDOW = 5;
+
+    /**
+     * Minimal number of forks to assess the between-fork variance with adaptive iteration counts.
+     */
+    public static final int MIN_ADAPTIVE_FORKS = 3;
+
+    /**
+     * Confidence level for adaptive iteration counts.
+     */
+    public static final double ADAPTIVE_CONFIDENCE = 0.999;
+
+    /**
+     * Number of forks to run concurrently.
+     */
+    public static final int FORK_PARALLELISM = 1;
+
     /**
      * Should JMH fail on benchmark error?
      */
@@ -44,6 +44,11 @@ class ForkedRunner extends BaseRunner {
         this.link = link;
     }
 
+    @Override
+    protected boolean checkOutputPerturbed() {
+        return link.checkOutputPerturbed();
+    }
+
     public void run() throws IOException, ClassNotFoundException {
         ActionPlan actionPlan = link.requestPlan();
 
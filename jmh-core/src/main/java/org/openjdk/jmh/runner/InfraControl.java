@@ -26,11 +26,14 @@ package org.openjdk.jmh.runner;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
 import org.openjdk.jmh.util.Utils;
 
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The InfraControl logic class.
@@ -52,10 +55,13 @@ public class InfraControl extends InfraControlL4 {
         Utils.check(InfraControl.class, "warmupDone", "warmdownDone");
         Utils.check(InfraControl.class, "benchmarkParams", "iterationParams");
         Utils.check(InfraControl.class, "shouldSynchIterations", "threads");
+        Utils.check(InfraControl.class, "yieldInCatchup", "threadNodes");
+        Utils.check(InfraControl.class, "measuredOps");
+        Utils.check(InfraControl.class, "trackAllocations", "measuredAllocatedBytes");
     }
 
-    public InfraControl(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration);
+    public InfraControl(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration, boolean yieldInCatchup, int[] threadNodes, boolean trackAllocations) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, yieldInCatchup, threadNodes, trackAllocations);
     }
 
     /**
@@ -98,6 +104,66 @@ public class InfraControl extends InfraControlL4 {
     public boolean isLastIteration() {
         return lastIteration;
     }
+
+    /**
+     * NUMA node the worker thread is placed on.
+     *
+     * @param threadParams worker thread params
+     * @return node index; 0, if threads are not placed
+     */
+    public int getNodeIndex(ThreadParams threadParams) {
+        return (threadNodes != null) ? threadNodes[threadParams.getThreadIndex()] : 0;
+    }
+
+    /**
+     * Reports the operations measured by the worker thread.
+     * Called by each worker thread once, after the measurement is done.
+     *
+     * @param ops number of operations
+     */
+    public void addMeasuredOps(long ops) {
+        measuredOps.addAndGet(ops);
+    }
+
+    /**
+     * @return total number of operations measured by all worker threads.
+     */
+    public long getMeasuredOps() {
+        return measuredOps.get();
+    }
+
+    /**
+     * Marks the start of the measurement for the worker thread.
+     * Called by each worker thread once, after the warmup catch-up is done.
+     */
+    public void markMeasurementStart() {
+        if (trackAllocations) {
+            measuredAllocatedBytes.addAndGet(-currentThreadAllocatedBytes());
+        }
+    }
+
+    /**
+     * Marks the end of the measurement for the worker thread.
+     * Called by each worker thread once, before the warmdown catch-up starts.
+     */
+    public void markMeasurementEnd() {
+        if (trackAllocations) {
+            measuredAllocatedBytes.addAndGet(currentThreadAllocatedBytes());
+        }
+    }
+
+    /**
+     * @return total number of bytes allocated by all worker threads during the measurement;
+     *         -1, if allocations are not tracked
+     */
+    public long getMeasuredAllocatedBytes() {
+        return trackAllocations ? measuredAllocatedBytes.get() : -1;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
 }
 
 abstract class InfraControlL0 {
@@ -145,13 +211,34 @@ abstract class InfraControlL2 extends InfraControlL1 {
     private final boolean shouldSynchIterations;
     private final int threads;
 
-    public InfraControlL2(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration) {
+    /* Workers should yield while catching up with the others.
+     * Cooperatively scheduled workers would otherwise never let the
+     * late workers start.
+     */
+    public final boolean yieldInCatchup;
+
+    /* NUMA node for every worker thread index; null, if threads are not placed.
+     */
+    protected final int[] threadNodes;
+
+    protected final AtomicLong measuredOps;
+
+    /* Allocated bytes are tracked only when requested, since reading
+     * the per-thread counters is HotSpot-specific.
+     */
+    protected final boolean trackAllocations;
+    protected final AtomicLong measuredAllocatedBytes;
+
+    public InfraControlL2(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration, boolean yieldInCatchup, int[] threadNodes, boolean trackAllocations) {
         warmupVisited = new AtomicInteger();
         warmdownVisited = new AtomicInteger();
 
         warmupDone = new CountDownLatch(1);
         warmdownDone = new CountDownLatch(1);
 
+        measuredOps = new AtomicLong();
+        measuredAllocatedBytes = new AtomicLong();
+
         shouldSynchIterations = benchmarkParams.shouldSynchIterations();
         threads = benchmarkParams.getThreads();
 
@@ -161,6 +248,9 @@ abstract class InfraControlL2 extends InfraControlL1 {
         this.preSetup = preSetup;
         this.preTearDown = preTearDown;
         this.lastIteration = lastIteration;
+        this.yieldInCatchup = yieldInCatchup;
+        this.threadNodes = threadNodes;
+        this.trackAllocations = trackAllocations;
         this.benchmarkParams = benchmarkParams;
         this.iterationParams = iterationParams;
     }
@@ -240,16 +330,16 @@ abstract class InfraControlL3 extends InfraControlL2 {
     private boolean q161, q162, q163, q164, q165, q166, q167, q168;
     private boolean q171, q172, q173, q174, q175, q176, q177, q178;
 
-    public InfraControlL3(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration);
+    public InfraControlL3(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration, boolean yieldInCatchup, int[] threadNodes, boolean trackAllocations) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, yieldInCatchup, threadNodes, trackAllocations);
     }
 }
 
 abstract class InfraControlL4 extends InfraControlL3 {
     private int markerEnd;
 
-    public InfraControlL4(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration);
+    public InfraControlL4(BenchmarkParams benchmarkParams, IterationParams iterationParams, CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration, boolean yieldInCatchup, int[] threadNodes, boolean trackAllocations) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, yieldInCatchup, threadNodes, trackAllocations);
     }
 }
 
@@ -28,6 +28,7 @@ package org.openjdk.jmh.runner;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
 import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.profile.WorkerThreadParams;
 import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.runner.format.OutputFormat;
@@ -71,7 +72,7 @@ class LoopBenchmarkHandler extends BaseBenchmarkHandler {
         // result object to accumulate the results in
         IterationResult iterationResults = new IterationResult(benchmarkParams, params);
 
-        InfraControl control = new InfraControl(benchmarkParams, params, preSetupBarrier, preTearDownBarrier, last);
+        InfraControl control = new InfraControl(benchmarkParams, params, preSetupBarrier, preTearDownBarrier, last, yieldInCatchup, threadNodes, trackAllocations);
 
         // preparing the worker runnables
         BenchmarkTask[] runners = new BenchmarkTask[numThreads];
@@ -87,80 +88,93 @@ class LoopBenchmarkHandler extends BaseBenchmarkHandler {
         // the edge behaviors.
         startProfilers(benchmarkParams, params);
 
-        // submit tasks to threadpool
-        Map<BenchmarkTask, Future<Collection<? extends Result>>> results = new HashMap<BenchmarkTask, Future<Collection<? extends Result>>>();
-        for (BenchmarkTask runner : runners) {
-            results.put(runner, executor.submit(runner));
-        }
+        try {
+            // submit tasks to threadpool
+            Map<BenchmarkTask, Future<Collection<? extends Result>>> results = new HashMap<BenchmarkTask, Future<Collection<? extends Result>>>();
+            for (BenchmarkTask runner : runners) {
+                results.put(runner, executor.submit(runner));
+            }
 
-        // wait for all workers to transit to measurement
-        control.awaitWarmupReady();
+            // wait for all workers to transit to measurement
+            control.awaitWarmupReady();
 
-        // wait for the iteration time to expire
-        switch (benchmarkParams.getMode()) {
-            case SingleShotTime:
-                // don't wait here, block on timed result Future
-                break;
-            default:
-                try {
-                    runtime.sleep();
-                } catch (InterruptedException e) {
-                    // regardless...
-                }
-        }
+            // wait for the iteration time to expire
+            switch (benchmarkParams.getMode()) {
+                case SingleShotTime:
+                    // don't wait here, block on timed result Future
+                    break;
+                default:
+                    try {
+                        runtime.sleep();
+                    } catch (InterruptedException e) {
+                        // regardless...
+                    }
+            }
+
+            // now we communicate all worker threads should stop
+            control.isDone = true;
 
-        // now we communicate all worker threads should stop
-        control.isDone = true;
+            // wait for all workers to transit to teardown
+            control.awaitWarmdownReady();
 
-        // wait for all workers to transit to teardown
-        control.awaitWarmdownReady();
+            // Wait for the result, continuously polling the worker threads.
+            // The abrupt exception in any worker will float up here.
+            int expected = numThreads;
+            while (expected > 0) {
+                for (Map.Entry<BenchmarkTask, Future<Collection<? extends Result>>> re : results.entrySet()) {
+                    BenchmarkTask task = re.getKey();
+                    Future<Collection<? extends Result>> fr = re.getValue();
+                    try {
+                        long waitFor = Math.max(TimeUnit.MILLISECONDS.toNanos(100), waitDeadline - System.nanoTime());
+                        fr.get(waitFor, TimeUnit.NANOSECONDS);
+                        expected--;
+                    } catch (InterruptedException ex) {
+                        throw new BenchmarkException(ex);
+                    } catch (ExecutionException ex) {
+                        // unwrap: ExecutionException -> Throwable-wrapper -> InvocationTargetException
+                        Throwable cause = ex.getCause().getCause().getCause();
+                        throw new BenchmarkException(cause);
+                    } catch (TimeoutException e) {
+                        // try to kick the thread, if it was already started
+                        Thread runner = task.runner;
+                        if (runner != null) {
+                            out.print("(*interrupt*) ");
+                            runner.interrupt();
+                        }
+                    }
+                }
+            }
 
-        // Wait for the result, continuously polling the worker threads.
-        // The abrupt exception in any worker will float up here.
-        int expected = numThreads;
-        while (expected > 0) {
-            for (Map.Entry<BenchmarkTask, Future<Collection<? extends Result>>> re : results.entrySet()) {
-                BenchmarkTask task = re.getKey();
-                Future<Collection<? extends Result>> fr = re.getValue();
+            // Get the results.
+            // Should previous loop allow us to get to this point, we can fully expect
+            // all the results ready without the exceptions.
+            for (Future<Collection<? extends Result>> fr : results.values()) {
                 try {
-                    long waitFor = Math.max(TimeUnit.MILLISECONDS.toNanos(100), waitDeadline - System.nanoTime());
-                    fr.get(waitFor, TimeUnit.NANOSECONDS);
-                    expected--;
+                    iterationResults.addResults(fr.get());
                 } catch (InterruptedException ex) {
-                    throw new BenchmarkException(ex);
+                    throw new IllegalStateException("Impossible to be here");
                 } catch (ExecutionException ex) {
-                    // unwrap: ExecutionException -> Throwable-wrapper -> InvocationTargetException
-                    Throwable cause = ex.getCause().getCause().getCause();
-                    throw new BenchmarkException(cause);
-                } catch (TimeoutException e) {
-                    // try to kick the thread, if it was already started
-                    Thread runner = task.runner;
-                    if (runner != null) {
-                        out.print("(*interrupt*) ");
-                        runner.interrupt();
-                    }
+                    throw new IllegalStateException("Impossible to be here");
                 }
             }
-        }
 
-        // Get the results.
-        // Should previous loop allow us to get to this point, we can fully expect
-        // all the results ready without the exceptions.
-        for (Future<Collection<? extends Result>> fr : results.values()) {
-            try {
-                iterationResults.addResults(fr.get());
-            } catch (InterruptedException ex) {
-                throw new IllegalStateException("Impossible to be here");
-            } catch (ExecutionException ex) {
-                throw new IllegalStateException("Impossible to be here");
+            iterationResults.setMeasuredOps(control.getMeasuredOps());
+            iterationResults.setMeasuredAllocatedBytes(control.getMeasuredAllocatedBytes());
+            if (last) {
+                iterationResults.markLastIteration();
             }
-        }
 
-        // profilers stop when after all threads are confirmed to be
-        // finished to capture the edge behaviors
-        stopProfilers(benchmarkParams, params, iterationResults);
+            // profilers stop when after all threads are confirmed to be
+            // finished to capture the edge behaviors
+            stopProfilers(benchmarkParams, params, iterationResults);
 
-        return iterationResults;
+            return iterationResults;
+        } finally {
+            // profilers are done with the workers by now
+            for (BenchmarkTask runner : runners) {
+                runner.unregister();
+            }
+        }
     }
 
     /**
@@ -169,6 +183,7 @@ class LoopBenchmarkHandler extends BaseBenchmarkHandler {
     class BenchmarkTask implements Callable<Collection<? extends Result>> {
 
         private volatile Thread runner;
+        private volatile long runnerId = -1;
         private final InfraControl control;
         private final ThreadParams threadParams;
 
@@ -182,6 +197,9 @@ class LoopBenchmarkHandler extends BaseBenchmarkHandler {
             try {
                 // bind the executor thread
                 runner = Thread.currentThread();
+                runnerId = runner.getId();
+                WorkerThreadParams.register(threadParams);
+                pinCurrentThread(threadParams);
 
                 // go for the run
                 return (Collection<? extends Result>) method.invoke(instances.get(), control, threadParams);
@@ -212,6 +230,12 @@ class LoopBenchmarkHandler extends BaseBenchmarkHandler {
             }
         }
 
+        void unregister() {
+            if (runnerId != -1) {
+                WorkerThreadParams.unregister(runnerId);
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Journal of the completed forks. Every fork is recorded, along with its results,
+ * as soon as it completes. When the run is started over with the existing journal,
+ * the recorded forks are not run again, and their results are reused. The fork is only
+ * reused if it was recorded with the same run configuration: iteration parameters, JVM,
+ * JVM options, time unit, operations per invocation, target rate, and the run-wide options
+ * which are not the part of benchmark parameters: profilers, thread placement, and fork
+ * parallelism, which slices the CPUs between the concurrent forks.
+ *
+ * <p>The journal is the header followed by the length-prefixed and checksummed
+ * records. The record torn by abrupt termination is dropped when the journal is opened.</p>
+ */
+class RunJournal {
+
+    private static final int MAGIC = 0x4A4D484A; // "JMHJ"
+    private static final int VERSION = 1;
+
+    private final String file;
+    private final Map<String, String> config;
+    private final Map<BenchmarkParams, Map<Integer, Record>> completed;
+    private final RandomAccessFile raf;
+    private int count;
+
+    /**
+     * @param file journal file
+     * @param config run-wide options of the current run, option name to value mapping
+     * @throws IOException if journal can not be read or created
+     */
+    public RunJournal(String file, Map<String, String> config) throws IOException {
+        this.file = file;
+        this.config = new TreeMap<String, String>(config);
+        this.completed = new HashMap<BenchmarkParams, Map<Integer, Record>>();
+
+        long validLength = 0;
+        if (new File(file).length() > 0) {
+            validLength = read();
+        }
+
+        raf = new RandomAccessFile(file, "rw");
+        if (validLength == 0) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.close();
+            raf.setLength(0);
+            raf.write(bos.toByteArray());
+            raf.getFD().sync();
+        } else {
+            // drop the torn record, if any, and continue after the last valid one
+            raf.setLength(validLength);
+            raf.seek(validLength);
+        }
+    }
+
+    private long read() throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            int magic;
+            int version;
+            try {
+                magic = dis.readInt();
+                version = dis.readInt();
+            } catch (EOFException e) {
+                throw new IOException("Not a journal file: " + file);
+            }
+            if (magic != MAGIC) {
+                throw new IOException("Not a journal file: " + file);
+            }
+            if (version != VERSION) {
+                throw new IOException("Unsupported journal version: " + version);
+            }
+
+            long validLength = 8;
+            while (true) {
+                byte[] data;
+                long checksum;
+                try {
+                    int length = dis.readInt();
+                    checksum = dis.readLong();
+                    if (length < 0) {
+                        break;
+                    }
+                    data = new byte[length];
+                    dis.readFully(data);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+                try {
+                    put((Record) ois.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Can not read the journal record: " + e.getMessage());
+                } finally {
+                    FileUtils.safelyClose(ois);
+                }
+
+                validLength += 4 + 8 + data.length;
+            }
+            return validLength;
+        } finally {
+            FileUtils.safelyClose(dis);
+        }
+    }
+
+    private void put(Record r) {
+        Map<Integer, Record> forks = completed.get(r.params);
+        if (forks == null) {
+            forks = new HashMap<Integer, Record>();
+            completed.put(r.params, forks);
+        }
+        if (forks.put(r.fork, r) == null) {
+            count++;
+        }
+    }
+
+    /**
+     * @return number of completed forks in the journal
+     */
+    public synchronized int getCompletedCount() {
+        return count;
+    }
+
+    /**
+     * Get the results for the completed fork.
+     * @param params benchmark
+     * @param fork fork index
+     * @return fork results; null, if fork was not completed yet, or was completed with the different configuration
+     */
+    public synchronized Collection<BenchmarkResult> getCompleted(BenchmarkParams params, int fork) {
+        Record r = getRecord(params, fork);
+        return (r != null && mismatch(r, params) == null) ? r.results : null;
+    }
+
+    /**
+     * Describe how the configuration of the completed fork differs from the current one.
+     * @param params benchmark
+     * @param fork fork index
+     * @return mismatched configuration items; null, if fork was not completed yet, or configuration matches
+     */
+    public synchronized String getMismatch(BenchmarkParams params, int fork) {
+        Record r = getRecord(params, fork);
+        return (r != null) ? mismatch(r, params) : null;
+    }
+
+    private Record getRecord(BenchmarkParams params, int fork) {
+        Map<Integer, Record> forks = completed.get(params);
+        return (forks != null) ? forks.get(fork) : null;
+    }
+
+    private String mismatch(Record r, BenchmarkParams current) {
+        List<String> diffs = mismatchParams(r.params, current);
+        for (Map.Entry<String, String> e : config.entrySet()) {
+            // records without the config are not trusted
+            String recorded = (r.config != null) ? r.config.get(e.getKey()) : null;
+            if (!e.getValue().equals(recorded)) {
+                diffs.add(e.getKey());
+            }
+        }
+        return diffs.isEmpty() ? null : Utils.join(diffs, ", ");
+    }
+
+    /**
+     * Benchmark params equality only covers the benchmark identity, check the rest
+     * of run configuration that affects the results.
+     */
+    static List<String> mismatchParams(BenchmarkParams recorded, BenchmarkParams current) {
+        List<String> diffs = new ArrayList<String>();
+        if (!recorded.getWarmup().equals(current.getWarmup())) {
+            diffs.add("warmup");
+        }
+        if (!recorded.getMeasurement().equals(current.getMeasurement())) {
+            diffs.add("measurement");
+        }
+        if (!recorded.getJvm().equals(current.getJvm())) {
+            diffs.add("jvm");
+        }
+        if (!new ArrayList<String>(recorded.getJvmArgs()).equals(new ArrayList<String>(current.getJvmArgs()))) {
+            diffs.add("jvmArgs");
+        }
+        if (recorded.getTimeUnit() != current.getTimeUnit()) {
+            diffs.add("timeUnit");
+        }
+        if (recorded.getOpsPerInvocation() != current.getOpsPerInvocation()) {
+            diffs.add("opsPerInvocation");
+        }
+        if (Double.compare(recorded.getTargetRate(), current.getTargetRate()) != 0) {
+            diffs.add("targetRate");
+        }
+        return diffs;
+    }
+
+    /**
+     * Record the completed fork. The record is synced to disk before returning.
+     * @param params benchmark
+     * @param fork fork index
+     * @param results fork results
+     */
+    public synchronized void record(BenchmarkParams params, int fork, Collection<BenchmarkResult> results) {
+        Collection<BenchmarkResult> copy = new ArrayList<BenchmarkResult>(results);
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(payload);
+            oos.writeObject(new Record(params, fork, copy, config));
+            oos.close();
+
+            byte[] data = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            dos.writeInt(data.length);
+            dos.writeLong(crc.getValue());
+            dos.write(data);
+            dos.close();
+
+            raf.write(bos.toByteArray());
+            raf.getFD().sync();
+        } catch (IOException e) {
+            throw new BenchmarkException(e);
+        }
+        put(new Record(params, fork, copy, config));
+    }
+
+    public synchronized void close() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static class Record implements Serializable {
+        private static final long serialVersionUID = -2146392384837426542L;
+
+        private final BenchmarkParams params;
+        private final int fork;
+        private final Collection<BenchmarkResult> results;
+        private final Map<String, String> config;
+
+        Record(BenchmarkParams params, int fork, Collection<BenchmarkResult> results, Map<String, String> config) {
+            this.params = params;
+            this.fork = fork;
+            this.results = results;
+            this.config = config;
+        }
+    }
+
+}
@@ -32,24 +32,30 @@ import org.openjdk.jmh.profile.ExternalProfiler;
 import org.openjdk.jmh.profile.Profiler;
 import org.openjdk.jmh.profile.ProfilerFactory;
 import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.ForkVariance;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.results.format.StreamingResultFormat;
 import org.openjdk.jmh.runner.format.OutputFormat;
 import org.openjdk.jmh.runner.format.OutputFormatFactory;
 import org.openjdk.jmh.runner.link.BinaryLinkServer;
 import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ThreadSweep;
 import org.openjdk.jmh.runner.options.TimeValue;
 import org.openjdk.jmh.runner.options.VerboseMode;
 import org.openjdk.jmh.util.FileUtils;
 import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.InputStreamDrainer;
 import org.openjdk.jmh.util.Multimap;
+import org.openjdk.jmh.util.Optional;
 import org.openjdk.jmh.util.TreeMultimap;
 import org.openjdk.jmh.util.UnCloseablePrintStream;
 import org.openjdk.jmh.util.Utils;
 import org.openjdk.jmh.util.Version;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -64,13 +70,23 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Runner executes JMH benchmarks.
@@ -89,6 +105,8 @@ public class Runner extends BaseRunner {
 
     private final BenchmarkList list;
     private int cpuCount;
+    private StreamingResultFormat resultStream;
+    private RunJournal journal;
 
     /**
      * Create runner with the custom OutputFormat.
@@ -227,11 +245,12 @@ public class Runner extends BaseRunner {
         }
 
         // If user requested the result file in one way or the other, touch the result file,
-        // and prepare to write it out after the run.
+        // and prepare to write it out during or after the run.
         String resultFile = null;
+        ResultFormatType resultFormat = options.getResultFormat().orElse(Defaults.RESULT_FORMAT);
         if (options.getResult().hasValue() || options.getResultFormat().hasValue()) {
             resultFile = options.getResult().orElse(Defaults.RESULT_FILE_PREFIX + "."
-                    + options.getResultFormat().orElse(Defaults.RESULT_FORMAT)).toLowerCase();
+                    + resultFormat).toLowerCase();
             try {
                 FileUtils.touch(resultFile);
             } catch (IOException e) {
@@ -268,7 +287,8 @@ public class Runner extends BaseRunner {
             for (BenchmarkListEntry br : benchmarks) {
                 if (br.getMode() == Mode.All) {
                     for (Mode mode : Mode.values()) {
-                        if (mode == Mode.All) continue;
+                        // fixed rate needs the deliberate choice of target rate, run it only when asked
+                        if (mode == Mode.All || mode == Mode.FixedRate) continue;
                         newBenchmarks.add(br.cloneWith(mode));
                     }
                 } else {
@@ -296,14 +316,43 @@ public class Runner extends BaseRunner {
             benchmarks.addAll(newBenchmarks);
         }
 
-        Collection<RunResult> results = runBenchmarks(benchmarks);
+        // Streaming formats write the results as benchmarks complete, so that the results
+        // are not lost if the run is terminated abruptly.
+        boolean streamResults = (resultFile != null) && ResultFormatFactory.isStreamingSupported(resultFormat);
+        if (streamResults) {
+            resultStream = ResultFormatFactory.getStreamingInstance(resultFormat, resultFile);
+        }
+
+        if (options.getResumeJournal().hasValue()) {
+            String journalFile = options.getResumeJournal().get();
+            try {
+                journal = new RunJournal(journalFile, journalConfig());
+            } catch (IOException e) {
+                throw new RunnerException("Can not open the journal: " + journalFile, e);
+            }
+            out.println("# Journal: " + journalFile + ", " + journal.getCompletedCount() + " forks already completed");
+            out.println("");
+        }
+
+        Collection<RunResult> results;
+        try {
+            results = runBenchmarks(benchmarks);
+        } finally {
+            if (resultStream != null) {
+                resultStream.endRun();
+                resultStream = null;
+            }
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
 
         // If user requested the result file, write it out.
         if (resultFile != null) {
-            ResultFormatFactory.getInstance(
-                        options.getResultFormat().orElse(Defaults.RESULT_FORMAT),
-                        resultFile
-            ).writeOut(results);
+            if (!streamResults) {
+                ResultFormatFactory.getInstance(resultFormat, resultFile).writeOut(results);
+            }
 
             out.println("");
             out.println("Benchmark result is saved to " + resultFile);
@@ -337,28 +386,46 @@ public class Runner extends BaseRunner {
 
         boolean addEmbedded = false;
 
+        List<Optional<Integer>> threadCounts = getThreadCounts();
+
         List<ActionPlan> result = new ArrayList<ActionPlan>();
         for (BenchmarkListEntry br : benchmarks) {
-            BenchmarkParams params = newBenchmarkParams(br, ActionMode.UNDEF);
+            // swept thread counts are rounded up to the thread group size, and may collapse
+            Set<Integer> effectiveThreads = new LinkedHashSet<Integer>();
+            boolean collapsed = false;
 
-            if (params.getForks() <= 0) {
-                if (options.getWarmupMode().orElse(Defaults.WARMUP_MODE).isIndi()) {
-                    embeddedPlan.add(newAction(br, ActionMode.WARMUP_MEASUREMENT));
-                } else {
-                    embeddedPlan.add(newAction(br, ActionMode.MEASUREMENT));
+            for (Optional<Integer> threads : threadCounts) {
+                BenchmarkParams params = newBenchmarkParams(br, ActionMode.UNDEF, threads);
+
+                if (!effectiveThreads.add(params.getThreads())) {
+                    collapsed = true;
+                    continue;
                 }
-                addEmbedded = true;
-            }
 
-            if (params.getForks() > 0) {
-                ActionPlan r = new ActionPlan(ActionType.FORKED);
-                r.mixIn(base);
-                if (options.getWarmupMode().orElse(Defaults.WARMUP_MODE).isIndi()) {
-                    r.add(newAction(br, ActionMode.WARMUP_MEASUREMENT));
-                } else {
-                    r.add(newAction(br, ActionMode.MEASUREMENT));
+                if (params.getForks() <= 0) {
+                    if (options.getWarmupMode().orElse(Defaults.WARMUP_MODE).isIndi()) {
+                        embeddedPlan.add(newAction(br, ActionMode.WARMUP_MEASUREMENT, threads));
+                    } else {
+                        embeddedPlan.add(newAction(br, ActionMode.MEASUREMENT, threads));
+                    }
+                    addEmbedded = true;
+                }
+
+                if (params.getForks() > 0) {
+                    ActionPlan r = new ActionPlan(ActionType.FORKED);
+                    r.mixIn(base);
+                    if (options.getWarmupMode().orElse(Defaults.WARMUP_MODE).isIndi()) {
+                        r.add(newAction(br, ActionMode.WARMUP_MEASUREMENT, threads));
+                    } else {
+                        r.add(newAction(br, ActionMode.MEASUREMENT, threads));
+                    }
+                    result.add(r);
                 }
-                result.add(r);
+            }
+
+            if (collapsed) {
+                out.println("# Thread sweep: " + br.getUsername() + " runs " + effectiveThreads +
+                        " threads, rounded up to multiples of the thread group size");
             }
         }
 
@@ -369,24 +436,52 @@ public class Runner extends BaseRunner {
         return result;
     }
 
+    /**
+     * Thread counts to expand each benchmark over.
+     * @return thread counts; the single empty value if there is no thread sweep
+     */
+    private List<Optional<Integer>> getThreadCounts() {
+        List<Optional<Integer>> result = new ArrayList<Optional<Integer>>();
+        if (options.getThreadSweep().hasValue()) {
+            ThreadSweep sweep = options.getThreadSweep().get();
+            List<Integer> counts = sweep.expand(sweep.needsMaxThreads() ? getCpuCount() : 0);
+            out.println("# Thread sweep: " + sweep + " = " + counts);
+            for (Integer c : counts) {
+                result.add(Optional.of(c));
+            }
+        } else {
+            result.add(Optional.<Integer>none());
+        }
+        return result;
+    }
+
+    private int getCpuCount() {
+        if (cpuCount == 0) {
+            out.print("# Detecting actual CPU count: ");
+            cpuCount = Utils.figureOutHotCPUs();
+            out.println(cpuCount + " detected");
+        }
+        return cpuCount;
+    }
+
     private Action newAction(BenchmarkListEntry br, ActionMode mode) {
-        return new Action(newBenchmarkParams(br, mode), mode);
+        return newAction(br, mode, Optional.<Integer>none());
     }
 
-    private BenchmarkParams newBenchmarkParams(BenchmarkListEntry benchmark, ActionMode mode) {
+    private Action newAction(BenchmarkListEntry br, ActionMode mode, Optional<Integer> threadCount) {
+        return new Action(newBenchmarkParams(br, mode, threadCount), mode);
+    }
+
+    private BenchmarkParams newBenchmarkParams(BenchmarkListEntry benchmark, ActionMode mode, Optional<Integer> threadCount) {
         int[] threadGroups = options.getThreadGroups().orElse(benchmark.getThreadGroups());
 
-        int threads = options.getThreads().orElse(
-                benchmark.getThreads().orElse(
-                        Defaults.THREADS));
+        int threads = threadCount.orElse(
+                options.getThreads().orElse(
+                        benchmark.getThreads().orElse(
+                                Defaults.THREADS)));
 
         if (threads == Threads.MAX) {
-            if (cpuCount == 0) {
-                out.print("# Detecting actual CPU count: ");
-                cpuCount = Utils.figureOutHotCPUs();
-                out.println(cpuCount + " detected");
-            }
-            threads = cpuCount;
+            threads = getCpuCount();
         }
 
         threads = Utils.roundUp(threads, Utils.sum(threadGroups));
@@ -465,10 +560,12 @@ public class Runner extends BaseRunner {
         TimeValue timeout = options.getTimeout().orElse(
                 benchmark.getTimeout().orElse(Defaults.TIMEOUT));
 
+        double targetRate = options.getTargetRate().orElse(Defaults.TARGET_RATE);
+
         return new BenchmarkParams(benchmark.getUsername(), benchmark.generatedTarget(), synchIterations,
                 threads, threadGroups, forks, warmupForks,
                 warmup, measurement, benchmark.getMode(), benchmark.getWorkloadParams(), timeUnit, opsPerInvocation,
-                jvm, jvmArgs, timeout);
+                jvm, jvmArgs, timeout, targetRate);
     }
 
     private List<WorkloadParams> explodeAllParams(BenchmarkListEntry br) throws RunnerException {
@@ -508,23 +605,88 @@ public class Runner extends BaseRunner {
         return ps;
     }
 
+    /**
+     * @return run-wide options affecting the results, which are not the part of benchmark parameters
+     */
+    private Map<String, String> journalConfig() {
+        List<String> profilers = new ArrayList<String>();
+        for (Class<? extends Profiler> p : options.getProfilers()) {
+            profilers.add(p.getName());
+        }
+        Collections.sort(profilers);
+
+        Map<String, String> config = new HashMap<String, String>();
+        config.put("profilers", profilers.toString());
+        config.put("threadPlacement", String.valueOf(options.getThreadPlacement().orElse(null)));
+        config.put("forkParallelism", String.valueOf(options.getForkParallelism().orElse(Defaults.FORK_PARALLELISM)));
+        return config;
+    }
+
     private Collection<RunResult> runBenchmarks(SortedSet<BenchmarkListEntry> benchmarks) throws RunnerException {
         out.startRun();
 
         Multimap<BenchmarkParams, BenchmarkResult> results = new TreeMultimap<BenchmarkParams, BenchmarkResult>();
         List<ActionPlan> plan = getActionPlans(benchmarks);
 
-        etaBeforeBenchmarks(plan);
+        int forkParallelism = options.getForkParallelism().orElse(Defaults.FORK_PARALLELISM);
+        if (forkParallelism < 1) {
+            throw new RunnerException("Fork parallelism should be positive, but was " + forkParallelism);
+        }
+
+        double targetRate = options.getTargetRate().orElse(Defaults.TARGET_RATE);
+        if (!(targetRate > 0)) {
+            throw new RunnerException("Target rate should be positive, but was " + targetRate);
+        }
+
+        if (options.getTargetError().hasValue()) {
+            double targetError = options.getTargetError().get();
+            if (!(targetError > 0)) {
+                throw new RunnerException("Target error should be positive, but was " + targetError);
+            }
+        }
+
+        etaBeforeBenchmarks(plan, forkParallelism);
+
+        if (resultStream != null) {
+            List<BenchmarkParams> planned = new ArrayList<BenchmarkParams>();
+            for (ActionPlan r : plan) {
+                for (Action a : r.getMeasurementActions()) {
+                    planned.add(a.getParams());
+                }
+            }
+            resultStream.startRun(planned);
+        }
 
         try {
+            List<ActionPlan> forkedPlans = new ArrayList<ActionPlan>();
+            for (ActionPlan r : plan) {
+                if (r.getType() == ActionType.FORKED) {
+                    forkedPlans.add(r);
+                }
+            }
+
+            boolean parallel = (forkParallelism > 1) && (forkedPlans.size() > 1);
+            if (parallel) {
+                Multimap<BenchmarkParams, BenchmarkResult> res = runSeparateParallel(forkedPlans, forkParallelism);
+                for (BenchmarkParams br : res.keys()) {
+                    results.putAll(br, res.get(br));
+                }
+            }
+
             for (ActionPlan r : plan) {
                 Multimap<BenchmarkParams, BenchmarkResult> res;
                 switch (r.getType()) {
                     case EMBEDDED:
+                        // results are streamed as each benchmark completes, see benchmarkCompleted()
                         res = runBenchmarks(false, r);
                         break;
                     case FORKED:
-                        res = runSeparate(r);
+                        if (parallel) {
+                            // already executed
+                            continue;
+                        }
+                        res = runSeparate(r, out, null);
+                        streamResults(res);
                         break;
                     default:
                         throw new IllegalStateException("Unknown action plan type: " + r.getType());
@@ -545,6 +707,21 @@ public class Runner extends BaseRunner {
         }
     }
 
+    @Override
+    protected void benchmarkCompleted(BenchmarkParams params, BenchmarkResult result) {
+        if (resultStream != null) {
+            resultStream.writeResult(new RunResult(Collections.singleton(result)));
+        }
+    }
+
+    private void streamResults(Multimap<BenchmarkParams, BenchmarkResult> results) {
+        if (resultStream != null) {
+            for (BenchmarkParams key : results.keys()) {
+                resultStream.writeResult(new RunResult(results.get(key)));
+            }
+        }
+    }
+
     private SortedSet<RunResult> mergeRunResults(Multimap<BenchmarkParams, BenchmarkResult> results) {
         SortedSet<RunResult> result = new TreeSet<RunResult>(RunResult.DEFAULT_SORT_COMPARATOR);
         for (BenchmarkParams key : results.keys()) {
@@ -553,7 +730,102 @@ public class Runner extends BaseRunner {
         return result;
     }
 
-    private Multimap<BenchmarkParams, BenchmarkResult> runSeparate(ActionPlan actionPlan) {
+    /**
+     * Runs the forked action plans concurrently. The available CPUs are split into
+     * disjoint slices, and each running plan gets its own slice, its own binary link
+     * server, and its own output buffer. The output for the plan is printed
+     * out in one piece when the plan completes.
+     *
+     * @param plans forked plans to run
+     * @param parallelism how many plans to run at once
+     * @return results
+     */
+    private Multimap<BenchmarkParams, BenchmarkResult> runSeparateParallel(List<ActionPlan> plans, int parallelism) {
+        Multimap<BenchmarkParams, BenchmarkResult> results = new HashMultimap<BenchmarkParams, BenchmarkResult>();
+
+        List<CPUSlice> slices = CPUSlice.split(Math.min(parallelism, plans.size()));
+        final boolean bind = CPUSlice.isBindingSupported();
+
+        out.println("# Running " + plans.size() + " forked benchmarks, " + slices.size() + " at once");
+        if (bind) {
+            for (CPUSlice slice : slices) {
+                out.println("#   CPU slice: " + slice);
+            }
+        } else {
+            out.println("# WARNING: Can not bind forked VMs to CPU slices (is taskset available?), " +
+                    "concurrent forks may interfere with each other");
+        }
+        out.println("");
+
+        final VerboseMode verbosity = options.verbosity().orElse(Defaults.VERBOSITY);
+        final boolean failOnError = options.shouldFailOnError().orElse(Defaults.FAIL_ON_ERROR);
+        final BlockingQueue<CPUSlice> freeSlices = new LinkedBlockingQueue<CPUSlice>(slices);
+        final AtomicReference<BenchmarkException> failure = new AtomicReference<BenchmarkException>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(slices.size());
+        try {
+            CompletionService<Multimap<BenchmarkParams, BenchmarkResult>> completion =
+                    new ExecutorCompletionService<Multimap<BenchmarkParams, BenchmarkResult>>(executor);
+
+            for (final ActionPlan plan : plans) {
+                completion.submit(new Callable<Multimap<BenchmarkParams, BenchmarkResult>>() {
+                    @Override
+                    public Multimap<BenchmarkParams, BenchmarkResult> call() throws Exception {
+                        if (failOnError && failure.get() != null) {
+                            // do not start new work after the failure
+                            return new HashMultimap<BenchmarkParams, BenchmarkResult>();
+                        }
+
+                        CPUSlice slice = freeSlices.take();
+
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        PrintStream ps = new PrintStream(buffer);
+                        OutputFormat planOut = OutputFormatFactory.createFormatInstance(ps, verbosity);
+                        try {
+                            return runSeparate(plan, planOut, bind ? slice : null);
+                        } catch (BenchmarkException be) {
+                            failure.compareAndSet(null, be);
+                            throw be;
+                        } finally {
+                            ps.flush();
+                            synchronized (out) {
+                                out.print(buffer.toString());
+                                out.flush();
+                            }
+                            freeSlices.add(slice);
+                        }
+                    }
+                });
+            }
+
+            // collect in completion order, so that the results are streamed as soon as they are ready
+            for (int c = 0; c < plans.size(); c++) {
+                try {
+                    Multimap<BenchmarkParams, BenchmarkResult> res = completion.take().get();
+                    streamResults(res);
+                    results.merge(res);
+                } catch (ExecutionException e) {
+                    // benchmark failures are already recorded, record everything else
+                    if (!(e.getCause() instanceof BenchmarkException)) {
+                        failure.compareAndSet(null, new BenchmarkException(e.getCause()));
+                    }
+                } catch (InterruptedException e) {
+                    throw new BenchmarkException(e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        BenchmarkException be = failure.get();
+        if (be != null) {
+            throw be;
+        }
+
+        return results;
+    }
+
+    private Multimap<BenchmarkParams, BenchmarkResult> runSeparate(ActionPlan actionPlan, OutputFormat out, CPUSlice slice) {
         Multimap<BenchmarkParams, BenchmarkResult> results = new HashMultimap<BenchmarkParams, BenchmarkResult>();
 
         if (actionPlan.getMeasurementActions().size() != 1) {
@@ -574,6 +846,12 @@ public class Runner extends BaseRunner {
 
             List<String> javaInvokeOptions = new ArrayList<String>();
             List<String> javaOptions = new ArrayList<String>();
+
+            if (slice != null) {
+                // bind first, so that everything else is confined in the slice as well
+                javaInvokeOptions.addAll(slice.bindCommand());
+            }
+
             for (Class<? extends Profiler> p : options.getProfilers()) {
                 if (!ProfilerFactory.isExternal(p)) continue;
                 ExternalProfiler prof = (ExternalProfiler) ProfilerFactory.prepareProfiler(p, null);
@@ -597,21 +875,49 @@ public class Runner extends BaseRunner {
             Version.printVersion(out);
             out.println("# VM invoker: " + params.getJvm());
             out.println("# VM options: " + opts);
+            if (slice != null) {
+                out.println("# CPU slice: " + slice);
+                if (params.getThreads() > slice.size()) {
+                    out.println("# WARNING: Running " + params.getThreads() + " threads on " + slice.size() +
+                            " CPUs of the slice, consider lowering the fork parallelism");
+                }
+            }
             out.startBenchmark(params);
             out.println("");
 
             int forkCount = params.getForks();
             int warmupForkCount = params.getWarmupForks();
+
+            // With adaptive iteration counts, forking stops when the error over forks meets the target,
+            // and continues past the fork count, if the maximum fork count allows.
+            boolean adaptiveForks = options.getTargetError().hasValue();
+            int maxForkCount = adaptiveForks ? Math.max(forkCount, options.getMaxForkCount().orElse(forkCount)) : forkCount;
+            String forkLimit = (maxForkCount > forkCount) ? "up to " + maxForkCount : String.valueOf(forkCount);
+
+            // Forks completed in the previous run do not need to run again.
+            boolean allJournaled = true;
+            for (int i = 0; i < forkCount; i++) {
+                allJournaled &= (journal != null) && (journal.getCompleted(params, i) != null);
+            }
+
+            if (allJournaled && warmupForkCount > 0) {
+                out.println("# Warmup forks are skipped, all forks are completed in the journal");
+                for (int i = 0; i < warmupForkCount; i++) {
+                    etaSkipBenchmark(params);
+                }
+                warmupForkCount = 0;
+            }
+
             if (warmupForkCount > 0) {
                 out.verbosePrintln("Warmup forking " + warmupForkCount + " times using command: " + Arrays.toString(commandString));
                 for (int i = 0; i < warmupForkCount; i++) {
-                    etaBeforeBenchmark();
+                    etaBeforeBenchmark(out);
                     out.println("# Warmup Fork: " + (i + 1) + " of " + warmupForkCount);
 
                     File stdErr = FileUtils.tempFile("stderr");
                     File stdOut = FileUtils.tempFile("stdout");
 
-                    doFork(server, commandString, stdOut, stdErr, printOut, printErr);
+                    doFork(server, out, commandString, stdOut, stdErr, printOut, printErr);
 
                     etaAfterBenchmark(params);
                     out.println("");
@@ -619,9 +925,34 @@ public class Runner extends BaseRunner {
             }
 
             out.verbosePrintln("Forking " + forkCount + " times using command: " + Arrays.toString(commandString));
-            for (int i = 0; i < forkCount; i++) {
-                etaBeforeBenchmark();
-                out.println("# Fork: " + (i + 1) + " of " + forkCount);
+            for (int i = 0; i < maxForkCount; i++) {
+                if (adaptiveForks && i >= Defaults.MIN_ADAPTIVE_FORKS && forksConverged(params, results.get(params), i, forkCount, out)) {
+                    break;
+                }
+                if (i >= forkCount) {
+                    // the fork past the fork count, extend the estimate
+                    etaExtraBenchmark(params);
+                }
+
+                Collection<BenchmarkResult> done = (journal != null) ? journal.getCompleted(params, i) : null;
+                if (done != null) {
+                    out.println("# Fork: " + (i + 1) + " of " + forkLimit + ", completed in the journal, reusing the results");
+                    for (BenchmarkResult r : done) {
+                        results.put(params, r);
+                    }
+                    etaSkipBenchmark(params);
+                    out.println("");
+                    continue;
+                }
+
+                String mismatch = (journal != null) ? journal.getMismatch(params, i) : null;
+                if (mismatch != null) {
+                    out.println("# Fork: " + (i + 1) + " of " + forkLimit + " is in the journal, but was run with different " +
+                            mismatch + ", running it again");
+                }
+
+                etaBeforeBenchmark(out);
+                out.println("# Fork: " + (i + 1) + " of " + forkLimit);
 
                 File stdErr = FileUtils.tempFile("stderr");
                 File stdOut = FileUtils.tempFile("stdout");
@@ -642,7 +973,7 @@ public class Runner extends BaseRunner {
                     }
                 }
 
-                Multimap<BenchmarkParams, BenchmarkResult> result = doFork(server, commandString, stdOut, stdErr, printOut, printErr);
+                Multimap<BenchmarkParams, BenchmarkResult> result = doFork(server, out, commandString, stdOut, stdErr, printOut, printErr);
 
                 if (!profilers.isEmpty()) {
                     out.print("# Processing profiler results: ");
@@ -658,10 +989,18 @@ public class Runner extends BaseRunner {
                 }
 
                 results.merge(result);
+                if (journal != null) {
+                    journal.record(params, i, result.values());
+                }
                 etaAfterBenchmark(params);
                 out.println("");
             }
 
+            if (results.get(params).size() > 1) {
+                out.println("# Fork variance: " + new ForkVariance(results.get(params)));
+                out.println("");
+            }
+
             out.endBenchmark(new RunResult(results.get(params)).getAggregatedResult());
 
         } catch (IOException e) {
@@ -682,7 +1021,37 @@ public class Runner extends BaseRunner {
         return results;
     }
 
-    private Multimap<BenchmarkParams, BenchmarkResult> doFork(BinaryLinkServer reader, String[] commandString,
+    /**
+     * Checks if the error over the completed forks meets the target error.
+     *
+     * @param params benchmark
+     * @param results results of completed forks
+     * @param done number of completed forks
+     * @param forkCount planned number of forks
+     * @param out output to report to
+     * @return true, if no more forks are needed
+     */
+    private boolean forksConverged(BenchmarkParams params, Collection<BenchmarkResult> results, int done, int forkCount, OutputFormat out) {
+        double targetError = options.getTargetError().get();
+        double error = new ForkVariance(results).getRelativeErrorAt(Defaults.ADAPTIVE_CONFIDENCE);
+
+        if (error <= targetError) {
+            out.println(String.format("# Forks converged after %d forks, error = %.2f%%", done, error * 100));
+            out.println("");
+            for (int f = done; f < forkCount; f++) {
+                etaSkipBenchmark(params);
+            }
+            return true;
+        }
+
+        if (done >= forkCount) {
+            out.println(String.format("# Error over forks = %.2f%% is above the target %.2f%%, adding the fork",
+                    error * 100, targetError * 100));
+        }
+        return false;
+    }
+
+    private Multimap<BenchmarkParams, BenchmarkResult> doFork(BinaryLinkServer reader, OutputFormat out, String[] commandString,
                                                               File stdOut, File stdErr, boolean printOut, boolean printErr) {
         FileOutputStream fosErr = null;
         FileOutputStream fosOut = null;
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.profile.ProfilerResult;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs each task in a new virtual thread (JDK 21+).
+ *
+ * <p>The virtual threads run on the default scheduler. With {@code -Djmh.executor.countMounts=true},
+ * and java.lang open to JMH (--add-opens java.base/java.lang=ALL-UNNAMED), the default
+ * scheduler is wrapped to count how many times virtual threads were mounted on the
+ * carrier threads. Note the wrapper is a plain {@link Executor}, and the JDK takes
+ * different scheduling paths for it than for the default {@code ForkJoinPool}, e.g.
+ * the lazy and external submissions of the yielded and unparked threads are not used,
+ * so the counted runs may perform differently. When JFR is available, the virtual threads pinned
+ * to their carriers are recorded as well.</p>
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * Only record pinning longer than this, in milliseconds.
+     */
+    private static final long PINNED_THRESHOLD_MS = Long.getLong("jmh.executor.pinnedThreshold", 0);
+
+    /**
+     * Wrap the default scheduler to count the mounts.
+     */
+    private static final boolean COUNT_MOUNTS = Boolean.getBoolean("jmh.executor.countMounts");
+
+    private final ExecutorService delegate;
+    private final CountingScheduler scheduler;
+    private final boolean recordPinning;
+
+    private Object recording;
+    private long mountsBefore;
+
+    VirtualThreadExecutor(String prefix) throws Exception {
+        scheduler = COUNT_MOUNTS ? countingScheduler() : null;
+
+        Object builder = (scheduler != null) ? countingBuilder(scheduler) : Thread.class.getMethod("ofVirtual").invoke(null);
+
+        // requires some of the reflection magic to untie from JDK 21 compile-time dependencies
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix + "-jmh-worker-", 1L);
+        ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+        delegate = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        recordPinning = isJFRAvailable();
+    }
+
+    private static CountingScheduler countingScheduler() {
+        try {
+            Field f = Class.forName("java.lang.VirtualThread").getDeclaredField("DEFAULT_SCHEDULER");
+            f.setAccessible(true);
+            return new CountingScheduler((Executor) f.get(null));
+        } catch (Exception e) {
+            // java.lang is not open, no counters
+            return null;
+        }
+    }
+
+    private static Object countingBuilder(Executor scheduler) throws Exception {
+        Constructor<?> c = Class.forName("java.lang.ThreadBuilders$VirtualThreadBuilder").getDeclaredConstructor(Executor.class);
+        c.setAccessible(true);
+        return c.newInstance(scheduler);
+    }
+
+    private static boolean isJFRAvailable() {
+        try {
+            return (Boolean) Class.forName("jdk.jfr.FlightRecorder").getMethod("isAvailable").invoke(null);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts counting for the next iteration.
+     */
+    void beforeIteration() {
+        if (scheduler != null) {
+            mountsBefore = scheduler.mounts.get();
+        }
+
+        if (recordPinning) {
+            try {
+                Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+                Class<?> durationClass = Class.forName("java.time.Duration");
+
+                Object threshold = durationClass.getMethod("ofMillis", long.class).invoke(null, PINNED_THRESHOLD_MS);
+
+                recording = recordingClass.newInstance();
+                Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, "jdk.VirtualThreadPinned");
+                settings.getClass().getMethod("withThreshold", durationClass).invoke(settings, threshold);
+                recordingClass.getMethod("start").invoke(recording);
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot record virtual thread pinning", e);
+            }
+        }
+    }
+
+    /**
+     * Stops counting for the iteration.
+     * @return secondary results for the iteration
+     */
+    Collection<? extends Result> afterIteration() {
+        List<Result> results = new ArrayList<Result>();
+
+        if (scheduler != null) {
+            results.add(new ProfilerResult("@virtual.mounts", scheduler.mounts.get() - mountsBefore, "#", AggregationPolicy.AVG));
+        }
+
+        if (recording != null) {
+            long[] pinned = readPinned();
+            results.add(new ProfilerResult("@virtual.pinned.count", pinned[0], "#", AggregationPolicy.AVG));
+            results.add(new ProfilerResult("@virtual.pinned.time", 1.0D * pinned[1] / TimeUnit.MILLISECONDS.toNanos(1), "ms", AggregationPolicy.AVG));
+            recording = null;
+        }
+
+        return results;
+    }
+
+    /**
+     * @return number of pinned events, and the total pinned time in nanoseconds
+     */
+    private long[] readPinned() {
+        File file = null;
+        try {
+            file = FileUtils.tempFile("pinned");
+
+            Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+            Class<?> fileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+            Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Class<?> pathClass = Class.forName("java.nio.file.Path");
+
+            Object path = File.class.getMethod("toPath").invoke(file);
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", pathClass).invoke(recording, path);
+            recordingClass.getMethod("close").invoke(recording);
+
+            Method getDuration = eventClass.getMethod("getDuration");
+            Method toNanos = Class.forName("java.time.Duration").getMethod("toNanos");
+
+            long count = 0;
+            long time = 0;
+            for (Object event : (List<?>) fileClass.getMethod("readAllEvents", pathClass).invoke(null, path)) {
+                count++;
+                time += (Long) toNanos.invoke(getDuration.invoke(event));
+            }
+            return new long[]{count, time};
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read virtual thread pinning", e);
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(command);
+    }
+
+    /**
+     * Counts the continuations the default scheduler runs: every run mounts
+     * the virtual thread, until the thread parks, yields or terminates.
+     */
+    static class CountingScheduler implements Executor {
+        private final Executor delegate;
+        private final AtomicLong mounts = new AtomicLong();
+
+        CountingScheduler(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(final Runnable continuation) {
+            delegate.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mounts.incrementAndGet();
+                    continuation.run();
+                }
+            });
+        }
+    }
+
+}
@@ -83,6 +83,9 @@ class TextReportFormat extends AbstractOutputFormat {
                         (params.getMode() == Mode.SingleShotTime) ? "" : ", ***WARNING: Synchronize iterations are disabled!***"));
 
         out.println("# Benchmark mode: " + params.getMode().longLabel());
+        if (params.getMode() == Mode.FixedRate) {
+            out.println(String.format("# Target rate: %.3f ops/s, over all threads", params.getTargetRate()));
+        }
         out.println("# Benchmark: " + params.getBenchmark());
         if (!params.getParamsKeys().isEmpty()) {
             String s = "";
@@ -127,6 +130,10 @@ class TextReportFormat extends AbstractOutputFormat {
         StringBuilder sb = new StringBuilder();
         sb.append(data.getPrimaryResult().toString());
 
+        if (data.isOutputPerturbed()) {
+            sb.append(" (output perturbed measurement)");
+        }
+
         if (params.getType() == IterationType.MEASUREMENT) {
             int prefixLen = String.format("Iteration %3d: ", iteration).length();
 
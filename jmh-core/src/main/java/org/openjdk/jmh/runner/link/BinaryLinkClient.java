@@ -33,25 +33,35 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.util.FileUtils;
 import org.openjdk.jmh.util.Multimap;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.net.Socket;
-import java.util.Arrays;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 
 public final class BinaryLinkClient {
 
+    /**
+     * Forwarded stdout/stderr is accumulated off-heap, and only sent over to host VM
+     * at the OutputFormat calls, i.e. at iteration boundaries. Only the overflow forces
+     * the link write, which then marks the current iteration as perturbed.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = Integer.getInteger("jmh.link.outputBufferSize", 1024 * 1024);
+
     private final Object lock;
 
-    private final Socket clientSocket;
-    private final ObjectOutputStream oos;
-    private final ObjectInputStream ois;
+    private final SocketChannel channel;
+    private final FrameOutput fos;
+    private final FrameInput fis;
+    private final ByteBuffer pendingOutput;
+    private boolean outputPerturbed;
     private final ForwardingPrintStream streamErr;
     private final ForwardingPrintStream streamOut;
     private final OutputFormat outputFormat;
@@ -59,33 +69,159 @@ public final class BinaryLinkClient {
 
     public BinaryLinkClient(String hostName, int hostPort) throws IOException {
         this.lock = new Object();
-        this.clientSocket = new Socket(hostName, hostPort);
-        this.oos = new ObjectOutputStream(clientSocket.getOutputStream());
-        this.ois = new ObjectInputStream(clientSocket.getInputStream());
-        this.streamErr = new ForwardingPrintStream(OutputFrame.Type.ERR);
-        this.streamOut = new ForwardingPrintStream(OutputFrame.Type.OUT);
+        this.channel = SocketChannel.open(new InetSocketAddress(hostName, hostPort));
+        this.fos = new FrameOutput(channel);
+        this.fis = new FrameInput(new BufferedInputStream(Channels.newInputStream(channel)));
+        this.pendingOutput = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+        this.streamErr = new ForwardingPrintStream(FrameType.OUTPUT_ERR);
+        this.streamOut = new ForwardingPrintStream(FrameType.OUTPUT_OUT);
         this.outputFormat = (OutputFormat) Proxy.newProxyInstance(
                 Thread.currentThread().getContextClassLoader(),
                 new Class[]{OutputFormat.class},
                 new InvocationHandler() {
                     @Override
                     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-                        pushFrame(new OutputFormatFrame(ClassConventions.getMethodName(method), args));
+                        pushOutputFormat(ClassConventions.getMethodName(method), args);
                         return null; // expect null
                     }
                 }
         );
     }
 
-    private void pushFrame(Serializable frame) throws IOException {
+    private void checkFailed() throws IOException {
         if (failed) {
             throw new IOException("Link had failed already");
         }
+    }
+
+    private void pushFrame(byte tag) throws IOException {
+        checkFailed();
+
+        synchronized (lock) {
+            try {
+                drainOutput();
+                fos.write(tag);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    private void pushFrame(byte tag, Serializable obj) throws IOException {
+        checkFailed();
+
+        synchronized (lock) {
+            try {
+                drainOutput();
+                fos.begin(tag);
+                fos.putObject(obj);
+                fos.end();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    private void pushOutput(byte tag, byte b) throws IOException {
+        checkFailed();
+
+        synchronized (lock) {
+            try {
+                reserveOutput(1);
+                pendingOutput.put(tag);
+                pendingOutput.putInt(1);
+                pendingOutput.put(b);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    private void pushOutput(byte tag, byte[] b, int off, int len) throws IOException {
+        checkFailed();
+
+        synchronized (lock) {
+            try {
+                if (reserveOutput(len)) {
+                    pendingOutput.put(tag);
+                    pendingOutput.putInt(len);
+                    pendingOutput.put(b, off, len);
+                } else {
+                    // does not fit the buffer at all, send it over directly
+                    fos.begin(FrameType.OUTPUT_BATCH);
+                    fos.putByte(tag);
+                    fos.putInt(len);
+                    fos.putBytes(b, off, len);
+                    fos.end();
+                }
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Makes room for the output record in the pending buffer.
+     * Should be called under the lock.
+     *
+     * @param len record data length
+     * @return true, if record fits; false, if record is larger than the buffer itself
+     * @throws IOException if the link write fails
+     */
+    private boolean reserveOutput(int len) throws IOException {
+        int size = FrameType.OUTPUT_RECORD_HEADER_SIZE + len;
+        if (pendingOutput.remaining() < size) {
+            // Buffer is full, and we cannot wait for the iteration boundary.
+            // The link write may interfere with the running benchmark.
+            outputPerturbed = true;
+            drainOutput();
+        }
+        return pendingOutput.remaining() >= size;
+    }
+
+    /**
+     * Sends the pending output over. Should be called under the lock.
+     * @throws IOException if the link write fails
+     */
+    private void drainOutput() throws IOException {
+        if (pendingOutput.position() > 0) {
+            pendingOutput.flip();
+            fos.write(FrameType.OUTPUT_BATCH, pendingOutput);
+            pendingOutput.clear();
+        }
+    }
+
+    /**
+     * Checks if forwarded output had overflowed the buffer since the last check,
+     * which means the link writes had possibly perturbed the measurement.
+     * Resets the state for the next check.
+     *
+     * @return true, if output had perturbed the measurement
+     */
+    public boolean checkOutputPerturbed() {
+        synchronized (lock) {
+            boolean res = outputPerturbed;
+            outputPerturbed = false;
+            return res;
+        }
+    }
+
+    private void pushOutputFormat(String method, Object[] args) throws IOException {
+        checkFailed();
 
         synchronized (lock) {
             try {
-                oos.writeObject(frame);
-                oos.flush();
+                // OutputFormat calls mark the iteration boundaries
+                drainOutput();
+
+                fos.begin(FrameType.OUTPUT_FORMAT);
+                fos.putString(method);
+                fos.putArguments(args);
+                fos.end();
             } catch (IOException e) {
                 failed = true;
                 throw e;
@@ -93,9 +229,13 @@ public final class BinaryLinkClient {
         }
     }
 
-    private Object readFrame() throws IOException, ClassNotFoundException {
+    private Object readReply(byte expectedTag) throws IOException, ClassNotFoundException {
         try {
-            return ois.readObject();
+            int tag = fis.next();
+            if (tag != expectedTag) {
+                throw new IllegalStateException("Got the erroneous reply: " + tag + ", expected: " + expectedTag);
+            }
+            return fis.getObject();
         } catch (ClassNotFoundException ex) {
             failed = true;
             throw ex;
@@ -114,45 +254,44 @@ public final class BinaryLinkClient {
         FileUtils.safelyClose(streamOut);
 
         synchronized (lock) {
-            oos.writeObject(new FinishingFrame());
-            FileUtils.safelyClose(ois);
-            FileUtils.safelyClose(oos);
-            clientSocket.close();
+            drainOutput();
+            fos.write(FrameType.FINISHING);
+            channel.close();
         }
     }
 
     public Options requestOptions() throws IOException, ClassNotFoundException {
         synchronized (lock) {
-            pushFrame(new InfraFrame(InfraFrame.Type.OPTIONS_REQUEST));
-
-            Object reply = readFrame();
-            if (reply instanceof OptionsFrame) {
-                return (((OptionsFrame) reply).getOpts());
-            } else {
-                throw new IllegalStateException("Got the erroneous reply: " + reply);
-            }
+            pushFrame(FrameType.OPTIONS_REQUEST);
+            return (Options) readReply(FrameType.OPTIONS);
         }
     }
 
     public ActionPlan requestPlan() throws IOException, ClassNotFoundException {
         synchronized (lock) {
-            pushFrame(new InfraFrame(InfraFrame.Type.ACTION_PLAN_REQUEST));
-
-            Object reply = readFrame();
-            if (reply instanceof ActionPlanFrame) {
-                return ((ActionPlanFrame) reply).getActionPlan();
-            } else {
-                throw new IllegalStateException("Got the erroneous reply: " + reply);
-            }
+            pushFrame(FrameType.ACTION_PLAN_REQUEST);
+            return (ActionPlan) readReply(FrameType.ACTION_PLAN);
         }
     }
 
     public void pushResults(Multimap<BenchmarkParams, BenchmarkResult> res) throws IOException {
-        pushFrame(new ResultsFrame(res));
+        checkFailed();
+
+        synchronized (lock) {
+            try {
+                drainOutput();
+                fos.begin(FrameType.RESULTS);
+                fos.putResults(res);
+                fos.end();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
     }
 
     public void pushException(BenchmarkException error) throws IOException {
-        pushFrame(new ExceptionFrame(error));
+        pushFrame(FrameType.EXCEPTION, error);
     }
 
     public PrintStream getOutStream() {
@@ -168,21 +307,21 @@ public final class BinaryLinkClient {
     }
 
     class ForwardingPrintStream extends PrintStream {
-        public ForwardingPrintStream(final OutputFrame.Type type) {
+        public ForwardingPrintStream(final byte tag) {
             super(new OutputStream() {
                 @Override
                 public void write(int b) throws IOException {
-                    pushFrame(new OutputFrame(type, new byte[]{(byte) (b & 0xFF)}));
+                    pushOutput(tag, (byte) (b & 0xFF));
                 }
 
                 @Override
                 public void write(byte[] b) throws IOException {
-                    pushFrame(new OutputFrame(type, Arrays.copyOf(b, b.length)));
+                    pushOutput(tag, b, 0, b.length);
                 }
 
                 @Override
                 public void write(byte[] b, int off, int len) throws IOException {
-                    pushFrame(new OutputFrame(type, Arrays.copyOfRange(b, off, len + off)));
+                    pushOutput(tag, b, off, len);
                 }
             });
         }
@@ -37,10 +37,8 @@ import org.openjdk.jmh.util.Multimap;
 import org.openjdk.jmh.util.Utils;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.BufferedInputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
@@ -48,6 +46,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -249,45 +248,46 @@ public final class BinaryLinkServer {
     }
 
     private final class Handler extends Thread {
-        private final InputStream is;
         private final Socket socket;
-        private ObjectInputStream ois;
-        private final OutputStream os;
-        private ObjectOutputStream oos;
+        private final FrameInput fis;
+        private final FrameOutput fos;
 
         public Handler(Socket socket) throws IOException {
             this.socket = socket;
-            this.is = socket.getInputStream();
-            this.os = socket.getOutputStream();
+            this.fis = new FrameInput(new BufferedInputStream(socket.getInputStream()));
+            this.fos = new FrameOutput(Channels.newChannel(socket.getOutputStream()));
         }
 
         @Override
         public void run() {
             try {
-                // late OIS initialization, otherwise we'll block reading the header
-                ois = new ObjectInputStream(is);
-                oos = new ObjectOutputStream(os);
-
-                Object obj;
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof OutputFormatFrame) {
-                        handleOutputFormat((OutputFormatFrame) obj);
-                    }
-                    if (obj instanceof InfraFrame) {
-                        handleInfra((InfraFrame) obj);
-                    }
-                    if (obj instanceof ResultsFrame) {
-                        handleResults((ResultsFrame)obj);
-                    }
-                    if (obj instanceof ExceptionFrame) {
-                        handleException((ExceptionFrame)obj);
-                    }
-                    if (obj instanceof OutputFrame) {
-                        handleOutput((OutputFrame)obj);
-                    }
-                    if (obj instanceof FinishingFrame) {
-                        // close the streams
-                        break;
+                int tag;
+                loop:
+                while ((tag = fis.next()) != -1) {
+                    switch (tag) {
+                        case FrameType.OUTPUT_FORMAT:
+                            handleOutputFormat();
+                            break;
+                        case FrameType.OPTIONS_REQUEST:
+                            handleInfra(FrameType.OPTIONS, opts);
+                            break;
+                        case FrameType.ACTION_PLAN_REQUEST:
+                            handleInfra(FrameType.ACTION_PLAN, plan.get());
+                            break;
+                        case FrameType.RESULTS:
+                            handleResults();
+                            break;
+                        case FrameType.EXCEPTION:
+                            handleException();
+                            break;
+                        case FrameType.OUTPUT_BATCH:
+                            handleOutput();
+                            break;
+                        case FrameType.FINISHING:
+                            // close the streams
+                            break loop;
+                        default:
+                            throw new IllegalStateException("Unknown frame type: " + tag);
                     }
                 }
             } catch (Exception e) {
@@ -300,57 +300,57 @@ public final class BinaryLinkServer {
             }
         }
 
-        private void handleOutput(OutputFrame obj) {
-            try {
-                switch (obj.getType()) {
-                    case OUT:
-                        System.out.write(obj.getData());
-                        break;
-                    case ERR:
-                        System.err.write(obj.getData());
-                        break;
+        private void handleOutput() throws IOException {
+            while (fis.hasRemaining()) {
+                byte type = fis.getByte();
+                byte[] data = fis.getLengthBytes();
+                try {
+                    switch (type) {
+                        case FrameType.OUTPUT_OUT:
+                            System.out.write(data);
+                            break;
+                        case FrameType.OUTPUT_ERR:
+                            System.err.write(data);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown output type: " + type);
+                    }
+                } catch (IOException e) {
+                    // swallow
                 }
-            } catch (IOException e) {
-                // swallow
             }
         }
 
-        private void handleException(ExceptionFrame obj) {
-            exception.set(obj.getError());
+        private void handleException() throws IOException, ClassNotFoundException {
+            exception.set((BenchmarkException) fis.getObject());
         }
 
-        private void handleResults(ResultsFrame obj) {
-            results.get().merge(obj.getRes());
+        private void handleResults() throws IOException, ClassNotFoundException {
+            results.get().merge(fis.getResults());
         }
 
-        private void handleInfra(InfraFrame req) throws IOException {
-            switch (req.getType()) {
-                case OPTIONS_REQUEST:
-                    oos.writeObject(new OptionsFrame(opts));
-                    oos.flush();
-                    break;
-                case ACTION_PLAN_REQUEST:
-                    oos.writeObject(new ActionPlanFrame(plan.get()));
-                    oos.flush();
-                    break;
-                default:
-                    throw new IllegalStateException("Unknown infrastructure request: " + req);
-            }
+        private void handleInfra(byte replyTag, Serializable reply) throws IOException {
+            fos.begin(replyTag);
+            fos.putObject(reply);
+            fos.end();
         }
 
-        private boolean handleOutputFormat(OutputFormatFrame frame) throws IllegalAccessException, InvocationTargetException {
-            Method m = methods.get(frame.method);
+        private boolean handleOutputFormat() throws IOException, ClassNotFoundException, IllegalAccessException, InvocationTargetException {
+            String method = fis.getString();
+            Object[] args = fis.getArguments();
+
+            Method m = methods.get(method);
 
             if (m == null) {
-                out.println("WARNING: Unknown method to forward: " + frame.method);
+                out.println("WARNING: Unknown method to forward: " + method);
                 return true;
             }
 
-            if (forbidden.contains(frame.method)) {
+            if (forbidden.contains(method)) {
                 return true;
             }
 
-            m.invoke(out, frame.args);
+            m.invoke(out, args);
             return false;
         }
 
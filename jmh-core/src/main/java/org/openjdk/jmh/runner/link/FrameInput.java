@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.link;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.ResultCodec;
+import org.openjdk.jmh.util.HashMultimap;
+import org.openjdk.jmh.util.Multimap;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the frames written by {@link FrameOutput}. The payload of the
+ * current frame is buffered whole, and then decoded with the getters.
+ *
+ * Not thread-safe, callers are expected to serialize access.
+ */
+class FrameInput {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataInputStream dis;
+    private byte[] payload;
+    private ByteBuffer buf;
+
+    public FrameInput(InputStream is) {
+        this.dis = new DataInputStream(is);
+        this.payload = new byte[1024];
+        this.buf = ByteBuffer.wrap(payload, 0, 0);
+    }
+
+    /**
+     * Reads the next frame.
+     * @return frame tag, or -1 if the stream had ended
+     * @throws IOException if the stream is broken
+     */
+    public int next() throws IOException {
+        int len;
+        byte tag;
+        try {
+            len = dis.readInt();
+            tag = dis.readByte();
+        } catch (EOFException e) {
+            return -1;
+        }
+
+        if (len < 0) {
+            throw new IOException("Corrupted frame, length = " + len);
+        }
+
+        if (payload.length < len) {
+            payload = new byte[Math.max(payload.length * 2, len)];
+        }
+        dis.readFully(payload, 0, len);
+        buf = ByteBuffer.wrap(payload, 0, len);
+        return tag;
+    }
+
+    public byte getByte() {
+        return buf.get();
+    }
+
+    public int getInt() {
+        return buf.getInt();
+    }
+
+    public byte[] getBytes() {
+        byte[] b = new byte[buf.remaining()];
+        buf.get(b);
+        return b;
+    }
+
+    public byte[] getLengthBytes() {
+        byte[] b = new byte[buf.getInt()];
+        buf.get(b);
+        return b;
+    }
+
+    public boolean hasRemaining() {
+        return buf.hasRemaining();
+    }
+
+    public String getString() {
+        return new String(getLengthBytes(), UTF8);
+    }
+
+    public Object getObject() throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(getLengthBytes()));
+        try {
+            return ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
+    /**
+     * Reads the arguments written by {@link FrameOutput#putArguments(Object[])}.
+     * @return arguments
+     * @throws IOException if decoding fails
+     * @throws ClassNotFoundException if serialized argument can not be resolved
+     */
+    public Object[] getArguments() throws IOException, ClassNotFoundException {
+        Object[] args = new Object[getInt()];
+        BenchmarkParams params = null;
+        for (int i = 0; i < args.length; i++) {
+            if (buf.get(buf.position()) == FrameType.ARG_ITERATION_RESULT) {
+                getByte();
+                if (params == null) {
+                    throw new IOException("Iteration result without benchmark params");
+                }
+                args[i] = getIterationResult(params);
+            } else {
+                args[i] = getArgument();
+            }
+            if (args[i] instanceof BenchmarkParams) {
+                params = (BenchmarkParams) args[i];
+            }
+        }
+        return args;
+    }
+
+    public IterationResult getIterationResult(BenchmarkParams params) throws IOException {
+        return ResultCodec.readIterationResult(new DataInputStream(new ByteArrayInputStream(getLengthBytes())), params);
+    }
+
+    public Multimap<BenchmarkParams, BenchmarkResult> getResults() throws IOException, ClassNotFoundException {
+        Multimap<BenchmarkParams, BenchmarkResult> results = new HashMultimap<BenchmarkParams, BenchmarkResult>();
+        int keys = getInt();
+        for (int k = 0; k < keys; k++) {
+            BenchmarkParams params = (BenchmarkParams) getObject();
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(getLengthBytes()));
+            int count = in.readInt();
+            for (int c = 0; c < count; c++) {
+                results.put(params, ResultCodec.readBenchmarkResult(in, params));
+            }
+        }
+        return results;
+    }
+
+    public Object getArgument() throws IOException, ClassNotFoundException {
+        byte tag = getByte();
+        switch (tag) {
+            case FrameType.ARG_NULL:
+                return null;
+            case FrameType.ARG_STRING:
+                return getString();
+            case FrameType.ARG_INT:
+                return getInt();
+            case FrameType.ARG_BYTES:
+                return getLengthBytes();
+            case FrameType.ARG_OBJECT:
+                return getObject();
+            default:
+                throw new IOException("Unknown argument tag: " + tag);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.link;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.ResultCodec;
+import org.openjdk.jmh.util.Multimap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+/**
+ * Assembles the frames in a single pooled direct buffer, and writes them
+ * out to the channel. The buffer only grows when the frame does not fit,
+ * so the steady stream of output frames does not allocate.
+ *
+ * Not thread-safe, callers are expected to serialize access.
+ */
+class FrameOutput {
+
+    private static final int INITIAL_CAPACITY = Integer.getInteger("jmh.link.bufferSize", 64 * 1024);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buf;
+
+    public FrameOutput(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buf = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+    }
+
+    public void begin(byte tag) {
+        buf.clear();
+        buf.putInt(0);
+        buf.put(tag);
+    }
+
+    public void putByte(byte v) {
+        ensure(1);
+        buf.put(v);
+    }
+
+    public void putInt(int v) {
+        ensure(4);
+        buf.putInt(v);
+    }
+
+    public void putBytes(byte[] b, int off, int len) {
+        ensure(len);
+        buf.put(b, off, len);
+    }
+
+    public void putLengthBytes(byte[] b) {
+        putInt(b.length);
+        putBytes(b, 0, b.length);
+    }
+
+    public void putString(String s) {
+        putLengthBytes(s.getBytes(UTF8));
+    }
+
+    public void putObject(Serializable obj) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(obj);
+        oos.close();
+        putLengthBytes(bos.toByteArray());
+    }
+
+    /**
+     * Puts the argument count, followed by the arguments.
+     * The iteration results are encoded against the benchmark params
+     * passed in the preceding arguments, if there are any.
+     *
+     * @param args arguments, may be null
+     * @throws IOException if encoding fails
+     */
+    public void putArguments(Object[] args) throws IOException {
+        if (args == null) {
+            putInt(0);
+            return;
+        }
+
+        putInt(args.length);
+        BenchmarkParams params = null;
+        for (Object arg : args) {
+            if (arg instanceof BenchmarkParams) {
+                params = (BenchmarkParams) arg;
+            }
+            if (arg instanceof IterationResult && params != null &&
+                    ((IterationResult) arg).getBenchmarkParams() == params) {
+                putByte(FrameType.ARG_ITERATION_RESULT);
+                putIterationResult((IterationResult) arg);
+            } else {
+                putArgument(arg);
+            }
+        }
+    }
+
+    public void putIterationResult(IterationResult ir) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        ResultCodec.writeIterationResult(dos, ir);
+        dos.close();
+        putLengthBytes(bos.toByteArray());
+    }
+
+    public void putResults(Multimap<BenchmarkParams, BenchmarkResult> results) throws IOException {
+        putInt(results.keys().size());
+        for (BenchmarkParams params : results.keys()) {
+            putObject(params);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bos);
+            Collection<BenchmarkResult> brs = results.get(params);
+            dos.writeInt(brs.size());
+            for (BenchmarkResult br : brs) {
+                ResultCodec.writeBenchmarkResult(dos, br);
+            }
+            dos.close();
+            putLengthBytes(bos.toByteArray());
+        }
+    }
+
+    public void putArgument(Object arg) throws IOException {
+        if (arg == null) {
+            putByte(FrameType.ARG_NULL);
+        } else if (arg instanceof String) {
+            putByte(FrameType.ARG_STRING);
+            putString((String) arg);
+        } else if (arg instanceof Integer) {
+            putByte(FrameType.ARG_INT);
+            putInt((Integer) arg);
+        } else if (arg instanceof byte[]) {
+            putByte(FrameType.ARG_BYTES);
+            putLengthBytes((byte[]) arg);
+        } else if (arg instanceof Serializable) {
+            putByte(FrameType.ARG_OBJECT);
+            putObject((Serializable) arg);
+        } else {
+            throw new IOException("Unable to encode the argument: " + arg);
+        }
+    }
+
+    public void end() throws IOException {
+        buf.putInt(0, buf.position() - FrameType.HEADER_SIZE);
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    public void write(byte tag) throws IOException {
+        begin(tag);
+        end();
+    }
+
+    /**
+     * Writes the frame with the payload taken from the buffer as is.
+     * This avoids copying the large payloads into the frame buffer.
+     *
+     * @param tag frame tag
+     * @param payload payload, from position to limit
+     * @throws IOException if channel write fails
+     */
+    public void write(byte tag, ByteBuffer payload) throws IOException {
+        buf.clear();
+        buf.putInt(payload.remaining());
+        buf.put(tag);
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        while (payload.hasRemaining()) {
+            channel.write(payload);
+        }
+    }
+
+    private void ensure(int size) {
+        if (buf.remaining() < size) {
+            int newCapacity = Math.max(buf.capacity() * 2, buf.position() + size);
+            ByteBuffer newBuf = ByteBuffer.allocateDirect(newCapacity);
+            buf.flip();
+            newBuf.put(buf);
+            buf = newBuf;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.link;
+
+/**
+ * Binary link frame layout. Every frame is:
+ *   - int: payload length, not counting the tag
+ *   - byte: frame tag, one of the constants below
+ *   - payload, tag-specific
+ *
+ * The frames forwarding the output are encoded with primitives only.
+ * The iteration and benchmark results are encoded with primitives by
+ * {@link org.openjdk.jmh.results.ResultCodec}, which only falls back to
+ * serialization for the third-party results. Other infrastructure objects
+ * (options, action plan, benchmark params, exceptions) travel as self-contained
+ * serialized blobs, so the stream never accumulates the back-reference tables
+ * of a long-lived ObjectOutputStream.
+ */
+class FrameType {
+
+    /** Forked VM stdout/stderr bytes: sequence of (byte OUTPUT_OUT/OUTPUT_ERR, int length, bytes) records */
+    static final byte OUTPUT_BATCH = 11;
+
+    /** Output record tag: stdout bytes */
+    static final byte OUTPUT_OUT = 1;
+
+    /** Output record tag: stderr bytes */
+    static final byte OUTPUT_ERR = 2;
+
+    /** Forked VM asks for the options: no payload */
+    static final byte OPTIONS_REQUEST = 3;
+
+    /** Forked VM asks for the action plan: no payload */
+    static final byte ACTION_PLAN_REQUEST = 4;
+
+    /** Forked VM is done: no payload */
+    static final byte FINISHING = 5;
+
+    /** OutputFormat call: method name string, int argument count, tagged arguments */
+    static final byte OUTPUT_FORMAT = 6;
+
+    /** Benchmark results: int key count, then (serialized benchmark params, int count, encoded benchmark results) per key */
+    static final byte RESULTS = 7;
+
+    /** Benchmark exception: serialized blob */
+    static final byte EXCEPTION = 8;
+
+    /** Options reply: serialized blob */
+    static final byte OPTIONS = 9;
+
+    /** Action plan reply: serialized blob */
+    static final byte ACTION_PLAN = 10;
+
+    /* ------------- OUTPUT_FORMAT ARGUMENT TAGS ------------------- */
+
+    static final byte ARG_NULL = 0;
+    static final byte ARG_STRING = 1;
+    static final byte ARG_INT = 2;
+    static final byte ARG_BYTES = 3;
+    static final byte ARG_OBJECT = 4;
+
+    /** Iteration result for the closest preceding benchmark params argument, encoded */
+    static final byte ARG_ITERATION_RESULT = 5;
+
+    static final int HEADER_SIZE = 5;
+
+    static final int OUTPUT_RECORD_HEADER_SIZE = 5;
+
+    private FrameType() {
+        // prevent instantiation
+    }
+
+}
@@ -86,6 +86,13 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder result(String filename);
 
+    /**
+     * Record the progress to the journal, and resume from it if it already exists.
+     * @param filename journal file name
+     * @return builder
+     */
+    ChainedOptionsBuilder resumeJournal(String filename);
+
     /**
      * Should do GC between measurementIterations?
      * @param value flag
@@ -131,6 +138,23 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder threadGroups(int... groups);
 
+    /**
+     * Run each benchmark with all thread counts in the sweep.
+     * Overrides the number of threads.
+     * @param sweep thread sweep
+     * @return builder
+     * @see ThreadSweep
+     */
+    ChainedOptionsBuilder threadSweep(ThreadSweep sweep);
+
+    /**
+     * Pin each worker thread to the CPU chosen by the placement policy.
+     * @param placement thread placement
+     * @return builder
+     * @see ThreadPlacement
+     */
+    ChainedOptionsBuilder threadPlacement(ThreadPlacement placement);
+
     /**
      * Should synchronize measurementIterations?
      * @param value flag
@@ -226,6 +250,29 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder operationsPerInvocation(int value);
 
+    /**
+     * Target rate for {@link org.openjdk.jmh.annotations.Mode#FixedRate} mode.
+     * @param value target rate, in benchmark invocations per second, over all threads
+     * @return builder
+     */
+    ChainedOptionsBuilder targetRate(double value);
+
+    /**
+     * Target relative error for adaptive iteration counts.
+     * @param value target relative error, e.g. 0.01 for 1%
+     * @return builder
+     * @see Options#getTargetError()
+     */
+    ChainedOptionsBuilder targetError(double value);
+
+    /**
+     * Minimal number of measurement iterations with adaptive iteration counts.
+     * @param value minimal number of measurement iterations
+     * @return builder
+     * @see Options#getTargetError()
+     */
+    ChainedOptionsBuilder minMeasurementIterations(int value);
+
     /**
      * Number of forks to use in the run
      * @param value number of forks
@@ -234,6 +281,14 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder forks(int value);
 
+    /**
+     * Maximum number of forks with adaptive iteration counts
+     * @param value maximum number of forks
+     * @return builder
+     * @see Options#getMaxForkCount()
+     */
+    ChainedOptionsBuilder maxForks(int value);
+
     /**
      * Number of ignored forks
      * @param value number of ignored forks
@@ -242,6 +297,14 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder warmupForks(int value);
 
+    /**
+     * Number of forked VMs to run concurrently.
+     * Each concurrent fork is bound to its own disjoint CPU slice.
+     * @param value number of concurrent forks
+     * @return builder
+     */
+    ChainedOptionsBuilder forkParallelism(int value);
+
     /**
      * Forked JVM to use.
      *
@@ -62,6 +62,8 @@ public class CommandLineOptions implements Options {
     private final List<Mode> benchMode = new ArrayList<Mode>();
     private final Optional<Integer> threads;
     private final List<Integer> threadGroups = new ArrayList<Integer>();
+    private final Optional<ThreadSweep> threadSweep;
+    private final Optional<ThreadPlacement> threadPlacement;
     private final Optional<Boolean> synchIterations;
     private final Optional<Boolean> gcEachIteration;
     private final Optional<VerboseMode> verbose;
@@ -69,11 +71,17 @@ public class CommandLineOptions implements Options {
     private final Set<Class<? extends Profiler>> profilers = new HashSet<Class<? extends Profiler>>();
     private final Optional<TimeUnit> timeUnit;
     private final Optional<Integer> opsPerInvocation;
+    private final Optional<Double> targetRate;
+    private final Optional<Double> targetError;
+    private final Optional<Integer> minIterations;
     private final List<String> regexps = new ArrayList<String>();
     private final Optional<Integer> fork;
+    private final Optional<Integer> maxFork;
     private final Optional<Integer> warmupFork;
+    private final Optional<Integer> forkParallelism;
     private final Optional<String> output;
     private final Optional<String> result;
+    private final Optional<String> resumeJournal;
     private final Optional<ResultFormatType> resultFormat;
     private final Optional<String> jvm;
     private final Optional<Collection<String>> jvmArgs;
@@ -125,6 +133,16 @@ public class CommandLineOptions implements Options {
         OptionSpec<String> optThreads = parser.accepts("t", "Number of worker threads to run with.")
                 .withRequiredArg().ofType(String.class).describedAs("int");
 
+        OptionSpec<String> optThreadSweep = parser.accepts("threadSweep", "Thread counts to run each benchmark with, " +
+                "overrides -t. Comma-separated list of counts and doubling ranges, e.g. 1,2,4..max. " +
+                "Results over three or more thread counts are fitted to Amdahl's and Universal Scalability laws.")
+                .withRequiredArg().ofType(String.class).describedAs("spec");
+
+        OptionSpec<String> optThreadPlacement = parser.accepts("tp", "Pin worker threads to CPUs. Available policies are: " +
+                "compact, scatter, core (one per core), socket (one per socket), or the explicit CPU list, e.g. 0,2,4-7. " +
+                "Requires Linux and taskset.")
+                .withRequiredArg().ofType(String.class).describedAs("policy");
+
         OptionSpec<String> optBenchmarkMode = parser.accepts("bm", "Benchmark mode. Available modes are: " + Mode.getKnown())
                 .withRequiredArg().ofType(String.class).withValuesSeparatedBy(',').describedAs("mode");
 
@@ -150,16 +168,32 @@ public class CommandLineOptions implements Options {
                 " warmup mode instead).")
                 .withOptionalArg().ofType(Integer.class).describedAs("int");
 
+        OptionSpec<Integer> optMaxForks = parser.accepts("fmax", "Maximum number of forks with adaptive " +
+                "iteration counts (see -ci). Forking stops when the target error over the forks is met, " +
+                "and continues past -f up to this count if it is not.")
+                .withRequiredArg().ofType(Integer.class).describedAs("int");
+
         OptionSpec<Integer> optWarmupForks = parser.accepts("wf", "How many warmup forks to make " +
                 "for a single benchmark. 0 to disable warmup forks.")
                 .withRequiredArg().ofType(Integer.class).describedAs("int");
 
+        OptionSpec<Integer> optForkParallelism = parser.accepts("fp", "How many forked VMs to run concurrently. " +
+                "Each concurrent fork is bound to its own disjoint slice of CPUs (requires taskset). " +
+                "1 to run forks one after another.")
+                .withRequiredArg().ofType(Integer.class).describedAs("int");
+
         OptionSpec<String> optOutput = parser.accepts("o", "Redirect human-readable output to file.")
                 .withRequiredArg().ofType(String.class).describedAs("filename");
 
         OptionSpec<String> optOutputResults = parser.accepts("rff", "Write results to given file.")
                 .withRequiredArg().ofType(String.class).describedAs("filename");
 
+        OptionSpec<String> optResume = parser.accepts("resume", "Record the completed forks to given journal file. " +
+                "If journal already exists, forks recorded there are not run again, and their results are reused, " +
+                "unless they were run with the different configuration, including profilers, thread placement, " +
+                "and fork parallelism.")
+                .withRequiredArg().ofType(String.class).describedAs("filename");
+
         OptionSpec<String> optProfilers = parser.accepts("prof", "Use profilers to collect additional data." +
                 " See the list of available profilers first.")
                 .withRequiredArg().withValuesSeparatedBy(',').ofType(String.class).describedAs("profiler+");
@@ -185,6 +219,19 @@ public class CommandLineOptions implements Options {
         OptionSpec<Integer> optOPI = parser.accepts("opi", "Operations per invocation.")
                 .withRequiredArg().ofType(Integer.class).describedAs("int");
 
+        OptionSpec<Double> optTargetRate = parser.accepts("rate", "Target rate for fixed rate mode, " +
+                "in benchmark invocations per second over all threads.")
+                .withRequiredArg().ofType(Double.class).describedAs("ops/s");
+
+        OptionSpec<Double> optTargetError = parser.accepts("ci", "Target relative error for adaptive iteration counts. " +
+                "Warmup stops when the benchmark reaches steady state, and measurement stops when the relative half-width " +
+                "of confidence interval is below the target; iteration counts become the upper bounds.")
+                .withRequiredArg().ofType(Double.class).describedAs("fraction");
+
+        OptionSpec<Integer> optMinIterations = parser.accepts("imin", "Minimal number of measurement iterations " +
+                "with adaptive iteration counts.")
+                .withRequiredArg().ofType(Integer.class).describedAs("int");
+
         OptionSpec<String> optResultFormat = parser.accepts("rf", "Result format type. See the list of available result formats first.")
                 .withRequiredArg().ofType(String.class).describedAs("type");
 
@@ -244,6 +291,9 @@ public class CommandLineOptions implements Options {
             }
 
             opsPerInvocation = Optional.eitherOf(optOPI.value(set));
+            targetRate = Optional.eitherOf(optTargetRate.value(set));
+            targetError = Optional.eitherOf(optTargetError.value(set));
+            minIterations = Optional.eitherOf(optMinIterations.value(set));
 
             if (set.has(optWarmupMode)) {
                 try {
@@ -326,6 +376,28 @@ public class CommandLineOptions implements Options {
                 threads = Optional.none();
             }
 
+            if (set.has(optThreadSweep)) {
+                String value = optThreadSweep.value(set);
+                try {
+                    threadSweep = Optional.of(ThreadSweep.fromString(value));
+                } catch (IllegalArgumentException iae) {
+                    throw new CommandLineOptionException(iae.getMessage(), iae);
+                }
+            } else {
+                threadSweep = Optional.none();
+            }
+
+            if (set.has(optThreadPlacement)) {
+                String value = optThreadPlacement.value(set);
+                try {
+                    threadPlacement = Optional.of(ThreadPlacement.fromString(value));
+                } catch (IllegalArgumentException iae) {
+                    throw new CommandLineOptionException(iae.getMessage(), iae);
+                }
+            } else {
+                threadPlacement = Optional.none();
+            }
+
             if (set.has(optBenchmarkMode)) {
                 try {
                     List<Mode> modes = new ArrayList<Mode>();
@@ -394,9 +466,12 @@ public class CommandLineOptions implements Options {
                 fork = Optional.none();
             }
 
+            maxFork = Optional.eitherOf(optMaxForks.value(set));
             warmupFork = Optional.eitherOf(optWarmupForks.value(set));
+            forkParallelism = Optional.eitherOf(optForkParallelism.value(set));
             output = Optional.eitherOf(optOutput.value(set));
             result = Optional.eitherOf(optOutputResults.value(set));
+            resumeJournal = Optional.eitherOf(optResume.value(set));
 
             if (set.has(optProfilers)) {
                 try {
@@ -572,11 +647,21 @@ public class CommandLineOptions implements Options {
         return fork;
     }
 
+    @Override
+    public Optional<Integer> getMaxForkCount() {
+        return maxFork;
+    }
+
     @Override
     public Optional<Integer> getWarmupForkCount() {
         return warmupFork;
     }
 
+    @Override
+    public Optional<Integer> getForkParallelism() {
+        return forkParallelism;
+    }
+
     @Override
     public Optional<String> getOutput() {
         return output;
@@ -592,6 +677,11 @@ public class CommandLineOptions implements Options {
         return result;
     }
 
+    @Override
+    public Optional<String> getResumeJournal() {
+        return resumeJournal;
+    }
+
     @Override
     public Optional<Integer> getMeasurementIterations() {
         return iterations;
@@ -627,6 +717,16 @@ public class CommandLineOptions implements Options {
         return threads;
     }
 
+    @Override
+    public Optional<ThreadSweep> getThreadSweep() {
+        return threadSweep;
+    }
+
+    @Override
+    public Optional<ThreadPlacement> getThreadPlacement() {
+        return threadPlacement;
+    }
+
     @Override
     public Optional<int[]> getThreadGroups() {
         if (threadGroups.isEmpty()) {
@@ -665,6 +765,21 @@ public class CommandLineOptions implements Options {
         return opsPerInvocation;
     }
 
+    @Override
+    public Optional<Double> getTargetRate() {
+        return targetRate;
+    }
+
+    @Override
+    public Optional<Double> getTargetError() {
+        return targetError;
+    }
+
+    @Override
+    public Optional<Integer> getMinMeasurementIterations() {
+        return minIterations;
+    }
+
     @Override
     public Optional<Boolean> shouldFailOnError() {
         return failOnError;
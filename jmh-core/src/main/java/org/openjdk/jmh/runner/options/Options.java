@@ -66,6 +66,13 @@ public interface Options extends Serializable {
      */
     Optional<String> getResult();
 
+    /**
+     * Which file to use for the progress journal. The completed forks are recorded in
+     * the journal, and are not run again when the run is started with the same journal.
+     * @return file name
+     */
+    Optional<String> getResumeJournal();
+
     /**
      * Should force GC between iterations?
      * @return should GC?
@@ -105,6 +112,18 @@ public interface Options extends Serializable {
      */
     Optional<int[]> getThreadGroups();
 
+    /**
+     * Thread counts to run each benchmark with. Overrides the number of threads.
+     * @return thread sweep
+     */
+    Optional<ThreadSweep> getThreadSweep();
+
+    /**
+     * Worker thread placement policy.
+     * @return thread placement
+     */
+    Optional<ThreadPlacement> getThreadPlacement();
+
     /**
      * Should synchronize iterations?
      * @return should we?
@@ -187,6 +206,28 @@ public interface Options extends Serializable {
      */
     Optional<Integer> getOperationsPerInvocation();
 
+    /**
+     * Target rate for {@link org.openjdk.jmh.annotations.Mode#FixedRate} mode.
+     * @return target rate, in benchmark invocations per second, over all threads
+     */
+    Optional<Double> getTargetRate();
+
+    /**
+     * Target relative error for adaptive iteration counts. If set, warmup stops as soon as
+     * the benchmark reaches steady state, and measurement stops as soon as the relative
+     * half-width of the confidence interval is below the target. The warmup and measurement
+     * iteration counts are then the upper bounds.
+     * @return target relative error, e.g. 0.01 for 1%
+     */
+    Optional<Double> getTargetError();
+
+    /**
+     * Minimal number of measurement iterations with adaptive iteration counts.
+     * @return minimal number of measurement iterations
+     * @see #getTargetError()
+     */
+    Optional<Integer> getMinMeasurementIterations();
+
     /**
      * Fork count
      * @return fork count; 0, to prohibit forking
@@ -194,6 +235,14 @@ public interface Options extends Serializable {
      */
     Optional<Integer> getForkCount();
 
+    /**
+     * Maximum fork count with adaptive iteration counts. The run stops forking as soon as
+     * the target error is met over the forks, and adds forks up to this count if it is not.
+     * @return maximum fork count
+     * @see #getTargetError()
+     */
+    Optional<Integer> getMaxForkCount();
+
     /**
      * Number of initial forks to ignore the results for
      * @return initial fork count; 0, to disable
@@ -201,6 +250,12 @@ public interface Options extends Serializable {
      */
     Optional<Integer> getWarmupForkCount();
 
+    /**
+     * Number of forked VMs to run concurrently, each bound to its own disjoint CPU slice.
+     * @return number of concurrent forks; 1, to run forks one after another
+     */
+    Optional<Integer> getForkParallelism();
+
     /**
      * JVM executable to use for forks
      * @return path to JVM executable
@@ -162,6 +162,25 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<String> resumeJournal = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder resumeJournal(String filename) {
+        this.resumeJournal = Optional.of(filename);
+        return this;
+    }
+
+    @Override
+    public Optional<String> getResumeJournal() {
+        if (otherOptions != null) {
+            return resumeJournal.orAnother(otherOptions.getResumeJournal());
+        } else {
+            return resumeJournal;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<Boolean> shouldDoGC = Optional.none();
 
     @Override
@@ -275,6 +294,44 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<ThreadSweep> threadSweep = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder threadSweep(ThreadSweep sweep) {
+        this.threadSweep = Optional.of(sweep);
+        return this;
+    }
+
+    @Override
+    public Optional<ThreadSweep> getThreadSweep() {
+        if (otherOptions != null) {
+            return threadSweep.orAnother(otherOptions.getThreadSweep());
+        } else {
+            return threadSweep;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<ThreadPlacement> threadPlacement = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder threadPlacement(ThreadPlacement placement) {
+        this.threadPlacement = Optional.of(placement);
+        return this;
+    }
+
+    @Override
+    public Optional<ThreadPlacement> getThreadPlacement() {
+        if (otherOptions != null) {
+            return threadPlacement.orAnother(otherOptions.getThreadPlacement());
+        } else {
+            return threadPlacement;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<Boolean> syncIterations = Optional.none();
 
     @Override
@@ -505,6 +562,63 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<Double> targetRate = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder targetRate(double value) {
+        this.targetRate = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Double> getTargetRate() {
+        if (otherOptions != null) {
+            return targetRate.orAnother(otherOptions.getTargetRate());
+        } else {
+            return targetRate;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<Double> targetError = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder targetError(double value) {
+        this.targetError = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Double> getTargetError() {
+        if (otherOptions != null) {
+            return targetError.orAnother(otherOptions.getTargetError());
+        } else {
+            return targetError;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<Integer> minIterations = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder minMeasurementIterations(int value) {
+        this.minIterations = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getMinMeasurementIterations() {
+        if (otherOptions != null) {
+            return minIterations.orAnother(otherOptions.getMinMeasurementIterations());
+        } else {
+            return minIterations;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<Integer> forks = Optional.none();
 
     @Override
@@ -524,6 +638,25 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<Integer> maxForks = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder maxForks(int value) {
+        this.maxForks = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getMaxForkCount() {
+        if (otherOptions != null) {
+            return maxForks.orAnother(otherOptions.getMaxForkCount());
+        } else {
+            return maxForks;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<Integer> warmupForks = Optional.none();
 
     @Override
@@ -543,6 +676,25 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<Integer> forkParallelism = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder forkParallelism(int value) {
+        this.forkParallelism = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getForkParallelism() {
+        if (otherOptions != null) {
+            return forkParallelism.orAnother(otherOptions.getForkParallelism());
+        } else {
+            return forkParallelism;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<String> jvmBinary = Optional.none();
 
     @Override
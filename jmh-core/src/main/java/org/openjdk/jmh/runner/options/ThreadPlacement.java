@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.options;
+
+import java.io.Serializable;
+
+/**
+ * Worker thread placement policy. Every worker thread, identified by its
+ * thread index, is pinned to the CPU the policy picks for it.
+ * <ul>
+ *     <li>{@code compact}: fill the hardware threads of the core, then the cores of the socket, then the next socket;</li>
+ *     <li>{@code scatter}: spread the threads over sockets first, then over cores, then over hardware threads;</li>
+ *     <li>{@code core}: one thread per physical core, filling the socket first;</li>
+ *     <li>{@code socket}: one thread per socket;</li>
+ *     <li>explicit CPU list, e.g. {@code 0,2,4-7}: i-th thread goes to i-th CPU in the list.</li>
+ * </ul>
+ */
+public class ThreadPlacement implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Policy {
+        COMPACT,
+        SCATTER,
+        CORE,
+        SOCKET,
+        LIST
+    }
+
+    private final Policy policy;
+    private final String cpuList;
+
+    private ThreadPlacement(Policy policy, String cpuList) {
+        this.policy = policy;
+        this.cpuList = cpuList;
+    }
+
+    public static ThreadPlacement of(Policy policy) {
+        if (policy == Policy.LIST) {
+            throw new IllegalArgumentException("Explicit CPU list is required, use ThreadPlacement.cpus()");
+        }
+        return new ThreadPlacement(policy, null);
+    }
+
+    public static ThreadPlacement cpus(String cpuList) {
+        String list = cpuList.replaceAll(" ", "");
+        if (!list.matches("[0-9]+(-[0-9]+)?(,[0-9]+(-[0-9]+)?)*")) {
+            throw new IllegalArgumentException("Unable to parse CPU list: " + cpuList);
+        }
+        return new ThreadPlacement(Policy.LIST, list);
+    }
+
+    public static ThreadPlacement fromString(String placement) {
+        if (placement == null) {
+            throw new IllegalArgumentException("String is null");
+        }
+        String p = placement.trim().toUpperCase();
+        for (Policy policy : Policy.values()) {
+            if (policy != Policy.LIST && policy.name().equals(p)) {
+                return of(policy);
+            }
+        }
+        return cpus(placement);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return explicit CPU list in Linux format, e.g. "0,2,4-7"; null, if policy is not {@link Policy#LIST}
+     */
+    public String getCpuList() {
+        return cpuList;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ThreadPlacement that = (ThreadPlacement) o;
+        if (policy != that.policy) return false;
+        return (cpuList != null) ? cpuList.equals(that.cpuList) : (that.cpuList == null);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * policy.hashCode() + ((cpuList != null) ? cpuList.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return (policy == Policy.LIST) ? cpuList : policy.name().toLowerCase();
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.options;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Thread counts to sweep the benchmark over.
+ * <p>
+ * The sweep is the comma-separated list of thread counts and ranges.
+ * Range {@code a..b} goes from {@code a} to {@code b}, doubling the thread
+ * count on each step, and always includes {@code b}. Special value {@code max}
+ * stands for the number of online CPUs. For example, {@code "1,2,4..max"} on
+ * 12-CPU machine runs with 1, 2, 4, 8, and 12 threads.
+ */
+public class ThreadSweep implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX = -1;
+
+    private final List<Integer> from;
+    private final List<Integer> to;
+
+    private ThreadSweep(List<Integer> from, List<Integer> to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static ThreadSweep fromString(String spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("String is null");
+        }
+
+        List<Integer> from = new ArrayList<Integer>();
+        List<Integer> to = new ArrayList<Integer>();
+        for (String s : spec.replaceAll(" ", "").toLowerCase().split(",")) {
+            int idx = s.indexOf("..");
+            if (idx >= 0) {
+                int f = parseCount(s.substring(0, idx));
+                int t = parseCount(s.substring(idx + 2));
+                if (f != MAX && t != MAX && f > t) {
+                    throw new IllegalArgumentException("Thread sweep range should be ascending: " + s);
+                }
+                from.add(f);
+                to.add(t);
+            } else {
+                int v = parseCount(s);
+                from.add(v);
+                to.add(v);
+            }
+        }
+        return new ThreadSweep(from, to);
+    }
+
+    private static int parseCount(String s) {
+        if (s.equals("max")) {
+            return MAX;
+        }
+        int v = Integer.parseInt(s);
+        if (v <= 0) {
+            throw new IllegalArgumentException("Thread count should be positive: " + v);
+        }
+        return v;
+    }
+
+    /**
+     * @return true, if sweep needs the number of CPUs to be expanded
+     */
+    public boolean needsMaxThreads() {
+        return from.contains(MAX) || to.contains(MAX);
+    }
+
+    /**
+     * Expands the sweep into the thread counts.
+     * @param maxThreads number of threads to use for {@code max}
+     * @return sorted distinct thread counts
+     */
+    public List<Integer> expand(int maxThreads) {
+        SortedSet<Integer> result = new TreeSet<Integer>();
+        for (int c = 0; c < from.size(); c++) {
+            int f = resolve(from.get(c), maxThreads);
+            int t = resolve(to.get(c), maxThreads);
+            for (int v = f; v < t; v *= 2) {
+                result.add(v);
+            }
+            result.add(t);
+        }
+        return Collections.unmodifiableList(new ArrayList<Integer>(result));
+    }
+
+    private static int resolve(int v, int maxThreads) {
+        return (v == MAX) ? Math.max(1, maxThreads) : v;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ThreadSweep that = (ThreadSweep) o;
+        return from.equals(that.from) && to.equals(that.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * from.hashCode() + to.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < from.size(); c++) {
+            if (c != 0) {
+                sb.append(",");
+            }
+            sb.append(toString(from.get(c)));
+            if (!from.get(c).equals(to.get(c))) {
+                sb.append("..").append(toString(to.get(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String toString(int v) {
+        return (v == MAX) ? "max" : String.valueOf(v);
+    }
+
+}
@@ -24,59 +24,295 @@
  */
 package org.openjdk.jmh.util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Sampling buffer accepts samples.
+ *
+ * <p>The buffer is the sparse high-dynamic-range histogram: the sample value is
+ * bucketed by its magnitude, and then by its {@code precisionBits} most significant bits,
+ * which bounds the relative error of every recorded value by 2^-precisionBits.
+ * Only the occupied buckets are stored, the counts are never discarded, and the
+ * buffers with any precision can be merged together. The serialized form only
+ * carries the occupied buckets, delta- and varint-encoded.</p>
  */
 public class SampleBuffer implements Serializable {
-    private static final long serialVersionUID = 6124923853916845327L;
+    private static final long serialVersionUID = 6124923853916845328L;
+
+    /**
+     * Default precision, can be overridden with jmh.sampleBuffer.precisionBits property.
+     */
+    private static final int DEFAULT_PRECISION_BITS = Integer.getInteger("jmh.sampleBuffer.precisionBits", 10);
+
+    private static final int MIN_PRECISION_BITS = 1;
+    private static final int MAX_PRECISION_BITS = 20;
 
-    private static final int PRECISION_BITS = 10;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int EMPTY = -1;
 
-    private final int[][] hdr;
+    private final int precisionBits;
+
+    // open-addressing hash table: bucket key -> count
+    private transient int[] keys;
+    private transient long[] counts;
+    private transient int size;
 
     public SampleBuffer() {
-        hdr = new int[64][];
-        for (int p = 0; p < 64; p++) {
-            hdr[p] = new int[1 << PRECISION_BITS];
-        }
+        this(DEFAULT_PRECISION_BITS);
     }
 
-    public void half() {
-        for (int i = 0; i < 64; i++) {
-            for (int j = 0; j < hdr[i].length; j++) {
-                int nV = hdr[i][j] / 2;
-                if (nV != 0) { // prevent halving to zero
-                    hdr[i][j] = nV;
-                }
-            }
+    /**
+     * @param precisionBits number of significant bits to keep for every sample
+     */
+    public SampleBuffer(int precisionBits) {
+        if (precisionBits < MIN_PRECISION_BITS || precisionBits > MAX_PRECISION_BITS) {
+            throw new IllegalArgumentException("Precision bits should be within [" + MIN_PRECISION_BITS + "; " +
+                    MAX_PRECISION_BITS + "], but was " + precisionBits);
         }
+        this.precisionBits = precisionBits;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int getPrecisionBits() {
+        return precisionBits;
     }
 
     public void add(long sample) {
+        add(sample, 1);
+    }
+
+    /**
+     * Records the sample several times at once. This is handy when samples are
+     * taken at the lower rate, and each sample stands for several observations.
+     *
+     * @param sample sample value
+     * @param count number of observations
+     */
+    public void add(long sample, long count) {
+        if (sample < 0) {
+            // time went backwards, nothing else we can do
+            sample = 0;
+        }
         int msb = 64 - Long.numberOfLeadingZeros(sample);
-        int bucket = Math.max(0, msb - PRECISION_BITS);
+        int bucket = Math.max(0, msb - precisionBits);
         int subBucket = (int) (sample >> bucket);
-        hdr[bucket][subBucket]++;
+        addKey((bucket << precisionBits) | subBucket, count);
+    }
+
+    private void addKey(int key, long count) {
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (true) {
+            int k = keys[idx];
+            if (k == key) {
+                counts[idx] += count;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[idx] = key;
+                counts[idx] = count;
+                if (++size * 2 > keys.length) {
+                    rehash(keys.length * 2);
+                }
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                addKey(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+
+    private long valueOf(int key) {
+        int bucket = key >>> precisionBits;
+        long subBucket = key & ((1 << precisionBits) - 1);
+        return subBucket << bucket;
+    }
+
+    /**
+     * @return number of occupied buckets
+     */
+    public int occupiedBuckets() {
+        return size;
+    }
+
+    /**
+     * @return total number of recorded observations
+     */
+    public long count() {
+        long c = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                c += counts[i];
+            }
+        }
+        return c;
     }
 
     public Statistics getStatistics(double multiplier) {
         MultisetStatistics stat = new MultisetStatistics();
-        for (int i = 0; i < hdr.length; i++) {
-            for (int j = 0; j < hdr[i].length; j++) {
-                long ns = (long) j << i;
-                stat.addValue(multiplier * ns, hdr[i][j]);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                stat.addValue(multiplier * valueOf(keys[i]), counts[i]);
             }
         }
         return stat;
     }
 
     public void addAll(SampleBuffer other) {
-        for (int i = 0; i < other.hdr.length; i++) {
-            for (int j = 0; j < other.hdr[i].length; j++) {
-                hdr[i][j] += other.hdr[i][j];
+        int[] otherKeys = other.keys;
+        long[] otherCounts = other.counts;
+        for (int i = 0; i < otherKeys.length; i++) {
+            int key = otherKeys[i];
+            if (key != EMPTY) {
+                if (other.precisionBits == precisionBits) {
+                    addKey(key, otherCounts[i]);
+                } else {
+                    add(other.valueOf(key), otherCounts[i]);
+                }
             }
         }
     }
+
+    private int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int idx = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                sorted[idx++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private long countOf(int key) {
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (keys[idx] != key) {
+            if (keys[idx] == EMPTY) {
+                return 0;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return counts[idx];
+    }
+
+    /**
+     * Writes the buffer out with primitives, in the same compact form the serialized buffer has.
+     *
+     * @param out output to write to
+     * @throws IOException if output fails
+     * @see #readFrom(DataInput)
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeVarLong(out, precisionBits);
+        writeBuckets(out);
+    }
+
+    /**
+     * Reads the buffer written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in input to read from
+     * @return sample buffer
+     * @throws IOException if input fails, or the buffer is malformed
+     */
+    public static SampleBuffer readFrom(DataInput in) throws IOException {
+        int precisionBits = (int) readVarLong(in);
+        if (precisionBits < MIN_PRECISION_BITS || precisionBits > MAX_PRECISION_BITS) {
+            throw new IOException("Malformed sample buffer, precision bits = " + precisionBits);
+        }
+        SampleBuffer buffer = new SampleBuffer(precisionBits);
+        buffer.readBuckets(in);
+        return buffer;
+    }
+
+    private void writeObject(ObjectOutputStream os) throws IOException {
+        os.defaultWriteObject();
+        writeBuckets(os);
+    }
+
+    private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
+        is.defaultReadObject();
+        readBuckets(is);
+    }
+
+    private void writeBuckets(DataOutput os) throws IOException {
+        // Occupied buckets only, in ascending order: the keys are delta-encoded,
+        // and both deltas and counts are varints, which are mostly one or two bytes.
+        int[] sorted = sortedKeys();
+        writeVarLong(os, sorted.length);
+        int last = 0;
+        for (int key : sorted) {
+            writeVarLong(os, key - last);
+            writeVarLong(os, countOf(key));
+            last = key;
+        }
+    }
+
+    private void readBuckets(DataInput is) throws IOException {
+        int occupied = (int) readVarLong(is);
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < occupied * 2 + 2) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+
+        int key = 0;
+        for (int i = 0; i < occupied; i++) {
+            key += (int) readVarLong(is);
+            addKey(key, readVarLong(is));
+        }
+    }
+
+    private static void writeVarLong(DataOutput os, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            os.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        os.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInput is) throws IOException {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            int b = is.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("Malformed varint");
+            }
+        }
+    }
+
 }
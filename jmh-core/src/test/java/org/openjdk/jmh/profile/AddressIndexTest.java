@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+public class AddressIndexTest {
+
+    @Test
+    public void testLookups() {
+        AddressIndex index = new AddressIndex();
+        index.put(0x30, 3);
+        index.put(0x10, 1);
+        index.put(0x20, 2);
+        index.seal();
+
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals(0, index.ceilingIdx(0x05));
+        Assert.assertEquals(0, index.ceilingIdx(0x10));
+        Assert.assertEquals(1, index.ceilingIdx(0x11));
+        Assert.assertEquals(3, index.ceilingIdx(0x31));
+
+        Assert.assertEquals(-1, index.lowerIdx(0x10));
+        Assert.assertEquals(0, index.lowerIdx(0x11));
+        Assert.assertEquals(2, index.lowerIdx(0x31));
+
+        Assert.assertEquals(0x20, index.key(1));
+        Assert.assertEquals(2, index.value(1));
+    }
+
+    @Test
+    public void testDuplicatesLastWins() {
+        AddressIndex index = new AddressIndex();
+        index.put(0x10, 1);
+        index.put(0x20, 2);
+        index.put(0x10, 3);
+        index.put(0x10, 4);
+        index.seal();
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(2, index.duplicates());
+        Assert.assertEquals(4, index.value(index.ceilingIdx(0x10)));
+    }
+
+    @Test
+    public void testEmpty() {
+        AddressIndex index = new AddressIndex();
+        index.seal();
+
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(0, index.ceilingIdx(0x10));
+        Assert.assertEquals(-1, index.lowerIdx(0x10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotSealed() {
+        AddressIndex index = new AddressIndex();
+        index.put(0x10, 1);
+        index.ceilingIdx(0x10);
+    }
+
+    @Test
+    public void testMatchesTreeMap() {
+        Random r = new Random(42);
+        AddressIndex index = new AddressIndex();
+        TreeMap<Long, Integer> map = new TreeMap<Long, Integer>();
+        for (int c = 0; c < 10000; c++) {
+            long addr = r.nextInt(5000);
+            index.put(addr, c);
+            map.put(addr, c);
+        }
+        index.seal();
+
+        Assert.assertEquals(map.size(), index.size());
+        for (int c = 0; c < 1000; c++) {
+            long addr = r.nextInt(6000) - 500;
+
+            Long ceiling = map.ceilingKey(addr);
+            int ci = index.ceilingIdx(addr);
+            if (ceiling == null) {
+                Assert.assertEquals(index.size(), ci);
+            } else {
+                Assert.assertEquals((long) ceiling, index.key(ci));
+                Assert.assertEquals((int) map.get(ceiling), index.value(ci));
+            }
+
+            Long lower = map.lowerKey(addr);
+            int li = index.lowerIdx(addr);
+            if (lower == null) {
+                Assert.assertEquals(-1, li);
+            } else {
+                Assert.assertEquals((long) lower, index.key(li));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.Multiset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+public class LinuxPerfCallGraphProfilerTest {
+
+    @Test
+    public void testParseFrame() {
+        Assert.assertEquals("Lfoo/Bar;::baz_[j]",
+                LinuxPerfCallGraphProfiler.parseFrame("7f3b2d0a1b2c Lfoo/Bar;::baz (/tmp/perf-4242.map)"));
+        Assert.assertEquals("do_syscall_64_[k]",
+                LinuxPerfCallGraphProfiler.parseFrame("ffffffff8100a1b2 do_syscall_64 ([kernel.kallsyms])"));
+        Assert.assertEquals("JVM_Sleep",
+                LinuxPerfCallGraphProfiler.parseFrame("7f3b2d0a1b2c JVM_Sleep (/opt/jdk/lib/server/libjvm.so)"));
+        Assert.assertEquals("[unknown] (libc.so.6)",
+                LinuxPerfCallGraphProfiler.parseFrame("7f3b2d0a1b2c [unknown] (/usr/lib/libc.so.6)"));
+        Assert.assertNull(LinuxPerfCallGraphProfiler.parseFrame("garbage"));
+    }
+
+    @Test
+    public void testReadStacks() throws IOException {
+        File file = File.createTempFile("jmh", "perfcg");
+        file.deleteOnExit();
+
+        PrintWriter pw = new PrintWriter(file);
+        pw.println("  4242 1000.000001: cycles: ");
+        pw.println("\t    7f0000000010 Lfoo/Bar;::leaf (/tmp/perf-4242.map)");
+        pw.println("\t    7f0000000020 Lfoo/Bar;::root (/tmp/perf-4242.map)");
+        pw.println();
+        pw.println("  4242 1000.000002: cycles: ");
+        pw.println("\t    7f0000000020 Lfoo/Bar;::root (/tmp/perf-4242.map)");
+        pw.println();
+        pw.println("  4243 1000.000003: cycles: ");
+        pw.println("\t    ffffffff8100a1b2 do_syscall_64 ([kernel.kallsyms])");
+        pw.println("\t    7f0000000020 Lfoo/Bar;::root (/tmp/perf-4242.map)");
+        pw.close();
+
+        Set<String> pids = new HashSet<String>();
+        StackProfiler.StackTrees trees = LinuxPerfCallGraphProfiler.readStacks(file, pids);
+
+        Assert.assertEquals(3, trees.size(Thread.State.RUNNABLE));
+        Assert.assertTrue(pids.contains("4242"));
+        Assert.assertTrue(pids.contains("4243"));
+
+        Multiset<String> exclusive = new HashMultiset<String>();
+        Multiset<String> inclusive = new HashMultiset<String>();
+        trees.frameCounts(Thread.State.RUNNABLE, exclusive, inclusive);
+
+        Assert.assertEquals(1, exclusive.count("Lfoo/Bar;::leaf_[j]"));
+        Assert.assertEquals(1, exclusive.count("Lfoo/Bar;::root_[j]"));
+        Assert.assertEquals(1, exclusive.count("do_syscall_64_[k]"));
+        Assert.assertEquals(3, inclusive.count("Lfoo/Bar;::root_[j]"));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LinuxPerfNormProfilerTest {
+
+    private static Map<String, Double> counters() {
+        Map<String, Double> counters = new LinkedHashMap<String, Double>();
+        counters.put("cycles", 300000000D);
+        counters.put("instructions", 600000000D);
+        return counters;
+    }
+
+    private static IterationResult result(long ops) {
+        IterationResult result = new IterationResult(null, null);
+        result.setMeasuredOps(ops);
+        return result;
+    }
+
+    private static Map<String, Double> scores(Collection<? extends Result> results) {
+        Map<String, Double> scores = new HashMap<String, Double>();
+        for (Result r : results) {
+            Assert.assertEquals("#/op", r.getScoreUnit());
+            scores.put(r.getLabel(), r.getScore());
+        }
+        return scores;
+    }
+
+    @Test
+    public void testPerOp() {
+        Map<String, Double> scores = scores(new LinuxPerfNormProfiler().iterationResults(counters(), result(1000000)));
+        Assert.assertEquals(2, scores.size());
+        Assert.assertEquals(300D, scores.get("@cycles"), 0);
+        Assert.assertEquals(600D, scores.get("@instructions"), 0);
+    }
+
+    @Test
+    public void testNoOps() {
+        LinuxPerfNormProfiler prof = new LinuxPerfNormProfiler();
+        Assert.assertTrue(prof.iterationResults(counters(), result(0)).isEmpty());
+        Assert.assertTrue(prof.iterationResults(counters(), result(-1)).isEmpty());
+    }
+
+    @Test
+    public void testUncontrolledTrial() throws IOException {
+        File stdOut = FileUtils.tempFile("stdout");
+        File stdErr = FileUtils.tempFile("stderr");
+        try {
+            // counters for the whole run can not be normalized
+            PrintWriter pw = new PrintWriter(stdErr);
+            pw.println(" Performance counter stats for 'java':");
+            pw.println();
+            pw.println("     300,000,000      cycles");
+            pw.println("     600,000,000      instructions              #    2.00  insn per cycle");
+            pw.close();
+
+            Collection<? extends Result> results = new LinuxPerfNormProfiler().afterTrial(null, stdOut, stdErr);
+            Assert.assertTrue(results.isEmpty());
+        } finally {
+            stdOut.delete();
+            stdErr.delete();
+        }
+    }
+
+}
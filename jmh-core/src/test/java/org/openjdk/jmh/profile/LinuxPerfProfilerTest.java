@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class LinuxPerfProfilerTest {
+
+    private static LinuxPerfProfiler.CounterBlocks blocks(String... lines) {
+        LinuxPerfProfiler.CounterBlocks blocks = new LinuxPerfProfiler.CounterBlocks();
+        for (String line : lines) {
+            blocks.add(line);
+        }
+        return blocks;
+    }
+
+    private static final String[] ENABLE = {
+            "# started on Mon Jan  1 00:00:00 2024",
+            "",
+            "     0.000512345,0,,cycles,0,100.00,,",
+            "     0.000512345,0,,instructions,0,100.00,,",
+            "     0.000512345,<not counted>,,branch-misses,0,0.00,,",
+    };
+
+    private static final String[] DISABLE = {
+            "     0.101234567,300000000,,cycles,100000000,100.00,,",
+            "     0.101234567,600000000,,instructions,100000000,100.00,2.00,insn per cycle",
+            "     0.101234567,<not supported>,,branch-misses,0,0.00,,",
+    };
+
+    @Test
+    public void testCounters() {
+        LinuxPerfProfiler.CounterBlocks blocks = blocks(concat(ENABLE, DISABLE));
+        Assert.assertTrue(blocks.isComplete());
+
+        Map<String, Double> counters = blocks.sum();
+        Assert.assertEquals(3, counters.size());
+        Assert.assertEquals(300000000D, counters.get("cycles"), 0);
+        Assert.assertEquals(600000000D, counters.get("instructions"), 0);
+        Assert.assertEquals(0D, counters.get("branch-misses"), 0);
+    }
+
+    @Test
+    public void testIncomplete() {
+        Assert.assertFalse(blocks(ENABLE).isComplete());
+        Assert.assertFalse(blocks(concat(ENABLE, new String[]{DISABLE[0]})).isComplete());
+        Assert.assertTrue(blocks(concat(ENABLE, DISABLE)).isComplete());
+    }
+
+    @Test
+    public void testMalformed() {
+        LinuxPerfProfiler.CounterBlocks blocks = blocks("garbage", "1.0,2", "# comment,with,some,commas");
+        Assert.assertFalse(blocks.isComplete());
+        Assert.assertTrue(blocks.sum().isEmpty());
+    }
+
+    private static String[] concat(String[] a, String[] b) {
+        String[] r = new String[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,22 +22,23 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.profile;
 
-import org.openjdk.jmh.runner.options.Options;
+import org.junit.Assert;
+import org.junit.Test;
 
-import java.io.Serializable;
+public class ProfilerUtilsTest {
 
-class OptionsFrame implements Serializable {
-    private static final long serialVersionUID = 2082214387637725282L;
-
-    private final Options opts;
-
-    public OptionsFrame(Options opts) {
-        this.opts = opts;
+    @Test
+    public void testFileNamePlain() {
+        Assert.assertEquals("org.openjdk.Bench.test-Throughput-size-100",
+                ProfilerUtils.fileName("org.openjdk.Bench.test-Throughput-size-100"));
     }
 
-    public Options getOpts() {
-        return opts;
+    @Test
+    public void testFileNameParams() {
+        Assert.assertEquals("org.openjdk.Bench.test-Throughput-path-_tmp_x_y-text-a_b_c",
+                ProfilerUtils.fileName("org.openjdk.Bench.test-Throughput-path-/tmp/x\\y-text-a b:c"));
     }
+
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.Multiset;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+public class StackTreesTest {
+
+    private static StackProfiler.StackTrees trees(String... stacks) {
+        StackProfiler.StackTrees trees = new StackProfiler.StackTrees();
+        for (String stack : stacks) {
+            // top frame first
+            String[] frames = stack.split(";");
+            int[] ids = new int[frames.length];
+            for (int i = 0; i < frames.length; i++) {
+                ids[frames.length - 1 - i] = trees.intern(frames[i]);
+            }
+            trees.add(Thread.State.RUNNABLE, ids, ids.length);
+        }
+        return trees;
+    }
+
+    private static List<String> collapsed(StackProfiler.StackTrees trees) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        trees.printCollapsed(Thread.State.RUNNABLE, pw);
+        pw.close();
+        return Arrays.asList(sw.toString().split("\\r?\\n"));
+    }
+
+    @Test
+    public void testCollapsed() {
+        StackProfiler.StackTrees trees = trees("main;a;b", "main;a;b", "main;a", "main;c");
+
+        Assert.assertEquals(4, trees.size(Thread.State.RUNNABLE));
+        Assert.assertEquals(0, trees.size(Thread.State.BLOCKED));
+        Assert.assertEquals(Arrays.asList("main;a 1", "main;a;b 2", "main;c 1"), collapsed(trees));
+    }
+
+    @Test
+    public void testTopStacks() {
+        StackProfiler.StackTrees trees = trees("main;a;b", "main;x;b", "main;a");
+
+        Assert.assertEquals(3, trees.topStacks(Thread.State.RUNNABLE, 1).size());
+        Assert.assertEquals(2, trees.topStacks(Thread.State.RUNNABLE, 1).keys().size());
+        Assert.assertEquals(3, trees.topStacks(Thread.State.RUNNABLE, 2).keys().size());
+    }
+
+    @Test
+    public void testMerge() {
+        StackProfiler.StackTrees sum = new StackProfiler.StackTrees();
+        sum.merge(trees("main;a;b", "main;c"));
+        sum.merge(trees("main;c", "main;a;b"));
+
+        Assert.assertEquals(4, sum.size(Thread.State.RUNNABLE));
+        Assert.assertEquals(Arrays.asList("main;a;b 2", "main;c 2"), collapsed(sum));
+    }
+
+    @Test
+    public void testFrameCounts() {
+        StackProfiler.StackTrees trees = trees("main;a;b", "main;a;a;b", "main;a", "main;c");
+
+        Multiset<String> exclusive = new HashMultiset<String>();
+        Multiset<String> inclusive = new HashMultiset<String>();
+        trees.frameCounts(Thread.State.RUNNABLE, exclusive, inclusive);
+
+        Assert.assertEquals(0, exclusive.count("main"));
+        Assert.assertEquals(1, exclusive.count("a"));
+        Assert.assertEquals(2, exclusive.count("b"));
+        Assert.assertEquals(1, exclusive.count("c"));
+
+        Assert.assertEquals(4, inclusive.count("main"));
+        Assert.assertEquals(3, inclusive.count("a"));
+        Assert.assertEquals(2, inclusive.count("b"));
+        Assert.assertEquals(1, inclusive.count("c"));
+    }
+
+}
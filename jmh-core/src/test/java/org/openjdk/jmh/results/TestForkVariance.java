@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.Defaults;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ForkVariance
+ */
+public class TestForkVariance {
+
+    private static final BenchmarkParams PARAMS = new BenchmarkParams("blah", "blah", false, 1, new int[]{1}, 1, 1,
+            new IterationParams(IterationType.WARMUP, 1, TimeValue.seconds(1), 1),
+            new IterationParams(IterationType.MEASUREMENT, 1, TimeValue.seconds(1), 1),
+            Mode.Throughput, null, TimeUnit.SECONDS, 1,
+            Utils.getCurrentJvm(), Collections.<String>emptyList(),
+            TimeValue.days(1), Defaults.TARGET_RATE);
+
+    private static BenchmarkResult fork(long... scores) {
+        Collection<IterationResult> iterations = new ArrayList<IterationResult>();
+        for (long s : scores) {
+            IterationResult ir = new IterationResult(PARAMS, PARAMS.getMeasurement());
+            ir.addResult(new ThroughputResult(ResultRole.PRIMARY, "test", s, 1000 * 1000, TimeUnit.MILLISECONDS));
+            iterations.add(ir);
+        }
+        return new BenchmarkResult(iterations);
+    }
+
+    @Test
+    public void testWithinOnly() {
+        Collection<BenchmarkResult> forks = new ArrayList<BenchmarkResult>();
+        forks.add(fork(9, 11, 9, 11));
+        forks.add(fork(11, 9, 11, 9));
+        forks.add(fork(9, 11, 11, 9));
+
+        ForkVariance fv = new ForkVariance(forks);
+        assertEquals(3, fv.getForkCount());
+        assertEquals(10.0, fv.getMean(), 0.00001);
+        assertEquals(4.0 / 3, fv.getWithinForkVariance(), 0.00001);
+        assertEquals(0.0, fv.getBetweenForkVariance(), 0.00001);
+        assertEquals(0.0, fv.getBetweenForkShare(), 0.00001);
+    }
+
+    @Test
+    public void testBetweenOnly() {
+        Collection<BenchmarkResult> forks = new ArrayList<BenchmarkResult>();
+        forks.add(fork(10, 10, 10));
+        forks.add(fork(20, 20, 20));
+        forks.add(fork(30, 30, 30));
+
+        ForkVariance fv = new ForkVariance(forks);
+        assertEquals(20.0, fv.getMean(), 0.00001);
+        assertEquals(0.0, fv.getWithinForkVariance(), 0.00001);
+        assertEquals(100.0, fv.getBetweenForkVariance(), 0.00001);
+        assertEquals(1.0, fv.getBetweenForkShare(), 0.00001);
+        assertTrue(fv.getRelativeErrorAt(0.999) > 1);
+    }
+
+    @Test
+    public void testNotEnoughForks() {
+        Collection<BenchmarkResult> forks = new ArrayList<BenchmarkResult>();
+        forks.add(fork(10, 11, 12));
+
+        ForkVariance fv = new ForkVariance(forks);
+        assertTrue(Double.isNaN(fv.getBetweenForkVariance()));
+        assertTrue(Double.isNaN(fv.getRelativeErrorAt(0.999)));
+
+        forks.add(fork(10, 11, 12));
+        assertTrue(Double.isNaN(new ForkVariance(forks).getRelativeErrorAt(0.999)));
+    }
+
+    private static BenchmarkResult fork(long primary, long secondary, int iterations) {
+        Collection<IterationResult> results = new ArrayList<IterationResult>();
+        for (int c = 0; c < iterations; c++) {
+            IterationResult ir = new IterationResult(PARAMS, PARAMS.getMeasurement());
+            ir.addResult(new ThroughputResult(ResultRole.PRIMARY, "test", primary, 1000 * 1000, TimeUnit.MILLISECONDS));
+            ir.addResult(new ThroughputResult(ResultRole.SECONDARY, "sec", secondary, 1000 * 1000, TimeUnit.MILLISECONDS));
+            results.add(ir);
+        }
+        return new BenchmarkResult(results);
+    }
+
+    @Test
+    public void testSecondary() {
+        Collection<BenchmarkResult> forks = new ArrayList<BenchmarkResult>();
+        forks.add(fork(10, 10, 3));
+        forks.add(fork(10, 20, 3));
+        forks.add(fork(10, 30, 3));
+
+        ForkVariance primary = new ForkVariance(forks);
+        assertEquals(0.0, primary.getBetweenForkVariance(), 0.00001);
+
+        ForkVariance secondary = new ForkVariance(forks, "sec");
+        assertEquals(3, secondary.getForkCount());
+        assertEquals(20.0, secondary.getMean(), 0.00001);
+        assertEquals(100.0, secondary.getBetweenForkVariance(), 0.00001);
+
+        assertEquals(0, new ForkVariance(forks, "missing").getForkCount());
+    }
+
+}
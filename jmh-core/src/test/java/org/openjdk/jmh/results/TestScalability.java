@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for Scalability
+ */
+public class TestScalability {
+
+    private static Scalability usl(double lambda, double sigma, double kappa, int... threads) {
+        double[] throughput = new double[threads.length];
+        for (int c = 0; c < threads.length; c++) {
+            double n = threads[c];
+            throughput[c] = lambda * n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+        }
+        return new Scalability(threads, throughput);
+    }
+
+    @Test
+    public void testLinear() {
+        Scalability s = usl(100, 0, 0, 1, 2, 4, 8, 16);
+        assertEquals(0, s.getContention(), 1e-6);
+        assertEquals(0, s.getCoherency(), 1e-6);
+        assertEquals(0, s.getSerialFraction(), 1e-6);
+        assertEquals(1, s.getUslR2(), 1e-6);
+        for (int c = 0; c < s.getCount(); c++) {
+            assertEquals(1, s.getEfficiency(c), 1e-6);
+        }
+        assertEquals(-1, s.getPeakThreadCount());
+    }
+
+    @Test
+    public void testAmdahl() {
+        Scalability s = usl(100, 0.05, 0, 1, 2, 4, 8, 16, 32);
+        assertEquals(0.05, s.getSerialFraction(), 1e-4);
+        assertEquals(20, s.getAmdahlSpeedupLimit(), 0.1);
+        assertEquals(0.05, s.getContention(), 1e-4);
+        assertEquals(0, s.getCoherency(), 1e-6);
+        assertEquals(1, s.getAmdahlR2(), 1e-6);
+        assertEquals(1.0 / (1 + 0.05 * 31), s.getEfficiency(5), 1e-6);
+    }
+
+    @Test
+    public void testRetrograde() {
+        Scalability s = usl(100, 0.02, 0.001, 1, 2, 4, 8, 16, 32, 64);
+        assertEquals(0.02, s.getContention(), 1e-3);
+        assertEquals(0.001, s.getCoherency(), 1e-5);
+        assertEquals(1, s.getUslR2(), 1e-6);
+        assertEquals(Math.sqrt(0.98 / 0.001), s.getPeakThreads(), 0.5);
+        assertEquals(31, s.getPeakThreadCount());
+
+        // Amdahl cannot capture the decline
+        assertTrue(s.getAmdahlR2() < s.getUslR2());
+    }
+
+    @Test
+    public void testNoSingleThread() {
+        Scalability s = usl(100, 0.1, 0, 2, 4, 8);
+        assertEquals(100, s.getBaseline(), 0.01);
+        assertEquals(0.1, s.getContention(), 1e-3);
+    }
+
+}
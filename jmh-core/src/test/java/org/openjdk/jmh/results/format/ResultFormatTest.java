@@ -45,6 +45,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -217,4 +218,76 @@ public class ResultFormatTest {
         compare(actualFile, "output-golden.latex");
     }
 
+    private void writeStreaming(ResultFormatType type, String file) {
+        Collection<RunResult> results = getStub();
+
+        Collection<BenchmarkParams> params = new ArrayList<BenchmarkParams>();
+        for (RunResult r : results) {
+            params.add(r.getParams());
+        }
+
+        StreamingResultFormat rf = ResultFormatFactory.getStreamingInstance(type, file);
+        rf.startRun(params);
+        for (RunResult r : results) {
+            rf.writeResult(r);
+        }
+        rf.endRun();
+    }
+
+    @Test
+    public void jsonTest_Streaming() throws IOException {
+        String actualFile = FileUtils.tempFile("test").getAbsolutePath();
+        writeStreaming(ResultFormatType.JSON, actualFile);
+        compare(actualFile, "output-golden.json");
+    }
+
+    @Test
+    public void csvTest_Streaming() throws IOException {
+        String actualFile = FileUtils.tempFile("test").getAbsolutePath();
+        writeStreaming(ResultFormatType.CSV, actualFile);
+        compare(actualFile, "output-golden.csv");
+    }
+
+    @Test
+    public void scsvTest_Streaming() throws IOException {
+        String actualFile = FileUtils.tempFile("test").getAbsolutePath();
+        writeStreaming(ResultFormatType.SCSV, actualFile);
+        compare(actualFile, "output-golden.scsv");
+    }
+
+    @Test
+    public void binaryTest() throws IOException {
+        String binaryFile = FileUtils.tempFile("test").getAbsolutePath();
+        String actualFile = FileUtils.tempFile("test").getAbsolutePath();
+
+        ResultFormatFactory.getInstance(
+                    ResultFormatType.BINARY,
+                    binaryFile)
+                .writeOut(getStub());
+
+        // binary format should carry everything needed to produce other formats
+        ResultFormatFactory.getInstance(
+                    ResultFormatType.JSON,
+                    actualFile)
+                .writeOut(BinaryResultFormat.read(binaryFile));
+
+        compare(actualFile, "output-golden.json");
+    }
+
+    @Test
+    public void binaryTest_Torn() throws IOException {
+        String binaryFile = FileUtils.tempFile("test").getAbsolutePath();
+        writeStreaming(ResultFormatType.BINARY, binaryFile);
+
+        int count = getStub().size();
+        Assert.assertEquals(count, BinaryResultFormat.read(binaryFile).size());
+
+        // simulate the crash in the middle of writing the last record
+        RandomAccessFile raf = new RandomAccessFile(binaryFile, "rw");
+        raf.setLength(raf.length() - 1);
+        raf.close();
+
+        Assert.assertEquals(Math.max(0, count - 1), BinaryResultFormat.read(binaryFile).size());
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AdaptiveIterationsTest {
+
+    @Test
+    public void testSteady_Flat() {
+        List<Double> scores = Arrays.asList(50.0, 100.0, 101.0, 99.0, 100.0, 100.5, 99.5);
+        Assert.assertTrue(AdaptiveIterations.isSteady(scores, 5, 0.01));
+    }
+
+    @Test
+    public void testSteady_Growing() {
+        List<Double> scores = Arrays.asList(50.0, 60.0, 70.0, 80.0, 90.0, 100.0);
+        Assert.assertFalse(AdaptiveIterations.isSteady(scores, 5, 0.01));
+        Assert.assertTrue(AdaptiveIterations.isSteady(scores, 5, 0.5));
+    }
+
+    @Test
+    public void testSteady_NotEnough() {
+        List<Double> scores = Arrays.asList(100.0, 100.0, 100.0);
+        Assert.assertFalse(AdaptiveIterations.isSteady(scores, 5, 0.01));
+    }
+
+    @Test
+    public void testRelativeError_NotEnough() {
+        List<Double> scores = Arrays.asList(100.0, 101.0);
+        Assert.assertTrue(Double.isNaN(AdaptiveIterations.relativeError(scores, 0.999)));
+    }
+
+    @Test
+    public void testRelativeError_Shrinks() {
+        List<Double> scores = new ArrayList<Double>();
+        for (int c = 0; c < 10; c++) {
+            scores.add(100.0 + ((c % 2 == 0) ? 1 : -1));
+        }
+        double e10 = AdaptiveIterations.relativeError(scores, 0.999);
+
+        for (int c = 0; c < 90; c++) {
+            scores.add(100.0 + ((c % 2 == 0) ? 1 : -1));
+        }
+        double e100 = AdaptiveIterations.relativeError(scores, 0.999);
+
+        Assert.assertTrue(e10 > 0);
+        Assert.assertTrue(e100 < e10);
+        Assert.assertTrue(e100 < 0.01);
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CPUSliceTest {
+
+    @Test
+    public void testParseList() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, CPUSlice.parseList("0-3,8,10-11\n"));
+        assertArrayEquals(new int[]{5}, CPUSlice.parseList(" 5 "));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("0-3,8,10-11", new CPUSlice(new int[]{0, 1, 2, 3, 8, 10, 11}).toString());
+        assertEquals("7", new CPUSlice(new int[]{7}).toString());
+    }
+
+    @Test
+    public void testSplitEven() {
+        List<CPUSlice> slices = CPUSlice.split(new int[]{0, 1, 2, 3, 4, 5, 6, 7}, 4);
+        assertEquals(4, slices.size());
+        assertEquals("0-1", slices.get(0).toString());
+        assertEquals("6-7", slices.get(3).toString());
+    }
+
+    @Test
+    public void testSplitUneven() {
+        List<CPUSlice> slices = CPUSlice.split(new int[]{0, 1, 2, 3, 4, 5, 6}, 3);
+        assertEquals(3, slices.size());
+        assertEquals(3, slices.get(0).size());
+        assertEquals(2, slices.get(1).size());
+        assertEquals(2, slices.get(2).size());
+        assertEquals("5-6", slices.get(2).toString());
+    }
+
+    @Test
+    public void testSplitTruncates() {
+        List<CPUSlice> slices = CPUSlice.split(new int[]{0, 1}, 8);
+        assertEquals(2, slices.size());
+    }
+
+}
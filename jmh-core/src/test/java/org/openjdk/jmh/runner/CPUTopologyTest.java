@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.Test;
+import org.openjdk.jmh.runner.options.ThreadPlacement;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CPUTopologyTest {
+
+    /**
+     * Two sockets, two cores per socket, two hardware threads per core;
+     * hardware thread siblings are numbered apart, as Linux usually does.
+     */
+    private static final CPUTopology DUAL_SOCKET = new CPUTopology(
+            new int[]{0, 1, 2, 3, 4, 5, 6, 7},
+            new int[]{0, 0, 1, 1, 0, 0, 1, 1},
+            new int[]{0, 1, 0, 1, 0, 1, 0, 1},
+            new int[]{0, 0, 1, 1, 0, 0, 1, 1});
+
+    @Test
+    public void testCompact() {
+        assertArrayEquals(new int[]{0, 4, 1, 5, 2, 6, 3, 7},
+                DUAL_SOCKET.place(ThreadPlacement.of(ThreadPlacement.Policy.COMPACT), 8));
+    }
+
+    @Test
+    public void testScatter() {
+        assertArrayEquals(new int[]{0, 2, 1, 3, 4, 6, 5, 7},
+                DUAL_SOCKET.place(ThreadPlacement.of(ThreadPlacement.Policy.SCATTER), 8));
+    }
+
+    @Test
+    public void testCore() {
+        assertArrayEquals(new int[]{0, 1, 2, 3},
+                DUAL_SOCKET.place(ThreadPlacement.of(ThreadPlacement.Policy.CORE), 4));
+    }
+
+    @Test
+    public void testSocket() {
+        assertArrayEquals(new int[]{0, 2},
+                DUAL_SOCKET.place(ThreadPlacement.of(ThreadPlacement.Policy.SOCKET), 2));
+    }
+
+    @Test
+    public void testListWraps() {
+        assertArrayEquals(new int[]{3, 1, 3},
+                DUAL_SOCKET.place(ThreadPlacement.fromString("3,1"), 3));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        File root = File.createTempFile("jmh", "sysfs");
+        root.delete();
+
+        write(new File(root, "cpu0/topology/physical_package_id"), "0");
+        write(new File(root, "cpu0/topology/core_id"), "0");
+        new File(root, "cpu0/node0").mkdirs();
+        write(new File(root, "cpu1/topology/physical_package_id"), "1");
+        write(new File(root, "cpu1/topology/core_id"), "4");
+        new File(root, "cpu1/node1").mkdirs();
+
+        // no topology for cpu2
+        CPUTopology t = CPUTopology.read(root, new int[]{0, 1, 2});
+        assertEquals(0, t.socketOf(0));
+        assertEquals(1, t.socketOf(1));
+        assertEquals(4, t.coreOf(1));
+        assertEquals(1, t.nodeOf(1));
+        assertEquals(0, t.socketOf(2));
+        assertEquals(2, t.coreOf(2));
+        assertEquals(2, t.socketCount());
+    }
+
+    private static void write(File file, String value) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter fw = new FileWriter(file);
+        fw.write(value + "\n");
+        fw.close();
+        file.deleteOnExit();
+    }
+
+}
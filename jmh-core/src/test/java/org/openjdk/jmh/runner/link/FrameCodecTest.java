@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.link;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AverageTimeResult;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.results.SampleTimeResult;
+import org.openjdk.jmh.results.ThroughputResult;
+import org.openjdk.jmh.runner.Defaults;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkloadParams;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.HashMultimap;
+import org.openjdk.jmh.util.Multimap;
+import org.openjdk.jmh.util.SampleBuffer;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class FrameCodecTest {
+
+    @Test
+    public void testRoundTrip() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FrameOutput fos = new FrameOutput(Channels.newChannel(bos));
+
+        fos.begin(FrameType.OUTPUT_OUT);
+        fos.putBytes(new byte[]{1, 2, 3, 4}, 1, 2);
+        fos.end();
+
+        fos.begin(FrameType.OUTPUT_FORMAT);
+        fos.putString("println");
+        fos.putInt(5);
+        fos.putArgument(null);
+        fos.putArgument("Hello, \u2603");
+        fos.putArgument(42);
+        fos.putArgument(new byte[]{5, 6});
+        fos.putArgument(Arrays.asList(7, 8));
+        fos.end();
+
+        fos.write(FrameType.FINISHING);
+
+        FrameInput fis = new FrameInput(new ByteArrayInputStream(bos.toByteArray()));
+
+        Assert.assertEquals(FrameType.OUTPUT_OUT, fis.next());
+        Assert.assertArrayEquals(new byte[]{2, 3}, fis.getBytes());
+
+        Assert.assertEquals(FrameType.OUTPUT_FORMAT, fis.next());
+        Assert.assertEquals("println", fis.getString());
+        Assert.assertEquals(5, fis.getInt());
+        Assert.assertNull(fis.getArgument());
+        Assert.assertEquals("Hello, \u2603", fis.getArgument());
+        Assert.assertEquals(42, fis.getArgument());
+        Assert.assertArrayEquals(new byte[]{5, 6}, (byte[]) fis.getArgument());
+        Assert.assertEquals(Arrays.asList(7, 8), fis.getArgument());
+
+        Assert.assertEquals(FrameType.FINISHING, fis.next());
+        Assert.assertEquals(-1, fis.next());
+    }
+
+    @Test
+    public void testLargeFrame() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FrameOutput fos = new FrameOutput(Channels.newChannel(bos));
+        fos.begin(FrameType.OUTPUT_ERR);
+        fos.putBytes(data, 0, data.length);
+        fos.end();
+
+        FrameInput fis = new FrameInput(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertEquals(FrameType.OUTPUT_ERR, fis.next());
+        Assert.assertArrayEquals(data, fis.getBytes());
+    }
+
+    private static final BenchmarkParams PARAMS = new BenchmarkParams("blah", "blah", false, 1, new int[]{1}, 1, 1,
+            new IterationParams(IterationType.WARMUP, 1, TimeValue.seconds(1), 1),
+            new IterationParams(IterationType.MEASUREMENT, 5, TimeValue.milliseconds(100), 3),
+            Mode.SampleTime, new WorkloadParams(), TimeUnit.MICROSECONDS, 1,
+            Utils.getCurrentJvm(), Collections.<String>emptyList(),
+            TimeValue.days(1), Defaults.TARGET_RATE);
+
+    private static IterationResult iteration() {
+        SampleBuffer buffer = new SampleBuffer();
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i * 1000L);
+        }
+
+        IterationResult ir = new IterationResult(PARAMS, PARAMS.getMeasurement());
+        ir.addResult(new SampleTimeResult(ResultRole.PRIMARY, "test", buffer, TimeUnit.MICROSECONDS));
+        ir.addResult(new ThroughputResult(ResultRole.SECONDARY, "thrpt", 1234, 1000 * 1000, TimeUnit.MILLISECONDS));
+        ir.addResult(new AverageTimeResult(ResultRole.SECONDARY, "avgt", 42, 1000 * 1000, TimeUnit.MICROSECONDS));
+        ir.setMeasuredOps(1000);
+        ir.setMeasuredAllocatedBytes(24000);
+        ir.markOutputPerturbed();
+        ir.markLastIteration();
+        return ir;
+    }
+
+    private static void assertSame(Result expected, Result actual) {
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        Assert.assertEquals(expected.getRole(), actual.getRole());
+        Assert.assertEquals(expected.getLabel(), actual.getLabel());
+        Assert.assertEquals(expected.getScoreUnit(), actual.getScoreUnit());
+        Assert.assertEquals(expected.getScore(), actual.getScore(), 0);
+        Assert.assertEquals(expected.getStatistics().getN(), actual.getStatistics().getN());
+        Assert.assertEquals(expected.getStatistics().getPercentile(99), actual.getStatistics().getPercentile(99), 0);
+    }
+
+    private static void assertSame(IterationResult expected, IterationResult actual) {
+        Assert.assertEquals(expected.getParams(), actual.getParams());
+        Assert.assertEquals(expected.getMeasuredOps(), actual.getMeasuredOps());
+        Assert.assertEquals(expected.getMeasuredAllocatedBytes(), actual.getMeasuredAllocatedBytes());
+        Assert.assertEquals(expected.isOutputPerturbed(), actual.isOutputPerturbed());
+        Assert.assertEquals(expected.isLastIteration(), actual.isLastIteration());
+        assertSame(expected.getPrimaryResult(), actual.getPrimaryResult());
+        Assert.assertEquals(expected.getSecondaryResults().keySet(), actual.getSecondaryResults().keySet());
+        for (String label : expected.getSecondaryResults().keySet()) {
+            assertSame(expected.getSecondaryResults().get(label), actual.getSecondaryResults().get(label));
+        }
+    }
+
+    @Test
+    public void testIterationResultArguments() throws IOException, ClassNotFoundException {
+        IterationResult ir = iteration();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FrameOutput fos = new FrameOutput(Channels.newChannel(bos));
+        fos.begin(FrameType.OUTPUT_FORMAT);
+        fos.putArguments(new Object[]{PARAMS, PARAMS.getMeasurement(), 1, ir});
+        fos.end();
+
+        FrameInput fis = new FrameInput(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertEquals(FrameType.OUTPUT_FORMAT, fis.next());
+        Object[] args = fis.getArguments();
+        Assert.assertEquals(4, args.length);
+        Assert.assertEquals(PARAMS, args[0]);
+        Assert.assertEquals(1, args[2]);
+
+        IterationResult actual = (IterationResult) args[3];
+        Assert.assertSame(args[0], actual.getBenchmarkParams());
+        assertSame(ir, actual);
+    }
+
+    @Test
+    public void testResults() throws IOException, ClassNotFoundException {
+        Collection<IterationResult> irs = new ArrayList<IterationResult>();
+        irs.add(iteration());
+        irs.add(iteration());
+        BenchmarkResult br = new BenchmarkResult(irs);
+
+        // third-party results go serialized
+        br.addBenchmarkResult(new ThirdPartyResult());
+
+        Multimap<BenchmarkParams, BenchmarkResult> results = new HashMultimap<BenchmarkParams, BenchmarkResult>();
+        results.put(PARAMS, br);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FrameOutput fos = new FrameOutput(Channels.newChannel(bos));
+        fos.begin(FrameType.RESULTS);
+        fos.putResults(results);
+        fos.end();
+
+        FrameInput fis = new FrameInput(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertEquals(FrameType.RESULTS, fis.next());
+        Multimap<BenchmarkParams, BenchmarkResult> actual = fis.getResults();
+
+        Assert.assertEquals(1, actual.keys().size());
+        BenchmarkResult actualBr = actual.get(PARAMS).iterator().next();
+        Assert.assertEquals(2, actualBr.getIterationResults().size());
+        for (IterationResult ir : actualBr.getIterationResults()) {
+            assertSame(irs.iterator().next(), ir);
+        }
+        assertSame(br.getPrimaryResult(), actualBr.getPrimaryResult());
+
+        Collection<Result> extra = actualBr.getBenchmarkResults().get("third");
+        Assert.assertEquals(1, extra.size());
+        Assert.assertEquals(ThirdPartyResult.class, extra.iterator().next().getClass());
+    }
+
+    static class ThirdPartyResult extends AverageTimeResult {
+        private static final long serialVersionUID = 1L;
+
+        ThirdPartyResult() {
+            super(ResultRole.SECONDARY, "third", 10, 1000, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
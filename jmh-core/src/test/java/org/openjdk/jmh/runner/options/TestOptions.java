@@ -36,6 +36,7 @@ import org.openjdk.jmh.results.format.ResultFormatType;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
@@ -144,6 +145,18 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getResult(), EMPTY_CMDLINE.getResult());
     }
 
+    @Test
+    public void testResumeJournal() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-resume", "sample.journal");
+        Options builder = new OptionsBuilder().resumeJournal("sample.journal").build();
+        Assert.assertEquals(builder.getResumeJournal(), cmdLine.getResumeJournal());
+    }
+
+    @Test
+    public void testResumeJournal_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getResumeJournal(), EMPTY_CMDLINE.getResumeJournal());
+    }
+
     @Test
     public void testGC_Set() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("-gc");
@@ -272,6 +285,62 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getThreadGroups(), EMPTY_CMDLINE.getThreadGroups());
     }
 
+    @Test
+    public void testThreadSweep() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-threadSweep", "1,2,4..max");
+        Options builder = new OptionsBuilder().threadSweep(ThreadSweep.fromString("1,2,4..max")).build();
+        Assert.assertEquals(builder.getThreadSweep(), cmdLine.getThreadSweep());
+    }
+
+    @Test
+    public void testThreadSweep_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getThreadSweep(), EMPTY_CMDLINE.getThreadSweep());
+    }
+
+    @Test(expected = CommandLineOptionException.class)
+    public void testThreadSweep_Zero() throws Exception {
+        new CommandLineOptions("-threadSweep", "0,1");
+    }
+
+    @Test(expected = CommandLineOptionException.class)
+    public void testThreadSweep_Descending() throws Exception {
+        new CommandLineOptions("-threadSweep", "8..2");
+    }
+
+    @Test
+    public void testThreadSweep_Expand() throws Exception {
+        ThreadSweep sweep = ThreadSweep.fromString("1,2,4..max");
+        Assert.assertTrue(sweep.needsMaxThreads());
+        Assert.assertEquals("1,2,4..max", sweep.toString());
+        Assert.assertEquals(Arrays.asList(1, 2, 4, 8, 12), sweep.expand(12));
+        Assert.assertEquals(Arrays.asList(1, 2), sweep.expand(2));
+        Assert.assertEquals(Arrays.asList(3, 6, 10), ThreadSweep.fromString("6, 3..10").expand(1));
+    }
+
+    @Test
+    public void testThreadPlacement() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-tp", "scatter");
+        Options builder = new OptionsBuilder().threadPlacement(ThreadPlacement.of(ThreadPlacement.Policy.SCATTER)).build();
+        Assert.assertEquals(builder.getThreadPlacement(), cmdLine.getThreadPlacement());
+    }
+
+    @Test
+    public void testThreadPlacement_List() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-tp", "0,2,4-7");
+        Options builder = new OptionsBuilder().threadPlacement(ThreadPlacement.cpus("0,2,4-7")).build();
+        Assert.assertEquals(builder.getThreadPlacement(), cmdLine.getThreadPlacement());
+    }
+
+    @Test(expected = CommandLineOptionException.class)
+    public void testThreadPlacement_Unknown() throws Exception {
+        new CommandLineOptions("-tp", "sprinkle");
+    }
+
+    @Test
+    public void testThreadPlacement_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getThreadPlacement(), EMPTY_CMDLINE.getThreadPlacement());
+    }
+
     @Test
     public void testSynchIterations_Set() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("-si");
@@ -395,6 +464,42 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getOperationsPerInvocation(), EMPTY_CMDLINE.getOperationsPerInvocation());
     }
 
+    @Test
+    public void testTargetRate() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-rate", "250.5");
+        Options builder = new OptionsBuilder().targetRate(250.5).build();
+        Assert.assertEquals(builder.getTargetRate(), cmdLine.getTargetRate());
+    }
+
+    @Test
+    public void testTargetRate_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getTargetRate(), EMPTY_CMDLINE.getTargetRate());
+    }
+
+    @Test
+    public void testTargetError() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-ci", "0.01");
+        Options builder = new OptionsBuilder().targetError(0.01).build();
+        Assert.assertEquals(builder.getTargetError(), cmdLine.getTargetError());
+    }
+
+    @Test
+    public void testTargetError_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getTargetError(), EMPTY_CMDLINE.getTargetError());
+    }
+
+    @Test
+    public void testMinMeasurementIterations() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-imin", "7");
+        Options builder = new OptionsBuilder().minMeasurementIterations(7).build();
+        Assert.assertEquals(builder.getMinMeasurementIterations(), cmdLine.getMinMeasurementIterations());
+    }
+
+    @Test
+    public void testMinMeasurementIterations_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getMinMeasurementIterations(), EMPTY_CMDLINE.getMinMeasurementIterations());
+    }
+
     @Test
     public void testFork() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("-f");
@@ -421,6 +526,18 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getForkCount(), EMPTY_CMDLINE.getForkCount());
     }
 
+    @Test
+    public void testMaxFork() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-fmax", "10");
+        Options builder = new OptionsBuilder().maxForks(10).build();
+        Assert.assertEquals(builder.getMaxForkCount(), cmdLine.getMaxForkCount());
+    }
+
+    @Test
+    public void testMaxFork_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getMaxForkCount(), EMPTY_CMDLINE.getMaxForkCount());
+    }
+
     @Test
     public void testWarmupFork_0() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("-wf", "0");
@@ -440,6 +557,18 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getWarmupForkCount(), EMPTY_CMDLINE.getWarmupForkCount());
     }
 
+    @Test
+    public void testForkParallelism() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-fp", "4");
+        Options builder = new OptionsBuilder().forkParallelism(4).build();
+        Assert.assertEquals(builder.getForkParallelism(), cmdLine.getForkParallelism());
+    }
+
+    @Test
+    public void testForkParallelism_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getForkParallelism(), EMPTY_CMDLINE.getForkParallelism());
+    }
+
     @Test
     public void testJvm() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("--jvm", "sample.jar");
@@ -293,6 +293,27 @@ public class TestParentOptions {
         Assert.assertEquals("out2", builder.getResult().get());
     }
 
+    @Test
+    public void testResumeJournal_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getResumeJournal().hasValue());
+    }
+
+    @Test
+    public void testResumeJournal_Parent() throws Exception {
+        Options parent = new OptionsBuilder().resumeJournal("journal1").build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals("journal1", builder.getResumeJournal().get());
+    }
+
+    @Test
+    public void testResumeJournal_Merged() throws Exception {
+        Options parent = new OptionsBuilder().resumeJournal("journal1").build();
+        Options builder = new OptionsBuilder().parent(parent).resumeJournal("journal2").build();
+        Assert.assertEquals("journal2", builder.getResumeJournal().get());
+    }
+
     @Test
     public void testResultFormat_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -419,6 +440,48 @@ public class TestParentOptions {
         Assert.assertArrayEquals(new int[]{3, 4}, builder.getThreadGroups().get());
     }
 
+    @Test
+    public void testThreadSweep_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getThreadSweep().hasValue());
+    }
+
+    @Test
+    public void testThreadSweep_Parent() throws Exception {
+        Options parent = new OptionsBuilder().threadSweep(ThreadSweep.fromString("1..4")).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(ThreadSweep.fromString("1..4"), builder.getThreadSweep().get());
+    }
+
+    @Test
+    public void testThreadSweep_Merged() throws Exception {
+        Options parent = new OptionsBuilder().threadSweep(ThreadSweep.fromString("1..4")).build();
+        Options builder = new OptionsBuilder().parent(parent).threadSweep(ThreadSweep.fromString("1..max")).build();
+        Assert.assertEquals(ThreadSweep.fromString("1..max"), builder.getThreadSweep().get());
+    }
+
+    @Test
+    public void testThreadPlacement_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getThreadPlacement().hasValue());
+    }
+
+    @Test
+    public void testThreadPlacement_Parent() throws Exception {
+        Options parent = new OptionsBuilder().threadPlacement(ThreadPlacement.of(ThreadPlacement.Policy.COMPACT)).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(ThreadPlacement.of(ThreadPlacement.Policy.COMPACT), builder.getThreadPlacement().get());
+    }
+
+    @Test
+    public void testThreadPlacement_Merged() throws Exception {
+        Options parent = new OptionsBuilder().threadPlacement(ThreadPlacement.of(ThreadPlacement.Policy.COMPACT)).build();
+        Options builder = new OptionsBuilder().parent(parent).threadPlacement(ThreadPlacement.cpus("1-3")).build();
+        Assert.assertEquals(ThreadPlacement.cpus("1-3"), builder.getThreadPlacement().get());
+    }
+
     @Test
     public void testThreads_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -482,6 +545,69 @@ public class TestParentOptions {
         Assert.assertEquals(Integer.valueOf(43), builder.getOperationsPerInvocation().get());
     }
 
+    @Test
+    public void testTargetRate_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getTargetRate().hasValue());
+    }
+
+    @Test
+    public void testTargetRate_Parent() throws Exception {
+        Options parent = new OptionsBuilder().targetRate(42).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Double.valueOf(42), builder.getTargetRate().get());
+    }
+
+    @Test
+    public void testTargetRate_Merged() throws Exception {
+        Options parent = new OptionsBuilder().targetRate(42).build();
+        Options builder = new OptionsBuilder().parent(parent).targetRate(43).build();
+        Assert.assertEquals(Double.valueOf(43), builder.getTargetRate().get());
+    }
+
+    @Test
+    public void testTargetError_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getTargetError().hasValue());
+    }
+
+    @Test
+    public void testTargetError_Parent() throws Exception {
+        Options parent = new OptionsBuilder().targetError(0.01).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Double.valueOf(0.01), builder.getTargetError().get());
+    }
+
+    @Test
+    public void testTargetError_Merged() throws Exception {
+        Options parent = new OptionsBuilder().targetError(0.01).build();
+        Options builder = new OptionsBuilder().parent(parent).targetError(0.02).build();
+        Assert.assertEquals(Double.valueOf(0.02), builder.getTargetError().get());
+    }
+
+    @Test
+    public void testMinMeasurementIterations_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getMinMeasurementIterations().hasValue());
+    }
+
+    @Test
+    public void testMinMeasurementIterations_Parent() throws Exception {
+        Options parent = new OptionsBuilder().minMeasurementIterations(7).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Integer.valueOf(7), builder.getMinMeasurementIterations().get());
+    }
+
+    @Test
+    public void testMinMeasurementIterations_Merged() throws Exception {
+        Options parent = new OptionsBuilder().minMeasurementIterations(7).build();
+        Options builder = new OptionsBuilder().parent(parent).minMeasurementIterations(8).build();
+        Assert.assertEquals(Integer.valueOf(8), builder.getMinMeasurementIterations().get());
+    }
+
     @Test
     public void testVerbose_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -503,6 +629,27 @@ public class TestParentOptions {
         Assert.assertEquals(VerboseMode.SILENT, builder.verbosity().get());
     }
 
+    @Test
+    public void testMaxForks_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getMaxForkCount().hasValue());
+    }
+
+    @Test
+    public void testMaxForks_Parent() throws Exception {
+        Options parent = new OptionsBuilder().maxForks(42).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Integer.valueOf(42), builder.getMaxForkCount().get());
+    }
+
+    @Test
+    public void testMaxForks_Merge() throws Exception {
+        Options parent = new OptionsBuilder().maxForks(42).build();
+        Options builder = new OptionsBuilder().parent(parent).maxForks(84).build();
+        Assert.assertEquals(Integer.valueOf(84), builder.getMaxForkCount().get());
+    }
+
     @Test
     public void testWarmupForks_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -524,6 +671,27 @@ public class TestParentOptions {
         Assert.assertEquals(Integer.valueOf(84), builder.getWarmupForkCount().get());
     }
 
+    @Test
+    public void testForkParallelism_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getForkParallelism().hasValue());
+    }
+
+    @Test
+    public void testForkParallelism_Parent() throws Exception {
+        Options parent = new OptionsBuilder().forkParallelism(42).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Integer.valueOf(42), builder.getForkParallelism().get());
+    }
+
+    @Test
+    public void testForkParallelism_Merge() throws Exception {
+        Options parent = new OptionsBuilder().forkParallelism(42).build();
+        Options builder = new OptionsBuilder().parent(parent).forkParallelism(84).build();
+        Assert.assertEquals(Integer.valueOf(84), builder.getForkParallelism().get());
+    }
+
     @Test
     public void testWarmupIters_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2014, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Tests for SampleBuffer.
+ */
+public class TestSampleBuffer {
+
+    private static final double ASSERT_ACCURACY = 0.0000000001;
+
+    @Test
+    public void testSmallValuesAreExact() {
+        SampleBuffer b = new SampleBuffer();
+        for (int v = 0; v < 1000; v++) {
+            b.add(v);
+        }
+        Statistics s = b.getStatistics(1);
+        Assert.assertEquals(1000, s.getN());
+        Assert.assertEquals(0, s.getMin(), ASSERT_ACCURACY);
+        Assert.assertEquals(999, s.getMax(), ASSERT_ACCURACY);
+        Assert.assertEquals(499.5, s.getMean(), ASSERT_ACCURACY);
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (int bits = 1; bits <= 20; bits++) {
+            long[] values = {1, 1023, 1024, 123456789L, 987654321987L, Long.MAX_VALUE / 3};
+            for (long v : values) {
+                SampleBuffer b = new SampleBuffer(bits);
+                b.add(v);
+                double recorded = b.getStatistics(1).getMax();
+                Assert.assertTrue("Value " + v + " is recorded as " + recorded + " with " + bits + " bits",
+                        recorded <= v && (v - recorded) <= v / Math.pow(2, bits - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testSparse() {
+        SampleBuffer b = new SampleBuffer();
+        for (int c = 0; c < 100000; c++) {
+            b.add(42);
+            b.add(1000000);
+        }
+        Assert.assertEquals(2, b.occupiedBuckets());
+        Assert.assertEquals(200000, b.count());
+    }
+
+    @Test
+    public void testGrowth() {
+        SampleBuffer b = new SampleBuffer(20);
+        for (int v = 0; v < 100000; v++) {
+            b.add(v);
+        }
+        Assert.assertEquals(100000, b.occupiedBuckets());
+        Assert.assertEquals(100000, b.count());
+        Assert.assertEquals(99999, b.getStatistics(1).getMax(), ASSERT_ACCURACY);
+    }
+
+    @Test
+    public void testWeighted() {
+        SampleBuffer b = new SampleBuffer();
+        b.add(10, 1);
+        b.add(20, 3);
+        Statistics s = b.getStatistics(1);
+        Assert.assertEquals(4, s.getN());
+        Assert.assertEquals(17.5, s.getMean(), ASSERT_ACCURACY);
+        Assert.assertEquals(20, s.getPercentile(50), ASSERT_ACCURACY);
+    }
+
+    @Test
+    public void testMerge() {
+        SampleBuffer b1 = new SampleBuffer();
+        b1.add(1000);
+        b1.add(2000);
+
+        SampleBuffer b2 = new SampleBuffer();
+        b2.add(2000);
+        b2.add(3000);
+
+        b1.addAll(b2);
+        Statistics s = b1.getStatistics(1);
+        Assert.assertEquals(4, s.getN());
+        Assert.assertEquals(2000, s.getMean(), ASSERT_ACCURACY);
+        Assert.assertEquals(3, b1.occupiedBuckets());
+    }
+
+    @Test
+    public void testMergeDifferentPrecision() {
+        SampleBuffer fine = new SampleBuffer(16);
+        fine.add(1000);
+        fine.add(1001);
+
+        SampleBuffer coarse = new SampleBuffer(4);
+        coarse.addAll(fine);
+
+        Assert.assertEquals(1, coarse.occupiedBuckets());
+        Assert.assertEquals(2, coarse.count());
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        SampleBuffer b = new SampleBuffer();
+        for (int c = 0; c < 1000; c++) {
+            b.add(c * c, c + 1);
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(b);
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        SampleBuffer copy = (SampleBuffer) ois.readObject();
+
+        Assert.assertEquals(b.getPrecisionBits(), copy.getPrecisionBits());
+        Assert.assertEquals(b.occupiedBuckets(), copy.occupiedBuckets());
+        Assert.assertEquals(b.count(), copy.count());
+
+        Statistics s1 = b.getStatistics(1);
+        Statistics s2 = copy.getStatistics(1);
+        Assert.assertEquals(s1.getMean(), s2.getMean(), ASSERT_ACCURACY);
+        Assert.assertEquals(s1.getPercentile(99.9), s2.getPercentile(99.9), ASSERT_ACCURACY);
+
+        // buckets should be encoded compactly
+        Assert.assertTrue("Serialized size is too large: " + bos.size(), bos.size() < 8 * 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPrecision() {
+        new SampleBuffer(0);
+    }
+
+}
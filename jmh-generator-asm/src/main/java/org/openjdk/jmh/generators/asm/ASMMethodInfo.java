@@ -45,6 +45,7 @@ class ASMMethodInfo extends MethodVisitor implements MethodInfo  {
     private final Map<String, AnnotationInvocationHandler> annotations;
     private final int access;
     private final String name;
+    private final String desc;
     private final String returnType;
     private final Type[] argumentTypes;
     private final ClassInfoRepo repo;
@@ -55,6 +56,7 @@ class ASMMethodInfo extends MethodVisitor implements MethodInfo  {
         this.repo = repo;
         this.access = access;
         this.name = name;
+        this.desc = desc;
         this.returnType = Type.getReturnType(desc).getClassName();
         this.annotations = new HashMap<String, AnnotationInvocationHandler>();
         this.argumentTypes = Type.getArgumentTypes(desc);
@@ -101,6 +103,10 @@ class ASMMethodInfo extends MethodVisitor implements MethodInfo  {
         return returnType;
     }
 
+    String getDescriptor() {
+        return desc;
+    }
+
     @Override
     public Collection<ParameterInfo> getParameters() {
         Collection<ParameterInfo> result = new ArrayList<ParameterInfo>();
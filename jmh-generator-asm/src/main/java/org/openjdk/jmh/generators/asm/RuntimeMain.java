@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.generators.core.BenchmarkGenerator;
+import org.openjdk.jmh.generators.core.FileSystemDestination;
+import org.openjdk.jmh.generators.core.GenerationException;
+import org.openjdk.jmh.generators.core.SourceError;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.format.OutputFormat;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.InputStreamDrainer;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Runs the benchmarks from the compiled classes without generating and compiling the Java stubs.
+ *
+ * <p>The benchmark stubs are emitted straight into bytecode by {@link RuntimeStubGenerator},
+ * and the regular JMH {@link Main} is then started with the stubs on the classpath. Selected
+ * benchmarks which are not supported by runtime stubs fail the run, unless
+ * {@code -Djmh.runtime.skipUnsupported=true} is set, in which case they are skipped with the warning.</p>
+ */
+public class RuntimeMain {
+
+    private static final boolean SKIP_UNSUPPORTED = Boolean.getBoolean("jmh.runtime.skipUnsupported");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: runtime <compiled-bytecode-dir-or-jar> [JMH options]");
+            System.exit(1);
+        }
+
+        File compiled = new File(args[0]);
+        String[] jmhArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        System.exit(run(compiled, jmhArgs));
+    }
+
+    /**
+     * Generates the runtime stubs for the compiled benchmarks, and runs JMH over them.
+     * The temporary stub directories are deleted before returning.
+     *
+     * @param compiled directory or JAR with the compiled benchmarks
+     * @param jmhArgs JMH command line options
+     * @return exit code
+     * @throws Exception if something went wrong
+     */
+    static int run(File compiled, String[] jmhArgs) throws Exception {
+        File stubDir = tempDir("jmh-stubs");
+        File sourceDir = tempDir("jmh-sources");
+        try {
+            ASMGeneratorSource source = new ASMGeneratorSource();
+            if (compiled.isDirectory()) {
+                source.processClasses(FileUtils.getClasses(compiled));
+            } else {
+                processJar(source, compiled);
+            }
+
+            // Benchmark generator does all the validation, and produces the resources
+            // we need; the Java stubs it emits are not needed.
+            FileSystemDestination destination = new FileSystemDestination(stubDir, sourceDir);
+            BenchmarkGenerator gen = new BenchmarkGenerator();
+            gen.generate(source, destination);
+            gen.complete(source, destination);
+
+            if (destination.hasErrors()) {
+                for (SourceError e : destination.getErrors()) {
+                    System.err.println(e.toString() + "\n");
+                }
+                return 1;
+            }
+
+            File listFile = new File(stubDir, BenchmarkList.BENCHMARK_LIST.substring(1));
+            Set<String> selected = selected(listFile, jmhArgs);
+
+            Map<String, String> unsupported = new TreeMap<String, String>();
+            int stubs = generateStubs(listFile, source, stubDir, unsupported);
+            if (selected != null) {
+                unsupported.keySet().retainAll(selected);
+            }
+
+            if (!unsupported.isEmpty()) {
+                for (Map.Entry<String, String> e : unsupported.entrySet()) {
+                    System.err.println((SKIP_UNSUPPORTED ? "Skipping " : "Unsupported ") + e.getKey() + ": " + e.getValue());
+                }
+                if (!SKIP_UNSUPPORTED) {
+                    System.err.println("Benchmarks above are not supported by runtime stubs, " +
+                            "use -Djmh.runtime.skipUnsupported=true to skip them.");
+                    return 1;
+                }
+            }
+
+            System.out.println("Generated " + stubs + " runtime stubs from " + compiled);
+
+            return launch(compiled, stubDir, jmhArgs);
+        } finally {
+            delete(sourceDir);
+            delete(stubDir);
+        }
+    }
+
+    /**
+     * @return names of the benchmarks selected by JMH options, null if options are malformed
+     */
+    private static Set<String> selected(File listFile, String[] jmhArgs) {
+        CommandLineOptions opts;
+        try {
+            opts = new CommandLineOptions(jmhArgs);
+        } catch (CommandLineOptionException e) {
+            // JMH would report the malformed options
+            return null;
+        }
+
+        OutputFormat out = OutputFormatFactory.createFormatInstance(System.out, VerboseMode.SILENT);
+        Set<String> result = new HashSet<String>();
+        for (BenchmarkListEntry br : BenchmarkList.fromFile(listFile.getAbsolutePath()).find(out, opts.getIncludes(), opts.getExcludes())) {
+            result.add(br.getUsername());
+        }
+        return result;
+    }
+
+    /**
+     * Generates the stubs, and drops the unsupported benchmarks from the benchmark list.
+     *
+     * @param unsupported unsupported benchmark names and reasons, filled in by this method
+     * @return number of stubs generated
+     */
+    private static int generateStubs(File listFile, ASMGeneratorSource source, File stubDir, Map<String, String> unsupported) throws IOException {
+
+        List<String> lines = new ArrayList<String>();
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        Map<String, String> failed = new HashMap<String, String>();
+
+        RuntimeStubGenerator gen = new RuntimeStubGenerator(source);
+        for (String line : FileUtils.readAllLines(listFile)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                lines.add(line);
+                continue;
+            }
+
+            BenchmarkListEntry br = new BenchmarkListEntry(line);
+            String userName = br.getUsername();
+            String target = br.generatedTarget();
+            String className = target.substring(0, target.lastIndexOf('.'));
+
+            if (!classes.containsKey(className) && !failed.containsKey(className)) {
+                int lastDot = userName.lastIndexOf('.');
+                try {
+                    classes.put(className, gen.generate(className, userName.substring(0, lastDot), userName.substring(lastDot + 1)));
+                } catch (GenerationException e) {
+                    failed.put(className, e.getMessage());
+                }
+            }
+
+            if (classes.containsKey(className)) {
+                lines.add(line);
+            } else {
+                unsupported.put(userName, failed.get(className));
+            }
+        }
+
+        for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+            File f = new File(stubDir, e.getKey().replace('.', '/') + ".class");
+            File dir = f.getParentFile();
+            if (!dir.mkdirs() && !dir.isDirectory()) {
+                throw new IOException("Unable to create " + dir.getAbsolutePath());
+            }
+            FileOutputStream fos = new FileOutputStream(f);
+            try {
+                fos.write(e.getValue());
+            } finally {
+                FileUtils.safelyClose(fos);
+            }
+        }
+
+        PrintWriter writer = new PrintWriter(listFile);
+        for (String line : lines) {
+            writer.println(line);
+        }
+        writer.close();
+
+        return classes.size();
+    }
+
+    private static void processJar(ASMGeneratorSource source, File jar) throws IOException {
+        JarFile jarFile = new JarFile(jar);
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    InputStream is = jarFile.getInputStream(entry);
+                    try {
+                        source.processClass(is);
+                    } finally {
+                        FileUtils.safelyClose(is);
+                    }
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    /**
+     * Run the regular JMH in the separate VM, which has the benchmarks and stubs on its classpath.
+     * The benchmark forks would inherit that classpath.
+     */
+    private static int launch(File compiled, File stubDir, String[] jmhArgs) throws IOException, InterruptedException {
+        String classPath = System.getProperty("java.class.path") +
+                File.pathSeparator + compiled.getAbsolutePath() +
+                File.pathSeparator + stubDir.getAbsolutePath();
+
+        List<String> command = new ArrayList<String>();
+        command.add(Utils.getCurrentJvm());
+        command.add("-cp");
+        command.add(classPath);
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(jmhArgs));
+
+        Process p = new ProcessBuilder(command).start();
+
+        InputStreamDrainer errDrainer = new InputStreamDrainer(p.getErrorStream(), System.err);
+        InputStreamDrainer outDrainer = new InputStreamDrainer(p.getInputStream(), System.out);
+        errDrainer.start();
+        outDrainer.start();
+
+        int ecode = p.waitFor();
+
+        errDrainer.join();
+        outDrainer.join();
+
+        return ecode;
+    }
+
+    private static File tempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("Unable to create " + dir.getAbsolutePath());
+        }
+        return dir;
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File sub : files) {
+                delete(sub);
+            }
+        }
+        f.delete();
+    }
+
+}
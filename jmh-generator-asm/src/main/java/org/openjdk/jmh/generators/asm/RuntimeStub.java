@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.AverageTimeResult;
+import org.openjdk.jmh.results.FixedRateResult;
+import org.openjdk.jmh.results.RawResults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.results.SampleTimeResult;
+import org.openjdk.jmh.results.SingleShotResult;
+import org.openjdk.jmh.results.ThroughputResult;
+import org.openjdk.jmh.runner.InfraControl;
+import org.openjdk.jmh.util.ClassUtils;
+import org.openjdk.jmh.util.SampleBuffer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base class for the benchmark stubs emitted by {@link RuntimeStubGenerator}.
+ *
+ * <p>Emitted subclasses provide the direct calls to the benchmark method: the single
+ * invocation, and the hot loop for {@link Mode#Throughput} and {@link Mode#AverageTime}.
+ * This class handles the rest of the harness protocol: benchmark instances, fixtures,
+ * iteration synchronization, and building the results. The loops for the time-stamping
+ * modes are here as well; they go through the emitted single invocation, which is
+ * monomorphic in the forked VM running the single benchmark.</p>
+ *
+ * <p>The benchmark class and the {@link State} arguments of the benchmark method are
+ * instantiated according to their {@link Scope}, get their {@link Param} fields injected,
+ * and have their trial and iteration fixtures called around the iterations.</p>
+ */
+public abstract class RuntimeStub {
+
+    /**
+     * Benchmark- and group-scoped instances, shared between the stubs of all threads.
+     */
+    private static final Map<Object, Instance> SHARED = new HashMap<Object, Instance>();
+
+    private final Class<?> benchmarkClass;
+    private final Class<?>[] stateClasses;
+    private final String label;
+
+    /* Instances in the fixture order, benchmark instance and state arguments; null until initialized */
+    private List<Instance> instances;
+    private Object bench;
+    private Object[] states;
+    private Blackhole blackhole;
+    private int startRndMask;
+
+    protected RuntimeStub(Class<?> benchmarkClass, String label) {
+        this.benchmarkClass = benchmarkClass;
+        this.label = label;
+        this.stateClasses = stateClasses(benchmarkClass, label);
+    }
+
+    /**
+     * Calls the benchmark method once.
+     * @param bench benchmark instance, unused for static benchmark methods
+     * @param states state arguments of the benchmark method, in the declaration order
+     * @param bh blackhole to pass into the benchmark, and to consume the result with
+     * @throws Throwable if benchmark had thrown
+     */
+    protected abstract void invoke(Object bench, Object[] states, Blackhole bh) throws Throwable;
+
+    /**
+     * Calls the benchmark method until {@link InfraControl#isDone} is set.
+     * @param bench benchmark instance, unused for static benchmark methods
+     * @param states state arguments of the benchmark method, in the declaration order
+     * @param bh blackhole to pass into the benchmark, and to consume the result with
+     * @param control control object
+     * @param result raw results to fill in
+     * @throws Throwable if benchmark had thrown
+     */
+    protected abstract void loop(Object bench, Object[] states, Blackhole bh, InfraControl control, RawResults result) throws Throwable;
+
+    /**
+     * Instantiates the blackhole. Blackholes are only allowed to be created from the generated code.
+     * @return new blackhole
+     */
+    protected abstract Blackhole _jmh_tryInit_blackhole();
+
+    public Collection<? extends Result> run(Mode mode, InfraControl control, ThreadParams threadParams) throws Throwable {
+        if (threadParams.getSubgroupIndex() != 0) {
+            throw new IllegalStateException("Harness failed to distribute threads among groups properly");
+        }
+
+        tryInit(control, threadParams);
+        Object bench = this.bench;
+        Object[] states = this.states;
+        Blackhole bh = blackhole;
+
+        control.preSetup();
+        for (Instance inst : instances) {
+            inst.setupIteration();
+        }
+        bh.clearSinks();
+
+        Result result;
+        if (mode == Mode.SingleShotTime) {
+            RawResults res = new RawResults(control.benchmarkParams.getOpsPerInvocation());
+            control.markMeasurementStart();
+            singleShotLoop(bench, states, bh, control.iterationParams.getBatchSize(), res);
+            control.markMeasurementEnd();
+            control.addMeasuredOps((long) control.iterationParams.getBatchSize() * control.benchmarkParams.getOpsPerInvocation());
+            control.preTearDown();
+            result = new SingleShotResult(ResultRole.PRIMARY, label, res.getTime(), control.benchmarkParams.getTimeUnit());
+        } else {
+            control.announceWarmupReady();
+            while (control.warmupShouldWait) {
+                if (control.yieldInCatchup) Thread.yield();
+                invoke(bench, states, bh);
+            }
+
+            control.markMeasurementStart();
+            result = measure(mode, bench, states, bh, control, threadParams);
+            control.markMeasurementEnd();
+
+            control.announceWarmdownReady();
+            try {
+                while (control.warmdownShouldWait) {
+                    if (control.yieldInCatchup) Thread.yield();
+                    invoke(bench, states, bh);
+                }
+                control.preTearDown();
+            } catch (InterruptedException ie) {
+                control.preTearDownForce();
+            }
+        }
+
+        for (int i = instances.size() - 1; i >= 0; i--) {
+            instances.get(i).tearDownIteration();
+        }
+        bh.clearSinks();
+
+        if (control.isLastIteration()) {
+            tearDown();
+        }
+
+        return Collections.singletonList(result);
+    }
+
+    private Result measure(Mode mode, Object bench, Object[] states, Blackhole bh, InfraControl control, ThreadParams threadParams) throws Throwable {
+        TimeUnit tu = control.benchmarkParams.getTimeUnit();
+        int opsPerInv = control.benchmarkParams.getOpsPerInvocation();
+        int batchSize = control.iterationParams.getBatchSize();
+
+        switch (mode) {
+            case Throughput: {
+                RawResults res = new RawResults(opsPerInv);
+                loop(bench, states, bh, control, res);
+                res.operations /= batchSize;
+                control.addMeasuredOps(res.getOperations());
+                return new ThroughputResult(ResultRole.PRIMARY, label, res.getOperations(), res.getTime(), tu);
+            }
+            case AverageTime: {
+                RawResults res = new RawResults(opsPerInv);
+                loop(bench, states, bh, control, res);
+                res.operations /= batchSize;
+                control.addMeasuredOps(res.getOperations());
+                return new AverageTimeResult(ResultRole.PRIMARY, label, res.getOperations(), res.getTime(), tu);
+            }
+            case SampleTime: {
+                int targetSamples = (int) (control.getDuration(TimeUnit.MILLISECONDS) * 20);
+                SampleBuffer buffer = new SampleBuffer();
+                sampleLoop(bench, states, bh, control, buffer, targetSamples, opsPerInv, batchSize);
+                control.addMeasuredOps(buffer.count() * batchSize * opsPerInv);
+                return new SampleTimeResult(ResultRole.PRIMARY, label, buffer, tu);
+            }
+            case FixedRate: {
+                int threads = control.benchmarkParams.getThreads();
+                long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(threads) / control.benchmarkParams.getTargetRate()));
+                long offset = interval * threadParams.getThreadIndex() / threads;
+                RawResults res = new RawResults(opsPerInv);
+                SampleBuffer buffer = new SampleBuffer();
+                fixedRateLoop(bench, states, bh, control, res, buffer, interval, offset, opsPerInv, batchSize);
+                control.addMeasuredOps(res.getOperations());
+                return new FixedRateResult(ResultRole.PRIMARY, label, buffer, res.operations, res.missed, res.getTime(), tu);
+            }
+            default:
+                throw new IllegalStateException("Unknown mode: " + mode);
+        }
+    }
+
+    private void sampleLoop(Object bench, Object[] states, Blackhole bh, InfraControl control, SampleBuffer buffer,
+                            int targetSamples, long opsPerInv, int batchSize) throws Throwable {
+        int rnd = (int) System.nanoTime();
+        int rndMask = startRndMask;
+        long time = 0;
+        int currentStride = 0;
+        long sampleWeight = 1;
+        do {
+            rnd = (rnd * 1664525 + 1013904223);
+            boolean sample = (rnd & rndMask) == 0;
+            if (sample) {
+                time = System.nanoTime();
+            }
+            for (int b = 0; b < batchSize; b++) {
+                if (control.volatileSpoiler) return;
+                invoke(bench, states, bh);
+            }
+            if (sample) {
+                buffer.add((System.nanoTime() - time) / opsPerInv, sampleWeight);
+                if (currentStride++ > targetSamples) {
+                    currentStride = 0;
+                    rndMask = (rndMask << 1) + 1;
+                    sampleWeight <<= 1;
+                }
+            }
+        } while (!control.isDone);
+        startRndMask = Math.max(startRndMask, rndMask);
+    }
+
+    private void fixedRateLoop(Object bench, Object[] states, Blackhole bh, InfraControl control, RawResults result, SampleBuffer buffer,
+                               long interval, long offset, long opsPerInv, int batchSize) throws Throwable {
+        long operations = 0;
+        long missed = 0;
+        result.startTime = System.nanoTime();
+        long intendedTime = result.startTime + offset;
+        do {
+            long startTime;
+            while ((startTime = System.nanoTime()) < intendedTime) {
+                if (control.isDone) break;
+                long wait = intendedTime - startTime;
+                if (wait > 50000L) LockSupport.parkNanos(wait - 50000L);
+            }
+            // the wait could be cut short by the end of iteration, there is no
+            // meaningful response time for such the call, see BenchmarkGenerator.generateFixedRate
+            if (startTime >= intendedTime) {
+                for (int b = 0; b < batchSize; b++) {
+                    if (control.volatileSpoiler) return;
+                    invoke(bench, states, bh);
+                }
+                buffer.add((System.nanoTime() - intendedTime) / opsPerInv);
+                if (startTime - intendedTime >= interval) {
+                    missed++;
+                }
+                intendedTime += interval;
+                operations++;
+            }
+        } while (!control.isDone);
+        result.stopTime = System.nanoTime();
+        result.operations = operations;
+        result.missed = missed;
+    }
+
+    private void singleShotLoop(Object bench, Object[] states, Blackhole bh, int batchSize, RawResults result) throws Throwable {
+        long time1 = System.nanoTime();
+        for (int b = 0; b < batchSize; b++) {
+            invoke(bench, states, bh);
+        }
+        long time2 = System.nanoTime();
+        result.realTime = time2 - time1;
+    }
+
+    /**
+     * @return classes of the state arguments of the benchmark method, in the declaration order
+     */
+    private static Class<?>[] stateClasses(Class<?> benchmarkClass, String methodName) {
+        for (Method m : ClassUtils.enumerateMethods(benchmarkClass)) {
+            if (m.getName().equals(methodName) && m.getAnnotation(Benchmark.class) != null) {
+                List<Class<?>> result = new ArrayList<Class<?>>();
+                for (Class<?> type : m.getParameterTypes()) {
+                    if (type != Blackhole.class) {
+                        result.add(type);
+                    }
+                }
+                return result.toArray(new Class<?>[result.size()]);
+            }
+        }
+        throw new IllegalStateException("Unable to find the benchmark method: " + benchmarkClass.getName() + "." + methodName);
+    }
+
+    private static Scope scope(Class<?> klass) {
+        for (Class<?> c = klass; c != null; c = c.getSuperclass()) {
+            State state = c.getAnnotation(State.class);
+            if (state != null) {
+                return state.value();
+            }
+        }
+        // benchmark classes without @State are instantiated per thread
+        return Scope.Thread;
+    }
+
+    private void tryInit(InfraControl control, ThreadParams threadParams) throws Throwable {
+        if (blackhole == null) {
+            blackhole = _jmh_tryInit_blackhole();
+        }
+        if (instances == null) {
+            // the same class stands for the same instance, shared objects are set up first
+            Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+            classes.add(benchmarkClass);
+            classes.addAll(Arrays.asList(stateClasses));
+
+            List<Instance> list = new ArrayList<Instance>();
+            Map<Class<?>, Object> objects = new HashMap<Class<?>, Object>();
+            for (Scope scope : new Scope[]{Scope.Benchmark, Scope.Group, Scope.Thread}) {
+                for (Class<?> c : classes) {
+                    if (scope(c) != scope) continue;
+                    Instance inst = instance(c, scope, control, threadParams);
+                    list.add(inst);
+                    objects.put(c, inst.bench);
+                }
+            }
+
+            Object[] objs = new Object[stateClasses.length];
+            for (int i = 0; i < stateClasses.length; i++) {
+                objs[i] = objects.get(stateClasses[i]);
+            }
+
+            bench = objects.get(benchmarkClass);
+            states = objs;
+            instances = list;
+        }
+    }
+
+    private static Instance instance(Class<?> klass, Scope scope, InfraControl control, ThreadParams threadParams) throws Throwable {
+        Object key;
+        switch (scope) {
+            case Benchmark:
+                key = klass;
+                break;
+            case Group:
+                key = Arrays.asList(klass, threadParams.getGroupIndex());
+                break;
+            default:
+                Instance inst = new Instance(klass, null, control);
+                inst.setupTrial();
+                return inst;
+        }
+
+        synchronized (SHARED) {
+            Instance inst = SHARED.get(key);
+            if (inst == null) {
+                inst = new Instance(klass, key, control);
+                inst.setupTrial();
+                SHARED.put(key, inst);
+            }
+            return inst;
+        }
+    }
+
+    private void tearDown() throws Throwable {
+        for (int i = instances.size() - 1; i >= 0; i--) {
+            Instance inst = instances.get(i);
+            inst.tearDownTrial();
+            if (inst.key != null) {
+                synchronized (SHARED) {
+                    SHARED.remove(inst.key);
+                }
+            }
+        }
+        instances = null;
+        bench = null;
+        states = null;
+        blackhole = null;
+    }
+
+    /**
+     * Benchmark instance along with its fixture methods.
+     * All fixtures are guarded with the ready flags, so that the shared instances
+     * are set up and torn down only once.
+     */
+    private static class Instance {
+        private final Object bench;
+        private final Object key;
+        private final Map<Level, List<Method>> setups;
+        private final Map<Level, List<Method>> tearDowns;
+        private boolean readyTrial;
+        private boolean readyIteration;
+
+        Instance(Class<?> benchmarkClass, Object key, InfraControl control) throws Throwable {
+            this.bench = benchmarkClass.newInstance();
+            this.key = key;
+            this.setups = new HashMap<Level, List<Method>>();
+
+            for (Class<?> c = benchmarkClass; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (f.getAnnotation(Param.class) != null) {
+                        f.setAccessible(true);
+                        f.set(bench, convert(f.getType(), control.getParam(f.getName())));
+                    }
+                }
+            }
+            this.tearDowns = new HashMap<Level, List<Method>>();
+
+            // skip the overridden fixtures, and let superclass fixtures go first
+            List<Method> methods = new ArrayList<Method>();
+            Set<String> seen = new HashSet<String>();
+            for (Method m : ClassUtils.enumerateMethods(benchmarkClass)) {
+                if (seen.add(m.getName() + Arrays.toString(m.getParameterTypes()))) {
+                    methods.add(m);
+                }
+            }
+            Collections.reverse(methods);
+            for (Method m : methods) {
+                Setup setup = m.getAnnotation(Setup.class);
+                if (setup != null) {
+                    add(setups, setup.value(), m);
+                }
+                TearDown tearDown = m.getAnnotation(TearDown.class);
+                if (tearDown != null) {
+                    add(tearDowns, tearDown.value(), m);
+                }
+            }
+        }
+
+        /**
+         * Converts the parameter value the same way the generated code does.
+         */
+        @SuppressWarnings("unchecked")
+        private static Object convert(Class<?> type, String value) {
+            if (type == String.class) {
+                return value;
+            } else if (type == boolean.class || type == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == byte.class || type == Byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == short.class || type == Short.class) {
+                return Short.valueOf(value);
+            } else if (type == char.class || type == Character.class) {
+                return value.charAt(0);
+            } else if (type == int.class || type == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (type == float.class || type == Float.class) {
+                return Float.valueOf(value);
+            } else if (type == long.class || type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == double.class || type == Double.class) {
+                return Double.valueOf(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+            throw new IllegalStateException("Unsupported @Param type: " + type.getName());
+        }
+
+        private static void add(Map<Level, List<Method>> map, Level level, Method m) {
+            List<Method> list = map.get(level);
+            if (list == null) {
+                list = new ArrayList<Method>();
+                map.put(level, list);
+            }
+            m.setAccessible(true);
+            list.add(m);
+        }
+
+        synchronized void setupTrial() throws Throwable {
+            if (!readyTrial) {
+                call(setups.get(Level.Trial));
+                readyTrial = true;
+            }
+        }
+
+        synchronized void setupIteration() throws Throwable {
+            if (!readyIteration) {
+                call(setups.get(Level.Iteration));
+                readyIteration = true;
+            }
+        }
+
+        synchronized void tearDownIteration() throws Throwable {
+            if (readyIteration) {
+                call(tearDowns.get(Level.Iteration));
+                readyIteration = false;
+            }
+        }
+
+        synchronized void tearDownTrial() throws Throwable {
+            if (readyTrial) {
+                call(tearDowns.get(Level.Trial));
+                readyTrial = false;
+            }
+        }
+
+        private void call(List<Method> methods) throws Throwable {
+            if (methods == null) return;
+            for (Method m : methods) {
+                try {
+                    m.invoke(bench);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.generators.core.BenchmarkGenerator;
+import org.openjdk.jmh.generators.core.ClassInfo;
+import org.openjdk.jmh.generators.core.GenerationException;
+import org.openjdk.jmh.generators.core.GeneratorSource;
+import org.openjdk.jmh.generators.core.MethodInfo;
+import org.openjdk.jmh.generators.core.ParameterInfo;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.RawResults;
+import org.openjdk.jmh.runner.InfraControl;
+
+import java.util.Collection;
+
+/**
+ * Emits the benchmark stubs straight into bytecode, bypassing the Java source generation
+ * and compilation. The stubs extend {@link RuntimeStub}, and have the same shape as
+ * the ones produced by {@link org.openjdk.jmh.generators.core.BenchmarkGenerator},
+ * so the harness can not tell the difference.
+ *
+ * <p>Benchmark methods may accept {@link Blackhole}-s and {@link State} objects, and
+ * both the benchmark class and the states may have {@link Param} fields. Benchmark methods
+ * should not be asynchronous, there should be no {@link Group}-s, {@link Scope#Node} states,
+ * {@link AuxCounters} or {@link Level#Invocation} fixtures, and the fixtures should not
+ * accept arguments. Other benchmarks still need the generated sources.</p>
+ */
+public class RuntimeStubGenerator {
+
+    private static final String STUB = Type.getInternalName(RuntimeStub.class);
+    private static final String BLACKHOLE = Type.getInternalName(Blackhole.class);
+    private static final String CONTROL = Type.getInternalName(InfraControl.class);
+    private static final String RAW_RESULTS = Type.getInternalName(RawResults.class);
+
+    private final GeneratorSource source;
+
+    public RuntimeStubGenerator(GeneratorSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Generate the stub class.
+     *
+     * @param generatedClassName fully qualified name of the stub class
+     * @param userClassName fully qualified name of the benchmark class
+     * @param methodName benchmark method name, or group name
+     * @return stub class bytecode
+     * @throws GenerationException if benchmark is not supported
+     */
+    public byte[] generate(String generatedClassName, String userClassName, String methodName) {
+        ClassInfo userClass = null;
+        for (ClassInfo ci : source.getClasses()) {
+            if (ci.getQualifiedName().equals(userClassName)) {
+                userClass = ci;
+            }
+        }
+        if (!(userClass instanceof ASMClassInfo)) {
+            throw new GenerationException("Unable to find the benchmark class: " + userClassName, userClass);
+        }
+
+        MethodInfo method = null;
+        for (ClassInfo ci = userClass; ci != null && method == null; ci = ci.getSuperClass()) {
+            for (MethodInfo mi : ci.getMethods()) {
+                if (mi.getAnnotation(Benchmark.class) == null) continue;
+
+                // group benchmarks are listed under the group name
+                Group group = mi.getAnnotation(Group.class);
+                if (mi.getName().equals(methodName) || (group != null && group.value().equals(methodName))) {
+                    method = mi;
+                }
+            }
+            if (ci.getQualifiedName().equals(Object.class.getName())) {
+                break;
+            }
+        }
+        if (!(method instanceof ASMMethodInfo)) {
+            throw new GenerationException("Unable to find the benchmark method: " + userClassName + "." + methodName, userClass);
+        }
+
+        validate(userClass, method);
+
+        String owner = ((ASMClassInfo) userClass).getIdName();
+        String desc = ((ASMMethodInfo) method).getDescriptor();
+        String name = generatedClassName.replace('.', '/');
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // stubs never merge the different reference types,
+                // do not try to load the classes here
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null, STUB, null);
+
+        generateConstructor(cw, owner, methodName);
+        generateBlackhole(cw);
+        generateInvoke(cw, owner, methodName, desc, method.isStatic());
+        generateLoop(cw, owner, methodName, desc, method.isStatic());
+
+        for (Mode mode : Mode.values()) {
+            if (mode == Mode.All) continue;
+            generateEntry(cw, name, methodName, mode);
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private void validate(ClassInfo userClass, MethodInfo method) {
+        if (method.getAnnotation(Group.class) != null) {
+            throw new GenerationException("@" + Group.class.getSimpleName() + " benchmarks are not supported by runtime stubs.", method);
+        }
+
+        if (BenchmarkGenerator.isAsync(method)) {
+            throw new GenerationException("Asynchronous benchmarks are not supported by runtime stubs.", method);
+        }
+
+        validateState(userClass);
+
+        for (ParameterInfo pi : method.getParameters()) {
+            ClassInfo type = pi.getType();
+            if (type.getQualifiedName().equals(Blackhole.class.getCanonicalName())) continue;
+            if (!isState(type)) {
+                throw new GenerationException("Only " + Blackhole.class.getSimpleName() + " and @" + State.class.getSimpleName() +
+                        " arguments are supported by runtime stubs.", pi);
+            }
+            validateState(type);
+        }
+    }
+
+    private static boolean isState(ClassInfo type) {
+        for (ClassInfo ci = type; ci != null; ci = ci.getSuperClass()) {
+            if (ci.getAnnotation(State.class) != null) {
+                return true;
+            }
+            if (ci.getQualifiedName().equals(Object.class.getName())) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private void validateState(ClassInfo type) {
+        for (ClassInfo ci = type; ci != null; ci = ci.getSuperClass()) {
+            if (ci.getQualifiedName().equals(Object.class.getName())) {
+                break;
+            }
+
+            State state = ci.getAnnotation(State.class);
+            if (state != null && state.value() == Scope.Node) {
+                throw new GenerationException("@" + State.class.getSimpleName() + "(" + Scope.class.getSimpleName() + "." +
+                        Scope.Node + ") is not supported by runtime stubs.", ci);
+            }
+
+            if (ci.getAnnotation(AuxCounters.class) != null) {
+                throw new GenerationException("@" + AuxCounters.class.getSimpleName() + " are not supported by runtime stubs.", ci);
+            }
+
+            for (MethodInfo mi : ci.getMethods()) {
+                Setup setup = mi.getAnnotation(Setup.class);
+                TearDown tearDown = mi.getAnnotation(TearDown.class);
+                if (setup == null && tearDown == null) continue;
+
+                if ((setup != null && setup.value() == Level.Invocation) ||
+                        (tearDown != null && tearDown.value() == Level.Invocation)) {
+                    throw new GenerationException(Level.class.getSimpleName() + "." + Level.Invocation +
+                            " fixtures are not supported by runtime stubs.", mi);
+                }
+                if (!mi.getParameters().isEmpty()) {
+                    throw new GenerationException("Fixtures with arguments are not supported by runtime stubs.", mi);
+                }
+            }
+        }
+    }
+
+    private void generateConstructor(ClassWriter cw, String owner, String label) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitLdcInsn(Type.getObjectType(owner));
+        mv.visitLdcInsn(label);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, STUB, "<init>",
+                Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Class.class), Type.getType(String.class)), false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Blackhole constructor checks the caller is the generated "_jmh_tryInit_" method.
+     */
+    private void generateBlackhole(ClassWriter cw) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "_jmh_tryInit_blackhole", "()L" + BLACKHOLE + ";", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, BLACKHOLE);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, BLACKHOLE, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * void invoke(Object bench, Object[] states, Blackhole bh)
+     */
+    private void generateInvoke(ClassWriter cw, String owner, String methodName, String desc, boolean isStatic) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "invoke",
+                "(Ljava/lang/Object;[Ljava/lang/Object;L" + BLACKHOLE + ";)V", null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+        if (!isStatic) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+            mv.visitVarInsn(Opcodes.ASTORE, 4);
+        }
+        int[] argLocals = emitStates(mv, desc, 2, 3, 5);
+        emitCall(mv, owner, methodName, desc, isStatic, 4, 3, argLocals);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * void loop(Object bench, Object[] states, Blackhole bh, InfraControl control, RawResults result)
+     */
+    private void generateLoop(ClassWriter cw, String owner, String methodName, String desc, boolean isStatic) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PROTECTED, "loop",
+                "(Ljava/lang/Object;[Ljava/lang/Object;L" + BLACKHOLE + ";L" + CONTROL + ";L" + RAW_RESULTS + ";)V",
+                null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+
+        // long operations = 0;
+        mv.visitInsn(Opcodes.LCONST_0);
+        mv.visitVarInsn(Opcodes.LSTORE, 6);
+
+        if (!isStatic) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+            mv.visitVarInsn(Opcodes.ASTORE, 8);
+        }
+        int[] argLocals = emitStates(mv, desc, 2, 3, 9);
+
+        // result.startTime = System.nanoTime();
+        mv.visitVarInsn(Opcodes.ALOAD, 5);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, RAW_RESULTS, "startTime", "J");
+
+        // do { call; operations++; } while (!control.isDone);
+        Label loop = new Label();
+        mv.visitLabel(loop);
+        emitCall(mv, owner, methodName, desc, isStatic, 8, 3, argLocals);
+        mv.visitVarInsn(Opcodes.LLOAD, 6);
+        mv.visitInsn(Opcodes.LCONST_1);
+        mv.visitInsn(Opcodes.LADD);
+        mv.visitVarInsn(Opcodes.LSTORE, 6);
+        mv.visitVarInsn(Opcodes.ALOAD, 4);
+        mv.visitFieldInsn(Opcodes.GETFIELD, CONTROL, "isDone", "Z");
+        mv.visitJumpInsn(Opcodes.IFEQ, loop);
+
+        // result.stopTime = System.nanoTime();
+        mv.visitVarInsn(Opcodes.ALOAD, 5);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, RAW_RESULTS, "stopTime", "J");
+
+        // result.operations = operations;
+        mv.visitVarInsn(Opcodes.ALOAD, 5);
+        mv.visitVarInsn(Opcodes.LLOAD, 6);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, RAW_RESULTS, "operations", "J");
+
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Collection method_Mode(InfraControl control, ThreadParams threadParams), the harness entry point.
+     */
+    private void generateEntry(ClassWriter cw, String name, String methodName, Mode mode) {
+        String modeDesc = Type.getDescriptor(Mode.class);
+        String controlDesc = Type.getDescriptor(InfraControl.class);
+        String threadParamsDesc = Type.getDescriptor(ThreadParams.class);
+        String collectionDesc = Type.getDescriptor(Collection.class);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, methodName + "_" + mode,
+                "(" + controlDesc + threadParamsDesc + ")" + collectionDesc,
+                null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(Mode.class), mode.name(), modeDesc);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, "run",
+                "(" + modeDesc + controlDesc + threadParamsDesc + ")" + collectionDesc, false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Unpacks the state arguments into the locals, so that the loop does not touch the array.
+     * @return locals to load the benchmark method arguments from
+     */
+    private int[] emitStates(MethodVisitor mv, String desc, int statesLocal, int bhLocal, int firstLocal) {
+        Type[] args = Type.getArgumentTypes(desc);
+        int[] locals = new int[args.length];
+        int state = 0;
+        for (int c = 0; c < args.length; c++) {
+            if (args[c].getInternalName().equals(BLACKHOLE)) {
+                locals[c] = bhLocal;
+            } else {
+                mv.visitVarInsn(Opcodes.ALOAD, statesLocal);
+                mv.visitLdcInsn(state);
+                mv.visitInsn(Opcodes.AALOAD);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, args[c].getInternalName());
+                mv.visitVarInsn(Opcodes.ASTORE, firstLocal + state);
+                locals[c] = firstLocal + state;
+                state++;
+            }
+        }
+        return locals;
+    }
+
+    /**
+     * Calls the benchmark method, and consumes the result into the blackhole.
+     */
+    private void emitCall(MethodVisitor mv, String owner, String methodName, String desc, boolean isStatic, int benchLocal, int bhLocal, int[] argLocals) {
+        Type returnType = Type.getReturnType(desc);
+        boolean consume = (returnType.getSort() != Type.VOID);
+
+        if (consume) {
+            mv.visitVarInsn(Opcodes.ALOAD, bhLocal);
+        }
+        if (!isStatic) {
+            mv.visitVarInsn(Opcodes.ALOAD, benchLocal);
+        }
+        for (int local : argLocals) {
+            mv.visitVarInsn(Opcodes.ALOAD, local);
+        }
+        mv.visitMethodInsn(isStatic ? Opcodes.INVOKESTATIC : Opcodes.INVOKEVIRTUAL, owner, methodName, desc, false);
+        if (consume) {
+            String argDesc;
+            switch (returnType.getSort()) {
+                case Type.ARRAY:
+                case Type.OBJECT:
+                    argDesc = "Ljava/lang/Object;";
+                    break;
+                default:
+                    argDesc = returnType.getDescriptor();
+            }
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BLACKHOLE, "consume", "(" + argDesc + ")V", false);
+        }
+    }
+
+}
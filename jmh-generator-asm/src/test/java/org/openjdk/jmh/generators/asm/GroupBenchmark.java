@@ -22,22 +22,20 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.generators.asm;
 
-import org.openjdk.jmh.runner.BenchmarkException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 
-import java.io.Serializable;
+@State(Scope.Group)
+public class GroupBenchmark {
 
-class ExceptionFrame implements Serializable {
-    private static final long serialVersionUID = 5595622047639653401L;
-
-    private final BenchmarkException error;
-
-    public ExceptionFrame(BenchmarkException error) {
-        this.error = error;
+    @Benchmark
+    @Group("g")
+    public void test() {
+        // do nothing
     }
 
-    public BenchmarkException getError() {
-        return error;
-    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,26 +22,37 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.generators.asm;
 
-import java.io.Serializable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 
-class InfraFrame implements Serializable {
-    private static final long serialVersionUID = 6341776120773421805L;
+@State(Scope.Benchmark)
+public class ParamBenchmark {
 
-    private final Type type;
+    public static volatile int seen;
 
-    public InfraFrame(Type type) {
-        this.type = type;
+    @Param("1")
+    public int x;
+
+    @State(Scope.Thread)
+    public static class Data {
+        @Param("2")
+        public int y;
     }
 
-    public Type getType() {
-        return type;
+    @Benchmark
+    public int test() {
+        return x;
     }
 
-    public enum Type {
-        OPTIONS_REQUEST,
-        ACTION_PLAN_REQUEST,
+    @Benchmark
+    public void testState(Blackhole bh, Data d) {
+        seen = x + d.y;
+        bh.consume(seen);
     }
 
 }
@@ -22,32 +22,32 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jmh.runner.link;
+package org.openjdk.jmh.generators.asm;
 
-import java.io.Serializable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 
-class OutputFrame implements Serializable {
-    private static final long serialVersionUID = 8570795333046092668L;
+@State(Scope.Thread)
+public class PlainBenchmark {
 
-    private final Type type;
-    private final byte[] data;
+    private int x;
 
-    public OutputFrame(Type type, byte[] data) {
-        this.type = type;
-        this.data = data;
+    @Setup
+    public void setup() {
+        x = 42;
     }
 
-    public byte[] getData() {
-        return data;
+    @Benchmark
+    public int test() {
+        return x;
     }
 
-    public Type getType() {
-        return type;
-    }
-
-    public static enum Type {
-        OUT,
-        ERR,
+    @Benchmark
+    public void testBlackhole(Blackhole bh) {
+        bh.consume(x);
     }
 
 }
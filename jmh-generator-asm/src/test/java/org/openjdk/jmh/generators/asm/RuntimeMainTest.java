@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+
+/**
+ * Runs the benchmark end-to-end through {@link RuntimeMain}.
+ */
+public class RuntimeMainTest {
+
+    private static int countTempDirs() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("jmh-stubs") || name.startsWith("jmh-sources");
+            }
+        });
+        return (names != null) ? names.length : 0;
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        File compiled = new File(PlainBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        int tempDirs = countTempDirs();
+        int ecode = RuntimeMain.run(compiled, new String[]{
+                PlainBenchmark.class.getCanonicalName() + ".test$",
+                "-foe", "true",
+                "-f", "1",
+                "-wi", "0",
+                "-i", "1",
+                "-r", "100ms",
+        });
+
+        Assert.assertEquals(0, ecode);
+        Assert.assertEquals("Temporary stub directories should be cleaned up", tempDirs, countTempDirs());
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        File compiled = new File(GroupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        int ecode = RuntimeMain.run(compiled, new String[]{
+                GroupBenchmark.class.getCanonicalName() + ".g$",
+                "-foe", "true",
+                "-f", "1",
+                "-wi", "0",
+                "-i", "1",
+                "-r", "100ms",
+        });
+
+        Assert.assertEquals("Unsupported benchmarks should fail the run", 1, ecode);
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.generators.core.GenerationException;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.FixedRateResult;
+import org.openjdk.jmh.runner.InfraControl;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkloadParams;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+public class RuntimeStubGeneratorTest {
+
+    private RuntimeStubGenerator gen;
+
+    @Before
+    public void setUp() throws IOException {
+        ASMGeneratorSource source = new ASMGeneratorSource();
+        process(source, PlainBenchmark.class);
+        process(source, ParamBenchmark.class);
+        process(source, ParamBenchmark.Data.class);
+        process(source, GroupBenchmark.class);
+        gen = new RuntimeStubGenerator(source);
+    }
+
+    private static void process(ASMGeneratorSource source, Class<?> klass) throws IOException {
+        String name = klass.getName();
+        InputStream is = klass.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class");
+        try {
+            source.processClass(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    private static Class<?> define(final String name, final byte[] bytes) throws ClassNotFoundException {
+        ClassLoader cl = new ClassLoader(RuntimeStubGeneratorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String n) throws ClassNotFoundException {
+                if (n.equals(name)) {
+                    return defineClass(n, bytes, 0, bytes.length);
+                }
+                return super.findClass(n);
+            }
+        };
+        return Class.forName(name, true, cl);
+    }
+
+    @Test
+    public void testPlain() throws Exception {
+        String name = "org.openjdk.jmh.generators.asm.generated.PlainBenchmark_test_jmhTest";
+        Class<?> stub = define(name, gen.generate(name, PlainBenchmark.class.getName(), "test"));
+
+        Assert.assertEquals(RuntimeStub.class, stub.getSuperclass());
+        for (Mode mode : Mode.values()) {
+            if (mode == Mode.All) continue;
+            Assert.assertNotNull(stub.getMethod("test_" + mode, InfraControl.class, ThreadParams.class));
+        }
+        Assert.assertNotNull(stub.newInstance());
+    }
+
+    @Test
+    public void testPlainBlackhole() throws Exception {
+        String name = "org.openjdk.jmh.generators.asm.generated.PlainBenchmark_testBlackhole_jmhTest";
+        Class<?> stub = define(name, gen.generate(name, PlainBenchmark.class.getName(), "testBlackhole"));
+
+        Assert.assertEquals(RuntimeStub.class, stub.getSuperclass());
+        Assert.assertNotNull(stub.newInstance());
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        String name = "org.openjdk.jmh.generators.asm.generated.PlainBenchmark_test_jmhTest";
+        Class<?> stub = define(name, gen.generate(name, PlainBenchmark.class.getName(), "test"));
+
+        final Object inst = stub.newInstance();
+        final Method m = stub.getMethod("test_" + Mode.FixedRate, InfraControl.class, ThreadParams.class);
+
+        // one call per second: the first call is due right away, and the end of iteration
+        // cuts the wait for the second call short
+        IterationParams ip = new IterationParams(IterationType.MEASUREMENT, 1, TimeValue.milliseconds(200), 1);
+        BenchmarkParams bp = new BenchmarkParams("blah", "blah", false, 1, new int[]{1}, 1, 0,
+                ip, ip, Mode.FixedRate, new WorkloadParams(), TimeUnit.MICROSECONDS, 1,
+                Utils.getCurrentJvm(), Collections.<String>emptyList(),
+                TimeValue.days(1), 1);
+
+        final InfraControl control = new InfraControl(bp, ip, new CountDownLatch(1), new CountDownLatch(1),
+                true, false, null, false);
+        final ThreadParams tp = new ThreadParams(0, 1, 0, 1, 0, 1, 0, 1, 0, 1);
+
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(m.invoke(inst, control, tp));
+                } catch (Exception e) {
+                    result.set(e);
+                }
+            }
+        });
+        t.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        control.isDone = true;
+        LockSupport.unpark(t);
+        t.join();
+
+        Assert.assertTrue(String.valueOf(result.get()), result.get() instanceof Collection);
+        FixedRateResult r = (FixedRateResult) ((Collection<?>) result.get()).iterator().next();
+
+        Assert.assertEquals("Only the first call is due", 1, r.getOperations());
+        Assert.assertEquals("Every operation has a sample", r.getOperations(), r.getStatistics().getN());
+        // cut short calls would record negative response times, clamped to zero
+        Assert.assertTrue("No cut short samples: " + r.getStatistics().getMin(), r.getStatistics().getMin() > 0);
+    }
+
+    @Test
+    public void testParam() throws Exception {
+        String name = "org.openjdk.jmh.generators.asm.generated.ParamBenchmark_test_jmhTest";
+        Class<?> stub = define(name, gen.generate(name, ParamBenchmark.class.getName(), "test"));
+
+        Assert.assertEquals(RuntimeStub.class, stub.getSuperclass());
+        Assert.assertNotNull(stub.newInstance());
+    }
+
+    @Test
+    public void testState() throws Exception {
+        String name = "org.openjdk.jmh.generators.asm.generated.ParamBenchmark_testState_jmhTest";
+        Class<?> stub = define(name, gen.generate(name, ParamBenchmark.class.getName(), "testState"));
+
+        final Object inst = stub.newInstance();
+        final Method m = stub.getMethod("testState_" + Mode.AverageTime, InfraControl.class, ThreadParams.class);
+
+        WorkloadParams params = new WorkloadParams();
+        params.put("x", "3", 0);
+        params.put("y", "4", 0);
+
+        IterationParams ip = new IterationParams(IterationType.MEASUREMENT, 1, TimeValue.milliseconds(100), 1);
+        BenchmarkParams bp = new BenchmarkParams("blah", "blah", false, 1, new int[]{1}, 1, 0,
+                ip, ip, Mode.AverageTime, params, TimeUnit.MICROSECONDS, 1,
+                Utils.getCurrentJvm(), Collections.<String>emptyList(),
+                TimeValue.days(1), 1);
+
+        final InfraControl control = new InfraControl(bp, ip, new CountDownLatch(1), new CountDownLatch(1),
+                true, false, null, false);
+        final ThreadParams tp = new ThreadParams(0, 1, 0, 1, 0, 1, 0, 1, 0, 1);
+
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(m.invoke(inst, control, tp));
+                } catch (Exception e) {
+                    result.set(e);
+                }
+            }
+        });
+        ParamBenchmark.seen = 0;
+        t.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        control.isDone = true;
+        t.join();
+
+        Assert.assertTrue(String.valueOf(result.get()), result.get() instanceof Collection);
+        Assert.assertEquals("Both params are injected", 7, ParamBenchmark.seen);
+    }
+
+    @Test(expected = GenerationException.class)
+    public void testRejectGroup() {
+        String name = "org.openjdk.jmh.generators.asm.generated.GroupBenchmark_g_jmhTest";
+        gen.generate(name, GroupBenchmark.class.getName(), "g");
+    }
+
+    @Test(expected = GenerationException.class)
+    public void testRejectMissing() {
+        String name = "org.openjdk.jmh.generators.asm.generated.PlainBenchmark_missing_jmhTest";
+        gen.generate(name, PlainBenchmark.class.getName(), "missing");
+    }
+
+}